@@ -0,0 +1,104 @@
+package com.example.poker.config;
+
+import org.apache.catalina.connector.Connector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * 集群端口配置
+ * <p>
+ * 启用HTTP集群转发时另开一个只供节点之间使用的端口：/internal/** 只能从这个端口访问，
+ * 这个端口上也只提供 /internal/**，玩家使用的公开端口上访问内部接口一律返回404。
+ * game.cluster.nodes 中的节点地址应指向各节点的集群端口。
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "game.cluster.transport", havingValue = "http")
+public class ClusterPortConfig {
+
+    static final String INTERNAL_PREFIX = "/internal/";
+
+    @Value("${game.cluster.port:8091}")
+    private int clusterPort;
+
+    /** 集群端口绑定的地址，为空时绑定所有地址 */
+    @Value("${game.cluster.address:}")
+    private String clusterAddress;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    /**
+     * 在内嵌Tomcat上增加集群端口
+     * @return Tomcat定制器
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> clusterConnector() {
+        if (clusterPort == serverPort) {
+            throw new IllegalStateException("game.cluster.port 不能与 server.port 相同");
+        }
+        return factory -> {
+            Connector connector = new Connector(TomcatServletWebServerFactory.DEFAULT_PROTOCOL);
+            connector.setPort(clusterPort);
+            if (!clusterAddress.isBlank()) {
+                try {
+                    connector.setProperty("address", InetAddress.getByName(clusterAddress).getHostAddress());
+                } catch (UnknownHostException e) {
+                    throw new IllegalStateException("无法解析 game.cluster.address: " + clusterAddress, e);
+                }
+            }
+            factory.addAdditionalTomcatConnectors(connector);
+        };
+    }
+
+    /**
+     * 按端口隔离内部接口的过滤器，排在安全过滤器之前
+     * @return 过滤器注册
+     */
+    @Bean
+    public FilterRegistrationBean<InternalPortFilter> internalPortFilter() {
+        FilterRegistrationBean<InternalPortFilter> registration =
+                new FilterRegistrationBean<>(new InternalPortFilter(clusterPort));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * 内部接口只走集群端口，集群端口只提供内部接口
+     */
+    static final class InternalPortFilter extends OncePerRequestFilter {
+
+        private final int clusterPort;
+
+        InternalPortFilter(int clusterPort) {
+            this.clusterPort = clusterPort;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            boolean internal = path.startsWith(INTERNAL_PREFIX);
+            if (internal != (request.getLocalPort() == clusterPort)) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            chain.doFilter(request, response);
+        }
+    }
+}
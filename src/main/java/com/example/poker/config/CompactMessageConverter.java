@@ -0,0 +1,92 @@
+package com.example.poker.config;
+
+import com.example.poker.util.CompactCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 紧凑二进制消息转换器
+ * <p>
+ * 内容类型为 {@link #MIME_TYPE} 的消息体是 {@link CompactCodec} 编码后再做Base64的文本，
+ * SockJS只能传输文本帧，直接发送二进制会被按UTF-8破坏。
+ * 只在内容类型明确匹配时参与转换，没有指定内容类型的消息仍由JSON转换器处理。
+ * 广播消息由 {@link #transcodeJson(byte[])} 按会话转码，同一份JSON负载只转码一次。
+ * </p>
+ */
+public class CompactMessageConverter extends AbstractMessageConverter {
+
+    public static final MimeType MIME_TYPE = new MimeType("application", "x-poker-compact");
+
+    /** 最近转码过的负载数量，广播给多个会话时命中 */
+    private static final int TRANSCODE_CACHE_SIZE = 64;
+
+    private final ObjectMapper objectMapper;
+
+    // byte[] 按引用比较，代理向每个订阅者发送的是同一个负载数组
+    private final Map<byte[], byte[]> transcoded = new LinkedHashMap<byte[], byte[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<byte[], byte[]> eldest) {
+            return size() > TRANSCODE_CACHE_SIZE;
+        }
+    };
+
+    public CompactMessageConverter(ObjectMapper objectMapper) {
+        super(MIME_TYPE);
+        this.objectMapper = objectMapper;
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        byte[] body = (byte[]) message.getPayload();
+        JsonNode node = CompactCodec.decode(Base64.getDecoder().decode(body));
+        try {
+            return objectMapper.treeToValue(node, targetClass);
+        } catch (IOException e) {
+            throw new RuntimeException("解码消息失败", e);
+        }
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return Base64.getEncoder().encode(CompactCodec.encode(objectMapper.valueToTree(payload)));
+    }
+
+    /**
+     * 把已经序列化好的JSON负载转码为紧凑编码
+     * @param json JSON负载
+     * @return Base64文本形式的紧凑编码
+     */
+    public byte[] transcodeJson(byte[] json) {
+        synchronized (transcoded) {
+            byte[] cached = transcoded.get(json);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        byte[] result;
+        try {
+            result = Base64.getEncoder().encode(CompactCodec.encode(objectMapper.readTree(json)));
+        } catch (IOException e) {
+            throw new RuntimeException("转码消息失败", e);
+        }
+        synchronized (transcoded) {
+            transcoded.put(json, result);
+        }
+        return result;
+    }
+}
@@ -3,8 +3,8 @@ package com.example.poker.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import javax.annotation.PreDestroy;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,11 +20,14 @@ public class ExecutorConfig {
 
     /**
      * 创建定时任务线程池
+     * 取消的任务立即从队列中移除，避免大量被取消的机器人回合堆积
      * @return ScheduledExecutorService实例
      */
     @Bean
     public ScheduledExecutorService scheduledExecutorService() {
-        scheduledExecutorService = Executors.newScheduledThreadPool(1);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        scheduledExecutorService = executor;
         return scheduledExecutorService;
     }
     
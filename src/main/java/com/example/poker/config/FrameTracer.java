@@ -0,0 +1,429 @@
+package com.example.poker.config;
+
+import com.example.poker.dto.DestinationTraceStats;
+import com.example.poker.dto.FrameTraceStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * STOMP入站帧追踪
+ * <p>
+ * 入站通道上的每一帧只做计数和耗时统计：按命令和目标地址累加次数，
+ * 处理耗时（该帧在所有订阅处理器上的耗时之和）记入以2为底的对数直方图。完整的帧（头和内容前若干字节）按固定间隔抽样，
+ * 放入有界环形缓冲区，由单独的线程写到 com.example.poker.trace 日志；
+ * 缓冲区满时直接丢弃并计数，入站线程从不等待日志输出。
+ * </p>
+ */
+@Component
+public class FrameTracer implements ExecutorChannelInterceptor {
+
+    /** 抽样帧写入的日志 */
+    private static final Logger traceLog = LoggerFactory.getLogger("com.example.poker.trace");
+
+    /** 记录帧进入入站通道时间的消息头 */
+    static final String ENQUEUED_HEADER = "traceEnqueuedNanos";
+
+    /** 入站通道把同一帧分别交给每个订阅的处理器，这个消息头汇总各处理器的耗时 */
+    static final String PENDING_HEADER = "tracePendingFrame";
+
+    /** StompHeaderAccessor 保存STOMP命令的消息头 */
+    private static final String STOMP_COMMAND_HEADER = "stompCommand";
+
+    /** 直方图桶数，第i个桶记录 [2^i, 2^(i+1)) 微秒 */
+    private static final int BUCKETS = 32;
+
+    /** 目标地址数超过上限后，新的地址合并到这里 */
+    private static final String OTHER_DESTINATION = "*";
+
+    @Value("${game.trace.enabled:true}")
+    private boolean enabled = true;
+
+    /** 每隔多少帧抽样记录一帧完整内容，0表示不抽样 */
+    @Value("${game.trace.sample-every:100}")
+    private int sampleEvery = 100;
+
+    /** 抽样缓冲区容量 */
+    @Value("${game.trace.buffer-size:1024}")
+    private int bufferSize = 1024;
+
+    /** 抽样记录的内容字节上限 */
+    @Value("${game.trace.payload-bytes:256}")
+    private int payloadBytes = 256;
+
+    /** 分别统计的目标地址上限 */
+    @Value("${game.trace.max-destinations:256}")
+    private int maxDestinations = 256;
+
+    /** 保留在内存中供管理页面查看的抽样数 */
+    private static final int RECENT_SAMPLES = 50;
+
+    /** 命令 + 目标地址 -> 统计 */
+    private final Map<String, DestinationStats> destinations = new ConcurrentHashMap<>();
+
+    private final AtomicLong frames = new AtomicLong();
+    private final LongAdder sampledFrames = new LongAdder();
+    private final LongAdder droppedSamples = new LongAdder();
+
+    /** 处理开始时间，beforeHandle和afterMessageHandled在同一线程上 */
+    private final ThreadLocal<long[]> handleStart = ThreadLocal.withInitial(() -> new long[1]);
+    private BlockingQueue<FrameSample> buffer;
+    private final Deque<String> recent = new ArrayDeque<>(RECENT_SAMPLES);
+    private Thread sinkThread;
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+        sinkThread = new Thread(this::drain, "frame-trace-sink");
+        sinkThread.setDaemon(true);
+        sinkThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sinkThread != null) {
+            sinkThread.interrupt();
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!enabled) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor != null && accessor.isMutable()) {
+            accessor.setHeader(ENQUEUED_HEADER, System.nanoTime());
+            int handlers = channel instanceof AbstractSubscribableChannel
+                    ? ((AbstractSubscribableChannel) channel).getSubscribers().size() : 1;
+            if (handlers > 1) {
+                accessor.setHeader(PENDING_HEADER, new PendingFrame(handlers));
+            }
+        }
+        long n = frames.incrementAndGet();
+        if (sampleEvery > 0 && n % sampleEvery == 0) {
+            sample(message);
+        }
+        return message;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (enabled) {
+            handleStart.get()[0] = System.nanoTime();
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        long started = handleStart.get()[0];
+        Object pending = message.getHeaders().get(PENDING_HEADER);
+        if (!(pending instanceof PendingFrame)) {
+            recordHandled(message, started, now - started);
+            return;
+        }
+        // 每个处理器都会回调一次，最后一个完成时才记录这一帧
+        PendingFrame frame = (PendingFrame) pending;
+        if (frame.handled(started, now - started)) {
+            recordHandled(message, frame.firstStarted, frame.handleNanos);
+        }
+    }
+
+    private void recordHandled(Message<?> message, long started, long handleNanos) {
+        Object enqueued = message.getHeaders().get(ENQUEUED_HEADER);
+        long queueNanos = enqueued instanceof Long ? started - (Long) enqueued : -1;
+        record(message, handleNanos, queueNanos);
+    }
+
+    /**
+     * 记录一帧的处理耗时
+     * @param message 消息
+     * @param handleNanos 处理耗时（纳秒）
+     * @param queueNanos 排队时间（纳秒），未知时为负数
+     */
+    void record(Message<?> message, long handleNanos, long queueNanos) {
+        String command = commandOf(message);
+        String destination = normalize(SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+        DestinationStats stats = destinations.get(command + " " + destination);
+        if (stats == null) {
+            String name = destinations.size() >= maxDestinations ? OTHER_DESTINATION : destination;
+            stats = destinations.computeIfAbsent(command + " " + name, key -> new DestinationStats(command, name));
+        }
+        stats.add(handleNanos / 1000, queueNanos < 0 ? -1 : queueNanos / 1000);
+    }
+
+    /**
+     * 获取统计和最近的抽样
+     * @return 追踪统计
+     */
+    public FrameTraceStats getStats() {
+        List<DestinationTraceStats> list = new ArrayList<>(destinations.size());
+        for (DestinationStats stats : destinations.values()) {
+            list.add(stats.snapshot());
+        }
+        list.sort(Comparator.comparingLong(DestinationTraceStats::getCount).reversed());
+        List<String> samples;
+        synchronized (recent) {
+            samples = new ArrayList<>(recent);
+        }
+        return FrameTraceStats.builder()
+                .destinations(list)
+                .sampledFrames(sampledFrames.sum())
+                .droppedSamples(droppedSamples.sum())
+                .recentSamples(samples)
+                .build();
+    }
+
+    /**
+     * 抽样记录完整帧，只复制头和内容前缀，格式化在写日志的线程上进行
+     */
+    private void sample(Message<?> message) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        Principal user = accessor.getUser();
+        byte[] payload = message.getPayload() instanceof byte[] ? (byte[]) message.getPayload() : new byte[0];
+        FrameSample frame = new FrameSample(
+                System.currentTimeMillis(),
+                commandOf(message),
+                accessor.getDestination(),
+                accessor.getSessionId(),
+                user != null ? user.getName() : null,
+                accessor.toNativeHeaderMap(),
+                payload.length,
+                Arrays.copyOf(payload, Math.min(payload.length, payloadBytes)));
+        if (buffer != null && buffer.offer(frame)) {
+            sampledFrames.increment();
+        } else {
+            droppedSamples.increment();
+        }
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            FrameSample frame;
+            try {
+                frame = buffer.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (frame == null) {
+                continue;
+            }
+            String line = frame.format();
+            traceLog.info(line);
+            synchronized (recent) {
+                if (recent.size() == RECENT_SAMPLES) {
+                    recent.removeFirst();
+                }
+                recent.addLast(line);
+            }
+        }
+    }
+
+    private static String commandOf(Message<?> message) {
+        StompCommand command = (StompCommand) message.getHeaders().get(STOMP_COMMAND_HEADER);
+        if (command != null) {
+            return command.name();
+        }
+        Object type = message.getHeaders().get(SimpMessageHeaderAccessor.MESSAGE_TYPE_HEADER);
+        return type != null ? type.toString() : "UNKNOWN";
+    }
+
+    /**
+     * 带数字的路径段（房间ID、时间戳等）替换为 *，避免目标地址无限增长
+     * @param destination 目标地址
+     * @return 归一化后的地址
+     */
+    static String normalize(String destination) {
+        if (destination == null) {
+            return "-";
+        }
+        StringBuilder sb = new StringBuilder(destination.length());
+        int start = 0;
+        while (start <= destination.length()) {
+            int end = destination.indexOf('/', start);
+            if (end < 0) {
+                end = destination.length();
+            }
+            String segment = destination.substring(start, end);
+            boolean hasDigit = false;
+            for (int i = 0; i < segment.length() && !hasDigit; i++) {
+                hasDigit = Character.isDigit(segment.charAt(i));
+            }
+            sb.append(hasDigit ? "*" : segment);
+            if (end < destination.length()) {
+                sb.append('/');
+            }
+            start = end + 1;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 分发给多个处理器的一帧，累加各处理器的耗时
+     */
+    private static final class PendingFrame {
+        private final int handlers;
+        private int handled;
+        private long firstStarted;
+        private long handleNanos;
+
+        PendingFrame(int handlers) {
+            this.handlers = handlers;
+        }
+
+        /**
+         * 记录一个处理器的耗时
+         * @return 是否所有处理器都已完成
+         */
+        synchronized boolean handled(long started, long nanos) {
+            if (handled == 0 || started - firstStarted < 0) {
+                firstStarted = started;
+            }
+            handleNanos += nanos;
+            return ++handled == handlers;
+        }
+    }
+
+    /**
+     * 一个目标地址的计数和耗时直方图
+     */
+    private static final class DestinationStats {
+        private final String command;
+        private final String destination;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final LongAdder queueMicros = new LongAdder();
+        private final LongAdder queueCount = new LongAdder();
+        private final AtomicLong maxMicros = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        DestinationStats(String command, String destination) {
+            this.command = command;
+            this.destination = destination;
+        }
+
+        void add(long micros, long queued) {
+            count.increment();
+            totalMicros.add(micros);
+            maxMicros.accumulateAndGet(micros, Math::max);
+            histogram.incrementAndGet(bucket(micros));
+            if (queued >= 0) {
+                queueMicros.add(queued);
+                queueCount.increment();
+            }
+        }
+
+        DestinationTraceStats snapshot() {
+            long n = count.sum();
+            long queuedN = queueCount.sum();
+            return DestinationTraceStats.builder()
+                    .command(command)
+                    .destination(destination)
+                    .count(n)
+                    .avgMicros(n == 0 ? 0 : totalMicros.sum() / n)
+                    .p50Micros(percentile(n, 0.50))
+                    .p99Micros(percentile(n, 0.99))
+                    .maxMicros(maxMicros.get())
+                    .avgQueueMicros(queuedN == 0 ? 0 : queueMicros.sum() / queuedN)
+                    .build();
+        }
+
+        /**
+         * 按桶上界估计分位数
+         */
+        private long percentile(long n, double quantile) {
+            if (n == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(n * quantile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram.get(i);
+                if (seen >= target) {
+                    return (1L << (i + 1)) - 1;
+                }
+            }
+            return maxMicros.get();
+        }
+
+        private static int bucket(long micros) {
+            if (micros <= 0) {
+                return 0;
+            }
+            return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        }
+    }
+
+    /**
+     * 抽样的一帧
+     */
+    private static final class FrameSample {
+        private final long timestamp;
+        private final String command;
+        private final String destination;
+        private final String sessionId;
+        private final String user;
+        private final Map<String, List<String>> headers;
+        private final int payloadLength;
+        private final byte[] payloadPrefix;
+
+        FrameSample(long timestamp, String command, String destination, String sessionId, String user,
+                    Map<String, List<String>> headers, int payloadLength, byte[] payloadPrefix) {
+            this.timestamp = timestamp;
+            this.command = command;
+            this.destination = destination;
+            this.sessionId = sessionId;
+            this.user = user;
+            this.headers = headers;
+            this.payloadLength = payloadLength;
+            this.payloadPrefix = payloadPrefix;
+        }
+
+        String format() {
+            return Instant.ofEpochMilli(timestamp) + " " + command
+                    + " destination=" + destination
+                    + " session=" + sessionId
+                    + " user=" + user
+                    + " headers=" + headers
+                    + " payload(" + payloadLength + ")="
+                    + new String(payloadPrefix, StandardCharsets.UTF_8)
+                    + (payloadPrefix.length < payloadLength ? "..." : "");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.poker.config;
+
+import com.example.poker.util.RandomProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 随机数配置类
+ */
+@Configuration
+public class RandomConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RandomConfig.class);
+
+    /**
+     * 创建随机数提供者，并设为全局默认
+     * @param mode 随机数模式（SPLITTABLE / SECURE / SEEDED）
+     * @param seed SEEDED模式的种子
+     * @return RandomProvider实例
+     */
+    @Bean
+    public RandomProvider randomProvider(@Value("${game.random.mode:SPLITTABLE}") RandomProvider.Mode mode,
+                                         @Value("${game.random.seed:0}") long seed) {
+        RandomProvider provider = new RandomProvider(mode, seed);
+        RandomProvider.setDefault(provider);
+        logger.info("随机数模式: {}", mode);
+        return provider;
+    }
+}
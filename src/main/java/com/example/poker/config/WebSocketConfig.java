@@ -1,37 +1,156 @@
 package com.example.poker.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+
 /**
  * WebSocket配置类
  * 用于配置WebSocket连接和消息代理
+ * 客户端在CONNECT帧中带上 {@code codec: compact} 头时，发给该会话的JSON消息转码为紧凑编码
+ * 启用 game.broker.relay.enabled 后改用外部STOMP消息代理（如RabbitMQ、ActiveMQ），
+ * 多个节点共享同一个代理，任一节点发布的房间消息都能送到连接在其他节点上的客户端，
+ * 外部代理需要类路径上有 reactor-netty（使用 {@code mvn -Pbroker-relay} 构建），缺少时启动失败
+ * 入站、出站通道的线程池和每个会话的发送限制由 game.ws.* 配置，慢客户端由 {@link WebSocketFlowControl} 处理
  */
 @Configuration
 @EnableWebSocketMessageBroker
 @Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    /** CONNECT帧中协商编码的头 */
+    public static final String CODEC_HEADER = "codec";
+    public static final String CODEC_COMPACT = "compact";
+
+    /** 外部消息代理使用的TCP客户端，来自 reactor-netty */
+    static final String RELAY_CLIENT_CLASS = "reactor.netty.tcp.TcpClient";
+
+    /** 协商了紧凑编码的会话 */
+    private final Set<String> compactSessions = ConcurrentHashMap.newKeySet();
+
+    private CompactMessageConverter compactConverter;
+
+    /** 是否使用外部消息代理 */
+    @Value("${game.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${game.broker.relay.host:localhost}")
+    private String relayHost = "localhost";
+
+    @Value("${game.broker.relay.port:61613}")
+    private int relayPort = 61613;
+
+    @Value("${game.broker.relay.login:guest}")
+    private String relayLogin = "guest";
+
+    @Value("${game.broker.relay.passcode:guest}")
+    private String relayPasscode = "guest";
+
+    @Value("${game.ws.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize = 8;
+
+    @Value("${game.ws.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize = 32;
+
+    @Value("${game.ws.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity = 10000;
+
+    @Value("${game.ws.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize = 8;
+
+    @Value("${game.ws.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize = 32;
+
+    @Value("${game.ws.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity = 10000;
+
+    /** 一次发送超过该时间（毫秒）视为慢客户端 */
+    @Value("${game.ws.send-time-limit-millis:10000}")
+    private int sendTimeLimit = 10000;
+
+    /** 每个会话待发送的字节上限 */
+    @Value("${game.ws.send-buffer-size:524288}")
+    private int sendBufferSize = 512 * 1024;
+
+    /** 入站消息的字节上限 */
+    @Value("${game.ws.message-size-limit:65536}")
+    private int messageSizeLimit = 64 * 1024;
+
+    @Autowired
+    private WebSocketFlowControl flowControl;
+
+    @Autowired
+    private FrameTracer frameTracer;
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.compactConverter = new CompactMessageConverter(objectMapper);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // 只处理明确声明为紧凑编码的消息，保留默认的JSON转换器
+        messageConverters.add(compactConverter);
+        return true;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // 启用简单消息代理
-        config.enableSimpleBroker("/topic", "/queue");
+        if (relayEnabled) {
+            // 外部消息代理，需要运行时类路径上有 reactor-netty，缺少时在启动时明确报错而不是在首次连接时失败
+            if (!ClassUtils.isPresent(RELAY_CLIENT_CLASS, getClass().getClassLoader())) {
+                throw new IllegalStateException("game.broker.relay.enabled=true 需要类路径上有 reactor-netty，"
+                        + "请使用 mvn -Pbroker-relay 构建，或自行添加 io.projectreactor.netty:reactor-netty 依赖");
+            }
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    // 用户目标在本节点找不到会话时广播给其他节点，并在节点间同步在线用户
+                    .setUserDestinationBroadcast("/topic/unresolved-user")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            log.info("使用外部消息代理 {}:{}", relayHost, relayPort);
+        } else {
+            // 启用简单消息代理
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         // 设置应用程序目标前缀
         config.setApplicationDestinationPrefixes("/app");
         // 设置用户目标前缀
         config.setUserDestinationPrefix("/user");
+        // 同一会话的消息按发布顺序送达，保证增量事件和快照的版本顺序
+        config.setPreservePublishOrder(true);
     }
 
     @Override
@@ -42,43 +161,98 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .withSockJS();
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimit)
+                .setSendBufferSizeLimit(sendBufferSize)
+                .setMessageSizeLimit(messageSizeLimit);
+    }
+
+    /**
+     * 创建通道线程池，队列满后按给定策略拒绝并计数
+     */
+    private ThreadPoolTaskExecutor channelExecutor(RejectedExecutionHandler rejectionHandler) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setRejectedExecutionHandler(rejectionHandler);
+        return executor;
+    }
+
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutor(flowControl.inboundRejectionHandler()))
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
         registration.interceptors(new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
                 StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
                 
                 if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+                    negotiateCodec(accessor);
                     String username = accessor.getFirstNativeHeader("login");
                     if (username != null) {
-                        log.info("用户连接 - 用户名: " + username);
-                        log.info("所有头信息: " + accessor.toString());
+                        log.debug("用户连接 - 用户名: {}", username);
                         accessor.setUser(() -> username);
                     } else {
-                        log.error("用户连接但未提供用户名");
-                        log.error("连接头信息: " + accessor.toString());
-                    }
-                } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
-                    // 记录订阅信息
-                    String destination = accessor.getDestination();
-                    log.info("用户订阅 - 目标: " + destination);
-                    if (accessor.getUser() != null) {
-                        log.info("订阅用户: " + accessor.getUser().getName());
-                    } else {
-                        log.error("无法识别订阅用户");
-                    }
-                } else if (StompCommand.SEND.equals(accessor.getCommand())) {
-                    // 记录发送消息信息
-                    String destination = accessor.getDestination();
-                    log.info("用户发送消息 - 目标: " + destination);
-                    if (accessor.getUser() != null) {
-                        log.info("发送用户: " + accessor.getUser().getName());
+                        log.warn("用户连接但未提供用户名 - 会话: {}", accessor.getSessionId());
                     }
+                } else if (StompCommand.DISCONNECT.equals(accessor.getCommand())) {
+                    compactSessions.remove(accessor.getSessionId());
                 }
+                // 订阅和发送由FrameTracer按目标地址统计并抽样记录，不再逐帧写日志
                 
                 return message;
             }
+        }, frameTracer);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutor(flowControl.outboundRejectionHandler()))
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                return encodeForSession(message);
+            }
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * 发给协商了紧凑编码的会话的JSON消息转码为紧凑编码，其他消息原样返回
+     * @param message 发往客户端的消息
+     * @return 转码后的消息
+     */
+    Message<?> encodeForSession(Message<?> message) {
+        if (compactSessions.isEmpty() || !(message.getPayload() instanceof byte[])) {
+            return message;
+        }
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !compactSessions.contains(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()))) {
+            return message;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        MimeType contentType = accessor.getContentType();
+        if (contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+        byte[] payload = compactConverter.transcodeJson((byte[]) message.getPayload());
+        accessor.setContentType(CompactMessageConverter.MIME_TYPE);
+        accessor.setNativeHeader(StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER, CompactMessageConverter.MIME_TYPE.toString());
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    /**
+     * 根据CONNECT帧的codec头记录会话使用的编码
+     * @param accessor CONNECT帧头
+     */
+    void negotiateCodec(StompHeaderAccessor accessor) {
+        if (CODEC_COMPACT.equals(accessor.getFirstNativeHeader(CODEC_HEADER))) {
+            compactSessions.add(accessor.getSessionId());
+            log.info("会话使用紧凑编码 - 会话: " + accessor.getSessionId());
+        }
+    }
+}
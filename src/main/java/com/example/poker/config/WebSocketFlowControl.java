@@ -0,0 +1,264 @@
+package com.example.poker.config;
+
+import com.example.poker.dto.WebSocketChannelStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket流量控制
+ * <p>
+ * 替换Spring默认的 {@link SubProtocolWebSocketHandler}，给每个会话套上带积压检测的发送装饰器。
+ * 会话的一次发送超过时间限制或待发送字节超过缓冲上限时视为慢客户端：
+ * DROP 模式下只丢弃带版本号的房间更新帧（客户端发现版本号不连续后会请求快照重新同步），
+ * 同一会话积压次数超过上限后断开；手牌、错误提示等没有版本号的帧丢了客户端无法察觉，
+ * 积压时照常按发送限制处理，超限即断开；TERMINATE 模式下直接断开。
+ * 同时统计通道线程池的排队和拒绝情况。
+ * </p>
+ */
+@Component
+@Slf4j
+public class WebSocketFlowControl implements BeanPostProcessor, BeanFactoryAware {
+
+    /** 房间更新的订阅前缀，客户端按版本号检测丢帧 */
+    static final String ROOM_UPDATE_PREFIX = "/topic/game/updates/";
+
+    /** 积压处理方式 */
+    public enum Overflow {
+        /** 丢弃新消息，多次积压后断开 */
+        DROP,
+        /** 立即断开 */
+        TERMINATE
+    }
+
+    @Value("${game.ws.overflow:DROP}")
+    private Overflow overflow = Overflow.DROP;
+
+    /** 同一会话允许进入积压状态的次数，超过后断开 */
+    @Value("${game.ws.max-downgrades:3}")
+    private int maxDowngrades = 3;
+
+    private BeanFactory beanFactory;
+
+    /** 会话ID -> 会话 */
+    private final Map<String, GuardedSession> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicLong sessionDowngrades = new AtomicLong();
+    private final AtomicLong slowSessionsClosed = new AtomicLong();
+    private final AtomicLong inboundRejected = new AtomicLong();
+    private final AtomicLong outboundRejected = new AtomicLong();
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof SubProtocolWebSocketHandler && !(bean instanceof GuardedHandler)) {
+            return new GuardedHandler(
+                    beanFactory.getBean("clientInboundChannel", MessageChannel.class),
+                    beanFactory.getBean("clientOutboundChannel", SubscribableChannel.class));
+        }
+        return bean;
+    }
+
+    /**
+     * 入站通道线程池的拒绝策略，计数后抛出异常
+     * @return 拒绝策略
+     */
+    RejectedExecutionHandler inboundRejectionHandler() {
+        return countingRejection(inboundRejected, "入站");
+    }
+
+    /**
+     * 出站通道线程池的拒绝策略，计数后抛出异常
+     * @return 拒绝策略
+     */
+    RejectedExecutionHandler outboundRejectionHandler() {
+        return countingRejection(outboundRejected, "出站");
+    }
+
+    private RejectedExecutionHandler countingRejection(AtomicLong counter, String name) {
+        return (task, executor) -> {
+            long rejected = counter.incrementAndGet();
+            if (rejected == 1 || rejected % 1000 == 0) {
+                log.warn("{}通道线程池已满，累计拒绝 {} 条消息", name, rejected);
+            }
+            throw new RejectedExecutionException(name + "通道线程池已满");
+        };
+    }
+
+    /**
+     * 获取通道和会话的统计
+     * @return 统计信息
+     */
+    public WebSocketChannelStats getStats() {
+        ThreadPoolExecutor inbound = executor("clientInboundChannelExecutor");
+        ThreadPoolExecutor outbound = executor("clientOutboundChannelExecutor");
+        int lagging = 0;
+        int maxBuffer = 0;
+        long maxSend = 0;
+        for (GuardedSession session : sessions.values()) {
+            if (session.lagging) {
+                lagging++;
+            }
+            maxBuffer = Math.max(maxBuffer, session.getBufferSize());
+            maxSend = Math.max(maxSend, session.getTimeSinceSendStarted());
+        }
+        return WebSocketChannelStats.builder()
+                .inboundQueueDepth(inbound == null ? 0 : inbound.getQueue().size())
+                .inboundActiveThreads(inbound == null ? 0 : inbound.getActiveCount())
+                .inboundRejected(inboundRejected.get())
+                .outboundQueueDepth(outbound == null ? 0 : outbound.getQueue().size())
+                .outboundActiveThreads(outbound == null ? 0 : outbound.getActiveCount())
+                .outboundRejected(outboundRejected.get())
+                .openSessions(sessions.size())
+                .laggingSessions(lagging)
+                .maxSendBufferBytes(maxBuffer)
+                .maxSendMillis(maxSend)
+                .droppedMessages(droppedMessages.get())
+                .sessionDowngrades(sessionDowngrades.get())
+                .slowSessionsClosed(slowSessionsClosed.get())
+                .build();
+    }
+
+    private ThreadPoolExecutor executor(String beanName) {
+        if (beanFactory == null || !beanFactory.containsBean(beanName)) {
+            return null;
+        }
+        ThreadPoolTaskExecutor executor = beanFactory.getBean(beanName, ThreadPoolTaskExecutor.class);
+        try {
+            return executor.getThreadPoolExecutor();
+        } catch (IllegalStateException e) {
+            // 线程池尚未初始化
+            return null;
+        }
+    }
+
+    /**
+     * 包装会话
+     * @param session 原始会话
+     * @param sendTimeLimit 发送时间限制（毫秒）
+     * @param bufferSizeLimit 待发送字节上限
+     * @return 带积压检测的会话
+     */
+    GuardedSession guard(WebSocketSession session, int sendTimeLimit, int bufferSizeLimit) {
+        GuardedSession guarded = new GuardedSession(session, sendTimeLimit, bufferSizeLimit);
+        sessions.put(session.getId(), guarded);
+        return guarded;
+    }
+
+    /**
+     * 把会话装饰成 {@link GuardedSession} 的消息处理器
+     */
+    private final class GuardedHandler extends SubProtocolWebSocketHandler {
+
+        GuardedHandler(MessageChannel clientInboundChannel, SubscribableChannel clientOutboundChannel) {
+            super(clientInboundChannel, clientOutboundChannel);
+        }
+
+        @Override
+        protected WebSocketSession decorateSession(WebSocketSession session) {
+            return guard(session, getSendTimeLimit(), getSendBufferSizeLimit());
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+            sessions.remove(session.getId());
+            super.afterConnectionClosed(session, closeStatus);
+        }
+    }
+
+    /**
+     * 带积压检测的会话
+     */
+    final class GuardedSession extends ConcurrentWebSocketSessionDecorator {
+
+        /** 是否处于积压状态，缓冲清空后恢复 */
+        private volatile boolean lagging;
+
+        /** 本会话进入积压状态的次数 */
+        private final AtomicInteger downgrades = new AtomicInteger();
+
+        GuardedSession(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit) {
+            super(delegate, sendTimeLimit, bufferSizeLimit, OverflowStrategy.TERMINATE);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (overflow == Overflow.DROP && isDroppable(message)) {
+                boolean exceeded = getTimeSinceSendStarted() > getSendTimeLimit()
+                        || getBufferSize() + message.getPayloadLength() > getBufferSizeLimit();
+                if (exceeded) {
+                    droppedMessages.incrementAndGet();
+                    if (!lagging) {
+                        lagging = true;
+                        sessionDowngrades.incrementAndGet();
+                        int count = downgrades.incrementAndGet();
+                        log.warn("会话发送积压，开始丢弃消息 - 会话: {}, 第 {} 次", getId(), count);
+                        if (count > maxDowngrades) {
+                            slowSessionsClosed.incrementAndGet();
+                            throw new SessionLimitExceededException(
+                                    "会话多次发送积压", CloseStatus.SESSION_NOT_RELIABLE);
+                        }
+                    }
+                    return;
+                }
+                if (lagging && getBufferSize() == 0) {
+                    lagging = false;
+                }
+            }
+            try {
+                super.sendMessage(message);
+            } catch (SessionLimitExceededException e) {
+                slowSessionsClosed.incrementAndGet();
+                throw e;
+            }
+        }
+
+        boolean isLagging() {
+            return lagging;
+        }
+
+        /**
+         * 只丢弃房间更新的MESSAGE帧，控制帧和其他订阅的消息照常发送
+         */
+        private boolean isDroppable(WebSocketMessage<?> message) {
+            if (!(message instanceof TextMessage)) {
+                return false;
+            }
+            String payload = ((TextMessage) message).getPayload();
+            if (!payload.startsWith("MESSAGE\n")) {
+                return false;
+            }
+            int headersEnd = payload.indexOf("\n\n");
+            int destination = payload.indexOf("\ndestination:" + ROOM_UPDATE_PREFIX);
+            return destination >= 0 && (headersEnd < 0 || destination < headersEnd);
+        }
+    }
+}
@@ -1,9 +1,21 @@
 package com.example.poker.controller;
 
+import com.example.poker.config.FrameTracer;
+import com.example.poker.config.WebSocketFlowControl;
 import com.example.poker.dto.AdminSystemInfo;
+import com.example.poker.dto.FrameTraceStats;
+import com.example.poker.dto.RecoveryStats;
+import com.example.poker.dto.RoomQueueStats;
+import com.example.poker.dto.RobotSearchStats;
+import com.example.poker.dto.RoomStoreStats;
+import com.example.poker.dto.WebSocketChannelStats;
 import com.example.poker.model.Player;
 import com.example.poker.model.Room;
 import com.example.poker.service.AdminService;
+import com.example.poker.service.RoomExecutor;
+import com.example.poker.service.RoomRecovery;
+import com.example.poker.service.RobotSearchPool;
+import com.example.poker.service.RoomStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -27,6 +39,12 @@ public class AdminController {
     private final AdminService adminService;
     private final SimpMessagingTemplate messagingTemplate;
     private final WebSocketController webSocketController;
+    private final RoomExecutor roomExecutor;
+    private final WebSocketFlowControl flowControl;
+    private final FrameTracer frameTracer;
+    private final RoomRecovery roomRecovery;
+    private final RoomStore roomStore;
+    private final RobotSearchPool robotSearchPool;
 
     /**
      * 获取所有房间信息
@@ -260,6 +278,93 @@ public class AdminController {
         }
     }
 
+    /**
+     * 获取各房间命令队列的深度和处理耗时
+     * @return 房间队列统计列表
+     */
+    @GetMapping("/admin/room-queues")
+    public ResponseEntity<?> getRoomQueueStats() {
+        if (!checkAdminAccess()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "需要管理员权限"));
+        }
+        List<RoomQueueStats> stats = roomExecutor.getStats();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * 获取WebSocket通道的排队、拒绝和慢客户端统计
+     * @return 通道统计
+     */
+    @GetMapping("/admin/websocket-channels")
+    public ResponseEntity<?> getWebSocketChannelStats() {
+        if (!checkAdminAccess()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "需要管理员权限"));
+        }
+        WebSocketChannelStats stats = flowControl.getStats();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * 获取入站STOMP帧按目标地址的计数、耗时分布和最近的抽样帧
+     * @return 帧追踪统计
+     */
+    @GetMapping("/admin/frame-trace")
+    public ResponseEntity<?> getFrameTraceStats() {
+        if (!checkAdminAccess()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "需要管理员权限"));
+        }
+        FrameTraceStats stats = frameTracer.getStats();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * 获取启动时从游戏日志恢复房间的结果
+     * @return 恢复统计
+     */
+    @GetMapping("/admin/recovery")
+    public ResponseEntity<?> getRecoveryStats() {
+        if (!checkAdminAccess()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "需要管理员权限"));
+        }
+        RecoveryStats stats = roomRecovery.getLastRecovery();
+        if (stats == null) {
+            return ResponseEntity.ok(Map.of("message", "启动时未进行恢复"));
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * 获取房间信息写回数据库的队列和批量写入统计
+     * @return 写回统计
+     */
+    @GetMapping("/admin/room-store")
+    public ResponseEntity<?> getRoomStoreStats() {
+        if (!checkAdminAccess()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "需要管理员权限"));
+        }
+        RoomStoreStats stats = roomStore.getStats();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * 获取专家机器人搜索线程池的并发、耗时和迭代统计
+     * @return 搜索统计
+     */
+    @GetMapping("/admin/robot-search")
+    public ResponseEntity<?> getRobotSearchStats() {
+        if (!checkAdminAccess()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "需要管理员权限"));
+        }
+        RobotSearchStats stats = robotSearchPool.getStats();
+        return ResponseEntity.ok(stats);
+    }
+
     /**
      * 检查管理员权限
      * @return 是否有管理员权限
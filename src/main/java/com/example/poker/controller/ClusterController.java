@@ -0,0 +1,90 @@
+package com.example.poker.controller;
+
+import com.example.poker.dto.ClusterCommand;
+import com.example.poker.service.HttpClusterTransport;
+import com.example.poker.service.RoomRouter;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 集群内部接口
+ * 接收其他节点转发来的房间命令和需要答复的请求；只在启用HTTP集群转发时注册，
+ * 请求必须带上集群共享密钥，并且只能从集群端口访问（见 {@code ClusterPortConfig}）
+ */
+@RestController
+@RequestMapping("/internal/cluster")
+@ConditionalOnProperty(name = "game.cluster.transport", havingValue = "http")
+public class ClusterController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterController.class);
+
+    @Autowired
+    private RoomRouter roomRouter;
+
+    @Value("${game.cluster.secret:}")
+    private String secret;
+
+    @PostConstruct
+    public void init() {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("启用集群转发时必须配置 game.cluster.secret");
+        }
+    }
+
+    /**
+     * 执行转发来的房间命令
+     * @param token 集群共享密钥
+     * @param command 房间命令
+     * @return 响应实体
+     */
+    @PostMapping("/commands")
+    public ResponseEntity<Void> receive(
+            @RequestHeader(value = HttpClusterTransport.SECRET_HEADER, required = false) String token,
+            @RequestBody ClusterCommand command) {
+        if (!authorized(token, command)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        roomRouter.receive(command);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * 回答其他节点的请求
+     * @param token 集群共享密钥
+     * @param command 请求命令
+     * @return 答复
+     */
+    @PostMapping("/requests")
+    public ResponseEntity<JsonNode> answer(
+            @RequestHeader(value = HttpClusterTransport.SECRET_HEADER, required = false) String token,
+            @RequestBody ClusterCommand command) {
+        if (!authorized(token, command)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(roomRouter.answer(command));
+    }
+
+    private boolean authorized(String token, ClusterCommand command) {
+        if (token == null || !MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8))) {
+            logger.warn("拒绝未通过校验的集群命令 - 房间: {}, 来源: {}", command.getRoomId(), command.getOriginNode());
+            return false;
+        }
+        return true;
+    }
+}
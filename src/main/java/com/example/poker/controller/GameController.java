@@ -3,16 +3,22 @@ package com.example.poker.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import com.example.poker.dto.RoomActionRequest;
+import com.example.poker.dto.RoomPage;
+import com.example.poker.dto.RoomQuery;
 import com.example.poker.model.*;
 import com.example.poker.service.GameService;
 import com.example.poker.service.RoomManagementService;
+import com.example.poker.service.RoomRouter;
 
+import javax.annotation.PostConstruct;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 游戏REST控制器
- * 处理游戏相关的HTTP请求
+ * 处理游戏相关的HTTP请求；房间不在本节点时改变房间状态的请求转发给所属节点，
+ * 立即返回202，结果和WebSocket命令一样通过房间更新推送
  */
 @RestController
 @RequestMapping("/api/game")
@@ -24,6 +30,36 @@ public class GameController {
     @Autowired
     private RoomManagementService roomManagementService;
 
+    @Autowired
+    private RoomRouter roomRouter;
+
+    /**
+     * 转发来的REST房间操作由房间的所属节点执行，离开房间复用 {@link RoomRouter#LEAVE_ROOM}
+     */
+    @PostConstruct
+    public void registerRoutes() {
+        roomRouter.register("/api/game/join", RoomActionRequest.class,
+                request -> roomManagementService.joinRoom(request.getRoomId(), request.getPlayerId()));
+        roomRouter.register("/api/game/ready", RoomActionRequest.class,
+                request -> gameService.playerReady(request.getRoomId(), request.getPlayerId()));
+        roomRouter.register("/api/game/start", RoomActionRequest.class,
+                request -> gameService.startGame(request.getRoomId(), request.getPlayerId(), request.getDeckCount()));
+        roomRouter.register("/api/game/pass", RoomActionRequest.class,
+                request -> gameService.pass(request.getRoomId(), request.getPlayerId()));
+        roomRouter.register("/api/game/play", GameMessage.class,
+                message -> gameService.playCards(message.getRoomId(), message));
+        roomRouter.register("/api/game/challenge", GameMessage.class,
+                message -> gameService.challenge(message.getRoomId(), message));
+    }
+
+    /**
+     * 房间不在本节点时转发
+     * @return 已转发返回true
+     */
+    private boolean forwardedAction(String roomId, String playerId, Integer deckCount, String destination) {
+        return roomRouter.forwardIfRemote(roomId, playerId, destination, new RoomActionRequest(roomId, playerId, deckCount));
+    }
+
     /**
      * 创建游戏房间
      * @param request 包含房主ID和最大玩家数的请求
@@ -45,6 +81,9 @@ public class GameController {
     @PostMapping("/room/{roomId}/join")
     public ResponseEntity<GameRoom> joinRoom(@PathVariable String roomId, @RequestBody Map<String, String> request) {
         String playerId = request.get("playerId");
+        if (forwardedAction(roomId, playerId, null, "/api/game/join")) {
+            return ResponseEntity.accepted().build();
+        }
         return ResponseEntity.ok(roomManagementService.joinRoom(roomId, playerId));
     }
 
@@ -57,6 +96,13 @@ public class GameController {
     @PostMapping("/room/{roomId}/leave")
     public ResponseEntity<Void> leaveRoom(@PathVariable String roomId, @RequestBody Map<String, String> request) {
         String playerId = request.get("playerId");
+        WebSocketController.LeaveRoomRequest leave = new WebSocketController.LeaveRoomRequest();
+        leave.setRoomId(roomId);
+        leave.setPlayerId(playerId);
+        // 和WebSocket离开房间走同一个地址，所属节点按同样的流程处理
+        if (roomRouter.forwardIfRemote(roomId, playerId, RoomRouter.LEAVE_ROOM, leave)) {
+            return ResponseEntity.accepted().build();
+        }
         roomManagementService.leaveRoom(roomId, playerId);
         return ResponseEntity.ok().build();
     }
@@ -70,6 +116,9 @@ public class GameController {
     @PostMapping("/room/{roomId}/ready")
     public ResponseEntity<GameRoom> playerReady(@PathVariable String roomId, @RequestBody Map<String, String> request) {
         String playerId = request.get("playerId");
+        if (forwardedAction(roomId, playerId, null, "/api/game/ready")) {
+            return ResponseEntity.accepted().build();
+        }
         return ResponseEntity.ok(gameService.playerReady(roomId, playerId));
     }
 
@@ -83,6 +132,9 @@ public class GameController {
     public ResponseEntity<GameRoom> startGame(@PathVariable String roomId, @RequestBody Map<String, Object> request) {
         String playerId = (String) request.get("playerId");
         int deckCount = Integer.parseInt(request.get("deckCount").toString());
+        if (forwardedAction(roomId, playerId, deckCount, "/api/game/start")) {
+            return ResponseEntity.accepted().build();
+        }
         return ResponseEntity.ok(gameService.startGame(roomId, playerId, deckCount));
     }
 
@@ -95,6 +147,9 @@ public class GameController {
     @PostMapping("/room/{roomId}/play")
     public ResponseEntity<GameRoom> playCards(@PathVariable String roomId, @RequestBody GameMessage message) {
         message.setRoomId(roomId);
+        if (roomRouter.forwardIfRemote(roomId, message.getPlayerId(), "/api/game/play", message)) {
+            return ResponseEntity.accepted().build();
+        }
         return ResponseEntity.ok(gameService.playCards(roomId, message));
     }
 
@@ -107,6 +162,9 @@ public class GameController {
     @PostMapping("/room/{roomId}/challenge")
     public ResponseEntity<GameRoom> challenge(@PathVariable String roomId, @RequestBody GameMessage message) {
         message.setRoomId(roomId);
+        if (roomRouter.forwardIfRemote(roomId, message.getPlayerId(), "/api/game/challenge", message)) {
+            return ResponseEntity.accepted().build();
+        }
         return ResponseEntity.ok(gameService.challenge(roomId, message));
     }
 
@@ -119,6 +177,9 @@ public class GameController {
     @PostMapping("/room/{roomId}/pass")
     public ResponseEntity<GameRoom> pass(@PathVariable String roomId, @RequestBody Map<String, String> request) {
         String playerId = request.get("playerId");
+        if (forwardedAction(roomId, playerId, null, "/api/game/pass")) {
+            return ResponseEntity.accepted().build();
+        }
         return ResponseEntity.ok(gameService.pass(roomId, playerId));
     }
 
@@ -153,11 +214,12 @@ public class GameController {
     }
     
     /**
-     * 获取所有游戏房间列表
-     * @return 房间列表
+     * 分页查询游戏房间，只返回房间概要
+     * @param query 查询条件（status、open、maxPlayers、namePrefix、sort、cursor、limit）
+     * @return 一页房间
      */
     @GetMapping("/rooms")
-    public ResponseEntity<List<GameRoom>> getAllRooms() {
-        return ResponseEntity.ok(roomManagementService.getAllRooms());
+    public ResponseEntity<RoomPage> queryRooms(RoomQuery query) {
+        return ResponseEntity.ok(roomManagementService.queryRooms(query));
     }
 }
\ No newline at end of file
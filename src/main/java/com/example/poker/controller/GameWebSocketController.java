@@ -1,8 +1,11 @@
 package com.example.poker.controller;
 
 import com.example.poker.model.*;
+import com.example.poker.service.GameEventPublisher;
 import com.example.poker.service.GameService;
 import com.example.poker.service.RoomManagementService;
+import com.example.poker.service.RoomExecutor;
+import com.example.poker.service.RoomRouter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -10,6 +13,8 @@ import org.springframework.stereotype.Controller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
+
 /**
  * 游戏WebSocket控制器
  * 处理实时游戏消息
@@ -27,13 +32,45 @@ public class GameWebSocketController {
     
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private RoomExecutor roomExecutor;
+
+    @Autowired
+    private GameEventPublisher eventPublisher;
+
+    @Autowired
+    private RoomRouter roomRouter;
+
+    /**
+     * 登记可由其他节点转发来的命令
+     */
+    @PostConstruct
+    public void registerRoutes() {
+        roomRouter.register("/game/action", GameMessage.class, this::handleGameAction);
+        roomRouter.register("/game/sync", GameMessage.class, this::handleSync);
+        roomRouter.register("/game/robots/add", RobotRequest.class, this::handleAddRobots);
+        roomRouter.register("/game/robots/remove", RobotRequest.class, this::handleRemoveRobots);
+    }
     
     /**
      * 处理游戏动作
+     * 动作投递到房间信箱后立即返回，入站线程不等待房间处理
      * @param message 游戏消息
      */
     @MessageMapping("/game/action")
     public void handleGameAction(GameMessage message) {
+        if (roomRouter.forwardIfRemote(message.getRoomId(), message.getPlayerId(), "/game/action", message)) {
+            return;
+        }
+        roomExecutor.submit(message.getRoomId(), () -> dispatchGameAction(message));
+    }
+
+    /**
+     * 在房间信箱线程上分发游戏动作
+     * @param message 游戏消息
+     */
+    private void dispatchGameAction(GameMessage message) {
         try {
             switch (message.getType()) {
                 case "PLAY":
@@ -65,7 +102,7 @@ public class GameWebSocketController {
                     message.setSuccess(false);
                     message.setMessage("未知的动作类型");
                     messagingTemplate.convertAndSendToUser(message.getPlayerId(), "/queue/errors", message);
-                    messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), createErrorNotification(message.getPlayerId(), "未知的动作类型"));
+                    eventPublisher.notify(message.getRoomId(), createErrorNotification(message.getPlayerId(), "未知的动作类型"));
                     break;
             }
         } catch (Exception e) {
@@ -78,28 +115,38 @@ public class GameWebSocketController {
             messagingTemplate.convertAndSendToUser(message.getPlayerId(), "/queue/errors", message);
             
             // 发送通知给房间中的所有玩家
-            messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), createErrorNotification(message.getPlayerId(), e.getMessage()));
+            eventPublisher.notify(message.getRoomId(), createErrorNotification(message.getPlayerId(), e.getMessage()));
         }
     }
     
+    /**
+     * 客户端发现事件版本号不连续时请求完整快照和自己的手牌
+     * @param message 游戏消息（roomId和playerId）
+     */
+    @MessageMapping("/game/sync")
+    public void handleSync(GameMessage message) {
+        if (roomRouter.forwardIfRemote(message.getRoomId(), message.getPlayerId(), "/game/sync", message)) {
+            return;
+        }
+        roomExecutor.submit(message.getRoomId(),
+                () -> gameService.resync(message.getRoomId(), message.getPlayerId()));
+    }
+
     /**
      * 处理玩家出牌
      * @param message 游戏消息
      */
     private void handlePlayCards(GameMessage message) {
         try {
+            // 状态变化由GameService以增量事件发布
             gameService.playCards(message.getRoomId(), message);
             
-            // 发送游戏状态更新
-            GameState state = roomManagementService.getGameState(message.getRoomId());
-            messagingTemplate.convertAndSend("/topic/game/state/" + message.getRoomId(), state);
-            
             // 发送出牌通知
             GameNotification notification = new GameNotification();
             notification.setType("PLAY");
             notification.setPlayerId(message.getPlayerId());
             notification.setContent("玩家 " + message.getPlayerId() + " 打出了 " + message.getDeclaredCount() + " 张 " + message.getDeclaredValue());
-            messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), notification);
+            eventPublisher.notify(message.getRoomId(), notification);
             
             // 检查游戏是否结束
             GameRoom room = roomManagementService.getRoom(message.getRoomId());
@@ -110,15 +157,15 @@ public class GameWebSocketController {
                 // 构建排名信息
                 StringBuilder rankInfo = new StringBuilder("游戏结束！排名：");
                 // 首先列出获胜者
-                for (int i = 0; i < state.getWinners().size(); i++) {
-                    rankInfo.append("\n第").append(i + 1).append("名: 玩家").append(state.getWinners().get(i));
+                for (int i = 0; i < room.getWinners().size(); i++) {
+                    rankInfo.append("\n第").append(i + 1).append("名: 玩家").append(room.getWinners().get(i));
                 }
                 // 如果还有剩下的玩家，他们就是最后一名
-                if (!state.getPlayers().isEmpty()) {
-                    rankInfo.append("\n最后一名: 玩家").append(state.getPlayers().get(0));
+                if (!room.getPlayers().isEmpty()) {
+                    rankInfo.append("\n最后一名: 玩家").append(room.getPlayers().get(0));
                 }
                 endNotification.setContent(rankInfo.toString());
-                messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), endNotification);
+                eventPublisher.notify(message.getRoomId(), endNotification);
             }
         } catch (Exception e) {
             logger.error("处理出牌动作时发生错误: {}", e.getMessage(), e);
@@ -132,18 +179,15 @@ public class GameWebSocketController {
      */
     private void handlePass(GameMessage message) {
         try {
+            // 状态变化由GameService以增量事件发布
             gameService.pass(message.getRoomId(), message.getPlayerId());
             
-            // 发送游戏状态更新
-            GameState state = roomManagementService.getGameState(message.getRoomId());
-            messagingTemplate.convertAndSend("/topic/game/state/" + message.getRoomId(), state);
-            
             // 发送过牌通知
             GameNotification notification = new GameNotification();
             notification.setType("PASS");
             notification.setPlayerId(message.getPlayerId());
             notification.setContent("玩家 " + message.getPlayerId() + " 选择了过牌");
-            messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), notification);
+            eventPublisher.notify(message.getRoomId(), notification);
         } catch (Exception e) {
             logger.error("处理过牌动作时发生错误: {}", e.getMessage(), e);
             throw e; // 重新抛出异常，让全局异常处理器处理
@@ -156,18 +200,15 @@ public class GameWebSocketController {
      */
     private void handleChallenge(GameMessage message) {
         try {
+            // 状态变化由GameService以增量事件发布
             gameService.challenge(message.getRoomId(), message);
             
-            // 发送游戏状态更新
-            GameState state = roomManagementService.getGameState(message.getRoomId());
-            messagingTemplate.convertAndSend("/topic/game/state/" + message.getRoomId(), state);
-            
             // 发送质疑通知
             GameNotification notification = new GameNotification();
             notification.setType("CHALLENGE");
             notification.setPlayerId(message.getPlayerId());
             notification.setContent("玩家 " + message.getPlayerId() + " 对玩家 " + message.getTargetPlayerId() + " 的声明提出质疑");
-            messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), notification);
+            eventPublisher.notify(message.getRoomId(), notification);
             
             // 检查游戏是否结束
             GameRoom room = roomManagementService.getRoom(message.getRoomId());
@@ -178,15 +219,15 @@ public class GameWebSocketController {
                 // 构建排名信息
                 StringBuilder rankInfo = new StringBuilder("游戏结束！排名：");
                 // 首先列出获胜者
-                for (int i = 0; i < state.getWinners().size(); i++) {
-                    rankInfo.append("\n第").append(i + 1).append("名: 玩家").append(state.getWinners().get(i));
+                for (int i = 0; i < room.getWinners().size(); i++) {
+                    rankInfo.append("\n第").append(i + 1).append("名: 玩家").append(room.getWinners().get(i));
                 }
                 // 如果还有剩下的玩家，他们就是最后一名
-                if (!state.getPlayers().isEmpty()) {
-                    rankInfo.append("\n最后一名: 玩家").append(state.getPlayers().get(0));
+                if (!room.getPlayers().isEmpty()) {
+                    rankInfo.append("\n最后一名: 玩家").append(room.getPlayers().get(0));
                 }
                 endNotification.setContent(rankInfo.toString());
-                messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), endNotification);
+                eventPublisher.notify(message.getRoomId(), endNotification);
             }
         } catch (Exception e) {
             logger.error("处理质疑动作时发生错误: {}", e.getMessage(), e);
@@ -201,17 +242,13 @@ public class GameWebSocketController {
     private void handleJoinRoom(GameMessage message) {
         roomManagementService.joinRoom(message.getRoomId(), message.getPlayerId());
         
-        // 发送游戏状态更新
-        GameState state = roomManagementService.getGameState(message.getRoomId());
-        messagingTemplate.convertAndSend("/topic/game/state/" + message.getRoomId(), state);
-        
         // 发送加入通知
         GameNotification notification = new GameNotification();
         notification.setType("JOIN");
         notification.setPlayerId(message.getPlayerId());
         notification.setContent("玩家 " + message.getPlayerId() + " 加入了房间");
         notification.setRoomId(message.getRoomId());
-        messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), notification);
+        eventPublisher.notify(message.getRoomId(), notification);
     }
     
     /**
@@ -221,16 +258,12 @@ public class GameWebSocketController {
     private void handlePlayerReady(GameMessage message) {
         gameService.playerReady(message.getRoomId(), message.getPlayerId());
         
-        // 发送游戏状态更新
-        GameState state = roomManagementService.getGameState(message.getRoomId());
-        messagingTemplate.convertAndSend("/topic/game/state/" + message.getRoomId(), state);
-        
         // 发送准备通知
         GameNotification notification = new GameNotification();
         notification.setType("READY");
         notification.setPlayerId(message.getPlayerId());
         notification.setContent("玩家 " + message.getPlayerId() + " 已准备");
-        messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), notification);
+        eventPublisher.notify(message.getRoomId(), notification);
     }
     
     /**
@@ -239,18 +272,14 @@ public class GameWebSocketController {
      */
     private void handleStartGame(GameMessage message) {
         int deckCount = message.getDeckCount() > 0 ? message.getDeckCount() : 1;
-        gameService.startGame(message.getRoomId(), message.getPlayerId(), deckCount);
-        
-        // 发送游戏状态更新
-        GameState state = roomManagementService.getGameState(message.getRoomId());
-        messagingTemplate.convertAndSend("/topic/game/state/" + message.getRoomId(), state);
+        GameRoom room = gameService.startGame(message.getRoomId(), message.getPlayerId(), deckCount);
         
         // 发送开始游戏通知
         GameNotification notification = new GameNotification();
         notification.setType("START");
         notification.setPlayerId(message.getPlayerId());
-        notification.setContent("游戏开始！玩家 " + state.getCurrentPlayer() + " 先手");
-        messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), notification);
+        notification.setContent("游戏开始！玩家 " + room.getCurrentPlayer() + " 先手");
+        eventPublisher.notify(message.getRoomId(), notification);
     }
     
     /**
@@ -260,17 +289,14 @@ public class GameWebSocketController {
     private void handleLeaveRoom(GameMessage message) {
         roomManagementService.leaveRoom(message.getRoomId(), message.getPlayerId());
         
-        // 如果房间还存在，发送游戏状态更新
+        // 如果房间还存在，发送离开通知
         try {
-            GameState state = roomManagementService.getGameState(message.getRoomId());
-            messagingTemplate.convertAndSend("/topic/game/state/" + message.getRoomId(), state);
-            
             // 发送离开通知
             GameNotification notification = new GameNotification();
             notification.setType("LEAVE");
             notification.setPlayerId(message.getPlayerId());
             notification.setContent("玩家 " + message.getPlayerId() + " 离开了房间");
-            messagingTemplate.convertAndSend("/topic/game/notification/" + message.getRoomId(), notification);
+            eventPublisher.notify(message.getRoomId(), notification);
         } catch (Exception e) {
             // 房间可能已经被删除，忽略异常
             logger.info("房间 {} 可能已经被删除", message.getRoomId());
@@ -310,22 +336,29 @@ public class GameWebSocketController {
      */
     @MessageMapping("/game/robots/add")
     public void handleAddRobots(RobotRequest request) {
+        if (roomRouter.forwardIfRemote(request.getRoomId(), request.getPlayerId(), "/game/robots/add", request)) {
+            return;
+        }
+        roomExecutor.submit(request.getRoomId(), () -> addRobots(request));
+    }
+
+    /**
+     * 在房间信箱线程上添加机器人，状态和通知合并成一帧发送
+     * @param request 包含机器人数量和难度的请求
+     */
+    private void addRobots(RobotRequest request) {
         try {
             logger.info("收到添加机器人请求 - 房间: {}, 数量: {}, 难度: {}", 
                     request.getRoomId(), request.getCount(), request.getDifficulty());
             
             gameService.addRobotsToRoom(request.getRoomId(), request.getCount(), request.getDifficulty(), request.getPlayerId());
             
-            // 发送游戏状态更新
-            GameState state = roomManagementService.getGameState(request.getRoomId());
-            messagingTemplate.convertAndSend("/topic/game/state/" + request.getRoomId(), state);
-            
             // 发送添加机器人通知
             GameNotification notification = new GameNotification();
             notification.setType("ROBOTS_ADDED");
             notification.setContent("房主添加了 " + request.getCount() + " 个机器人（难度：" + 
                     request.getDifficulty() + "）");
-            messagingTemplate.convertAndSend("/topic/game/notification/" + request.getRoomId(), notification);
+            eventPublisher.notify(request.getRoomId(), notification);
             
         } catch (Exception e) {
             logger.error("添加机器人失败: {}", e.getMessage(), e);
@@ -344,20 +377,27 @@ public class GameWebSocketController {
      */
     @MessageMapping("/game/robots/remove")
     public void handleRemoveRobots(RobotRequest request) {
+        if (roomRouter.forwardIfRemote(request.getRoomId(), request.getPlayerId(), "/game/robots/remove", request)) {
+            return;
+        }
+        roomExecutor.submit(request.getRoomId(), () -> removeRobots(request));
+    }
+
+    /**
+     * 在房间信箱线程上移除机器人，状态和通知合并成一帧发送
+     * @param request 包含房间ID的请求
+     */
+    private void removeRobots(RobotRequest request) {
         try {
             logger.info("收到移除机器人请求 - 房间: {}", request.getRoomId());
             
             gameService.removeRobotsFromRoom(request.getRoomId(), request.getPlayerId());
             
-            // 发送游戏状态更新
-            GameState state = roomManagementService.getGameState(request.getRoomId());
-            messagingTemplate.convertAndSend("/topic/game/state/" + request.getRoomId(), state);
-            
             // 发送移除机器人通知
             GameNotification notification = new GameNotification();
             notification.setType("ROBOTS_REMOVED");
             notification.setContent("房主移除了所有机器人");
-            messagingTemplate.convertAndSend("/topic/game/notification/" + request.getRoomId(), notification);
+            eventPublisher.notify(request.getRoomId(), notification);
             
         } catch (Exception e) {
             logger.error("移除机器人失败: {}", e.getMessage(), e);
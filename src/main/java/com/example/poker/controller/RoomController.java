@@ -1,9 +1,11 @@
 package com.example.poker.controller;
 
+import com.example.poker.controller.GameWebSocketController.RobotRequest;
 import com.example.poker.model.GameRoom;
 import com.example.poker.model.GameState;
 import com.example.poker.service.GameService;
 import com.example.poker.service.RoomManagementService;
+import com.example.poker.service.RoomRouter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -19,11 +21,27 @@ public class RoomController {
     private final GameService gameService;
     private final RoomManagementService roomManagementService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final RoomRouter roomRouter;
 
-    public RoomController(GameService gameService, RoomManagementService roomManagementService,SimpMessagingTemplate messagingTemplate) {
+    public RoomController(GameService gameService, RoomManagementService roomManagementService,SimpMessagingTemplate messagingTemplate,
+                          RoomRouter roomRouter) {
         this.gameService = gameService;
         this.roomManagementService = roomManagementService;
         this.messagingTemplate = messagingTemplate;
+        this.roomRouter = roomRouter;
+    }
+
+    /**
+     * 房间不在本节点时把机器人请求转发给所属节点，由它的 /game/robots/* 处理方法执行
+     * @return 已转发返回true
+     */
+    private boolean forwarded(String roomId, String destination, int count, String difficulty) {
+        RobotRequest request = new RobotRequest();
+        request.setRoomId(roomId);
+        request.setPlayerId(getUserId());
+        request.setCount(count);
+        request.setDifficulty(difficulty);
+        return roomRouter.forwardIfRemote(roomId, request.getPlayerId(), destination, request);
     }
 
     /**
@@ -37,6 +55,9 @@ public class RoomController {
     public ResponseEntity<?> addRobots(@PathVariable String roomId, 
                                        @RequestParam(defaultValue = "1") int count,
                                        @RequestParam(defaultValue = "MEDIUM") String difficulty) {
+        if (forwarded(roomId, "/game/robots/add", count, difficulty)) {
+            return ResponseEntity.accepted().build();
+        }
         try {
             GameRoom room = roomManagementService.getRoom(roomId);
             
@@ -77,6 +98,9 @@ public class RoomController {
      */
     @DeleteMapping("/{roomId}/robots")
     public ResponseEntity<?> removeRobots(@PathVariable String roomId) {
+        if (forwarded(roomId, "/game/robots/remove", 0, null)) {
+            return ResponseEntity.accepted().build();
+        }
         try {
             GameRoom room = roomManagementService.getRoom(roomId);
             
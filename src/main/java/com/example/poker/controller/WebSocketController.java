@@ -2,12 +2,23 @@ package com.example.poker.controller;
 
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import com.example.poker.service.RoomManagementService;
 import com.example.poker.service.AdminService;
+import com.example.poker.service.LobbyBroadcaster;
+import com.example.poker.service.RoomRegistry;
+import com.example.poker.service.RoomOwnership;
+import com.example.poker.service.RoomRouter;
+import com.example.poker.exception.GameException;
+import com.example.poker.model.GameRoom;
+import com.example.poker.dto.LobbyUpdate;
+import com.example.poker.dto.RoomPage;
+import com.example.poker.dto.RoomQuery;
 import com.example.poker.model.Player;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +27,8 @@ import java.util.ArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.time.Instant;
+import java.security.Principal;
+import javax.annotation.PostConstruct;
 
 @Controller
 public class WebSocketController {
@@ -32,11 +45,35 @@ public class WebSocketController {
     @Autowired
     private AdminService adminService;
 
-    // 存储房间信息
-    private final Map<String, RoomInfo> rooms = new ConcurrentHashMap<>();
+    @Autowired
+    private LobbyBroadcaster lobbyBroadcaster;
+
+    // 房间数据直接从注册表读取
+    @Autowired
+    private RoomRegistry roomRegistry;
+
+    @Autowired
+    private RoomOwnership roomOwnership;
+
+    @Autowired
+    private RoomRouter roomRouter;
+
     // 存储在线玩家
     private final Map<String, PlayerInfo> onlinePlayers = new ConcurrentHashMap<>();
 
+    /** 转发给其他节点的大厅查询 */
+    private static final String NODE_ROOM_QUERY = "/rooms/query/node";
+
+    /**
+     * 加入和离开房间由房间的所属节点处理，大厅查询由被查询的节点回答
+     */
+    @PostConstruct
+    public void registerRoutes() {
+        roomRouter.register("/rooms/join", JoinRequest.class, this::joinRoom);
+        roomRouter.register(RoomRouter.LEAVE_ROOM, LeaveRoomRequest.class, this::leaveRoom);
+        roomRouter.register(NODE_ROOM_QUERY, NodeRoomQuery.class, this::answerNodeQuery);
+    }
+
     @MessageMapping("/players/list")
     public void getPlayerList() {
         log.info("收到玩家列表请求，准备广播当前玩家列表。");
@@ -46,7 +83,53 @@ public class WebSocketController {
     @MessageMapping("/rooms/list")
     @SendTo("/topic/rooms")
     public List<RoomInfo> getRoomList() {
-        return new ArrayList<>(rooms.values());
+        return getRoomInfoList();
+    }
+
+    /**
+     * 订阅时只向该客户端返回本节点的完整房间列表，之后通过 /topic/rooms/delta/{节点ID} 接收增量
+     * @return 大厅快照
+     */
+    @SubscribeMapping("/rooms/snapshot")
+    public LobbyUpdate getRoomSnapshot() {
+        return lobbyBroadcaster.snapshot();
+    }
+
+    /**
+     * 大厅分页查询，结果只发回请求者
+     * 每页只包含一个节点上的房间，返回的版本号取自查询之前，
+     * 客户端从该版本开始应用该节点 /topic/rooms/delta/{节点ID} 上的增量。
+     * 查询其他节点时转发给该节点，由它把结果发到请求者的 /user/queue/rooms
+     * @param query 查询条件
+     * @param principal 当前连接的用户
+     * @return 一页房间，已转发给其他节点时为null
+     */
+    @MessageMapping("/rooms/query")
+    @SendToUser(destinations = "/queue/rooms", broadcast = false)
+    public RoomPage queryRooms(RoomQuery query, Principal principal) {
+        String nodeId = query == null ? null : query.getNodeId();
+        if (nodeId != null && !nodeId.equals(roomOwnership.getNodeId())) {
+            if (principal == null || !roomOwnership.getNodes().containsKey(nodeId)) {
+                return null;
+            }
+            NodeRoomQuery forwarded = new NodeRoomQuery();
+            forwarded.setReplyTo(principal.getName());
+            forwarded.setQuery(query);
+            roomRouter.sendToNode(nodeId, principal.getName(), NODE_ROOM_QUERY, forwarded);
+            return null;
+        }
+        return localRoomPage(query);
+    }
+
+    private void answerNodeQuery(NodeRoomQuery request) {
+        messagingTemplate.convertAndSendToUser(request.getReplyTo(), "/queue/rooms", localRoomPage(request.getQuery()));
+    }
+
+    private RoomPage localRoomPage(RoomQuery query) {
+        long version = lobbyBroadcaster.getVersion();
+        RoomPage page = roomManagementService.queryRooms(query);
+        page.setVersion(version);
+        return page;
     }
 
     @MessageMapping("/rooms/create")
@@ -67,28 +150,18 @@ public class WebSocketController {
                 return;
             }
             
-            // 创建新房间
-            RoomInfo room = new RoomInfo();
-            room.setId("room_" + System.currentTimeMillis());
-            room.setName(request.getRoomName());
-            room.setMaxPlayers(request.getMaxPlayers());
-            room.setHostId(request.getHostId());
-            room.getPlayers().add(request.getHostId());
-            rooms.put(room.getId(), room);
+            // 创建新房间，房间ID落在本节点上
+            String baseId = "room_" + System.currentTimeMillis();
+            int[] attempt = {0};
+            String roomId = roomOwnership.newLocalRoomId(() -> {
+                int n = attempt[0]++;
+                return n == 0 ? baseId : baseId + "_" + n;
+            });
+            GameRoom room = roomManagementService.createRoomWithId(roomId, request.getHostId(), request.getMaxPlayers(), request.getRoomName());
             
             log.info("已创建房间");
             log.info("房间ID: " + room.getId());
-            log.info("房间名称: " + room.getName());
-            
-            // 同步到GameService
-            try {
-                log.info("同步房间信息到GameService");
-                roomManagementService.createRoomWithId(room.getId(), request.getHostId(), request.getMaxPlayers(), room.getName());
-                log.info("房间同步成功");
-            } catch (Exception e) {
-                log.error("同步房间到GameService失败: " + e.getMessage());
-                e.printStackTrace();
-            }
+            log.info("房间名称: " + room.getRoomName());
             
             // 更新玩家状态为游戏中
             PlayerInfo player = onlinePlayers.get(request.getHostId());
@@ -107,8 +180,7 @@ public class WebSocketController {
             log.info("房间ID: " + room.getId());
             messagingTemplate.convertAndSendToUser(request.getHostId(), "/queue/joinRoom", response);
             
-            // 广播更新后的房间列表
-            broadcastRoomList();
+            // 房间列表的变化由注册表通知大厅
             
             // 向管理页面广播更新的房间和玩家信息
             notifyAdminUpdate();
@@ -125,12 +197,15 @@ public class WebSocketController {
 
     @MessageMapping("/rooms/join")
     public void joinRoom(JoinRequest request) {
+        if (roomRouter.forwardIfRemote(request.getRoomId(), request.getPlayerId(), "/rooms/join", request)) {
+            return;
+        }
         log.info("收到加入房间请求");
         log.info("玩家: " + request.getPlayerId());
         log.info("房间: " + request.getRoomId());
         
         // 检查玩家是否已在同一房间
-        RoomInfo targetRoom = rooms.get(request.getRoomId());
+        GameRoom targetRoom = roomRegistry.get(request.getRoomId());
         if (targetRoom != null && targetRoom.getPlayers().contains(request.getPlayerId())) {
             log.info("玩家已在此房间中，直接发送成功响应");
             // 发送成功响应给玩家，允许重新加入自己的房间
@@ -144,25 +219,33 @@ public class WebSocketController {
         }
 
         // 检查玩家是否在其他房间
-        for (RoomInfo room : rooms.values()) {
-            if (!room.getId().equals(request.getRoomId()) && room.getPlayers().contains(request.getPlayerId())) {
-                log.info("加入房间失败 - 玩家已在其他房间中");
-                log.info("房间名: " + room.getName());
-                messagingTemplate.convertAndSendToUser(
-                    request.getPlayerId(),
-                    "/queue/joinRoom",
-                    new JoinResponse(false, "您已在房间 '" + room.getName() + "' 中")
-                );
-                return;
+        GameRoom currentRoom = roomRegistry.findByPlayer(request.getPlayerId());
+        if (currentRoom != null && !currentRoom.getId().equals(request.getRoomId())) {
+            log.info("加入房间失败 - 玩家已在其他房间中");
+            log.info("房间名: " + currentRoom.getRoomName());
+            messagingTemplate.convertAndSendToUser(
+                request.getPlayerId(),
+                "/queue/joinRoom",
+                new JoinResponse(false, "您已在房间 '" + currentRoom.getRoomName() + "' 中")
+            );
+            return;
+        }
+
+        String errorMsg = null;
+        if (targetRoom == null) {
+            errorMsg = "房间不存在";
+        } else {
+            try {
+                roomManagementService.joinRoom(request.getRoomId(), request.getPlayerId());
+            } catch (GameException e) {
+                errorMsg = e.getMessage();
             }
         }
 
-        if (targetRoom != null && targetRoom.getPlayerCount() < targetRoom.getMaxPlayers()) {
-            targetRoom.setPlayerCount(targetRoom.getPlayerCount() + 1);
-            targetRoom.getPlayers().add(request.getPlayerId());
+        if (errorMsg == null) {
             log.info("玩家成功加入房间");
             log.info("玩家: " + request.getPlayerId());
-            log.info("房间: " + targetRoom.getName());
+            log.info("房间: " + targetRoom.getRoomName());
             
             // 更新玩家状态为游戏中
             PlayerInfo player = onlinePlayers.get(request.getPlayerId());
@@ -187,16 +270,11 @@ public class WebSocketController {
             );
 
             log.info("响应发送完成");
-            
-            // 广播房间列表更新
-            log.info("广播房间列表更新");
-            messagingTemplate.convertAndSend("/topic/rooms", new ArrayList<>(rooms.values()));
 
             // 向管理页面广播更新的房间和玩家信息
             notifyAdminUpdate();
             
         } else {
-            String errorMsg = targetRoom == null ? "房间不存在" : "房间已满";
             log.info("加入房间失败 - " + errorMsg);
             // 发送失败响应
             messagingTemplate.convertAndSendToUser(
@@ -271,13 +349,19 @@ public class WebSocketController {
             log.info("玩家已从在线列表移除 - 玩家: {}", removedPlayer.getName());
         }
         
-        // 从所有房间中移除该玩家
-        for (RoomInfo room : new ArrayList<>(rooms.values())) {
-            if (room.getPlayers().contains(playerId)) {
-                // 处理玩家离开房间
-                handlePlayerLeaveRoom(room.getId(), playerId);
-                log.info("已将玩家从房间移除 - 玩家: {}, 房间: {}", playerId, room.getName());
-            }
+        // 从所在房间中移除该玩家
+        String roomId = roomRegistry.findRoomIdOf(playerId);
+        if (roomId != null) {
+            // 处理玩家离开房间
+            handlePlayerLeaveRoom(roomId, playerId);
+            log.info("已将玩家从房间移除 - 玩家: {}, 房间: {}", playerId, roomId);
+        } else if ((roomId = roomRouter.remoteRoomOf(playerId)) != null) {
+            // 房间在其他节点上，让所属节点处理离开
+            LeaveRoomRequest request = new LeaveRoomRequest();
+            request.setRoomId(roomId);
+            request.setPlayerId(playerId);
+            roomRouter.forwardIfRemote(roomId, playerId, RoomRouter.LEAVE_ROOM, request);
+            log.info("已通知所属节点移除玩家 - 玩家: {}, 房间: {}", playerId, roomId);
         }
         
         // 广播更新后的玩家列表
@@ -345,8 +429,43 @@ public class WebSocketController {
         private int maxPlayers;
         private int playerCount;
         private String hostId;
+        private String status;
         private List<String> players = new ArrayList<>();
 
+        /**
+         * 从房间生成RoomInfo，玩家列表为副本
+         * @param room 游戏房间
+         * @return RoomInfo
+         */
+        public static RoomInfo from(GameRoom room) {
+            RoomInfo info = new RoomInfo();
+            info.setId(room.getId());
+            info.setName(room.getRoomName());
+            info.setMaxPlayers(room.getMaxPlayers());
+            info.setHostId(room.getHostId());
+            info.setPlayerCount(room.getPlayers().size());
+            info.setStatus(room.getStatus() == null ? null : room.getStatus().name());
+            info.setPlayers(new ArrayList<>(room.getPlayers()));
+            return info;
+        }
+
+        /**
+         * 从注册表的索引快照生成RoomInfo，不读取房间的可变状态
+         * @param entry 房间索引快照
+         * @return RoomInfo
+         */
+        public static RoomInfo from(RoomRegistry.IndexEntry entry) {
+            RoomInfo info = new RoomInfo();
+            info.setId(entry.getId());
+            info.setName(entry.getRoomName());
+            info.setMaxPlayers(entry.getMaxPlayers());
+            info.setHostId(entry.getHostId());
+            info.setPlayerCount(entry.getPlayerCount());
+            info.setStatus(entry.getStatus() == null ? null : entry.getStatus().name());
+            info.setPlayers(new ArrayList<>(entry.getPlayers()));
+            return info;
+        }
+
         // Getters and Setters
         public String getId() { return id; }
         public void setId(String id) { this.id = id; }
@@ -358,6 +477,8 @@ public class WebSocketController {
         public void setPlayerCount(int playerCount) { this.playerCount = playerCount; }
         public String getHostId() { return hostId; }
         public void setHostId(String hostId) { this.hostId = hostId; }
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
         public List<String> getPlayers() { return players; }
         public void setPlayers(List<String> players) { this.players = players; }
     }
@@ -390,6 +511,19 @@ public class WebSocketController {
         public void setHostId(String hostId) { this.hostId = hostId; }
     }
 
+    /**
+     * 转发给其他节点的大厅查询，结果发给 replyTo 用户
+     */
+    public static class NodeRoomQuery {
+        private String replyTo;
+        private RoomQuery query;
+
+        public String getReplyTo() { return replyTo; }
+        public void setReplyTo(String replyTo) { this.replyTo = replyTo; }
+        public RoomQuery getQuery() { return query; }
+        public void setQuery(RoomQuery query) { this.query = query; }
+    }
+
     public static class JoinRequest {
         private String roomId;
         private String playerId;
@@ -482,6 +616,9 @@ public class WebSocketController {
 
     @MessageMapping("/rooms/leave")
     public void leaveRoom(LeaveRoomRequest request) {
+        if (roomRouter.forwardIfRemote(request.getRoomId(), request.getPlayerId(), RoomRouter.LEAVE_ROOM, request)) {
+            return;
+        }
         log.info("收到离开房间请求 - 玩家: {}, 房间: {}", request.getPlayerId(), request.getRoomId());
         
         // 处理玩家离开房间
@@ -521,8 +658,7 @@ public class WebSocketController {
     public void dissolveRoom(DissolveRoomRequest request) {
         log.info("收到解散房间请求 - 房间: {}", request.getRoomId());
         
-        // 从本地缓存中获取房间
-        RoomInfo room = rooms.get(request.getRoomId());
+        GameRoom room = roomRegistry.get(request.getRoomId());
         
         if (room == null) {
             log.warn("尝试解散不存在的房间: {}", request.getRoomId());
@@ -553,21 +689,15 @@ public class WebSocketController {
                 }
             }
             
-            // 从房间列表中移除房间
-            rooms.remove(request.getRoomId());
-            
             log.info("房间已解散: {}, 影响玩家数: {}", request.getRoomId(), playersInRoom.size());
             
-            // 调用管理员服务解散游戏服务中的房间
+            // 调用管理员服务解散房间，房间列表的变化由注册表通知大厅
             try {
                 adminService.dissolveRoom(request.getRoomId());
             } catch (Exception e) {
                 log.error("调用管理员服务解散房间失败: {}", e.getMessage());
             }
             
-            // 广播房间列表更新
-            messagingTemplate.convertAndSend("/topic/rooms", new ArrayList<>(rooms.values()));
-            
             // 广播玩家列表更新
             broadcastPlayerList();
 
@@ -589,40 +719,26 @@ public class WebSocketController {
     }
 
     /**
-     * 同步房间数据
-     * 从RoomManagementService接收房间信息列表并更新内部存储
-     * @param roomInfoList 房间信息列表
-     */
-    public void syncRooms(List<RoomInfo> roomInfoList) {
-        log.info("同步房间数据，接收到 {} 个房间", roomInfoList.size());
-        
-        // 清空当前房间列表
-        rooms.clear();
-        
-        // 添加新的房间信息
-        for (RoomInfo roomInfo : roomInfoList) {
-            rooms.put(roomInfo.getId(), roomInfo);
-        }
-        
-        log.info("房间数据同步完成，当前房间数: {}", rooms.size());
-    }
-
-    /**
-     * 广播房间列表更新
+     * 广播完整房间列表
+     * 大厅客户端已改为订阅快照加增量，此方法仅保留给旧客户端
      */
     public void broadcastRoomList() {
         log.info("广播房间列表更新");
-        messagingTemplate.convertAndSend("/topic/rooms", new ArrayList<>(rooms.values()));
+        messagingTemplate.convertAndSend("/topic/rooms", getRoomInfoList());
+    }
+
+    // 把注册表中的房间转换为RoomInfo列表
+    private List<RoomInfo> getRoomInfoList() {
+        List<RoomInfo> roomInfoList = new ArrayList<>();
+        for (GameRoom room : roomRegistry.all()) {
+            roomInfoList.add(RoomInfo.from(room));
+        }
+        return roomInfoList;
     }
 
     // 检查玩家是否在任何房间中
     private boolean isPlayerInAnyRoom(String playerId) {
-        for (RoomInfo room : rooms.values()) {
-            if (room.getPlayers().contains(playerId)) {
-                return true;
-            }
-        }
-        return false;
+        return roomRegistry.findRoomIdOf(playerId) != null;
     }
 
     // 通知管理后台更新方法
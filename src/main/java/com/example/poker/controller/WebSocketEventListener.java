@@ -2,12 +2,16 @@ package com.example.poker.controller;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.example.poker.service.ReconnectDeadlines;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.security.Principal;
 
 @Component
 public class WebSocketEventListener {
@@ -17,6 +21,12 @@ public class WebSocketEventListener {
     @Autowired
     private WebSocketController webSocketController; // 注入WebSocketController
 
+    @Autowired
+    private ReconnectDeadlines reconnectDeadlines;
+
+    /** 房间更新的订阅地址前缀，订阅即视为玩家回到了房间 */
+    private static final String ROOM_UPDATES_PREFIX = "/topic/game/updates/";
+
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
@@ -31,6 +41,17 @@ public class WebSocketEventListener {
         }
     }
 
+    @EventListener
+    public void handleWebSocketSubscribeListener(SessionSubscribeEvent event) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = headerAccessor.getDestination();
+        Principal user = headerAccessor.getUser();
+        if (user != null && destination != null && destination.startsWith(ROOM_UPDATES_PREFIX)) {
+            // 恢复出的玩家重新订阅了房间，取消重连期限
+            reconnectDeadlines.reconnected(destination.substring(ROOM_UPDATES_PREFIX.length()), user.getName());
+        }
+    }
+
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
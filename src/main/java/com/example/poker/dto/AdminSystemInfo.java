@@ -17,6 +17,7 @@ import java.time.Instant;
  * - 玩家数量
  * - 系统版本
  * - 服务器状态
+ * - 房间命令队列深度
  * </p>
  * <p>
  * 通过AdminController返回给管理员页面，用于展示系统概况。
@@ -59,4 +60,9 @@ public class AdminSystemInfo {
      * 服务器运行状态描述
      */
     private String serverStatus;
+
+    /**
+     * 所有房间信箱中等待执行的命令总数
+     */
+    private int pendingRoomCommands;
 } 
\ No newline at end of file
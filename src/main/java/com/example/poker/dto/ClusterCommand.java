@@ -0,0 +1,39 @@
+package com.example.poker.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 节点间转发的房间命令DTO
+ * <p>
+ * 收到命令的节点不拥有该房间时，把原始消息连同目标地址转发给房间的所属节点。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterCommand {
+    /**
+     * 房间ID
+     */
+    private String roomId;
+
+    /**
+     * 原始消息的应用目标地址，例如 /game/action
+     */
+    private String destination;
+
+    /**
+     * 原始消息内容
+     */
+    private JsonNode payload;
+
+    /**
+     * 转发命令的节点ID
+     */
+    private String originNode;
+}
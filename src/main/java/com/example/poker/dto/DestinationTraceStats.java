@@ -0,0 +1,58 @@
+package com.example.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个目标地址的帧统计DTO
+ * <p>
+ * 目标地址中带数字的路径段（房间ID等）合并为 *，耗时为入站通道线程上的处理时间。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DestinationTraceStats {
+    /**
+     * STOMP命令
+     */
+    private String command;
+
+    /**
+     * 目标地址
+     */
+    private String destination;
+
+    /**
+     * 帧数
+     */
+    private long count;
+
+    /**
+     * 平均处理耗时（微秒）
+     */
+    private long avgMicros;
+
+    /**
+     * 处理耗时中位数（微秒，按直方图桶上界估计）
+     */
+    private long p50Micros;
+
+    /**
+     * 处理耗时99分位（微秒，按直方图桶上界估计）
+     */
+    private long p99Micros;
+
+    /**
+     * 最大处理耗时（微秒）
+     */
+    private long maxMicros;
+
+    /**
+     * 在入站通道队列中的平均等待时间（微秒）
+     */
+    private long avgQueueMicros;
+}
@@ -0,0 +1,40 @@
+package com.example.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * STOMP帧追踪统计DTO
+ * <p>
+ * 包含各目标地址的计数和耗时，以及抽样记录的完整帧。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FrameTraceStats {
+    /**
+     * 各目标地址的统计
+     */
+    private List<DestinationTraceStats> destinations;
+
+    /**
+     * 抽样记录的帧数
+     */
+    private long sampledFrames;
+
+    /**
+     * 缓冲区满而丢弃的抽样数
+     */
+    private long droppedSamples;
+
+    /**
+     * 最近的抽样记录
+     */
+    private List<String> recentSamples;
+}
@@ -3,10 +3,11 @@ package com.example.poker.dto;
 import java.util.List;
 import java.util.Map;
 import com.example.poker.model.Card;
+import com.example.poker.model.CardHand;
 public class GameStartDto{
     private String currentPlayer;
     private List<String> players;
-    private Map<String, List<Card>> playerHands;
+    private Map<String, CardHand> playerHands;
     private List<Card> currentPile;
     private List<Card> selectedCards;
     private String declaredValue;
@@ -20,8 +21,8 @@ public class GameStartDto{
     public List<String> getPlayers() { return players; }
     public void setPlayers(List<String> players) { this.players = players; }
 
-    public Map<String, List<Card>> getPlayerHands() { return playerHands; }
-    public void setPlayerHands(Map<String, List<Card>> playerHands) { this.playerHands = playerHands; }
+    public Map<String, CardHand> getPlayerHands() { return playerHands; }
+    public void setPlayerHands(Map<String, CardHand> playerHands) { this.playerHands = playerHands; }
 
     public List<Card> getCurrentPile() { return currentPile; }
     public void setCurrentPile(List<Card> currentPile) { this.currentPile = currentPile; }
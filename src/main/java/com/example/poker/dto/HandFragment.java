@@ -0,0 +1,36 @@
+package com.example.poker.dto;
+
+import com.example.poker.model.Card;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 玩家私有手牌DTO
+ * <p>
+ * 公开快照中只有各玩家的手牌张数，玩家自己的手牌单独发到其用户队列。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HandFragment {
+    /**
+     * 房间ID
+     */
+    private String roomId;
+
+    /**
+     * 对应的房间版本号
+     */
+    private long version;
+
+    /**
+     * 玩家手牌
+     */
+    private List<Card> cards;
+}
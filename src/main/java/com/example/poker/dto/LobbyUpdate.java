@@ -0,0 +1,49 @@
+package com.example.poker.dto;
+
+import com.example.poker.controller.WebSocketController;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 大厅房间列表更新DTO
+ * <p>
+ * 增量更新只包含一个时间窗口内新增、变化和移除的房间；
+ * 订阅时收到的快照包含全部房间。版本号按节点分别递增，客户端按节点丢弃过期的增量。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LobbyUpdate {
+    /**
+     * 发布更新的节点ID
+     */
+    private String nodeId;
+
+    /**
+     * 大厅版本号
+     */
+    private long version;
+
+    /**
+     * 是否为完整快照
+     */
+    private boolean snapshot;
+
+    /**
+     * 新增或变化的房间（快照时为全部房间）
+     */
+    private List<WebSocketController.RoomInfo> rooms;
+
+    /**
+     * 移除的房间ID
+     */
+    private List<String> removed;
+}
@@ -0,0 +1,53 @@
+package com.example.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 启动恢复统计DTO
+ * <p>
+ * 记录最近一次从游戏日志恢复房间的结果和耗时。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecoveryStats {
+    /**
+     * 读取的日志条目数
+     */
+    private long entries;
+
+    /**
+     * 恢复的房间数
+     */
+    private int rooms;
+
+    /**
+     * 快照之后重放的事件数
+     */
+    private long replayedEvents;
+
+    /**
+     * 重放出错、只恢复到出错前状态的房间数
+     */
+    private int failedRooms;
+
+    /**
+     * 只有事件没有快照、无法恢复的房间数
+     */
+    private int skippedRooms;
+
+    /**
+     * 读取日志的耗时（毫秒）
+     */
+    private long readMillis;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private long totalMillis;
+}
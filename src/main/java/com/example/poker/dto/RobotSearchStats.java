@@ -0,0 +1,78 @@
+package com.example.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 机器人搜索线程池统计DTO
+ * <p>
+ * 描述专家机器人搜索的并发、耗时和迭代次数，供管理员页面确认搜索没有拖慢房间。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RobotSearchStats {
+    /**
+     * 搜索线程数
+     */
+    private int parallelism;
+
+    /**
+     * 每个决策的时间预算（毫秒）
+     */
+    private long budgetMillis;
+
+    /**
+     * 进行中的决策数
+     */
+    private int pendingDecisions;
+
+    /**
+     * 已完成的决策数
+     */
+    private long completedDecisions;
+
+    /**
+     * 因等待中的决策过多而拒绝的决策数
+     */
+    private long rejectedDecisions;
+
+    /**
+     * 每个决策的平均迭代次数
+     */
+    private long avgIterations;
+
+    /**
+     * 单个决策的最少迭代次数
+     */
+    private long minIterations;
+
+    /**
+     * 单个决策的最多迭代次数，和最少迭代次数相差过大说明决策之间分配不均
+     */
+    private long maxIterations;
+
+    /**
+     * 平均决策耗时（微秒）
+     */
+    private long avgLatencyMicros;
+
+    /**
+     * 最大决策耗时（微秒）
+     */
+    private long maxLatencyMicros;
+
+    /**
+     * 正在运行的搜索线程数
+     */
+    private int activeThreads;
+
+    /**
+     * 排队的时间片数
+     */
+    private long queuedTasks;
+}
@@ -0,0 +1,34 @@
+package com.example.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 转发给房间所属节点的REST房间操作DTO
+ * <p>
+ * 加入、离开、准备、开始和过牌的REST请求只带玩家ID（开始游戏另带牌副数），
+ * 房间不在本节点时连同路径中的房间ID一起转发。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomActionRequest {
+    /**
+     * 房间ID
+     */
+    private String roomId;
+
+    /**
+     * 玩家ID
+     */
+    private String playerId;
+
+    /**
+     * 牌副数，只有开始游戏时使用
+     */
+    private Integer deckCount;
+}
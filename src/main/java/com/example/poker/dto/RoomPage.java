@@ -0,0 +1,45 @@
+package com.example.poker.dto;
+
+import com.example.poker.controller.WebSocketController;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 大厅房间分页结果DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomPage {
+    /**
+     * 本页房间
+     */
+    private List<WebSocketController.RoomInfo> rooms;
+
+    /**
+     * 下一页游标，没有更多房间时为null
+     */
+    private String nextCursor;
+
+    /**
+     * 查询时的大厅版本号，客户端据此应用之后的增量
+     */
+    private Long version;
+
+    /**
+     * 返回本页的节点ID，本页只包含该节点上的房间，版本号也属于该节点
+     */
+    private String nodeId;
+
+    /**
+     * 集群中的所有节点ID，客户端据此查询其他节点上的房间
+     */
+    private List<String> nodes;
+}
@@ -0,0 +1,79 @@
+package com.example.poker.dto;
+
+import com.example.poker.model.GameStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 大厅房间查询条件DTO
+ * <p>
+ * 所有过滤条件都是可选的。分页使用上一页返回的游标，
+ * 游标只对同一排序方式有效。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomQuery {
+
+    /** 默认每页房间数 */
+    public static final int DEFAULT_LIMIT = 20;
+
+    /** 每页房间数上限 */
+    public static final int MAX_LIMIT = 100;
+
+    /**
+     * 排序方式
+     */
+    public enum Sort {
+        /** 最新创建的在前 */
+        NEWEST,
+        /** 按房间名称 */
+        NAME,
+        /** 玩家多的在前 */
+        PLAYERS
+    }
+
+    /**
+     * 房间状态
+     */
+    private GameStatus status;
+
+    /**
+     * 只返回还能加入的房间（等待中且未满员）
+     */
+    private Boolean open;
+
+    /**
+     * 房间人数上限
+     */
+    private Integer maxPlayers;
+
+    /**
+     * 房间名称前缀
+     */
+    private String namePrefix;
+
+    /**
+     * 排序方式，默认NEWEST
+     */
+    private Sort sort;
+
+    /**
+     * 分页游标
+     */
+    private String cursor;
+
+    /**
+     * 每页房间数
+     */
+    private Integer limit;
+
+    /**
+     * 查询哪个节点上的房间，为空时查询收到请求的节点
+     */
+    private String nodeId;
+}
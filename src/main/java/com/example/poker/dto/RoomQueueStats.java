@@ -0,0 +1,43 @@
+package com.example.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 房间命令队列统计DTO
+ * <p>
+ * 描述单个房间信箱的排队和处理耗时情况，供管理员页面排查慢房间。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomQueueStats {
+    /**
+     * 房间ID
+     */
+    private String roomId;
+
+    /**
+     * 等待执行的命令数
+     */
+    private int queueDepth;
+
+    /**
+     * 已处理的命令数
+     */
+    private long processedCount;
+
+    /**
+     * 平均处理耗时（微秒）
+     */
+    private long avgProcessingMicros;
+
+    /**
+     * 最大处理耗时（微秒）
+     */
+    private long maxProcessingMicros;
+}
@@ -0,0 +1,53 @@
+package com.example.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 房间信息写回数据库的统计DTO
+ * <p>
+ * 房间变化先进入写回队列，由后台线程成批写入数据库。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomStoreStats {
+    /**
+     * 等待写入的房间数
+     */
+    private int pendingRooms;
+
+    /**
+     * 合并到尚未写入的同一房间上的变化次数
+     */
+    private long coalescedUpdates;
+
+    /**
+     * 已写入的房间数（保存和删除）
+     */
+    private long writtenRooms;
+
+    /**
+     * 写入的批次数
+     */
+    private long batches;
+
+    /**
+     * 队列满而放弃写入的变化数
+     */
+    private long droppedUpdates;
+
+    /**
+     * 写入失败后重新排队的房间数
+     */
+    private long failedWrites;
+
+    /**
+     * 启动时从数据库载入的房间数
+     */
+    private int loadedRooms;
+}
@@ -0,0 +1,52 @@
+package com.example.poker.dto;
+
+import com.example.poker.model.GameEvent;
+import com.example.poker.model.GameNotification;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 房间更新帧DTO
+ * <p>
+ * 一条命令产生的所有状态变化和通知合并成一帧发到 /topic/game/updates/{roomId}。
+ * 同一帧中有快照时不再附带增量事件。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomUpdate {
+    /**
+     * 房间ID
+     */
+    private String roomId;
+
+    /**
+     * 本帧结束时的房间版本号
+     */
+    private long version;
+
+    /**
+     * 公开快照（已序列化的JSON，原样嵌入）
+     */
+    @JsonRawValue
+    private String snapshot;
+
+    /**
+     * 增量事件，按版本号排列
+     */
+    private List<GameEvent> events;
+
+    /**
+     * 游戏通知
+     */
+    private List<GameNotification> notifications;
+}
@@ -0,0 +1,102 @@
+package com.example.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 自对弈模拟结果DTO
+ * <p>
+ * 汇总一次无界面模拟的对局数、动作数、耗时和内存分配，用于评估规则引擎和机器人策略的吞吐量。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationResult {
+    /**
+     * 模拟的对局数
+     */
+    private long games;
+
+    /**
+     * 正常结束的对局数
+     */
+    private long finishedGames;
+
+    /**
+     * 达到动作上限或状态异常而中止的对局数
+     */
+    private long abortedGames;
+
+    /**
+     * 动作总数（出牌、过牌、质疑）
+     */
+    private long actions;
+
+    /**
+     * 出牌次数
+     */
+    private long plays;
+
+    /**
+     * 过牌次数
+     */
+    private long passes;
+
+    /**
+     * 质疑次数
+     */
+    private long challenges;
+
+    /**
+     * 质疑成功次数
+     */
+    private long successfulChallenges;
+
+    /**
+     * 被规则拒绝后改为过牌的决策数
+     */
+    private long rejectedActions;
+
+    /**
+     * 座位下标 -> 第一个出完手牌的次数
+     */
+    private long[] winsBySeat;
+
+    /**
+     * 模拟耗时（纳秒）
+     */
+    private long elapsedNanos;
+
+    /**
+     * 模拟线程分配的内存总字节数，JVM不支持统计时为-1
+     */
+    private long allocatedBytes;
+
+    /**
+     * 每秒对局数
+     * @return 对局数/秒
+     */
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * 每秒动作数
+     * @return 动作数/秒
+     */
+    public double getActionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : actions * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * 每局平均分配的字节数
+     * @return 字节数，不支持统计时为-1
+     */
+    public long getBytesPerGame() {
+        return allocatedBytes < 0 || games == 0 ? -1 : allocatedBytes / games;
+    }
+}
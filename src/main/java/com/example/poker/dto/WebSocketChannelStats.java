@@ -0,0 +1,83 @@
+package com.example.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * WebSocket通道统计DTO
+ * <p>
+ * 描述入站、出站通道线程池的排队情况和各会话的发送积压，供管理员页面排查慢客户端。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketChannelStats {
+    /**
+     * 入站通道等待处理的消息数
+     */
+    private int inboundQueueDepth;
+
+    /**
+     * 入站通道正在工作的线程数
+     */
+    private int inboundActiveThreads;
+
+    /**
+     * 入站通道线程池满后被拒绝的消息数
+     */
+    private long inboundRejected;
+
+    /**
+     * 出站通道等待发送的消息数
+     */
+    private int outboundQueueDepth;
+
+    /**
+     * 出站通道正在工作的线程数
+     */
+    private int outboundActiveThreads;
+
+    /**
+     * 出站通道线程池满后被拒绝的消息数
+     */
+    private long outboundRejected;
+
+    /**
+     * 当前会话数
+     */
+    private int openSessions;
+
+    /**
+     * 当前处于积压状态的会话数
+     */
+    private int laggingSessions;
+
+    /**
+     * 单个会话最大的待发送字节数
+     */
+    private int maxSendBufferBytes;
+
+    /**
+     * 单个会话当前一次发送已持续的最长时间（毫秒）
+     */
+    private long maxSendMillis;
+
+    /**
+     * 因会话积压而丢弃的消息数
+     */
+    private long droppedMessages;
+
+    /**
+     * 会话进入积压状态的次数
+     */
+    private long sessionDowngrades;
+
+    /**
+     * 因积压被断开的会话数
+     */
+    private long slowSessionsClosed;
+}
@@ -1,11 +1,17 @@
 package com.example.poker.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
  * 扑克牌类
+ * <p>
+ * 除了对象形式外，每张牌还有一个紧凑的整数编码：
+ * 普通牌为 {@code 花色序号 * 13 + (牌值 - 1)}（0-51），王牌统一为 {@link #JOKER_CODE}。
+ * 多副牌时，物理牌编号为 {@code 副号 * CARDS_PER_DECK + 槽位}，见 {@link #codeOfPhysical(int)}。
+ * </p>
  */
 @Data
 @NoArgsConstructor
@@ -18,6 +24,35 @@ public class Card {
         SPADES, HEARTS, CLUBS, DIAMONDS
     }
 
+    /** 每种花色的牌数 */
+    public static final int SUIT_SIZE = 13;
+    /** 王牌的编码（大小王在规则上等价，共用一个编码） */
+    public static final int JOKER_CODE = 52;
+    /** 牌面编码总数：52张普通牌 + 王牌 */
+    public static final int CODE_COUNT = 53;
+    /** 每副牌的物理张数（含大小王） */
+    public static final int CARDS_PER_DECK = 54;
+    /** 点数直方图长度：下标0为王牌，1-13为A-K */
+    public static final int RANK_COUNT = 14;
+    /** 王牌的点数下标 */
+    public static final int JOKER_RANK = 0;
+
+    /** 点数字符串缓存，避免getRank()每次分配新字符串 */
+    private static final String[] RANK_NAMES = {
+        "Joker", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13"
+    };
+
+    /** 按编码索引的共享牌实例，只读 */
+    private static final Card[] CANONICAL = new Card[CODE_COUNT];
+
+    static {
+        Suit[] suits = Suit.values();
+        for (int code = 0; code < JOKER_CODE; code++) {
+            CANONICAL[code] = new CanonicalCard(suits[code / SUIT_SIZE], code % SUIT_SIZE + 1, false);
+        }
+        CANONICAL[JOKER_CODE] = new CanonicalCard(null, 0, true);
+    }
+
     private Suit suit;    // 花色
     private int value;    // 牌值：1-13 表示 A-K，0 表示大小王
     private boolean isJoker;  // 是否是王牌
@@ -114,11 +149,108 @@ public class Card {
      */
     public String getRank() {
         if (isJoker) {
-            return "Joker";
+            return RANK_NAMES[JOKER_RANK];
+        }
+        if (value >= 1 && value <= SUIT_SIZE) {
+            return RANK_NAMES[value];
         }
         return String.valueOf(value);
     }
 
+    /**
+     * 获取牌面编码
+     * @return 0-51 为普通牌，{@link #JOKER_CODE} 为王牌，无效牌返回 -1
+     */
+    @JsonIgnore
+    public int getCode() {
+        if (isJoker) {
+            return JOKER_CODE;
+        }
+        if (suit == null || value < 1 || value > SUIT_SIZE) {
+            return -1;
+        }
+        return suit.ordinal() * SUIT_SIZE + (value - 1);
+    }
+
+    /**
+     * 获取点数下标
+     * @return 王牌为 {@link #JOKER_RANK}，A-K 为 1-13，无效牌返回 -1
+     */
+    @JsonIgnore
+    public int getRankIndex() {
+        return rankOfCode(getCode());
+    }
+
+    /**
+     * 根据编码获取共享的牌实例
+     * 返回的实例是只读的，调用setter会抛出异常
+     * @param code 牌面编码
+     * @return 牌实例
+     */
+    public static Card ofCode(int code) {
+        return CANONICAL[code];
+    }
+
+    /**
+     * 获取编码对应的点数下标
+     * @param code 牌面编码
+     * @return 点数下标，无效编码返回 -1
+     */
+    public static int rankOfCode(int code) {
+        if (code == JOKER_CODE) {
+            return JOKER_RANK;
+        }
+        if (code < 0 || code > JOKER_CODE) {
+            return -1;
+        }
+        return code % SUIT_SIZE + 1;
+    }
+
+    /**
+     * 物理牌编号转换为牌面编码
+     * @param physicalId 物理牌编号（副号 * 54 + 槽位，槽位52、53为大小王）
+     * @return 牌面编码
+     */
+    public static int codeOfPhysical(int physicalId) {
+        int slot = physicalId % CARDS_PER_DECK;
+        return slot < JOKER_CODE ? slot : JOKER_CODE;
+    }
+
+    /**
+     * 解析声明的点数
+     * 支持 "1"-"13"、"A"/"J"/"Q"/"K" 以及 "Joker"，不分配新对象
+     * @param declared 声明的点数字符串
+     * @return 点数下标，无法解析返回 -1
+     */
+    public static int parseRank(String declared) {
+        if (declared == null) {
+            return -1;
+        }
+        switch (declared) {
+            case "A": return 1;
+            case "J": return 11;
+            case "Q": return 12;
+            case "K": return 13;
+            case "Joker": return JOKER_RANK;
+            default:
+                for (int rank = 1; rank < RANK_COUNT; rank++) {
+                    if (RANK_NAMES[rank].equals(declared)) {
+                        return rank;
+                    }
+                }
+                return -1;
+        }
+    }
+
+    /**
+     * 获取点数下标对应的字符串
+     * @param rank 点数下标
+     * @return 与getRank()一致的字符串
+     */
+    public static String rankName(int rank) {
+        return RANK_NAMES[rank];
+    }
+
     public Suit getSuit() {
         return suit;
     }
@@ -142,4 +274,28 @@ public class Card {
     public void setJoker(boolean joker) {
         isJoker = joker;
     }
-}
\ No newline at end of file
+
+    /**
+     * 共享的只读牌实例，用于编码到对象的转换
+     */
+    private static final class CanonicalCard extends Card {
+        private CanonicalCard(Suit suit, int value, boolean isJoker) {
+            super(suit, value, isJoker);
+        }
+
+        @Override
+        public void setSuit(Suit suit) {
+            throw new UnsupportedOperationException("共享牌实例不可修改");
+        }
+
+        @Override
+        public void setValue(int value) {
+            throw new UnsupportedOperationException("共享牌实例不可修改");
+        }
+
+        @Override
+        public void setJoker(boolean joker) {
+            throw new UnsupportedOperationException("共享牌实例不可修改");
+        }
+    }
+}
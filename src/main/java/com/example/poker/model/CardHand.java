@@ -0,0 +1,385 @@
+package com.example.poker.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 手牌类（按牌面编码计数的多重集）
+ * <p>
+ * 每种牌面只保存一个计数，同时维护点数直方图，
+ * 因此拥有判断、增删和声明校验的代价只与涉及的牌数有关，与手牌大小无关。
+ * 对外仍表现为 {@code List<Card>}，按编码顺序迭代，JSON序列化结果与普通牌列表一致。
+ * </p>
+ */
+public class CardHand extends AbstractList<Card> {
+    private final int[] codeCounts = new int[Card.CODE_COUNT];  // 牌面编码 -> 张数
+    private final int[] rankCounts = new int[Card.RANK_COUNT];  // 点数下标 -> 张数
+    private int size;                                           // 总张数
+
+    /**
+     * 创建空手牌
+     */
+    public CardHand() {
+    }
+
+    /**
+     * 使用已有的牌创建手牌
+     * @param cards 牌的集合
+     */
+    public CardHand(Collection<? extends Card> cards) {
+        addAll(cards);
+    }
+
+    /**
+     * 将任意牌集合视为手牌
+     * @param cards 牌的集合
+     * @return 若本身就是手牌则直接返回，否则复制为新手牌
+     */
+    public static CardHand of(Collection<? extends Card> cards) {
+        if (cards instanceof CardHand) {
+            return (CardHand) cards;
+        }
+        return cards == null ? new CardHand() : new CardHand(cards);
+    }
+
+    /**
+     * 按牌面编码创建手牌
+     * @param codes 每张牌一个字节的牌面编码，可以为null
+     * @return 新手牌
+     */
+    public static CardHand ofCodes(byte[] codes) {
+        CardHand hand = new CardHand();
+        if (codes != null) {
+            for (byte code : codes) {
+                hand.addCode(code & 0xFF);
+            }
+        }
+        return hand;
+    }
+
+    /**
+     * 按编码顺序导出牌面编码
+     * @return 每张牌一个字节的牌面编码
+     */
+    public byte[] toCodes() {
+        byte[] codes = new byte[size];
+        int i = 0;
+        for (int code = 0; code < Card.CODE_COUNT; code++) {
+            for (int n = 0; n < codeCounts[code]; n++) {
+                codes[i++] = (byte) code;
+            }
+        }
+        return codes;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 按编码顺序获取第index张牌
+     * @param index 下标
+     * @return 共享的牌实例
+     */
+    @Override
+    public Card get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int remaining = index;
+        for (int code = 0; code < Card.CODE_COUNT; code++) {
+            if (remaining < codeCounts[code]) {
+                return Card.ofCode(code);
+            }
+            remaining -= codeCounts[code];
+        }
+        throw new IllegalStateException("手牌计数不一致");
+    }
+
+    @Override
+    public boolean add(Card card) {
+        addCode(codeOf(card));
+        return true;
+    }
+
+    /**
+     * 按编码添加一张牌
+     * @param code 牌面编码
+     */
+    public void addCode(int code) {
+        codeCounts[code]++;
+        rankCounts[Card.rankOfCode(code)]++;
+        size++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Card> cards) {
+        if (cards instanceof CardHand) {
+            CardHand other = (CardHand) cards;
+            for (int code = 0; code < Card.CODE_COUNT; code++) {
+                codeCounts[code] += other.codeCounts[code];
+            }
+            for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+                rankCounts[rank] += other.rankCounts[rank];
+            }
+            size += other.size;
+            return other.size > 0;
+        }
+        for (Card card : cards) {
+            add(card);
+        }
+        return !cards.isEmpty();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Card)) {
+            return false;
+        }
+        return removeCode(((Card) o).getCode());
+    }
+
+    /**
+     * 按编码移除一张牌
+     * @param code 牌面编码
+     * @return 手牌中是否有这张牌
+     */
+    public boolean removeCode(int code) {
+        if (code < 0 || code >= Card.CODE_COUNT || codeCounts[code] == 0) {
+            return false;
+        }
+        codeCounts[code]--;
+        rankCounts[Card.rankOfCode(code)]--;
+        size--;
+        return true;
+    }
+
+    /**
+     * 移除集合中出现的每种牌面的全部张数（与List.removeAll语义一致）
+     * @param cards 要移除的牌
+     * @return 手牌是否发生变化
+     */
+    @Override
+    public boolean removeAll(Collection<?> cards) {
+        boolean changed = false;
+        for (Object o : cards) {
+            int code = o instanceof Card ? ((Card) o).getCode() : -1;
+            while (removeCode(code)) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 校验并移除一组牌（按张数计）
+     * 要么全部移除，要么手牌保持不变，代价与要移除的牌数成正比
+     * @param cards 要移除的牌
+     * @return 是否拥有并移除了全部的牌
+     */
+    public boolean removeExactly(Collection<? extends Card> cards) {
+        int removed = 0;
+        boolean owned = true;
+        for (Card card : cards) {
+            if (card == null || !removeCode(card.getCode())) {
+                owned = false;
+                break;
+            }
+            removed++;
+        }
+        if (!owned) {
+            // 回滚已经移除的牌
+            for (Card card : cards) {
+                if (removed-- == 0) {
+                    break;
+                }
+                addCode(card.getCode());
+            }
+        }
+        return owned;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Card)) {
+            return false;
+        }
+        return countCode(((Card) o).getCode()) > 0;
+    }
+
+    /**
+     * 检查是否拥有所有指定的牌（按张数计，重复的牌需要有足够的张数）
+     * 先逐张扣减计数再恢复，不复制手牌
+     * @param cards 要检查的牌
+     * @return 是否全部拥有
+     */
+    @Override
+    public boolean containsAll(Collection<?> cards) {
+        int taken = 0;
+        boolean owned = true;
+        for (Object o : cards) {
+            if (!(o instanceof Card)) {
+                owned = false;
+                break;
+            }
+            int code = ((Card) o).getCode();
+            if (code < 0 || codeCounts[code] == 0) {
+                owned = false;
+                break;
+            }
+            codeCounts[code]--;
+            taken++;
+        }
+        // 恢复扣减过的计数
+        for (Object o : cards) {
+            if (taken-- == 0) {
+                break;
+            }
+            codeCounts[((Card) o).getCode()]++;
+        }
+        return owned;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(codeCounts, 0);
+        Arrays.fill(rankCounts, 0);
+        size = 0;
+    }
+
+    /**
+     * 获取某种牌面的张数
+     * @param code 牌面编码
+     * @return 张数
+     */
+    public int countCode(int code) {
+        if (code < 0 || code >= Card.CODE_COUNT) {
+            return 0;
+        }
+        return codeCounts[code];
+    }
+
+    /**
+     * 获取某个点数的张数
+     * @param rank 点数下标（0为王牌，1-13为A-K）
+     * @return 张数
+     */
+    public int countRank(int rank) {
+        if (rank < 0 || rank >= Card.RANK_COUNT) {
+            return 0;
+        }
+        return rankCounts[rank];
+    }
+
+    /**
+     * 获取王牌的张数
+     * @return 张数
+     */
+    public int countJokers() {
+        return rankCounts[Card.JOKER_RANK];
+    }
+
+    /**
+     * 检查所有牌是否都符合声明的点数（王牌可以当作任意点数）
+     * @param rank 声明的点数下标
+     * @return 是否全部符合
+     */
+    public boolean allMatchRank(int rank) {
+        int matched = countJokers();
+        if (rank > Card.JOKER_RANK && rank < Card.RANK_COUNT) {
+            matched += rankCounts[rank];
+        }
+        return matched == size;
+    }
+
+    /**
+     * 取出指定点数的若干张牌（不从手牌中移除）
+     * @param rank 点数下标
+     * @param limit 最多取的张数
+     * @return 共享牌实例组成的列表
+     */
+    public List<Card> pickRank(int rank, int limit) {
+        List<Card> picked = new ArrayList<>(Math.max(0, Math.min(limit, countRank(rank))));
+        collectRank(rank, limit, picked);
+        return picked;
+    }
+
+    /**
+     * 把指定点数的若干张牌追加到已有的列表中（不从手牌中移除，不分配新列表）
+     * @param rank 点数下标
+     * @param limit 最多取的张数
+     * @param out 接收牌的列表
+     * @return 追加的张数
+     */
+    public int collectRank(int rank, int limit, List<? super Card> out) {
+        int collected = 0;
+        if (rank == Card.JOKER_RANK) {
+            for (int i = 0; i < codeCounts[Card.JOKER_CODE] && collected < limit; i++, collected++) {
+                out.add(Card.ofCode(Card.JOKER_CODE));
+            }
+            return collected;
+        }
+        if (rank < 0 || rank >= Card.RANK_COUNT) {
+            return 0;
+        }
+        for (int code = rank - 1; code < Card.JOKER_CODE && collected < limit; code += Card.SUIT_SIZE) {
+            for (int i = 0; i < codeCounts[code] && collected < limit; i++, collected++) {
+                out.add(Card.ofCode(code));
+            }
+        }
+        return collected;
+    }
+
+    @Override
+    public Iterator<Card> iterator() {
+        return new Iterator<>() {
+            private int code = nextCode(0);
+            private int emitted;
+
+            @Override
+            public boolean hasNext() {
+                return code < Card.CODE_COUNT;
+            }
+
+            @Override
+            public Card next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Card card = Card.ofCode(code);
+                if (++emitted == codeCounts[code]) {
+                    emitted = 0;
+                    code = nextCode(code + 1);
+                }
+                return card;
+            }
+        };
+    }
+
+    private int nextCode(int from) {
+        int code = from;
+        while (code < Card.CODE_COUNT && codeCounts[code] == 0) {
+            code++;
+        }
+        return code;
+    }
+
+    private static int codeOf(Card card) {
+        int code = card == null ? -1 : card.getCode();
+        if (code < 0) {
+            throw new IllegalArgumentException("无效的牌: " + card);
+        }
+        return code;
+    }
+}
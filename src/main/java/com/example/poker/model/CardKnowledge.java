@@ -0,0 +1,241 @@
+package com.example.poker.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 房间的公开牌面记录（增量维护）
+ * <p>
+ * 游戏引擎在发牌、出牌和质疑时更新，只记录所有玩家都能看到的信息：各玩家的手牌张数、底盘张数，
+ * 以及质疑时翻开的底盘被谁收走（位置已知的牌）。玩家之后出牌时不公开打出的是哪几张，
+ * 因此已知张数只作为下限，玩家打出n张后每个点数的已知张数减去n。
+ * 机器人决策时不需要回看历史，{@link #lieProbability} 的开销与对局长度和底盘大小无关。
+ * 必须在房间信箱线程上读写。
+ * </p>
+ */
+public class CardKnowledge {
+
+    private final int deckCount;
+    private final Map<String, Seat> seats = new HashMap<>();
+    private final int[] knownTotals = new int[Card.RANK_COUNT];   // 各点数位置已知的张数合计
+    private int knownTotal;                                       // 位置已知的总张数
+    private int pileSize;
+
+    // 最近一次出牌前出牌者手牌的情况，用于估计这次声明
+    private String claimPlayer;
+    private int claimRank = -1;
+    private int claimKnownHonest;             // 已知在出牌者手中、可以如实打出的张数
+    private int claimUnknownHand;             // 出牌者手中位置未知的张数
+
+    /**
+     * 按发好的手牌开始记录，牌副数由牌的总数推算
+     * @param hands 玩家ID -> 手牌
+     */
+    public CardKnowledge(Map<String, ? extends Collection<Card>> hands) {
+        int total = 0;
+        for (Map.Entry<String, ? extends Collection<Card>> hand : hands.entrySet()) {
+            int size = hand.getValue() == null ? 0 : hand.getValue().size();
+            seat(hand.getKey()).size = size;
+            total += size;
+        }
+        this.deckCount = Math.max(1, Math.round(total / (float) Card.CARDS_PER_DECK));
+    }
+
+    /**
+     * 玩家出牌：手牌张数减少，底盘张数增加，打出的牌不公开
+     * @param playerId 出牌的玩家ID
+     * @param count 实际打出的张数
+     * @param claimRank 声明的点数下标，无法识别时为-1
+     */
+    public void onPlay(String playerId, int count, int claimRank) {
+        Seat seat = seat(playerId);
+        this.claimPlayer = playerId;
+        this.claimRank = claimRank;
+        this.claimKnownHonest = seat.honest(claimRank);
+        this.claimUnknownHand = Math.max(0, seat.size - seat.knownTotal);
+
+        seat.size = Math.max(0, seat.size - count);
+        pileSize += count;
+        if (seat.knownTotal == 0) {
+            return;
+        }
+        // 不知道打出的是哪几张，每个点数的已知张数只能保留 已知 - 打出张数 的下限
+        for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+            int removed = Math.min(seat.known[rank], count);
+            seat.known[rank] -= removed;
+            seat.knownTotal -= removed;
+            knownTotals[rank] -= removed;
+            knownTotal -= removed;
+        }
+    }
+
+    /**
+     * 质疑结算：翻开的底盘全部进入输家的手牌，位置变为已知
+     * @param loserId 收走底盘的玩家ID
+     * @param pile 翻开的底盘
+     */
+    public void onChallenge(String loserId, CardHand pile) {
+        Seat seat = seat(loserId);
+        for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+            int count = pile.countRank(rank);
+            seat.known[rank] += count;
+            knownTotals[rank] += count;
+        }
+        seat.knownTotal += pile.size();
+        knownTotal += pile.size();
+        seat.size += pile.size();
+        pileSize = 0;
+        claimPlayer = null;
+        claimRank = -1;
+    }
+
+    /**
+     * 玩家中途离开：剩余手牌不公开地放入底盘，记在他名下的已知牌位置也随之未知
+     * @param playerId 离开的玩家ID
+     * @param count 放入底盘的张数
+     */
+    public void onLeave(String playerId, int count) {
+        Seat seat = seats.remove(playerId);
+        if (seat != null) {
+            for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+                knownTotals[rank] -= seat.known[rank];
+            }
+            knownTotal -= seat.knownTotal;
+        }
+        pileSize += count;
+    }
+
+    public int getDeckCount() {
+        return deckCount;
+    }
+
+    public int getPileSize() {
+        return pileSize;
+    }
+
+    /**
+     * 获取玩家的手牌张数
+     * @param playerId 玩家ID
+     * @return 张数
+     */
+    public int getHandSize(String playerId) {
+        Seat seat = seats.get(playerId);
+        return seat == null ? 0 : seat.size;
+    }
+
+    /**
+     * 获取已知在玩家手中的某个点数的张数（下限）
+     * @param playerId 玩家ID
+     * @param rank 点数下标
+     * @return 张数
+     */
+    public int getKnownCount(String playerId, int rank) {
+        Seat seat = seats.get(playerId);
+        return seat == null || rank < 0 || rank >= Card.RANK_COUNT ? 0 : seat.known[rank];
+    }
+
+    /**
+     * 获取某个点数位置未公开的张数（所有牌副中该点数的张数减去位置已知的张数）
+     * @param rank 点数下标
+     * @return 张数
+     */
+    public int getUnseenCount(int rank) {
+        if (rank < 0 || rank >= Card.RANK_COUNT) {
+            return 0;
+        }
+        return perRank(rank) - knownTotals[rank];
+    }
+
+    /**
+     * 从观察者的角度估计声明是谎言的概率
+     * <p>
+     * 假设出牌者手里有足够的牌时会如实出牌：已知在出牌者手中的同点数牌和王牌先计入，
+     * 其余张数需要出牌者位置未知的手牌来凑，按观察者看不到的牌中同点数牌和王牌的比例用二项分布估计凑不齐的概率。
+     * 只循环声明的张数次，与对局长度和底盘大小无关。
+     * </p>
+     * @param claim 声明
+     * @param observerId 观察者ID
+     * @param observerHand 观察者的手牌
+     * @return 0到1之间的概率，没有声明时为0
+     */
+    public double lieProbability(Claim claim, String observerId, CardHand observerHand) {
+        if (claim == null) {
+            return 0;
+        }
+        int rank = claim.getRank();
+        if (rank < 0) {
+            // 声明的点数无法识别，只有底盘全是王牌时才成立
+            return 1;
+        }
+        int knownHonest;
+        int unknownHand;
+        if (claim.getPlayerId() != null && claim.getPlayerId().equals(claimPlayer) && rank == claimRank) {
+            knownHonest = claimKnownHonest;
+            unknownHand = claimUnknownHand;
+        } else {
+            Seat seat = seats.get(claim.getPlayerId());
+            knownHonest = seat == null ? 0 : seat.honest(rank);
+            unknownHand = seat == null ? claim.getCount() : Math.max(0, seat.size + claim.getCount() - seat.knownTotal);
+        }
+        int missing = claim.getCount() - knownHonest;
+        if (missing <= 0) {
+            return 0;
+        }
+
+        // 观察者看不到的牌：去掉位置已知的牌和观察者手中未公开的牌
+        Seat own = seats.get(observerId);
+        int ownHonest = observerHand == null ? 0 : observerHand.countJokers()
+                + (rank == Card.JOKER_RANK ? 0 : observerHand.countRank(rank));
+        int ownHidden = observerHand == null ? 0 : observerHand.size();
+        if (own != null) {
+            ownHonest -= own.honest(rank);
+            ownHidden -= own.knownTotal;
+        }
+        int unseenHonest = getUnseenCount(Card.JOKER_RANK)
+                + (rank == Card.JOKER_RANK ? 0 : getUnseenCount(rank)) - Math.max(0, ownHonest);
+        int pool = deckCount * Card.CARDS_PER_DECK - knownTotal - Math.max(0, ownHidden);
+        if (unseenHonest < missing || unknownHand < missing || pool <= 0) {
+            return 1;
+        }
+        double p = Math.min(1.0, unseenHonest / (double) pool);
+        if (p >= 1.0) {
+            return 0;
+        }
+        // 出牌者未知手牌中可如实打出的张数少于missing的概率
+        double term = Math.pow(1 - p, unknownHand);
+        double below = 0;
+        for (int i = 0; i < missing; i++) {
+            below += term;
+            term *= (unknownHand - i) / (i + 1.0) * p / (1 - p);
+        }
+        return Math.max(0, Math.min(1, below));
+    }
+
+    private int perRank(int rank) {
+        return (rank == Card.JOKER_RANK ? 2 : 4) * deckCount;
+    }
+
+    private Seat seat(String playerId) {
+        return seats.computeIfAbsent(playerId, id -> new Seat());
+    }
+
+    /**
+     * 单个玩家的公开信息
+     */
+    private static final class Seat {
+        private int size;                                     // 手牌张数
+        private final int[] known = new int[Card.RANK_COUNT]; // 已知在手中的各点数张数（下限）
+        private int knownTotal;
+
+        /**
+         * 已知在手中、可以如实打出指定点数的张数（王牌可以当作任意点数）
+         */
+        int honest(int rank) {
+            if (rank < 0 || rank >= Card.RANK_COUNT) {
+                return 0;
+            }
+            return known[Card.JOKER_RANK] + (rank == Card.JOKER_RANK ? 0 : known[rank]);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.poker.model;
+
+import java.util.Objects;
+
+/**
+ * 出牌声明（不可变）
+ * 记录出牌玩家、声明的张数和声明的点数下标，取代原来的"玩家X打出N张V"文字；
+ * 机器人和质疑判断直接读取点数下标，不再解析字符串
+ */
+public final class Claim {
+    private final String playerId;            // 出牌玩家ID
+    private final int count;                  // 声明的张数
+    private final int rank;                   // 声明的点数下标（0为王牌，1-13为A-K，无法解析为-1）
+
+    /**
+     * 构造函数
+     * @param playerId 出牌玩家ID
+     * @param count 声明的张数
+     * @param rank 声明的点数下标
+     */
+    public Claim(String playerId, int count, int rank) {
+        this.playerId = playerId;
+        this.count = count;
+        this.rank = rank;
+    }
+
+    /**
+     * 按玩家声明的点数字符串创建声明
+     * @param playerId 出牌玩家ID
+     * @param count 声明的张数
+     * @param declaredValue 声明的点数字符串
+     * @return 声明
+     */
+    public static Claim of(String playerId, int count, String declaredValue) {
+        return new Claim(playerId, count, Card.parseRank(declaredValue));
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Claim)) {
+            return false;
+        }
+        Claim other = (Claim) o;
+        return count == other.count && rank == other.rank && Objects.equals(playerId, other.playerId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(playerId, count, rank);
+    }
+
+    /**
+     * 展示用的文字，与前端显示的格式一致
+     * @return 如"玩家alice打出2张7"
+     */
+    @Override
+    public String toString() {
+        return "玩家" + playerId + "打出" + count + "张" + (rank >= 0 ? Card.rankName(rank) : "?");
+    }
+}
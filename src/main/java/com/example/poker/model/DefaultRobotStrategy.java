@@ -1,284 +1,262 @@
 package com.example.poker.model;
 
-import java.util.*;
+import com.example.poker.util.RandomProvider;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
 
 /**
  * 默认机器人策略实现
+ * <p>
+ * 难度对应的各项概率在构造时确定；决策直接读取 {@link Claim} 的点数下标和手牌的点数直方图，
+ * 选出的牌写入调用方提供的列表，整个决策过程不分配对象。
+ * </p>
  */
 public class DefaultRobotStrategy implements RobotStrategy {
-    private static final Random random = new Random();
+    /** 可以声明的点数下标范围（A-K） */
+    private static final int MIN_CLAIM_RANK = 1;
+    private static final int MAX_CLAIM_RANK = Card.RANK_COUNT - 1;
+
+    private final RandomGenerator random;
     private final String difficulty; // EASY, MEDIUM, HARD
-    
+    private final boolean hard;
+    private final boolean medium;
+
+    private final double challengeProbability;  // 基础质疑概率
+    private final double followLieThreshold;    // 没有声明点数的牌时说谎跟牌的概率
+    private final int followMaxCards;           // 有声明点数的牌时最多出的张数
+    private final double leadLieThreshold;      // 新的一轮声明其他点数的概率
+    private final int leadMinCards;             // 新的一轮最少出的张数
+    private final int leadExtraCards;           // 新的一轮在最少张数之上随机增加的张数范围
+
     /**
-     * 构造函数
+     * 构造函数，使用默认随机数提供者拆分出的独立生成器
      * @param difficulty 难度级别
      */
     public DefaultRobotStrategy(String difficulty) {
-        this.difficulty = difficulty;
+        this(difficulty, RandomProvider.getDefault().forRoom(null));
     }
-    
-    @Override
-    public boolean decideToChallenge(String lastClaim, List<Card> currentPile, List<Card> hand) {
-        if (lastClaim == null || currentPile == null || currentPile.isEmpty() || hand == null) {
-            return false;
-        }
-
-        // 解析上一个声明
-        String[] parts = lastClaim.split(" ");
-        if (parts.length < 2) {
-            return false;
-        }
-        
-        int claimedCount;
-        try {
-            claimedCount = Integer.parseInt(parts[0]);
-        } catch (NumberFormatException e) {
-            return false;
-        }
-        
-        String claimedValue = parts[1];
 
+    /**
+     * 构造函数
+     * @param difficulty 难度级别
+     * @param random 随机数生成器（通常是所在房间的生成器）
+     */
+    public DefaultRobotStrategy(String difficulty, RandomGenerator random) {
+        this.difficulty = difficulty;
+        this.random = random;
+        String level = difficulty == null ? "" : difficulty;
+        this.hard = level.equals("HARD");
+        this.medium = level.equals("MEDIUM");
         // 根据难度级别调整基础质疑概率
-        double challengeProbability = switch (difficulty) {
+        this.challengeProbability = switch (level) {
             case "EASY" -> 0.2;
             case "MEDIUM" -> 0.4;
             case "HARD" -> 0.6;
             default -> 0.3;
         };
+        this.followLieThreshold = switch (level) {
+            case "EASY" -> 0.3;    // 简单模式30%概率说谎
+            case "HARD" -> 0.7;     // 困难模式70%概率说谎
+            default -> 0.5;         // 中等模式50%概率说谎
+        };
+        this.followMaxCards = switch (level) {
+            case "EASY" -> 1;      // 简单模式最多出1张
+            case "HARD" -> 3;       // 困难模式最多出3张
+            default -> 2;           // 中等模式最多出2张
+        };
+        this.leadLieThreshold = switch (level) {
+            case "EASY" -> 0.1;    // 简单模式10%概率说谎
+            case "HARD" -> 0.5;     // 困难模式50%概率说谎
+            default -> 0.3;         // 中等模式30%概率说谎
+        };
+        this.leadMinCards = hard ? 2 : 1;
+        this.leadExtraCards = medium ? 3 : 2;
+    }
+
+    /**
+     * 获取难度级别
+     * @return 难度级别
+     */
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    @Override
+    public boolean decideToChallenge(Claim lastClaim, CardHand currentPile, CardHand hand) {
+        if (lastClaim == null || currentPile == null || currentPile.isEmpty() || hand == null) {
+            return false;
+        }
+
+        int claimedCount = lastClaim.getCount();
+        double probability = challengeProbability;
 
         // 计算手牌中相同点数的牌的数量
-        int sameValueCount = countCardsByRank(hand, claimedValue);
-        int handCount = hand.size();
+        int sameValueCount = hand.countRank(lastClaim.getRank());
 
-        // 根据手牌情况调整质疑概率
-        if (handCount <= 3) {
-            // 手牌很少时，更倾向于质疑
-            challengeProbability += 0.2;
+        // 手牌很少时，更倾向于质疑
+        if (hand.size() <= 3) {
+            probability += 0.2;
         }
 
         // 如果声明的数量看起来不合理，增加质疑概率
         if (claimedCount > 4 || (claimedCount + sameValueCount > 4)) {
-            challengeProbability += 0.3;
+            probability += 0.3;
         }
 
-        // 在困难模式下，根据历史记录调整概率
-        if (difficulty.equals("HARD")) {
+        // 在困难模式下，根据手牌调整概率
+        if (hard) {
             // 如果手牌中完全没有这种牌，增加质疑概率
             if (sameValueCount == 0) {
-                challengeProbability += 0.2;
+                probability += 0.2;
             }
             // 如果手牌中这种牌的数量接近4张，增加质疑概率
             if (sameValueCount >= 3) {
-                challengeProbability += 0.15;
+                probability += 0.15;
             }
         }
 
-        return random.nextDouble() < challengeProbability;
+        return random.nextDouble() < probability;
     }
 
+    /**
+     * 困难模式有牌面记录时直接按估计的说谎概率质疑，手牌很少时更倾向于质疑；其他难度忽略估计值
+     */
     @Override
-    public List<Card> selectCardsToPlay(String lastClaim, List<Card> hand) {
+    public boolean decideToChallenge(Claim lastClaim, CardHand currentPile, CardHand hand, double lieProbability) {
+        if (!hard || Double.isNaN(lieProbability)) {
+            return decideToChallenge(lastClaim, currentPile, hand);
+        }
+        if (lastClaim == null || currentPile == null || currentPile.isEmpty() || hand == null) {
+            return false;
+        }
+        double probability = Math.max(0.05, lieProbability);
+        if (hand.size() <= 3) {
+            probability += 0.1;
+        }
+        return random.nextDouble() < probability;
+    }
+
+    @Override
+    public void selectCardsToPlay(Claim lastClaim, CardHand hand, List<Card> selected) {
         if (hand == null || hand.isEmpty()) {
-            return new ArrayList<>();
+            return;
         }
-        
-        List<Card> selectedCards = new ArrayList<>();
-        
+
         if (lastClaim == null) {
-            // 如果是新的一轮，选择最优的牌
-            String bestValue = findBestValueToPlay(hand);
-            List<Card> sameValueCards = hand.stream()
-                    .filter(card -> card.getRank().equals(bestValue))
-                    .toList();
-            
-            // 根据难度决定出牌数量
-            int cardsToSelect = switch (difficulty) {
-                case "EASY" -> Math.min(1 + random.nextInt(2), sameValueCards.size());
-                case "MEDIUM" -> Math.min(1 + random.nextInt(3), sameValueCards.size());
-                case "HARD" -> Math.min(2 + random.nextInt(2), sameValueCards.size());
-                default -> Math.min(1 + random.nextInt(2), sameValueCards.size());
-            };
-            
-            for (int i = 0; i < cardsToSelect && i < sameValueCards.size(); i++) {
-                selectedCards.add(sameValueCards.get(i));
-            }
-        } else {
-            // 如果不是新的一轮，需要根据上一个声明选择牌
-            String[] parts = lastClaim.split(" ");
-            if (parts.length < 2) {
-                return selectedCards;
-            }
-            
-            String claimedValue = parts[1];
-            
-            // 找出手牌中点数相同的牌
-            List<Card> sameValueCards = hand.stream()
-                    .filter(card -> card.getRank().equals(claimedValue))
-                    .toList();
-            
-            if (sameValueCards.isEmpty()) {
-                // 如果没有相同点数的牌，根据难度决定是否说谎
-                double lieThreshold = switch (difficulty) {
-                    case "EASY" -> 0.3;    // 简单模式30%概率说谎
-                    case "MEDIUM" -> 0.5;   // 中等模式50%概率说谎
-                    case "HARD" -> 0.7;     // 困难模式70%概率说谎
-                    default -> 0.5;
-                };
-                
-                if (random.nextDouble() < lieThreshold) {
-                    // 选择说谎，随机选择1-2张牌
-                    int cardsToSelect = 1 + random.nextInt(2);
-                    for (int i = 0; i < Math.min(cardsToSelect, hand.size()); i++) {
-                        selectedCards.add(hand.get(i));
-                    }
-                }
-                // 如果不说谎，返回空列表表示过牌
-            } else {
-                // 如果有相同点数的牌，根据难度决定出牌数量
-                int maxCards = switch (difficulty) {
-                    case "EASY" -> 1;      // 简单模式最多出1张
-                    case "MEDIUM" -> 2;     // 中等模式最多出2张
-                    case "HARD" -> 3;       // 困难模式最多出3张
-                    default -> 2;
-                };
-                
-                int cardsToSelect = Math.min(maxCards, sameValueCards.size());
+            // 如果是新的一轮，选择最优的点数，根据难度决定出牌数量
+            int bestRank = findBestRankToPlay(hand);
+            int cardsToSelect = Math.min(leadMinCards + random.nextInt(leadExtraCards), hand.countRank(bestRank));
+            hand.collectRank(bestRank, cardsToSelect, selected);
+            return;
+        }
+
+        // 如果不是新的一轮，需要跟随上一个声明的点数
+        int sameValueCount = hand.countRank(lastClaim.getRank());
+        if (sameValueCount == 0) {
+            // 如果没有相同点数的牌，根据难度决定是否说谎，不说谎则过牌
+            if (random.nextDouble() < followLieThreshold) {
+                // 选择说谎，出1-2张牌
+                int cardsToSelect = Math.min(1 + random.nextInt(2), hand.size());
                 for (int i = 0; i < cardsToSelect; i++) {
-                    selectedCards.add(sameValueCards.get(i));
+                    selected.add(hand.get(i));
                 }
             }
+        } else {
+            hand.collectRank(lastClaim.getRank(), Math.min(followMaxCards, sameValueCount), selected);
         }
-        
-        return selectedCards;
     }
 
     @Override
-    public String generateClaim(List<Card> selectedCards, String lastClaim) {
+    public int chooseClaimRank(List<Card> selectedCards, Claim lastClaim) {
         if (selectedCards == null || selectedCards.isEmpty()) {
-            return null;
+            return -1;
         }
 
-        String valueToClaimStr;
         if (lastClaim != null) {
             // 如果不是新的一轮，必须声明相同的点数
-            String[] parts = lastClaim.split(" ");
-            if (parts.length < 2) {
-                return null;
-            }
-            valueToClaimStr = parts[1];
-        } else {
-            // 如果是新的一轮，选择实际的牌值或者说谎
-            Card firstCard = selectedCards.get(0);
-            
-            // 根据难度决定是否说谎
-            double lieThreshold = switch (difficulty) {
-                case "EASY" -> 0.1;    // 简单模式10%概率说谎
-                case "MEDIUM" -> 0.3;   // 中等模式30%概率说谎
-                case "HARD" -> 0.5;     // 困难模式50%概率说谎
-                default -> 0.3;
-            };
-            
-            if (random.nextDouble() < lieThreshold) {
-                // 说谎，选择一个不同的牌值
-                valueToClaimStr = findBestValueToLie(firstCard.getRank());
-            } else {
-                // 不说谎，使用实际牌值
-                valueToClaimStr = firstCard.getRank();
-            }
+            return lastClaim.getRank();
         }
 
-        // 构建声明字符串
-        return selectedCards.size() + " " + valueToClaimStr;
+        // 如果是新的一轮，根据难度决定声明实际的点数还是说谎
+        int actualRank = selectedCards.get(0).getRankIndex();
+        if (random.nextDouble() < leadLieThreshold) {
+            return findBestRankToLie(actualRank);
+        }
+        return actualRank;
     }
 
     /**
-     * 统计手牌中指定点数的牌的数量
+     * 找出最适合出牌的点数
      * @param hand 手牌
-     * @param rank 点数
-     * @return 数量
+     * @return 最佳点数下标
      */
-    private int countCardsByRank(List<Card> hand, String rank) {
-        if (hand == null || rank == null) {
-            return 0;
-        }
-        
-        int count = 0;
-        for (Card card : hand) {
-            if (card.getRank().equals(rank)) {
-                count++;
+    private int findBestRankToPlay(CardHand hand) {
+        // 根据难度选择策略，直接读取手牌的点数直方图
+        if (hard) {
+            // 困难模式优先选择数量最多的点数
+            int bestRank = Card.JOKER_RANK;
+            for (int rank = 1; rank < Card.RANK_COUNT; rank++) {
+                if (hand.countRank(rank) > hand.countRank(bestRank)) {
+                    bestRank = rank;
+                }
+            }
+            return bestRank;
+        } else if (medium) {
+            // 中等模式随机选择数量较多的点数（蓄水池抽样，不构建候选列表）
+            int chosen = -1;
+            int candidates = 0;
+            for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+                if (hand.countRank(rank) >= 2 && random.nextInt(++candidates) == 0) {
+                    chosen = rank;
+                }
+            }
+            if (chosen >= 0) {
+                return chosen;
             }
         }
-        return count;
+
+        // 简单模式或其他情况随机选择一张牌的点数
+        return hand.get(random.nextInt(hand.size())).getRankIndex();
     }
 
     /**
-     * 找出最适合出牌的点数
-     * @param hand 手牌
-     * @return 最佳点数
+     * 找出最适合说谎的点数（A-K中不同于实际点数的一个）
+     * 先数出候选点数的个数，再取第k个，不构建候选列表
+     * @param actualRank 实际点数下标
+     * @return 适合说谎的点数下标
      */
-    private String findBestValueToPlay(List<Card> hand) {
-        if (hand == null || hand.isEmpty()) {
-            return "A"; // 默认值
-        }
-        
-        // 统计每个点数的牌的数量
-        Map<String, Integer> valueCount = new HashMap<>();
-        for (Card card : hand) {
-            String rank = card.getRank();
-            valueCount.merge(rank, 1, Integer::sum);
-        }
-        
-        // 根据难度选择策略
-        if (difficulty.equals("HARD")) {
-            // 困难模式优先选择数量最多的点数
-            return valueCount.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .map(Map.Entry::getKey)
-                    .orElse(hand.get(0).getRank());
-        } else if (difficulty.equals("MEDIUM")) {
-            // 中等模式随机选择数量较多的点数
-            List<String> candidates = valueCount.entrySet().stream()
-                    .filter(e -> e.getValue() >= 2)
-                    .map(Map.Entry::getKey)
-                    .toList();
-            if (!candidates.isEmpty()) {
-                return candidates.get(random.nextInt(candidates.size()));
+    private int findBestRankToLie(int actualRank) {
+        if (hard) {
+            // 困难模式倾向于选择距离实际点数2以内的值
+            int nearby = countLieCandidates(actualRank, 2);
+            if (nearby > 0) {
+                return pickLieCandidate(actualRank, 2, random.nextInt(nearby));
             }
         }
-        
-        // 简单模式或其他情况随机选择
-        return hand.get(random.nextInt(hand.size())).getRank();
+
+        // 其他情况随机选择
+        return pickLieCandidate(actualRank, Card.RANK_COUNT,
+                random.nextInt(countLieCandidates(actualRank, Card.RANK_COUNT)));
     }
 
-    /**
-     * 找出最适合说谎的点数
-     * @param actualValue 实际点数
-     * @return 适合说谎的点数
-     */
-    private String findBestValueToLie(String actualValue) {
-        List<String> allValues = Arrays.asList("A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K");
-        List<String> possibleValues = new ArrayList<>(allValues);
-        possibleValues.remove(actualValue);
-        
-        if (difficulty.equals("HARD")) {
-            // 困难模式倾向于选择接近实际点数的值
-            int actualIndex = allValues.indexOf(actualValue);
-            List<String> nearbyValues = new ArrayList<>();
-            
-            // 选择距离实际点数2以内的值
-            for (String value : possibleValues) {
-                int index = allValues.indexOf(value);
-                if (Math.abs(index - actualIndex) <= 2) {
-                    nearbyValues.add(value);
-                }
+    private static int countLieCandidates(int actualRank, int maxDistance) {
+        int count = 0;
+        for (int rank = MIN_CLAIM_RANK; rank <= MAX_CLAIM_RANK; rank++) {
+            if (rank != actualRank && Math.abs(rank - actualRank) <= maxDistance) {
+                count++;
             }
-            
-            if (!nearbyValues.isEmpty()) {
-                return nearbyValues.get(random.nextInt(nearbyValues.size()));
+        }
+        return count;
+    }
+
+    private static int pickLieCandidate(int actualRank, int maxDistance, int index) {
+        int remaining = index;
+        for (int rank = MIN_CLAIM_RANK; rank <= MAX_CLAIM_RANK; rank++) {
+            if (rank != actualRank && Math.abs(rank - actualRank) <= maxDistance && remaining-- == 0) {
+                return rank;
             }
         }
-        
-        // 其他情况随机选择
-        return possibleValues.get(random.nextInt(possibleValues.size()));
+        throw new IllegalStateException("没有可以声明的点数");
     }
-} 
\ No newline at end of file
+}
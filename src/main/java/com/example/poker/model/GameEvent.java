@@ -0,0 +1,41 @@
+package com.example.poker.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 游戏增量事件
+ * <p>
+ * 每次动作只描述发生的变化，客户端在上一个快照的基础上按版本号依次应用。
+ * 事件中只有手牌张数，不包含手牌内容，大小与手牌数量和牌堆副数无关。
+ * 版本号不连续时客户端应请求完整快照重新同步。
+ * </p>
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameEvent {
+    private String roomId;                  // 房间ID
+    private long version;                   // 事件对应的房间版本号
+    private GameEventType type;             // 事件类型
+    private String playerId;                // 执行动作的玩家
+    private String targetPlayerId;          // 被质疑的玩家
+    private Integer count;                  // 声明的张数
+    private String value;                   // 声明的点数
+    private Boolean success;                // 质疑是否成功
+    private String loserId;                 // 收走底盘的玩家
+    private String currentPlayer;           // 动作后的当前玩家
+    private Integer pileSize;               // 动作后的底盘张数
+    private Map<String, Integer> handCounts; // 手牌张数有变化的玩家
+    private List<String> passedPlayers;     // 动作后已过牌的玩家
+
+    public GameEvent() {
+    }
+
+    public GameEvent(GameEventType type, String playerId) {
+        this.type = type;
+        this.playerId = playerId;
+    }
+}
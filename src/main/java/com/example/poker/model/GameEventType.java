@@ -0,0 +1,11 @@
+package com.example.poker.model;
+
+/**
+ * 游戏增量事件类型
+ * 回合切换不单独发事件，每个事件都带有动作后的当前玩家
+ */
+public enum GameEventType {
+    PLAY,       // 出牌
+    PASS,       // 过牌
+    CHALLENGE   // 质疑结果
+}
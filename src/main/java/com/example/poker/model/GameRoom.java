@@ -1,9 +1,13 @@
 package com.example.poker.model;
 
-import lombok.Data;
-import javax.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Date;
@@ -11,82 +15,69 @@ import java.util.Date;
 /**
  * 游戏房间类，表示一个游戏房间的状态
  * 合并了原GameRoom和GameState的功能
+ * 只存在于内存中，房间信息由 {@link RoomRecord} 和 {@link SeatRecord} 持久化；
+ * 不按字段比较相等，两个房间对象只有是同一个实例时才相等
  */
-@Data
-@Entity
+@Getter
+@Setter
+@ToString
 public class GameRoom {
-    // 基本房间信息（持久化）
-    @Id
+    // 基本房间信息（持久化到数据库）
     private String id;                        // 房间ID
     private String hostId;                    // 房主ID
     private int maxPlayers;                   // 最大玩家数
     private String roomName;                  // 房间名称
-    @Enumerated(EnumType.STRING)
     private GameStatus status;                // 房间状态
     private String gameStatus;                // 游戏状态字符串表示
-    @ElementCollection
     private List<String> players;             // 玩家列表
-    @ElementCollection
     private List<String> readyPlayers;        // 已准备玩家列表
-    @ElementCollection
     private List<String> robotPlayers;        // 机器人玩家列表
     private int robotCount;                   // 机器人数量
     private String robotDifficulty;           // 机器人难度
     
     // 游戏状态（非持久化）
-    @Transient
     private int currentPlayerIndex;           // 当前玩家索引
-    @Transient
     private String currentPlayer;             // 当前玩家ID
-    @Transient
     private List<Card> cardDeck;              // 牌堆
-    @Transient
-    private Map<String, List<Card>> playerHands; // 玩家手牌映射
-    @Transient
-    private List<Card> currentPile;           // 当前牌堆（打出的牌）
-    @Transient
-    private String lastClaim;                 // 最后声明
-    @Transient
+    private Map<String, CardHand> playerHands; // 玩家手牌映射
+    private CardHand currentPile;             // 当前牌堆（打出的牌）
+    private Claim lastClaim;                  // 最后声明
     private List<Card> selectedCards;         // 选中的牌
-    @Transient
     private String declaredValue;             // 声明的牌值
-    @Transient
     private List<String> passedPlayers;       // 已经过牌的玩家
-    @Transient
     private String lastPlayerId;              // 上次出牌的玩家
-    @Transient
     private List<String> winners;             // 已打完手牌的玩家列表（按顺序）
-    @Transient
     private String winner;                    // 最终获胜者
     
     // 上一次出牌信息（非持久化）
-    @Transient
     private List<Card> lastPlayedCards;       // 上一次出的牌
-    @Transient
     private String lastPlayedValue;           // 上一次声明的值
-    @Transient
     private String lastPlayedPlayer;          // 上一次出牌的玩家
-    @Transient
     private Date lastPlayedTime;              // 上一次出牌的时间
     
     // 上一次挑战信息（非持久化）
-    @Transient
     private Date lastChallengeTime;           // 上一次挑战的时间
-    @Transient
     private String lastChallengePlayer;       // 上一次挑战的玩家
-    @Transient
     private String lastChallengeResult;       // 上一次挑战的结果
-    @Transient
     private List<Card> lastChallengeCards;    // 上一次挑战的牌
-    @Transient
     private String lastChallengeValue;        // 上一次挑战的值
-    @Transient
     private Boolean lastChallengeSuccess;     // 上一次挑战是否成功
-    @Transient
     private List<Card> lastChallengePile;     // 上一次挑战时的牌堆
-    @Transient
     private Map<String, List<Card>> lastChallengeHands; // 上一次挑战时的手牌
 
+    // 状态版本号（非持久化），每次发布事件或快照时递增
+    private long version;
+
+    // 机器人玩家实例（非持久化），每个机器人座位只创建一次；策略对象不能也不应序列化
+    @ToString.Exclude
+    @JsonIgnore
+    private Map<String, RobotPlayer> robotSeats = new HashMap<>();
+
+    // 公开牌面记录（非持久化），发牌时创建，出牌和质疑时更新；机器人内部使用，不发给客户端
+    @ToString.Exclude
+    @JsonIgnore
+    private CardKnowledge cardKnowledge;
+
     /**
      * 默认构造函数
      */
@@ -96,7 +87,7 @@ public class GameRoom {
         this.robotPlayers = new ArrayList<>();
         this.cardDeck = new ArrayList<>();
         this.playerHands = new HashMap<>();
-        this.currentPile = new ArrayList<>();
+        this.currentPile = new CardHand();
         this.status = GameStatus.WAITING;
         this.gameStatus = "WAITING";
         this.robotCount = 0;
@@ -304,7 +295,7 @@ public class GameRoom {
         // 游戏结束条件：只剩下1名玩家有手牌
         int playersWithCards = 0;
         for (String playerId : players) {
-            List<Card> hand = playerHands.get(playerId);
+            CardHand hand = playerHands.get(playerId);
             if (hand != null && !hand.isEmpty()) {
                 playersWithCards++;
             }
@@ -318,12 +309,43 @@ public class GameRoom {
      * @return 是否有效
      */
     public boolean validateLastClaim() {
-        // 最后声明验证逻辑
-        return currentPile.stream().allMatch(card -> 
-            card.getRank().equals(declaredValue)
-        );
+        // 最后声明验证逻辑：按点数直方图判断
+        if (currentPile.isEmpty()) {
+            return true;
+        }
+        int rank = Card.parseRank(declaredValue);
+        return rank >= 0 && currentPile.countRank(rank) == currentPile.size();
     }
     
+    /**
+     * 递增并返回状态版本号
+     * @return 新的版本号
+     */
+    public long nextVersion() {
+        return ++version;
+    }
+
+    /**
+     * 复制持久化的房间信息，不包含手牌、底盘等游戏状态
+     * 用于在房间线程之外写入数据库
+     * @return 新的房间对象
+     */
+    public GameRoom copyMetadata() {
+        GameRoom copy = new GameRoom();
+        copy.setId(this.id);
+        copy.setHostId(this.hostId);
+        copy.setMaxPlayers(this.maxPlayers);
+        copy.setRoomName(this.roomName);
+        copy.setStatus(this.status);
+        copy.setGameStatus(this.gameStatus);
+        copy.setPlayers(new ArrayList<>(this.players));
+        copy.setReadyPlayers(new ArrayList<>(this.readyPlayers));
+        copy.setRobotPlayers(new ArrayList<>(this.robotPlayers));
+        copy.setRobotCount(this.robotCount);
+        copy.setRobotDifficulty(this.robotDifficulty);
+        return copy;
+    }
+
     /**
      * 创建一个用于前端显示的游戏状态对象
      * 保持与原GameState兼容
@@ -340,7 +362,7 @@ public class GameRoom {
         state.setCurrentPlayer(this.currentPlayer);
         state.setPlayerHands(this.playerHands);
         state.setCurrentPile(this.currentPile);
-        state.setLastClaim(this.lastClaim);
+        state.setLastClaim(this.lastClaim == null ? null : this.lastClaim.toString());
         state.setSelectedCards(this.selectedCards);
         state.setDeclaredValue(this.declaredValue);
         state.setPassedPlayers(this.passedPlayers);
@@ -363,9 +385,32 @@ public class GameRoom {
         state.setLastChallengePile(this.lastChallengePile);
         state.setLastChallengeHands(this.lastChallengeHands);
         state.setReadyPlayers(this.readyPlayers);
+        state.setVersion(this.version);
         return state;
     }
     
+    /**
+     * 创建所有玩家都能看到的公开状态
+     * 不包含任何玩家的手牌和未翻开的底盘，只给出张数
+     * @return GameState对象
+     */
+    public GameState toPublicGameState() {
+        GameState state = toGameState();
+        Map<String, Integer> handCounts = new LinkedHashMap<>();
+        for (String playerId : players) {
+            List<Card> hand = playerHands.get(playerId);
+            handCounts.put(playerId, hand == null ? 0 : hand.size());
+        }
+        state.setHandCounts(handCounts);
+        state.setPileSize(currentPile == null ? 0 : currentPile.size());
+        state.setPlayerHands(null);
+        state.setCurrentPile(null);
+        state.setSelectedCards(null);
+        state.setLastPlayedCards(null);
+        state.setLastChallengeHands(null);
+        return state;
+    }
+
     /**
      * 从GameState更新当前对象
      * 用于兼容现有代码
@@ -376,7 +421,7 @@ public class GameRoom {
         this.currentPlayer = state.getCurrentPlayer();
         this.playerHands = state.getPlayerHands();
         this.currentPile = state.getCurrentPile();
-        this.lastClaim = state.getLastClaim();
+        // GameState中的声明只是展示文字，声明本身以房间中的为准
         this.selectedCards = state.getSelectedCards();
         this.declaredValue = state.getDeclaredValue();
         this.passedPlayers = state.getPassedPlayers();
@@ -0,0 +1,281 @@
+package com.example.poker.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 游戏规则引擎
+ * <p>
+ * 只修改 {@link GameRoom} 的状态，不发送消息、不写日志、不依赖Spring，
+ * 由 {@code GameService} 在房间信箱线程上调用后再发布事件，也可以由 {@code SelfPlaySimulator} 直接调用。
+ * 不合法的动作抛出 {@link RuntimeException}，房间状态保持不变。
+ * </p>
+ */
+public final class GameRules {
+
+    private GameRules() {
+    }
+
+    /**
+     * 按分好的手牌开局，房主先手
+     * @param room 游戏房间
+     * @param playerHands 玩家ID -> 手牌
+     */
+    public static void deal(GameRoom room, Map<String, CardHand> playerHands) {
+        room.setStatus(GameStatus.PLAYING);
+        room.setGameStatus("PLAYING");
+        room.setCardDeck(new ArrayList<>());  // 牌已经分完了
+        room.setPlayerHands(playerHands);
+        room.setCurrentPlayerIndex(0);  // 房主先手
+        room.setCurrentPile(new CardHand());
+        room.setCurrentPlayer(room.getPlayers().get(0));
+        room.setCardKnowledge(new CardKnowledge(playerHands));
+    }
+
+    /**
+     * 出牌
+     * @param room 游戏房间
+     * @param playerId 玩家ID
+     * @param selectedCards 打出的牌
+     * @param declaredCount 声明的张数
+     * @param declaredValue 声明的点数
+     * @return 玩家是否打完了手牌（等待确认胜利，当前玩家不变）
+     */
+    public static boolean play(GameRoom room, String playerId, List<Card> selectedCards,
+                               int declaredCount, String declaredValue) {
+        checkPlaying(room, playerId);
+
+        // 检查是否是当前玩家的回合
+        if (!playerId.equals(room.getCurrentPlayer())) {
+            throw new RuntimeException("不是你的回合");
+        }
+
+        CardHand playerCards = room.getPlayerHands().get(playerId);
+        if (playerCards == null || selectedCards == null) {
+            throw new RuntimeException("你没有这些牌");
+        }
+
+        // 如果已有上一玩家出牌且有声明值，则当前玩家必须遵守相同的声明值
+        // 除非所有其他玩家都已过牌，此时玩家可以自由选择牌值
+        if (room.getLastClaim() != null && !room.haveAllPlayersPassed()) {
+            if (!Objects.equals(declaredValue, room.getLastPlayedValue())) {
+                throw new RuntimeException("必须声明与上一玩家相同的牌值: " + room.getLastPlayedValue());
+            }
+        }
+
+        // 检查玩家是否有这些牌并从手牌中移除（一次完成，没有的话手牌保持不变）
+        if (!playerCards.removeExactly(selectedCards)) {
+            throw new RuntimeException("你没有这些牌");
+        }
+
+        // 添加到当前牌堆
+        room.getCurrentPile().addAll(selectedCards);
+
+        // 记录玩家声明
+        room.setLastClaim(Claim.of(playerId, declaredCount, declaredValue));
+        room.setLastPlayedValue(declaredValue);
+        room.setLastPlayedPlayer(playerId);
+        room.setLastPlayerId(playerId);
+        knowledge(room).onPlay(playerId, selectedCards.size(), room.getLastClaim().getRank());
+
+        // 清空过牌玩家列表，因为新的一轮出牌开始了
+        room.clearPassedPlayers();
+
+        // 检查是否有其他玩家已经打完手牌但仍在等待确认
+        // 当其他玩家出牌后，这些玩家满足"被质疑失败或其他玩家出牌"的条件
+        for (String winner : new ArrayList<>(room.getWinners())) {
+            // 如果赢家不是当前出牌的玩家，且仍在玩家列表中
+            if (!winner.equals(playerId) && room.getPlayers().contains(winner)) {
+                // 将该玩家从当前玩家列表中移除（确认胜利）
+                room.getPlayers().remove(winner);
+            }
+        }
+
+        // 打完手牌时由调用方处理胜利
+        if (playerCards.isEmpty()) {
+            return true;
+        }
+
+        // 切换到下一个玩家
+        int nextIndex = (room.getPlayers().indexOf(playerId) + 1) % room.getPlayers().size();
+        room.setCurrentPlayer(room.getPlayers().get(nextIndex));
+        room.setCurrentPlayerIndex(nextIndex);
+        return false;
+    }
+
+    /**
+     * 玩家打完手牌后登记胜利，只剩最后一个玩家有手牌时游戏结束
+     * @param room 游戏房间
+     * @param playerId 打完手牌的玩家ID
+     */
+    public static void win(GameRoom room, String playerId) {
+        if (!room.getWinners().contains(playerId)) {
+            room.getWinners().add(playerId);
+        }
+        // 刚出完牌的玩家还可能被质疑，只登记不移除
+        // 只有当被质疑失败或其他玩家出牌后，才算真正胜利
+        if (room.getLastClaim() == null || !playerId.equals(room.getLastPlayerId())) {
+            // 将玩家从当前玩家列表中移除，但保留在胜利列表中
+            room.getPlayers().remove(playerId);
+        }
+        finishIfOver(room);
+    }
+
+    /**
+     * 质疑上一个玩家的声明：底盘全部符合声明时质疑失败
+     * @param room 游戏房间
+     * @param challengerId 质疑的玩家ID
+     * @param targetPlayerId 被质疑的玩家ID
+     * @return 质疑是否成功
+     */
+    public static boolean challenge(GameRoom room, String challengerId, String targetPlayerId) {
+        checkPlaying(room, challengerId);
+
+        // 获取当前牌堆中的牌
+        CardHand currentPile = room.getCurrentPile();
+        if (currentPile.isEmpty()) {
+            throw new RuntimeException("当前没有可质疑的牌");
+        }
+
+        // 获取声明的值
+        if (room.getLastClaim() == null) {
+            throw new RuntimeException("当前没有声明");
+        }
+
+        // 判断质疑是否成功
+        boolean challengeSuccess = !isClaimValid(currentPile, room.getLastPlayedValue());
+        String loserId = challengeSuccess ? targetPlayerId : challengerId;
+        CardHand targetPlayerHand = room.getPlayerHands().get(targetPlayerId);
+        boolean targetEmpty = targetPlayerHand != null && targetPlayerHand.isEmpty();
+
+        // 处理质疑结果
+        if (challengeSuccess) {
+            // 质疑成功，出牌者收走底盘
+            punishPlayer(room, targetPlayerId);
+
+            // 如果被质疑的玩家之前已经打完手牌（手牌为空但仍在players列表中等待确认）
+            // 则需要将其从winners列表中移除，因为质疑成功意味着他需要重新开始
+            if (targetEmpty) {
+                room.getWinners().remove(targetPlayerId);
+            }
+
+            // 质疑玩家获得出牌权
+            room.setCurrentPlayer(challengerId);
+            room.setCurrentPlayerIndex(room.getPlayers().indexOf(challengerId));
+        } else {
+            // 质疑失败，质疑者收走底盘
+            punishPlayer(room, challengerId);
+
+            // 如果被质疑的玩家手牌为空，且在winners列表中，此时应确认其真正赢得比赛
+            // 因为他被质疑但质疑失败，满足"出完手牌后无人质疑成功"的条件
+            int targetIndex = room.getPlayers().indexOf(targetPlayerId);
+            if (targetEmpty && room.getWinners().contains(targetPlayerId) && targetIndex >= 0) {
+                // 将玩家从游戏中移除，但保留在winners列表中，出牌权交给他的下家
+                room.getPlayers().remove(targetPlayerId);
+                int nextIndex = targetIndex % room.getPlayers().size();
+                room.setCurrentPlayer(room.getPlayers().get(nextIndex));
+                room.setCurrentPlayerIndex(nextIndex);
+            } else {
+                // 出牌者获得出牌权
+                room.setCurrentPlayer(targetPlayerId);
+                room.setCurrentPlayerIndex(targetIndex);
+            }
+        }
+
+        // 翻开的底盘进入输家的手牌，记录这些牌的位置
+        knowledge(room).onChallenge(loserId, currentPile);
+
+        // 清空当前牌堆
+        currentPile.clear();
+        room.setLastClaim(null);
+        room.setLastPlayedValue(null);
+
+        // 清空过牌玩家列表，因为新的一轮开始了
+        room.clearPassedPlayers();
+        return challengeSuccess;
+    }
+
+    /**
+     * 过牌
+     * @param room 游戏房间
+     * @param playerId 玩家ID
+     */
+    public static void pass(GameRoom room, String playerId) {
+        checkPlaying(room, playerId);
+
+        // 检查是否是当前玩家的回合
+        if (!playerId.equals(room.getCurrentPlayer())) {
+            throw new RuntimeException("不是你的回合");
+        }
+
+        // 记录该玩家已过牌
+        room.addPassedPlayer(playerId);
+
+        // 切换到下一个玩家
+        int nextIndex = (room.getPlayers().indexOf(playerId) + 1) % room.getPlayers().size();
+        room.setCurrentPlayer(room.getPlayers().get(nextIndex));
+        room.setCurrentPlayerIndex(nextIndex);
+
+        // 如果下一个玩家是最初出牌的玩家，说明已经轮了一圈都过牌了
+        // 此时清空过牌记录，给这个玩家重新出牌的自由度
+        if (nextIndex == room.getPlayers().indexOf(room.getLastPlayerId())) {
+            room.clearPassedPlayers();
+        }
+    }
+
+    /**
+     * 检查声明是否有效
+     * 使用牌堆的点数直方图，不遍历牌堆
+     * @param cards 实际打出的牌
+     * @param declaredValue 声明的值
+     * @return 声明是否有效
+     */
+    public static boolean isClaimValid(CardHand cards, String declaredValue) {
+        // 王牌可以当作任意点数，其余牌必须与声明的点数一致
+        return cards.allMatchRank(Card.parseRank(declaredValue));
+    }
+
+    /**
+     * 获取房间的公开牌面记录
+     * 从快照恢复的房间没有记录，按当前手牌张数重新开始记录
+     * @param room 游戏房间
+     * @return 牌面记录
+     */
+    public static CardKnowledge knowledge(GameRoom room) {
+        if (room.getCardKnowledge() == null) {
+            room.setCardKnowledge(new CardKnowledge(room.getPlayerHands()));
+        }
+        return room.getCardKnowledge();
+    }
+
+    private static void checkPlaying(GameRoom room, String playerId) {
+        if (room.getStatus() != GameStatus.PLAYING) {
+            throw new RuntimeException("游戏未开始");
+        }
+        if (!room.getPlayers().contains(playerId)) {
+            throw new RuntimeException("玩家不在房间中");
+        }
+    }
+
+    /**
+     * 惩罚玩家（将底盘牌加入其手牌）
+     */
+    private static void punishPlayer(GameRoom room, String playerId) {
+        CardHand playerHand = room.getPlayerHands().get(playerId);
+        if (playerHand != null && room.getCurrentPile() != null) {
+            playerHand.addAll(room.getCurrentPile());
+        }
+    }
+
+    /**
+     * 如果只剩最后一个玩家有手牌，游戏结束
+     */
+    private static void finishIfOver(GameRoom room) {
+        if (room.checkGameEnd()) {
+            room.setStatus(GameStatus.FINISHED);
+            room.setGameStatus("FINISHED");
+        }
+    }
+}
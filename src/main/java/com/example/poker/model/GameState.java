@@ -18,8 +18,8 @@ public class GameState {
     private List<String> players;  // 玩家列表
     private int currentPlayerIndex;  // 当前玩家索引
     private String currentPlayer;  // 当前玩家ID
-    private Map<String, List<Card>> playerHands;  // 玩家手牌
-    private List<Card> currentPile;  // 当前牌堆
+    private Map<String, CardHand> playerHands;  // 玩家手牌
+    private CardHand currentPile;  // 当前牌堆
     private String lastClaim;  // 最后声明
     private List<Card> selectedCards;  // 选中的牌
     private String declaredValue;  // 声明的牌值
@@ -49,10 +49,14 @@ public class GameState {
 
     private List<String> readyPlayers = new ArrayList<>();
 
+    private long version;  // 快照对应的房间版本号
+    private Map<String, Integer> handCounts;  // 公开快照中各玩家的手牌张数
+    private int pileSize;  // 底盘张数
+
     public GameState() {
         this.players = new ArrayList<>();
         this.playerHands = new HashMap<>();
-        this.currentPile = new ArrayList<>();
+        this.currentPile = new CardHand();
         this.status = GameStatus.WAITING;
         this.gameStatus = "WAITING";
         this.currentPlayerIndex = 0;
@@ -93,19 +97,19 @@ public class GameState {
         this.currentPlayerIndex = currentPlayerIndex;
     }
 
-    public Map<String, List<Card>> getPlayerHands() {
+    public Map<String, CardHand> getPlayerHands() {
         return playerHands;
     }
 
-    public void setPlayerHands(Map<String, List<Card>> playerHands) {
+    public void setPlayerHands(Map<String, CardHand> playerHands) {
         this.playerHands = playerHands;
     }
 
-    public List<Card> getCurrentPile() {
+    public CardHand getCurrentPile() {
         return currentPile;
     }
 
-    public void setCurrentPile(List<Card> currentPile) {
+    public void setCurrentPile(CardHand currentPile) {
         this.currentPile = currentPile;
     }
 
@@ -239,10 +243,12 @@ public class GameState {
     }
 
     public boolean validateLastClaim() {
-        // 最后声明验证逻辑
-        return currentPile.stream().allMatch(card -> 
-            card.getRank().equals(lastClaim)
-        );
+        // 最后声明验证逻辑：按点数直方图判断
+        if (currentPile.isEmpty()) {
+            return true;
+        }
+        int rank = Card.parseRank(lastClaim);
+        return rank >= 0 && currentPile.countRank(rank) == currentPile.size();
     }
 
     public List<String> getWinners() {
@@ -0,0 +1,51 @@
+package com.example.poker.model;
+
+import lombok.Data;
+
+import java.util.Collection;
+
+/**
+ * 游戏日志条目
+ * 记录引擎执行的一个动作，出牌和发牌记录实际的牌面编码，出牌同时记录声明的点数和张数，用于复盘
+ */
+@Data
+public class JournalEntry {
+    private long sequence;           // 日志序号，由写入线程分配
+    private long timestamp;          // 动作发生的时间（毫秒）
+    private JournalEntryType type;   // 条目类型
+    private String roomId;           // 房间ID
+    private long version;            // 记录时的房间版本号
+    private String playerId;         // 执行动作的玩家
+    private String targetPlayerId;   // 被质疑的玩家
+    private String value;            // 声明的点数
+    private Integer declaredCount;   // 声明的张数，可能与实际打出的张数不同
+    private Boolean success;         // 质疑是否成功
+    private byte[] cards;            // 牌面编码，见 Card#getCode
+    private byte[] data;             // 快照内容，见 RoomSnapshot
+
+    public JournalEntry() {
+    }
+
+    public JournalEntry(JournalEntryType type, String roomId, long version, String playerId) {
+        this.timestamp = System.currentTimeMillis();
+        this.type = type;
+        this.roomId = roomId;
+        this.version = version;
+        this.playerId = playerId;
+    }
+
+    /**
+     * 记录牌面编码
+     * @param hand 牌
+     * @return 当前条目
+     */
+    public JournalEntry withCards(Collection<Card> hand) {
+        byte[] codes = new byte[hand.size()];
+        int i = 0;
+        for (Card card : hand) {
+            codes[i++] = (byte) card.getCode();
+        }
+        this.cards = codes;
+        return this;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.poker.model;
+
+/**
+ * 游戏日志条目类型
+ * 序号写入日志文件，只能在末尾追加
+ */
+public enum JournalEntryType {
+    DEAL,       // 发牌，每个玩家一条
+    PLAY,       // 出牌
+    PASS,       // 过牌
+    CHALLENGE,  // 质疑
+    WIN,        // 出完手牌
+    JOIN,       // 加入房间
+    LEAVE,      // 离开房间
+    SNAPSHOT,   // 房间完整状态，恢复时从最后一个快照开始重放
+    REMOVE      // 房间被移除
+}
@@ -0,0 +1,89 @@
+package com.example.poker.model;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * 专家难度的机器人策略：执行蒙特卡洛搜索得出的动作
+ * <p>
+ * 搜索在 {@code RobotSearchPool} 上异步进行，结果按房间状态版本登记为计划；
+ * 决策时如果有当前版本的计划就按计划质疑、出牌或过牌，否则退回困难难度的默认策略。
+ * </p>
+ */
+public class MonteCarloRobotStrategy implements RobotStrategy {
+    private final RobotStrategy fallback;
+    private RobotAction plan;                 // 搜索得出的动作
+    private long planVersion = -1;            // 计划对应的房间状态版本
+
+    /**
+     * 构造函数
+     * @param random 随机数生成器，用于没有计划时的默认策略
+     */
+    public MonteCarloRobotStrategy(RandomGenerator random) {
+        this.fallback = new DefaultRobotStrategy("HARD", random);
+    }
+
+    /**
+     * 登记搜索结果
+     * @param version 搜索时的房间状态版本
+     * @param action 搜索得出的动作，为null时本回合使用默认策略
+     */
+    public void setPlan(long version, RobotAction action) {
+        this.planVersion = version;
+        this.plan = action;
+    }
+
+    /**
+     * 是否有指定版本的计划
+     * @param version 房间状态版本
+     * @return 是否有计划
+     */
+    public boolean hasPlan(long version) {
+        return planVersion == version;
+    }
+
+    /**
+     * 清除计划，决策执行后调用
+     */
+    public void clearPlan() {
+        this.plan = null;
+        this.planVersion = -1;
+    }
+
+    @Override
+    public boolean decideToChallenge(Claim lastClaim, CardHand currentPile, CardHand hand) {
+        if (plan == null) {
+            return fallback.decideToChallenge(lastClaim, currentPile, hand);
+        }
+        return plan.getType() == RobotAction.Type.CHALLENGE;
+    }
+
+    @Override
+    public boolean decideToChallenge(Claim lastClaim, CardHand currentPile, CardHand hand, double lieProbability) {
+        if (plan == null) {
+            return fallback.decideToChallenge(lastClaim, currentPile, hand, lieProbability);
+        }
+        return plan.getType() == RobotAction.Type.CHALLENGE;
+    }
+
+    @Override
+    public void selectCardsToPlay(Claim lastClaim, CardHand hand, List<Card> selected) {
+        if (plan == null) {
+            fallback.selectCardsToPlay(lastClaim, hand, selected);
+            return;
+        }
+        if (plan.getType() != RobotAction.Type.PLAY) {
+            return;
+        }
+        hand.collectRank(plan.getCardRank(), plan.getCardCount(), selected);
+        hand.collectRank(Card.JOKER_RANK, plan.getJokerCount(), selected);
+    }
+
+    @Override
+    public int chooseClaimRank(List<Card> selectedCards, Claim lastClaim) {
+        if (plan == null) {
+            return fallback.chooseClaimRank(selectedCards, lastClaim);
+        }
+        return selectedCards.isEmpty() || plan.getType() != RobotAction.Type.PLAY ? -1 : plan.getClaimRank();
+    }
+}
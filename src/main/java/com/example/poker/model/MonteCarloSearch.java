@@ -0,0 +1,533 @@
+package com.example.poker.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 机器人的信息集蒙特卡洛搜索（ISMCTS，只在根节点建树）
+ * <p>
+ * 机器人看不到其他玩家的手牌和底盘内容。每次迭代先按公开信息抽样一种隐藏牌的分配（确定化）：
+ * 全部牌副去掉自己的手牌后随机分给底盘和其他玩家，张数与公开的张数一致。
+ * 底盘的牌都是按当前声明打出的，每张牌按先验的说谎概率决定是否随机抽取，其余优先抽符合声明的牌，
+ * 否则均匀抽样会把几乎所有声明都当成谎言，高估质疑的收益；
+ * 再在根节点按UCB1选择一个候选动作，之后所有玩家按简单的启发式策略模拟到有人出完手牌，
+ * 机器人先出完得1分，达到步数上限时按手牌张数的排名给0到0.5分。
+ * </p>
+ * <p>
+ * 模拟只按点数计数，不区分花色；规则与 {@code GameService} 一致：跟牌必须声明相同的点数，
+ * 王牌可以当作任意点数，质疑失败的一方收走底盘，出完手牌的玩家在下家不质疑或质疑失败时获胜。
+ * 每个 {@link Worker} 有独立的统计和随机数，可以在不同线程上并行迭代（根节点并行），最后由 {@link #best} 合并。
+ * </p>
+ */
+public class MonteCarloSearch {
+
+    /** UCB1的探索系数，回报在0到1之间 */
+    private static final double EXPLORATION = 0.7;
+    /** 一次模拟的最多步数 */
+    private static final int MAX_PLAYOUT_TURNS = 400;
+    /** 模拟中一次最多出的张数 */
+    private static final int MAX_PLAY = 3;
+    /** 每个点数的张数（每副牌），王牌为2张 */
+    private static final int SUITS = 4;
+    private static final int JOKERS = 2;
+    /** 确定化时底盘中每张牌是谎言的先验概率 */
+    private static final double BLUFF_PRIOR = 0.3;
+
+    private final RobotView view;
+    private final List<RobotAction> actions;
+    private final int[] unknownCards;         // 不在机器人手中的牌的点数，每张一项
+
+    /**
+     * 构造函数，列出候选动作并计算未知牌
+     * @param view 机器人视角
+     */
+    public MonteCarloSearch(RobotView view) {
+        this.view = view;
+        this.actions = Collections.unmodifiableList(enumerateActions(view));
+        int total = 0;
+        int[] unknown = new int[Card.RANK_COUNT];
+        for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+            int perDeck = rank == Card.JOKER_RANK ? JOKERS : SUITS;
+            unknown[rank] = Math.max(0, perDeck * view.getDeckCount() - view.getOwnRankCount(rank));
+            total += unknown[rank];
+        }
+        this.unknownCards = new int[total];
+        int i = 0;
+        for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+            for (int n = 0; n < unknown[rank]; n++) {
+                unknownCards[i++] = rank;
+            }
+        }
+    }
+
+    public RobotView getView() {
+        return view;
+    }
+
+    /**
+     * 获取候选动作
+     * @return 不可修改的动作列表
+     */
+    public List<RobotAction> getActions() {
+        return actions;
+    }
+
+    /**
+     * 创建一个迭代者，每个线程使用自己的迭代者
+     * @param seed 随机数种子
+     * @return 迭代者
+     */
+    public Worker newWorker(long seed) {
+        return new Worker(seed);
+    }
+
+    /**
+     * 合并各迭代者的统计，选出访问次数最多的动作
+     * @param workers 迭代者
+     * @return 最佳动作，没有进行过迭代时返回null
+     */
+    public RobotAction best(Collection<Worker> workers) {
+        int[] visits = new int[actions.size()];
+        double[] rewards = new double[actions.size()];
+        for (Worker worker : workers) {
+            for (int a = 0; a < visits.length; a++) {
+                visits[a] += worker.visits[a];
+                rewards[a] += worker.rewards[a];
+            }
+        }
+        int best = -1;
+        for (int a = 0; a < visits.length; a++) {
+            if (visits[a] == 0) {
+                continue;
+            }
+            if (best < 0 || visits[a] > visits[best]
+                    || (visits[a] == visits[best] && rewards[a] / visits[a] > rewards[best] / visits[best])) {
+                best = a;
+            }
+        }
+        return best < 0 ? null : actions.get(best);
+    }
+
+    /**
+     * 列出机器人在当前状态下的候选动作
+     */
+    private static List<RobotAction> enumerateActions(RobotView view) {
+        List<RobotAction> actions = new ArrayList<>();
+        int jokers = view.getOwnRankCount(Card.JOKER_RANK);
+        if (view.canChallenge()) {
+            actions.add(RobotAction.CHALLENGE);
+        }
+        if (view.getClaimRank() >= 0 || view.isMustFollow()) {
+            actions.add(RobotAction.PASS);
+        }
+        if (view.isMustFollow()) {
+            int claim = view.getClaimRank();
+            if (claim < 0) {
+                // 声明的点数无法识别，只能过牌或质疑
+                return actions;
+            }
+            if (claim == Card.JOKER_RANK) {
+                for (int k = 1; k <= Math.min(MAX_PLAY, jokers); k++) {
+                    actions.add(RobotAction.play(-1, 0, k, claim));
+                }
+            } else {
+                int held = view.getOwnRankCount(claim);
+                for (int k = 1; k <= Math.min(MAX_PLAY, held); k++) {
+                    actions.add(RobotAction.play(claim, k, 0, claim));
+                }
+                if (jokers > 0) {
+                    actions.add(held > 0
+                            ? RobotAction.play(claim, Math.min(held, MAX_PLAY - 1), 1, claim)
+                            : RobotAction.play(-1, 0, 1, claim));
+                }
+            }
+            // 说谎跟牌：优先打出张数最少的点数
+            List<Integer> ranks = heldRanks(view, claim);
+            ranks.sort(Comparator.comparingInt(view::getOwnRankCount));
+            for (int i = 0; i < Math.min(3, ranks.size()); i++) {
+                actions.add(RobotAction.play(ranks.get(i), 1, 0, claim));
+            }
+            for (int rank : ranks) {
+                if (view.getOwnRankCount(rank) >= 2) {
+                    actions.add(RobotAction.play(rank, 2, 0, claim));
+                    break;
+                }
+            }
+            return actions;
+        }
+
+        // 新的一轮：如实打出某个点数，或打出一张最少的点数并声明手里最多的点数
+        List<Integer> ranks = heldRanks(view, -1);
+        for (int rank : ranks) {
+            int count = view.getOwnRankCount(rank);
+            actions.add(RobotAction.play(rank, Math.min(MAX_PLAY, count), 0, rank));
+            if (count > 1) {
+                actions.add(RobotAction.play(rank, 1, 0, rank));
+            }
+        }
+        if (ranks.isEmpty() && jokers > 0) {
+            actions.add(RobotAction.play(-1, 0, Math.min(MAX_PLAY, jokers), 1));
+        }
+        if (ranks.size() >= 2) {
+            ranks.sort(Comparator.comparingInt(view::getOwnRankCount));
+            actions.add(RobotAction.play(ranks.get(0), 1, 0, ranks.get(ranks.size() - 1)));
+        }
+        return actions;
+    }
+
+    /**
+     * 机器人手里有的A-K点数，排除指定点数
+     */
+    private static List<Integer> heldRanks(RobotView view, int excluded) {
+        List<Integer> ranks = new ArrayList<>();
+        for (int rank = 1; rank < Card.RANK_COUNT; rank++) {
+            if (rank != excluded && view.getOwnRankCount(rank) > 0) {
+                ranks.add(rank);
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * 一个线程上的搜索：根节点统计、随机数和模拟用的状态
+     * 不是线程安全的，同一时间只能在一个线程上运行
+     */
+    public final class Worker {
+        private final SplittableRandom random;
+        private final int[] visits = new int[actions.size()];
+        private final double[] rewards = new double[actions.size()];
+        private int iterations;
+
+        // 模拟状态，每次迭代重新确定化
+        private final int players = view.getPlayerCount();
+        private final int[][] hands = new int[players][Card.RANK_COUNT];
+        private final int[] sizes = new int[players];
+        private final int[] pile = new int[Card.RANK_COUNT];
+        private final int[] deck = unknownCards.clone();
+        private int pileSize;
+        private int claimRank;
+        private int claimCount;
+        private int lastSeat;
+        private int current;
+        private int winner;
+
+        private Worker(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        /**
+         * 执行若干次迭代
+         * @param count 迭代次数
+         */
+        public void run(int count) {
+            if (actions.isEmpty()) {
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                int action = select();
+                determinize();
+                double reward = playout(actions.get(action));
+                visits[action]++;
+                rewards[action] += reward;
+                iterations++;
+            }
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * UCB1选择根节点动作，没有访问过的动作优先
+         */
+        private int select() {
+            int best = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            double logTotal = Math.log(Math.max(1, iterations));
+            for (int a = 0; a < visits.length; a++) {
+                if (visits[a] == 0) {
+                    return a;
+                }
+                double score = rewards[a] / visits[a] + EXPLORATION * Math.sqrt(logTotal / visits[a]);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = a;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * 按公开信息随机分配未知牌：先洗出需要的张数，依次分给底盘和其他玩家；
+         * 底盘的牌按声明抽样，未知牌中还有符合声明的牌时以 1 - BLUFF_PRIOR 的概率抽取一张
+         */
+        private void determinize() {
+            int seat = view.getSeat();
+            int needed = view.getPileSize();
+            for (int p = 0; p < players; p++) {
+                if (p != seat) {
+                    needed += view.getHandSize(p);
+                }
+            }
+            int shuffled = Math.min(needed, deck.length);
+            for (int i = 0; i < shuffled; i++) {
+                int j = i + random.nextInt(deck.length - i);
+                int tmp = deck[i];
+                deck[i] = deck[j];
+                deck[j] = tmp;
+            }
+
+            int next = 0;
+            Arrays.fill(pile, 0);
+            pileSize = view.getPileSize();
+            int claim = view.getClaimRank();
+            for (int i = 0; i < pileSize; i++) {
+                if (claim >= 0 && next < deck.length && random.nextDouble() >= BLUFF_PRIOR) {
+                    moveMatching(next, claim);
+                }
+                pile[drawRank(next++)]++;
+            }
+            for (int p = 0; p < players; p++) {
+                int[] hand = hands[p];
+                if (p == seat) {
+                    int size = 0;
+                    for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+                        hand[rank] = view.getOwnRankCount(rank);
+                        size += hand[rank];
+                    }
+                    sizes[p] = size;
+                    continue;
+                }
+                Arrays.fill(hand, 0);
+                sizes[p] = view.getHandSize(p);
+                for (int i = 0; i < sizes[p]; i++) {
+                    hand[drawRank(next++)]++;
+                }
+            }
+            claimRank = view.isMustFollow() ? view.getClaimRank() : -1;
+            claimCount = view.getClaimCount();
+            lastSeat = view.getLastSeat();
+            current = seat;
+            winner = -1;
+        }
+
+        /**
+         * 把第i张及之后的第一张符合声明的牌（同点数或王牌）换到第i张，没有时不变
+         */
+        private void moveMatching(int i, int claim) {
+            for (int j = i; j < deck.length; j++) {
+                if (deck[j] == claim || deck[j] == Card.JOKER_RANK) {
+                    int tmp = deck[i];
+                    deck[i] = deck[j];
+                    deck[j] = tmp;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 取洗好的第i张未知牌；公开张数与牌副数不一致时随机补一张
+         */
+        private int drawRank(int i) {
+            return i < deck.length ? deck[i] : 1 + random.nextInt(Card.RANK_COUNT - 1);
+        }
+
+        /**
+         * 执行机器人的动作后模拟到有人获胜或达到步数上限
+         */
+        private double playout(RobotAction action) {
+            int seat = view.getSeat();
+            switch (action.getType()) {
+                case CHALLENGE -> {
+                    // 其他玩家都过牌后不必跟牌，但上一个声明仍然可以被质疑
+                    claimRank = view.getClaimRank();
+                    challenge(seat);
+                }
+                case PASS -> pass(seat);
+                default -> play(seat, action.getCardRank(), action.getCardCount(),
+                        action.getJokerCount(), action.getClaimRank());
+            }
+            for (int turn = 0; turn < MAX_PLAYOUT_TURNS && winner < 0; turn++) {
+                step(current);
+            }
+            if (winner >= 0) {
+                return winner == seat ? 1 : 0;
+            }
+            // 达到步数上限，按手牌张数排名估计
+            if (players <= 1) {
+                return 0.5;
+            }
+            double better = 0;
+            for (int p = 0; p < players; p++) {
+                if (p != seat) {
+                    better += sizes[p] > sizes[seat] ? 1 : sizes[p] == sizes[seat] ? 0.5 : 0;
+                }
+            }
+            return 0.5 * better / (players - 1);
+        }
+
+        /**
+         * 模拟中一个玩家的回合
+         */
+        private void step(int p) {
+            boolean canChallenge = claimRank >= 0 && lastSeat >= 0 && lastSeat != p && pileSize > 0;
+            if (canChallenge && wantsChallenge(p)) {
+                challenge(p);
+                return;
+            }
+            if (sizes[p] == 0 || claimsWin(p)) {
+                pass(p);
+                return;
+            }
+            if (claimRank >= 0) {
+                follow(p);
+            } else {
+                lead(p);
+            }
+        }
+
+        /**
+         * 声明的张数超过自己手里没有的同点数牌和王牌的总数时一定质疑，否则按张数和局势随机质疑
+         */
+        private boolean wantsChallenge(int p) {
+            int[] hand = hands[p];
+            int decks = view.getDeckCount();
+            int available = claimRank == Card.JOKER_RANK
+                    ? JOKERS * decks - hand[Card.JOKER_RANK]
+                    : SUITS * decks - hand[claimRank] + JOKERS * decks - hand[Card.JOKER_RANK];
+            if (claimCount > available) {
+                return true;
+            }
+            double probability = 0.1 + 0.05 * claimCount;
+            if (sizes[lastSeat] == 0) {
+                probability += 0.5;
+            } else if (claimRank != Card.JOKER_RANK && hand[claimRank] >= SUITS) {
+                probability += 0.2;
+            }
+            return random.nextDouble() < probability;
+        }
+
+        /**
+         * 跟牌：有同点数的牌就如实打出，否则用王牌、说谎或过牌
+         */
+        private void follow(int p) {
+            int[] hand = hands[p];
+            int honest = hand[claimRank];
+            if (honest > 0) {
+                int count = Math.min(honest, 1 + random.nextInt(MAX_PLAY));
+                if (claimRank == Card.JOKER_RANK) {
+                    play(p, -1, 0, count, claimRank);
+                } else {
+                    play(p, claimRank, count, 0, claimRank);
+                }
+            } else if (hand[Card.JOKER_RANK] > 0 && random.nextDouble() < 0.7) {
+                play(p, -1, 0, 1, claimRank);
+            } else if (random.nextDouble() < 0.5) {
+                int rank = randomRank(p);
+                if (rank == Card.JOKER_RANK) {
+                    play(p, -1, 0, 1, claimRank);
+                } else {
+                    play(p, rank, 1, 0, claimRank);
+                }
+            } else {
+                pass(p);
+            }
+        }
+
+        /**
+         * 新的一轮：如实打出张数最多的点数
+         */
+        private void lead(int p) {
+            int[] hand = hands[p];
+            int best = -1;
+            for (int rank = 1; rank < Card.RANK_COUNT; rank++) {
+                if (hand[rank] > 0 && (best < 0 || hand[rank] > hand[best])) {
+                    best = rank;
+                }
+            }
+            if (best < 0) {
+                play(p, -1, 0, Math.min(MAX_PLAY, hand[Card.JOKER_RANK]), 1);
+            } else {
+                play(p, best, Math.min(MAX_PLAY, hand[best]), 0, best);
+            }
+        }
+
+        private int randomRank(int p) {
+            int index = random.nextInt(sizes[p]);
+            int[] hand = hands[p];
+            for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+                index -= hand[rank];
+                if (index < 0) {
+                    return rank;
+                }
+            }
+            return Card.JOKER_RANK;
+        }
+
+        /**
+         * 上一个玩家已出完手牌且当前玩家没有质疑时，上一个玩家获胜
+         */
+        private boolean claimsWin(int p) {
+            if (lastSeat >= 0 && lastSeat != p && sizes[lastSeat] == 0) {
+                winner = lastSeat;
+                return true;
+            }
+            return false;
+        }
+
+        private void play(int p, int cardRank, int cardCount, int jokerCount, int claim) {
+            if (claimsWin(p)) {
+                return;
+            }
+            if (cardRank >= 0) {
+                hands[p][cardRank] -= cardCount;
+                pile[cardRank] += cardCount;
+            }
+            hands[p][Card.JOKER_RANK] -= jokerCount;
+            pile[Card.JOKER_RANK] += jokerCount;
+            int total = cardCount + jokerCount;
+            sizes[p] -= total;
+            pileSize += total;
+            claimRank = claim;
+            claimCount = total;
+            lastSeat = p;
+            current = (p + 1) % players;
+        }
+
+        private void pass(int p) {
+            claimsWin(p);
+            current = (p + 1) % players;
+        }
+
+        /**
+         * 质疑：底盘全部符合声明（王牌可当任意点数）时质疑者收走底盘，否则出牌者收走
+         */
+        private void challenge(int p) {
+            int matched = pile[Card.JOKER_RANK] + (claimRank == Card.JOKER_RANK ? 0 : pile[claimRank]);
+            boolean truthful = matched == pileSize;
+            int loser = truthful ? p : lastSeat;
+            for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+                hands[loser][rank] += pile[rank];
+                pile[rank] = 0;
+            }
+            sizes[loser] += pileSize;
+            pileSize = 0;
+            claimRank = -1;
+            claimCount = 0;
+            if (truthful) {
+                current = lastSeat;
+                if (sizes[lastSeat] == 0) {
+                    winner = lastSeat;
+                }
+            } else {
+                current = p;
+            }
+            lastSeat = -1;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.poker.model;
+
+/**
+ * 机器人的一个候选动作（不可变）
+ * 出牌动作按点数描述：打出某个点数的若干张牌和若干张王牌，并声明一个点数；
+ * 打出的点数与声明的点数不同即为说谎
+ */
+public final class RobotAction {
+
+    /**
+     * 动作类型
+     */
+    public enum Type {
+        PLAY,       // 出牌
+        PASS,       // 过牌
+        CHALLENGE   // 质疑上一个玩家
+    }
+
+    public static final RobotAction PASS = new RobotAction(Type.PASS, -1, 0, 0, -1);
+    public static final RobotAction CHALLENGE = new RobotAction(Type.CHALLENGE, -1, 0, 0, -1);
+
+    private final Type type;
+    private final int cardRank;               // 打出的点数下标，只打王牌时为-1
+    private final int cardCount;              // 打出该点数的张数
+    private final int jokerCount;             // 打出的王牌张数
+    private final int claimRank;              // 声明的点数下标
+
+    private RobotAction(Type type, int cardRank, int cardCount, int jokerCount, int claimRank) {
+        this.type = type;
+        this.cardRank = cardRank;
+        this.cardCount = cardCount;
+        this.jokerCount = jokerCount;
+        this.claimRank = claimRank;
+    }
+
+    /**
+     * 创建出牌动作
+     * @param cardRank 打出的点数下标，只打王牌时为-1
+     * @param cardCount 打出该点数的张数
+     * @param jokerCount 打出的王牌张数
+     * @param claimRank 声明的点数下标
+     * @return 出牌动作
+     */
+    public static RobotAction play(int cardRank, int cardCount, int jokerCount, int claimRank) {
+        return new RobotAction(Type.PLAY, cardRank, cardCount, jokerCount, claimRank);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getCardRank() {
+        return cardRank;
+    }
+
+    public int getCardCount() {
+        return cardCount;
+    }
+
+    public int getJokerCount() {
+        return jokerCount;
+    }
+
+    public int getClaimRank() {
+        return claimRank;
+    }
+
+    /**
+     * 打出的总张数
+     * @return 张数
+     */
+    public int getTotalCount() {
+        return cardCount + jokerCount;
+    }
+
+    /**
+     * 是否说谎（打出的点数与声明不同）
+     * @return 是否说谎
+     */
+    public boolean isBluff() {
+        return type == Type.PLAY && cardCount > 0 && cardRank != claimRank;
+    }
+
+    @Override
+    public String toString() {
+        if (type != Type.PLAY) {
+            return type.name();
+        }
+        return "PLAY " + cardCount + "x" + (cardRank >= 0 ? Card.rankName(cardRank) : "-")
+                + (jokerCount > 0 ? "+" + jokerCount + "xJoker" : "") + " as " + Card.rankName(claimRank);
+    }
+}
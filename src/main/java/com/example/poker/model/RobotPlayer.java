@@ -1,18 +1,26 @@
 package com.example.poker.model;
 
+import com.example.poker.util.RandomProvider;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
 /**
  * 机器人玩家类，使用策略模式实现AI决策
+ * 每个房间的机器人座位只创建一个实例，手牌在每次决策前更新，选牌缓冲区在决策之间复用
  */
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class RobotPlayer extends AbstractPlayer {
     private RobotStrategy strategy;
-    private String difficulty; // EASY, MEDIUM, HARD
+    private String difficulty; // EASY, MEDIUM, HARD, EXPERT
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final List<Card> selected = new ArrayList<>(); // 选牌缓冲区，每次选牌时复用
 
     /**
      * 默认构造函数
@@ -32,7 +40,20 @@ public class RobotPlayer extends AbstractPlayer {
     public RobotPlayer(String id, String name, String difficulty) {
         super(id, name);
         this.difficulty = difficulty;
-        this.strategy = new DefaultRobotStrategy(difficulty);
+        this.strategy = strategyFor(difficulty, null);
+    }
+
+    /**
+     * 使用ID、名称和指定的随机数生成器构造机器人玩家
+     * @param id 玩家ID
+     * @param name 玩家名称
+     * @param difficulty 难度级别
+     * @param random 随机数生成器
+     */
+    public RobotPlayer(String id, String name, String difficulty, RandomGenerator random) {
+        super(id, name);
+        this.difficulty = difficulty;
+        this.strategy = strategyFor(difficulty, random);
     }
 
     /**
@@ -41,7 +62,21 @@ public class RobotPlayer extends AbstractPlayer {
      */
     public void setDifficulty(String difficulty) {
         this.difficulty = difficulty;
-        this.strategy = new DefaultRobotStrategy(difficulty);
+        this.strategy = strategyFor(difficulty, null);
+    }
+
+    /**
+     * 根据难度创建策略：专家难度使用蒙特卡洛搜索，其他难度使用默认策略
+     * @param difficulty 难度级别
+     * @param random 随机数生成器，为null时使用默认生成器
+     * @return 机器人策略
+     */
+    private static RobotStrategy strategyFor(String difficulty, RandomGenerator random) {
+        RandomGenerator generator = random != null ? random : RandomProvider.getDefault().forRoom(null);
+        if ("EXPERT".equals(difficulty)) {
+            return new MonteCarloRobotStrategy(generator);
+        }
+        return new DefaultRobotStrategy(difficulty, generator);
     }
 
     /**
@@ -50,27 +85,43 @@ public class RobotPlayer extends AbstractPlayer {
      * @param currentPile 当前牌堆
      * @return 是否质疑
      */
-    public boolean decideToChallenge(String lastClaim, List<Card> currentPile) {
-        return strategy.decideToChallenge(lastClaim, currentPile, getHand());
+    public boolean decideToChallenge(Claim lastClaim, CardHand currentPile) {
+        return strategy.decideToChallenge(lastClaim, currentPile, CardHand.of(getHand()));
     }
 
     /**
-     * 选择要打出的牌
+     * 参考房间的公开牌面记录决定是否质疑上一个玩家
      * @param lastClaim 上一个玩家的声明
-     * @return 选择的牌列表
+     * @param currentPile 当前牌堆
+     * @param knowledge 房间的公开牌面记录，可以为null
+     * @return 是否质疑
      */
-    public List<Card> selectCardsToPlay(String lastClaim) {
-        return strategy.selectCardsToPlay(lastClaim, getHand());
+    public boolean decideToChallenge(Claim lastClaim, CardHand currentPile, CardKnowledge knowledge) {
+        CardHand hand = CardHand.of(getHand());
+        double lieProbability = knowledge == null ? Double.NaN : knowledge.lieProbability(lastClaim, getId(), hand);
+        return strategy.decideToChallenge(lastClaim, currentPile, hand, lieProbability);
     }
 
     /**
-     * 生成声明
+     * 选择要打出的牌
+     * 返回的列表由机器人复用，在下一次选牌前有效
+     * @param lastClaim 上一个玩家的声明，新的一轮为null
+     * @return 选择的牌列表，为空表示过牌
+     */
+    public List<Card> selectCardsToPlay(Claim lastClaim) {
+        selected.clear();
+        strategy.selectCardsToPlay(lastClaim, CardHand.of(getHand()), selected);
+        return selected;
+    }
+
+    /**
+     * 选择声明的点数
      * @param selectedCards 选择的牌
-     * @param lastClaim 上一个玩家的声明
-     * @return 声明内容
+     * @param lastClaim 上一个玩家的声明，新的一轮为null
+     * @return 声明的点数下标，不出牌时为-1
      */
-    public String generateClaim(List<Card> selectedCards, String lastClaim) {
-        return strategy.generateClaim(selectedCards, lastClaim);
+    public int chooseClaimRank(List<Card> selectedCards, Claim lastClaim) {
+        return strategy.chooseClaimRank(selectedCards, lastClaim);
     }
 
     @Override
@@ -4,6 +4,7 @@ import java.util.List;
 
 /**
  * 机器人策略接口，定义机器人的决策行为
+ * 决策在房间线程上执行，实现不应在决策过程中分配对象
  */
 public interface RobotStrategy {
     /**
@@ -13,21 +14,33 @@ public interface RobotStrategy {
      * @param hand 机器人的手牌
      * @return 是否质疑
      */
-    boolean decideToChallenge(String lastClaim, List<Card> currentPile, List<Card> hand);
+    boolean decideToChallenge(Claim lastClaim, CardHand currentPile, CardHand hand);
+
+    /**
+     * 参考房间牌面记录估计的说谎概率决定是否质疑，默认忽略估计值
+     * @param lastClaim 上一个玩家的声明
+     * @param currentPile 当前牌堆
+     * @param hand 机器人的手牌
+     * @param lieProbability 由 {@link CardKnowledge#lieProbability} 估计的说谎概率，没有记录时为NaN
+     * @return 是否质疑
+     */
+    default boolean decideToChallenge(Claim lastClaim, CardHand currentPile, CardHand hand, double lieProbability) {
+        return decideToChallenge(lastClaim, currentPile, hand);
+    }
     
     /**
      * 选择要打出的牌
-     * @param lastClaim 上一个玩家的声明
+     * @param lastClaim 上一个玩家的声明，新的一轮为null
      * @param hand 机器人的手牌
-     * @return 选择的牌列表
+     * @param selected 接收选出的牌的列表（调用方清空后传入），没有选牌表示过牌
      */
-    List<Card> selectCardsToPlay(String lastClaim, List<Card> hand);
+    void selectCardsToPlay(Claim lastClaim, CardHand hand, List<Card> selected);
     
     /**
-     * 生成声明
+     * 选择声明的点数
      * @param selectedCards 选择的牌
-     * @param lastClaim 上一个玩家的声明
-     * @return 声明内容
+     * @param lastClaim 上一个玩家的声明，新的一轮为null
+     * @return 声明的点数下标，不出牌时为-1
      */
-    String generateClaim(List<Card> selectedCards, String lastClaim);
-} 
\ No newline at end of file
+    int chooseClaimRank(List<Card> selectedCards, Claim lastClaim);
+}
@@ -0,0 +1,147 @@
+package com.example.poker.model;
+
+import java.util.List;
+
+/**
+ * 机器人在某个状态版本上能看到的公开信息（不可变）
+ * 只包含自己的手牌、各玩家的手牌张数、底盘张数和当前声明，不包含其他玩家的手牌和底盘内容；
+ * 在房间信箱线程上创建后交给搜索线程使用
+ */
+public final class RobotView {
+    private final long version;               // 创建时的房间状态版本
+    private final int seat;                   // 机器人的座位下标
+    private final int[] handSizes;            // 座位下标 -> 手牌张数
+    private final int[] ownRanks;             // 机器人手牌的点数直方图
+    private final int pileSize;               // 底盘张数
+    private final int claimRank;              // 当前声明的点数下标，没有声明为-1
+    private final int claimCount;             // 当前声明的张数
+    private final int lastSeat;               // 最后出牌玩家的座位下标，没有为-1
+    private final boolean mustFollow;         // 是否必须声明与上一玩家相同的点数
+    private final int deckCount;              // 本局使用的牌副数
+
+    private RobotView(long version, int seat, int[] handSizes, int[] ownRanks, int pileSize,
+                      int claimRank, int claimCount, int lastSeat, boolean mustFollow, int deckCount) {
+        this.version = version;
+        this.seat = seat;
+        this.handSizes = handSizes;
+        this.ownRanks = ownRanks;
+        this.pileSize = pileSize;
+        this.claimRank = claimRank;
+        this.claimCount = claimCount;
+        this.lastSeat = lastSeat;
+        this.mustFollow = mustFollow;
+        this.deckCount = deckCount;
+    }
+
+    /**
+     * 从房间当前状态创建机器人视角，必须在房间信箱线程上调用
+     * @param room 游戏房间
+     * @param robotId 机器人ID
+     * @return 机器人视角
+     */
+    public static RobotView of(GameRoom room, String robotId) {
+        List<String> players = room.getPlayers();
+        int[] handSizes = new int[players.size()];
+        int total = room.getCurrentPile() == null ? 0 : room.getCurrentPile().size();
+        for (int i = 0; i < players.size(); i++) {
+            CardHand hand = room.getPlayerHands().get(players.get(i));
+            handSizes[i] = hand == null ? 0 : hand.size();
+            total += handSizes[i];
+        }
+        CardHand own = room.getPlayerHands().get(robotId);
+        int[] ownRanks = new int[Card.RANK_COUNT];
+        if (own != null) {
+            for (int rank = 0; rank < Card.RANK_COUNT; rank++) {
+                ownRanks[rank] = own.countRank(rank);
+            }
+        }
+        Claim claim = room.getLastClaim();
+        // 开局时所有牌都发给玩家，已出完的玩家手牌为空，因此牌的总数就是副数 * 54
+        int deckCount = Math.max(1, Math.round(total / (float) Card.CARDS_PER_DECK));
+        return new RobotView(room.getVersion(), players.indexOf(robotId), handSizes, ownRanks,
+                total - sum(handSizes),
+                claim == null ? -1 : claim.getRank(),
+                claim == null ? 0 : claim.getCount(),
+                room.getLastPlayerId() == null ? -1 : players.indexOf(room.getLastPlayerId()),
+                claim != null && !room.haveAllPlayersPassed(),
+                deckCount);
+    }
+
+    private static int sum(int[] values) {
+        int sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getSeat() {
+        return seat;
+    }
+
+    public int getPlayerCount() {
+        return handSizes.length;
+    }
+
+    public int getHandSize(int seat) {
+        return handSizes[seat];
+    }
+
+    public int getOwnRankCount(int rank) {
+        return rank < 0 || rank >= Card.RANK_COUNT ? 0 : ownRanks[rank];
+    }
+
+    public int getPileSize() {
+        return pileSize;
+    }
+
+    public int getClaimRank() {
+        return claimRank;
+    }
+
+    public int getClaimCount() {
+        return claimCount;
+    }
+
+    public int getLastSeat() {
+        return lastSeat;
+    }
+
+    public boolean isMustFollow() {
+        return mustFollow;
+    }
+
+    public int getDeckCount() {
+        return deckCount;
+    }
+
+    /**
+     * 机器人现在能否质疑上一个玩家
+     * @return 是否可以质疑
+     */
+    public boolean canChallenge() {
+        return claimRank >= 0 && pileSize > 0 && lastSeat >= 0 && lastSeat != seat;
+    }
+
+    /**
+     * 按声明、底盘和手牌直接构造视角，用于测试和基准测试
+     * @param seat 机器人的座位下标
+     * @param handSizes 各座位的手牌张数
+     * @param ownRanks 机器人手牌的点数直方图
+     * @param pileSize 底盘张数
+     * @param claim 当前声明，可以为null
+     * @param lastSeat 最后出牌玩家的座位下标
+     * @param deckCount 牌副数
+     * @return 机器人视角
+     */
+    public static RobotView of(int seat, int[] handSizes, int[] ownRanks, int pileSize,
+                               Claim claim, int lastSeat, int deckCount) {
+        return new RobotView(0, seat, handSizes.clone(), ownRanks.clone(), pileSize,
+                claim == null ? -1 : claim.getRank(), claim == null ? 0 : claim.getCount(),
+                lastSeat, claim != null, deckCount);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.poker.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.util.List;
+
+/**
+ * 房间的持久化记录
+ * 只保存房间本身的信息，玩家座位保存在 {@link SeatRecord} 中；与内存中的 {@link GameRoom} 分开，
+ * 字段没有变化时Hibernate的脏检查不会产生UPDATE。新记录直接插入，不先按ID查询
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "room_record")
+public class RoomRecord implements Persistable<String> {
+    @Id
+    private String id;                        // 房间ID
+    private String hostId;                    // 房主ID
+    private int maxPlayers;                   // 最大玩家数
+    private String roomName;                  // 房间名称
+    @Enumerated(EnumType.STRING)
+    private GameStatus status;                // 房间状态
+    private String gameStatus;                // 游戏状态字符串表示
+    private int robotCount;                   // 机器人数量
+    private String robotDifficulty;           // 机器人难度
+
+    @Transient
+    private boolean fresh;                    // 尚未写入数据库
+
+    /**
+     * 创建一条新的房间记录
+     * @param id 房间ID
+     */
+    public RoomRecord(String id) {
+        this.id = id;
+        this.fresh = true;
+    }
+
+    /**
+     * 用内存中的房间信息更新记录
+     * @param room 房间
+     */
+    public void apply(GameRoom room) {
+        this.hostId = room.getHostId();
+        this.maxPlayers = room.getMaxPlayers();
+        this.roomName = room.getRoomName();
+        this.status = room.getStatus();
+        this.gameStatus = room.getGameStatus();
+        this.robotCount = room.getRobotCount();
+        this.robotDifficulty = room.getRobotDifficulty();
+    }
+
+    /**
+     * 按记录和座位重建房间信息，不包含游戏状态
+     * @param seats 按座位号排序的座位
+     * @return 新的房间对象
+     */
+    public GameRoom toRoom(List<SeatRecord> seats) {
+        GameRoom room = new GameRoom();
+        room.setId(id);
+        room.setHostId(hostId);
+        room.setMaxPlayers(maxPlayers);
+        room.setRoomName(roomName);
+        room.setStatus(status);
+        room.setGameStatus(gameStatus);
+        room.setRobotCount(robotCount);
+        room.setRobotDifficulty(robotDifficulty);
+        for (SeatRecord seat : seats) {
+            room.getPlayers().add(seat.getPlayerId());
+            if (seat.isReady()) {
+                room.getReadyPlayers().add(seat.getPlayerId());
+            }
+            if (seat.isRobot()) {
+                room.getRobotPlayers().add(seat.getPlayerId());
+            }
+        }
+        return room;
+    }
+
+    @Override
+    public boolean isNew() {
+        return fresh;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        this.fresh = false;
+    }
+}
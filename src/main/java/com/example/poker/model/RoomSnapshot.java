@@ -0,0 +1,131 @@
+package com.example.poker.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 房间快照
+ * 保存 {@link GameRoom} 中引擎会修改的全部状态，包括不持久化的手牌、底盘、当前玩家和声明，
+ * 写入游戏日志后用于崩溃恢复；手牌和底盘按牌面编码保存
+ */
+@Data
+public class RoomSnapshot {
+    private String id;                        // 房间ID
+    private String hostId;                    // 房主ID
+    private int maxPlayers;                   // 最大玩家数
+    private String roomName;                  // 房间名称
+    private GameStatus status;                // 房间状态
+    private String gameStatus;                // 游戏状态字符串表示
+    private List<String> players;             // 玩家列表
+    private List<String> readyPlayers;        // 已准备玩家列表
+    private List<String> robotPlayers;        // 机器人玩家列表
+    private int robotCount;                   // 机器人数量
+    private String robotDifficulty;           // 机器人难度
+    private int currentPlayerIndex;           // 当前玩家索引
+    private String currentPlayer;             // 当前玩家ID
+    private Map<String, byte[]> hands;        // 玩家ID -> 手牌的牌面编码
+    private byte[] pile;                      // 底盘的牌面编码
+    private String lastClaimPlayer;           // 最后声明的出牌玩家，没有声明时为null
+    private int lastClaimCount;               // 最后声明的张数
+    private int lastClaimRank;                // 最后声明的点数下标
+    private String declaredValue;             // 声明的牌值
+    private String lastPlayedValue;           // 上一次声明的值
+    private String lastPlayedPlayer;          // 上一次出牌的玩家
+    private String lastPlayerId;              // 上次出牌的玩家
+    private List<String> passedPlayers;       // 已经过牌的玩家
+    private List<String> winners;             // 已打完手牌的玩家列表
+    private String winner;                    // 最终获胜者
+    private long version;                     // 状态版本号
+
+    /**
+     * 复制房间的当前状态
+     * @param room 游戏房间
+     * @return 快照
+     */
+    public static RoomSnapshot of(GameRoom room) {
+        RoomSnapshot snapshot = new RoomSnapshot();
+        snapshot.id = room.getId();
+        snapshot.hostId = room.getHostId();
+        snapshot.maxPlayers = room.getMaxPlayers();
+        snapshot.roomName = room.getRoomName();
+        snapshot.status = room.getStatus();
+        snapshot.gameStatus = room.getGameStatus();
+        snapshot.players = copy(room.getPlayers());
+        snapshot.readyPlayers = copy(room.getReadyPlayers());
+        snapshot.robotPlayers = copy(room.getRobotPlayers());
+        snapshot.robotCount = room.getRobotCount();
+        snapshot.robotDifficulty = room.getRobotDifficulty();
+        snapshot.currentPlayerIndex = room.getCurrentPlayerIndex();
+        snapshot.currentPlayer = room.getCurrentPlayer();
+        snapshot.hands = new LinkedHashMap<>();
+        if (room.getPlayerHands() != null) {
+            for (Map.Entry<String, CardHand> hand : room.getPlayerHands().entrySet()) {
+                snapshot.hands.put(hand.getKey(), CardHand.of(hand.getValue()).toCodes());
+            }
+        }
+        snapshot.pile = room.getCurrentPile() == null ? new byte[0] : room.getCurrentPile().toCodes();
+        Claim claim = room.getLastClaim();
+        if (claim != null) {
+            snapshot.lastClaimPlayer = claim.getPlayerId();
+            snapshot.lastClaimCount = claim.getCount();
+            snapshot.lastClaimRank = claim.getRank();
+        }
+        snapshot.declaredValue = room.getDeclaredValue();
+        snapshot.lastPlayedValue = room.getLastPlayedValue();
+        snapshot.lastPlayedPlayer = room.getLastPlayedPlayer();
+        snapshot.lastPlayerId = room.getLastPlayerId();
+        snapshot.passedPlayers = copy(room.getPassedPlayers());
+        snapshot.winners = copy(room.getWinners());
+        snapshot.winner = room.getWinner();
+        snapshot.version = room.getVersion();
+        return snapshot;
+    }
+
+    /**
+     * 按快照重建房间
+     * @return 新的房间对象
+     */
+    public GameRoom toRoom() {
+        GameRoom room = new GameRoom();
+        room.setId(id);
+        room.setHostId(hostId);
+        room.setMaxPlayers(maxPlayers);
+        room.setRoomName(roomName);
+        room.setStatus(status);
+        room.setGameStatus(gameStatus);
+        room.setPlayers(copy(players));
+        room.setReadyPlayers(copy(readyPlayers));
+        room.setRobotPlayers(copy(robotPlayers));
+        room.setRobotCount(robotCount);
+        room.setRobotDifficulty(robotDifficulty);
+        Map<String, CardHand> playerHands = new HashMap<>();
+        if (hands != null) {
+            for (Map.Entry<String, byte[]> hand : hands.entrySet()) {
+                playerHands.put(hand.getKey(), CardHand.ofCodes(hand.getValue()));
+            }
+        }
+        room.setPlayerHands(playerHands);
+        room.setCurrentPile(CardHand.ofCodes(pile));
+        room.setCurrentPlayer(currentPlayer);
+        room.setCurrentPlayerIndex(currentPlayerIndex);
+        room.setLastClaim(lastClaimPlayer == null ? null : new Claim(lastClaimPlayer, lastClaimCount, lastClaimRank));
+        room.setDeclaredValue(declaredValue);
+        room.setLastPlayedValue(lastPlayedValue);
+        room.setLastPlayedPlayer(lastPlayedPlayer);
+        room.setLastPlayerId(lastPlayerId);
+        room.setPassedPlayers(copy(passedPlayers));
+        room.setWinners(copy(winners));
+        room.setWinner(winner);
+        room.setVersion(version);
+        return room;
+    }
+
+    private static List<String> copy(List<String> list) {
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.poker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * 房间座位的持久化记录，主键为（房间ID，座位号）
+ * 座位号在玩家加入时分配、之后不变，按座位号排序即玩家顺序；
+ * 座位号可以不连续，玩家加入或离开只插入或删除一行，准备状态变化只更新一行
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "room_seat")
+@IdClass(SeatRecord.Key.class)
+public class SeatRecord implements Persistable<SeatRecord.Key> {
+    @Id
+    private String roomId;                    // 房间ID
+    @Id
+    private int seat;                         // 座位号
+    private String playerId;                  // 玩家ID
+    private boolean robot;                    // 是否机器人
+    private boolean ready;                    // 是否已准备
+
+    @Transient
+    private boolean fresh;                    // 尚未写入数据库
+
+    /**
+     * 创建一条新的座位记录
+     * @param roomId 房间ID
+     * @param seat 座位号
+     * @param playerId 玩家ID
+     */
+    public SeatRecord(String roomId, int seat, String playerId) {
+        this.roomId = roomId;
+        this.seat = seat;
+        this.playerId = playerId;
+        this.fresh = true;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(roomId, seat);
+    }
+
+    @Override
+    public boolean isNew() {
+        return fresh;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        this.fresh = false;
+    }
+
+    /**
+     * 座位主键
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String roomId;
+        private int seat;
+    }
+}
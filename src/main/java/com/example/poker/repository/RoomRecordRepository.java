@@ -0,0 +1,7 @@
+package com.example.poker.repository;
+
+import com.example.poker.model.RoomRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RoomRecordRepository extends JpaRepository<RoomRecord, String> {
+}
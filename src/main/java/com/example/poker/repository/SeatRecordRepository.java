@@ -0,0 +1,12 @@
+package com.example.poker.repository;
+
+import com.example.poker.model.SeatRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SeatRecordRepository extends JpaRepository<SeatRecord, SeatRecord.Key> {
+
+    List<SeatRecord> findByRoomIdIn(Collection<String> roomIds);
+}
@@ -48,6 +48,7 @@ public class AdminService {
     private final RoomManagementService roomManagementService;
     private final SimpMessagingTemplate messagingTemplate;
     private final ScheduledExecutorService scheduledExecutorService;
+    private final RoomExecutor roomExecutor;
     
     /** 当前活跃的WebSocket会话映射表 */
     private static final Map<String, Instant> activeSessions = new ConcurrentHashMap<>();
@@ -157,25 +158,21 @@ public class AdminService {
      */
     private void updatePlayerCache() {
         try {
-            // 获取所有游戏房间中的玩家
-            List<GameRoom> gameRooms = roomManagementService.getAllRooms();
-            Set<String> activePlayerIds = new HashSet<>();
+            // 玩家所在房间直接来自房间注册表的反向索引
+            Map<String, String> playerRooms = roomManagementService.getPlayerRooms();
             
             // 更新房间中的玩家状态
-            for (GameRoom room : gameRooms) {
-                for (String playerId : room.getPlayers()) {
-                    activePlayerIds.add(playerId);
-                    Player player = getOrCreatePlayer(playerId);
-                    player.setRoomId(room.getId());
-                    player.setStatus("PLAYING");
-                    player.setLastActiveTime(Instant.now());
-                    player.setActive(true);
-                }
-            }
+            playerRooms.forEach((playerId, roomId) -> {
+                Player player = getOrCreatePlayer(playerId);
+                player.setRoomId(roomId);
+                player.setStatus("PLAYING");
+                player.setLastActiveTime(Instant.now());
+                player.setActive(true);
+            });
             
             // 更新不在房间中的在线玩家状态
             playerCache.values().stream()
-                .filter(player -> player.isActive() && !activePlayerIds.contains(player.getId()))
+                .filter(player -> player.isActive() && !playerRooms.containsKey(player.getId()))
                 .forEach(player -> {
                     player.setRoomId(null);
                     player.setStatus("ONLINE");
@@ -259,6 +256,7 @@ public class AdminService {
             .connectionCount(getActiveConnectionCount())
             .roomCount(roomManagementService.getAllRooms().size())
             .playerCount(playerCache.size())
+            .pendingRoomCommands(roomExecutor.getTotalQueueDepth())
             .build();
     }
     
@@ -378,8 +376,9 @@ public class AdminService {
         log.info("踢出玩家: {}", playerId);
         
         // 如果玩家在房间中，先将其踢出房间
-        if (player.getRoomId() != null) {
-            kickPlayerFromRoom(playerId, player.getRoomId());
+        String roomId = roomManagementService.getPlayerRoomId(playerId);
+        if (roomId != null) {
+            kickPlayerFromRoom(playerId, roomId);
         }
         
         // 移除玩家
@@ -468,7 +467,7 @@ public class AdminService {
         log.info("将玩家 {} 踢出房间 {}", playerId, roomId);
         
         // 将玩家移出房间
-        roomManagementService.leaveRoom(playerId, roomId);
+        roomManagementService.leaveRoom(roomId, playerId);
         
         // 更新玩家状态
         player.setRoomId(null);
@@ -0,0 +1,28 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.ClusterCommand;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 节点间的命令传输
+ */
+public interface ClusterTransport {
+
+    /**
+     * 把命令发送给指定节点，不阻塞调用线程
+     * @param nodeId 目标节点ID
+     * @param command 房间命令
+     * @return 对方节点接收命令后完成，发送失败时异常完成
+     */
+    CompletableFuture<Void> send(String nodeId, ClusterCommand command);
+
+    /**
+     * 向指定节点发出请求并取得答复，不阻塞调用线程
+     * @param nodeId 目标节点ID
+     * @param command 请求命令
+     * @return 对方节点的答复，发送失败时异常完成
+     */
+    CompletableFuture<JsonNode> request(String nodeId, ClusterCommand command);
+}
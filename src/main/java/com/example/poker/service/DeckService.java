@@ -1,89 +1,198 @@
 package com.example.poker.service;
 
 import com.example.poker.model.Card;
+import com.example.poker.model.CardHand;
+import com.example.poker.util.RandomProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.Collections;
+
+import javax.annotation.PostConstruct;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.random.RandomGenerator;
 
 /**
  * 牌组服务类，负责创建、洗牌和发牌
+ * <p>
+ * 牌统一使用 {@link Card} 的共享实例，洗牌只打乱物理牌编号的排列。
+ * 每种副数维护一个有界的预洗牌池，由后台线程补充，开局时直接取用。
+ * </p>
  */
 @Service
 public class DeckService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DeckService.class);
+
+    /** 使用预洗牌池的最大副数，超过的副数在调用线程上现洗 */
+    private static final int MAX_POOLED_DECK_COUNT = 8;
+
+    @Autowired(required = false)
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Autowired(required = false)
+    private RandomProvider randomProvider;
+
+    @Value("${game.deck-pool-size:4}")
+    private int deckPoolSize = 4;
+
+    @Value("${game.deck-count:2}")
+    private int defaultDeckCount = 2;
+
+    /** 副数 -> 已洗好的牌序 */
+    private final Map<Integer, BlockingQueue<int[]>> readyDecks = new ConcurrentHashMap<>();
+
+    /** 正在补充的副数，避免重复提交补充任务 */
+    private final Set<Integer> refilling = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 启动时预先补充默认副数的预洗牌池
+     */
+    @PostConstruct
+    public void init() {
+        if (defaultDeckCount > 0 && defaultDeckCount <= MAX_POOLED_DECK_COUNT && !provider().isDeterministic()) {
+            scheduleRefill(defaultDeckCount, poolFor(defaultDeckCount));
+        }
+    }
+
+    /**
+     * 获取一个洗好的牌序（物理牌编号的排列）
+     * 优先从预洗牌池中取，池为空时现洗，并触发后台补充
+     * @param deckCount 扑克牌副数
+     * @return 长度为 deckCount * 54 的物理牌编号数组
+     */
+    public int[] takeShuffledOrder(int deckCount) {
+        if (deckCount <= 0) {
+            throw new RuntimeException("牌堆数量无效: " + deckCount);
+        }
+        // 确定性模式下按调用顺序现洗，保证同一种子的牌序可以复现
+        if (deckCount > MAX_POOLED_DECK_COUNT || provider().isDeterministic()) {
+            return shuffledOrder(deckCount);
+        }
+        BlockingQueue<int[]> pool = poolFor(deckCount);
+        int[] order = pool.poll();
+        scheduleRefill(deckCount, pool);
+        return order != null ? order : shuffledOrder(deckCount);
+    }
+
+    /**
+     * 洗牌并按步长直接发到各玩家手牌
+     * 第i个玩家拿到牌序中下标为 i, i+n, i+2n... 的牌，与轮流发牌结果一致
+     * @param deckCount 扑克牌副数
+     * @param players 玩家ID列表
+     * @return 玩家ID到手牌的映射
+     */
+    public Map<String, CardHand> dealShuffled(int deckCount, List<String> players) {
+        int[] order = takeShuffledOrder(deckCount);
+        int playerCount = players.size();
+        Map<String, CardHand> playerHands = new HashMap<>();
+        for (int i = 0; i < playerCount; i++) {
+            CardHand hand = new CardHand();
+            for (int j = i; j < order.length; j += playerCount) {
+                hand.addCode(Card.codeOfPhysical(order[j]));
+            }
+            playerHands.put(players.get(i), hand);
+        }
+        return playerHands;
+    }
+
     /**
      * 生成指定数量的洗牌后的扑克牌堆
      * @param deckCount 扑克牌副数
      * @return 洗牌后的牌堆列表
      */
     public List<Card> generateShuffledDecks(int deckCount) {
-        List<Card> decks = new ArrayList<>();
-        
-        for (int i = 0; i < deckCount; i++) {
-            createSingleDeck(decks);
+        int[] order = takeShuffledOrder(deckCount);
+        List<Card> decks = new ArrayList<>(order.length);
+        for (int physicalId : order) {
+            decks.add(Card.ofCode(Card.codeOfPhysical(physicalId)));
         }
-        
-        fisherYatesShuffle(decks);
         return decks;
     }
 
     /**
-     * 创建单副牌（包含54张牌）
-     * @param decks 牌的集合
+     * 生成一个新的洗好的牌序（Fisher-Yates洗牌）
+     * @param deckCount 扑克牌副数
+     * @return 物理牌编号的随机排列
      */
-    private void createSingleDeck(List<Card> decks) {
-        // 添加普通牌
-        for (Card.Suit suit : Card.Suit.values()) {
-            for (int value = 1; value <= 13; value++) {
-                decks.add(new Card(suit, value));
-            }
+    private int[] shuffledOrder(int deckCount) {
+        int[] order = new int[deckCount * Card.CARDS_PER_DECK];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        RandomGenerator random = provider().forShuffle();
+        for (int i = order.length - 1; i > 0; i--) {
+            int index = random.nextInt(i + 1);
+            int tmp = order[index];
+            order[index] = order[i];
+            order[i] = tmp;
         }
-        
-        // 添加大小王
-        decks.add(new Card(true));  // 大王
-        decks.add(new Card(false)); // 小王
+        return order;
+    }
+
+    private RandomProvider provider() {
+        return randomProvider != null ? randomProvider : RandomProvider.getDefault();
+    }
+
+    private BlockingQueue<int[]> poolFor(int deckCount) {
+        return readyDecks.computeIfAbsent(deckCount, k -> new ArrayBlockingQueue<>(Math.max(1, deckPoolSize)));
     }
 
     /**
-     * Fisher-Yates洗牌算法实现
-     * @param list 需要洗牌的牌堆
+     * 提交后台任务把预洗牌池补满
+     * @param deckCount 扑克牌副数
+     * @param pool 对应的预洗牌池
      */
-    private void fisherYatesShuffle(List<Card> list) {
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-        for (int i = list.size() - 1; i > 0; i--) {
-            int index = random.nextInt(i + 1);
-            Collections.swap(list, index, i);
+    private void scheduleRefill(int deckCount, BlockingQueue<int[]> pool) {
+        if (scheduledExecutorService == null || pool.remainingCapacity() == 0 || !refilling.add(deckCount)) {
+            return;
+        }
+        try {
+            scheduledExecutorService.execute(() -> {
+                try {
+                    while (pool.remainingCapacity() > 0 && pool.offer(shuffledOrder(deckCount))) {
+                        // 补满为止
+                    }
+                } finally {
+                    refilling.remove(deckCount);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refilling.remove(deckCount);
+            logger.warn("预洗牌补充任务被拒绝: {}", e.getMessage());
         }
     }
-    
+
     /**
      * 均匀分牌给玩家
-     * @param deck 牌组
+     * @param deck 牌组（发完后清空）
      * @param players 玩家ID列表
      * @return 玩家ID到手牌的映射
      */
-    public Map<String, List<Card>> dealCards(List<Card> deck, List<String> players) {
-        Map<String, List<Card>> playerHands = new HashMap<>();
-        
-        // 初始化每个玩家的手牌
-        for (String playerId : players) {
-            playerHands.put(playerId, new ArrayList<>());
-        }
-        
-        // 轮流发牌
-        int playerIndex = 0;
+    public Map<String, CardHand> dealCards(List<Card> deck, List<String> players) {
+        Map<String, CardHand> playerHands = new HashMap<>();
         int playerCount = players.size();
-        
-        while (!deck.isEmpty()) {
-            String currentPlayerId = players.get(playerIndex);
-            playerHands.get(currentPlayerId).add(deck.remove(0));
-            playerIndex = (playerIndex + 1) % playerCount;
+
+        // 按步长轮流发牌，不从列表头部逐张删除
+        for (int i = 0; i < playerCount; i++) {
+            CardHand hand = new CardHand();
+            for (int j = i; j < deck.size(); j += playerCount) {
+                hand.add(deck.get(j));
+            }
+            playerHands.put(players.get(i), hand);
         }
-        
+        deck.clear();
+
         return playerHands;
     }
 
@@ -94,12 +203,9 @@ public class DeckService {
      * @return 发出的牌
      */
     public List<Card> dealCards(List<Card> deck, int count) {
-        List<Card> hand = new ArrayList<>();
-        
-        for (int i = 0; i < count && !deck.isEmpty(); i++) {
-            hand.add(deck.remove(0));
-        }
-        
+        List<Card> top = deck.subList(0, Math.max(0, Math.min(count, deck.size())));
+        List<Card> hand = new ArrayList<>(top);
+        top.clear();
         return hand;
     }
 
@@ -109,11 +215,6 @@ public class DeckService {
      * @return 已洗牌的牌组
      */
     public List<Card> createAndShuffleDeck(int deckCount) {
-        List<Card> deck = new ArrayList<>();
-        for (int i = 0; i < deckCount; i++) {
-            createSingleDeck(deck);
-        }
-        fisherYatesShuffle(deck);
-        return deck;
+        return generateShuffledDecks(deckCount);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,268 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.HandFragment;
+import com.example.poker.dto.RoomUpdate;
+import com.example.poker.model.CardHand;
+import com.example.poker.model.GameEvent;
+import com.example.poker.model.GameNotification;
+import com.example.poker.model.GameRoom;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 游戏事件发布服务
+ * <p>
+ * 每个房间有一个单调递增的版本号。出牌、过牌、质疑只产生增量事件，
+ * 完整快照只在开局、人员变化、每隔若干个版本以及客户端请求重新同步时发送。
+ * 一条房间命令产生的事件、快照和通知先记在房间的待发送更新里，命令结束时合并成一帧
+ * 发到 /topic/game/updates/{roomId}；同一命令中多次标记快照只发送一次。
+ * 快照只包含公开状态，每个版本只序列化一次；玩家自己的手牌作为很小的私有片段
+ * 发到 /user/{playerId}/queue/hand。不在房间信箱线程上的调用会转到信箱上执行，保证版本号与发送顺序一致。
+ * </p>
+ */
+@Service
+public class GameEventPublisher {
+
+    @Autowired(required = false)
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RoomExecutor roomExecutor;
+
+    /** 每隔多少个版本附带发送一次完整快照 */
+    @Value("${game.snapshot-interval:50}")
+    private int snapshotInterval = 50;
+
+    /** 房间ID -> 最近一个版本的公开快照 */
+    private final Map<String, SerializedSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /** 房间ID -> 当前命令中待发送的更新 */
+    private final Map<String, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 发布增量事件，版本号加一
+     * @param room 游戏房间
+     * @param event 事件
+     * @return 带版本号的事件
+     */
+    public GameEvent publish(GameRoom room, GameEvent event) {
+        if (!roomExecutor.inRoom(room.getId())) {
+            return roomExecutor.execute(room.getId(), () -> publish(room, event));
+        }
+        event.setRoomId(room.getId());
+        event.setVersion(room.nextVersion());
+        PendingUpdate update = pendingFor(room.getId());
+        update.room = room;
+        update.events.add(event);
+        if (snapshotInterval > 0 && event.getVersion() % snapshotInterval == 0) {
+            update.snapshot = true;
+        }
+        return event;
+    }
+
+    /**
+     * 状态发生了事件无法描述的变化，版本号加一并发送完整快照和所有玩家的手牌
+     * @param room 游戏房间
+     */
+    public void publishSnapshot(GameRoom room) {
+        if (!roomExecutor.inRoom(room.getId())) {
+            roomExecutor.execute(room.getId(), () -> publishSnapshot(room));
+            return;
+        }
+        room.nextVersion();
+        sendSnapshot(room);
+        sendHands(room);
+    }
+
+    /**
+     * 按当前版本号发送公开快照，用于客户端重新同步
+     * @param room 游戏房间
+     */
+    public void sendSnapshot(GameRoom room) {
+        if (!roomExecutor.inRoom(room.getId())) {
+            roomExecutor.execute(room.getId(), () -> sendSnapshot(room));
+            return;
+        }
+        PendingUpdate update = pendingFor(room.getId());
+        update.room = room;
+        update.snapshot = true;
+    }
+
+    /**
+     * 向房间内所有真人玩家发送各自的手牌
+     * @param room 游戏房间
+     */
+    public void sendHands(GameRoom room) {
+        for (String playerId : room.getPlayers()) {
+            sendHand(room, playerId);
+        }
+    }
+
+    /**
+     * 向玩家发送自己的手牌，机器人不需要
+     * @param room 游戏房间
+     * @param playerId 玩家ID
+     */
+    public void sendHand(GameRoom room, String playerId) {
+        if (playerId == null || room.isRobot(playerId)) {
+            return;
+        }
+        if (!roomExecutor.inRoom(room.getId())) {
+            roomExecutor.execute(room.getId(), () -> sendHand(room, playerId));
+            return;
+        }
+        PendingUpdate update = pendingFor(room.getId());
+        update.room = room;
+        update.hands.add(playerId);
+    }
+
+    /**
+     * 发送房间通知，与同一命令的状态变化合并在一帧中
+     * @param roomId 房间ID
+     * @param notification 通知
+     */
+    public void notify(String roomId, GameNotification notification) {
+        if (roomId == null) {
+            return;
+        }
+        if (!roomExecutor.inRoom(roomId)) {
+            roomExecutor.execute(roomId, () -> notify(roomId, notification));
+            return;
+        }
+        if (notification.getRoomId() == null) {
+            notification.setRoomId(roomId);
+        }
+        pendingFor(roomId).notifications.add(notification);
+    }
+
+    /**
+     * 房间移除后丢弃缓存的快照
+     * @param roomId 房间ID
+     */
+    public void evict(String roomId) {
+        if (roomId != null) {
+            snapshots.remove(roomId);
+        }
+    }
+
+    /**
+     * 丢弃当前命令中还未发送的更新，用于恢复时重放的命令
+     * @param roomId 房间ID
+     */
+    public void discard(String roomId) {
+        if (roomId != null) {
+            pending.remove(roomId);
+        }
+    }
+
+    /**
+     * 获取房间当前版本的公开快照，同一版本只序列化一次
+     * @param room 游戏房间
+     * @return JSON
+     */
+    String serializedSnapshot(GameRoom room) {
+        SerializedSnapshot cached = snapshots.get(room.getId());
+        if (cached != null && cached.version == room.getVersion()) {
+            return cached.json;
+        }
+        try {
+            String json = objectMapper.writeValueAsString(room.toPublicGameState());
+            snapshots.put(room.getId(), new SerializedSnapshot(room.getVersion(), json));
+            return json;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("序列化房间状态失败", e);
+        }
+    }
+
+    /**
+     * 获取房间当前命令的待发送更新，第一次获取时登记命令结束后的合并发送
+     */
+    private PendingUpdate pendingFor(String roomId) {
+        PendingUpdate update = pending.get(roomId);
+        if (update == null) {
+            update = new PendingUpdate();
+            pending.put(roomId, update);
+            roomExecutor.afterCommand(roomId, () -> flush(roomId));
+        }
+        return update;
+    }
+
+    /**
+     * 命令结束，把待发送的更新合并成一帧发出，再发送有变化的手牌
+     * @param roomId 房间ID
+     */
+    private void flush(String roomId) {
+        PendingUpdate update = pending.remove(roomId);
+        if (update == null || messagingTemplate == null) {
+            return;
+        }
+        GameRoom room = update.room;
+        RoomUpdate.RoomUpdateBuilder frame = RoomUpdate.builder().roomId(roomId);
+        if (room != null) {
+            frame.version(room.getVersion());
+        }
+        if (update.snapshot && room != null) {
+            // 快照已经包含了本帧所有事件的结果
+            frame.snapshot(serializedSnapshot(room));
+        } else if (!update.events.isEmpty()) {
+            frame.events(update.events);
+        }
+        if (!update.notifications.isEmpty()) {
+            frame.notifications(update.notifications);
+        }
+        if (update.snapshot || !update.events.isEmpty() || !update.notifications.isEmpty()) {
+            messagingTemplate.convertAndSend("/topic/game/updates/" + roomId, frame.build());
+        }
+
+        if (room == null) {
+            return;
+        }
+        for (String playerId : update.hands) {
+            CardHand hand = room.getPlayerHands().get(playerId);
+            HandFragment fragment = HandFragment.builder()
+                    .roomId(roomId)
+                    .version(room.getVersion())
+                    .cards(hand == null ? new ArrayList<>() : new ArrayList<>(hand))
+                    .build();
+            messagingTemplate.convertAndSendToUser(playerId, "/queue/hand", fragment);
+        }
+    }
+
+    /**
+     * 一条命令中待发送的更新
+     */
+    private static final class PendingUpdate {
+        private GameRoom room;
+        private boolean snapshot;
+        private final List<GameEvent> events = new ArrayList<>();
+        private final List<GameNotification> notifications = new ArrayList<>();
+        private final Set<String> hands = new LinkedHashSet<>();
+    }
+
+    /**
+     * 某个版本序列化好的公开快照
+     */
+    private static final class SerializedSnapshot {
+        private final long version;
+        private final String json;
+
+        SerializedSnapshot(long version, String json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+}
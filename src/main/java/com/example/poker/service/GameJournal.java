@@ -0,0 +1,553 @@
+package com.example.poker.service;
+
+import com.example.poker.model.JournalEntry;
+import com.example.poker.model.JournalEntryType;
+import com.example.poker.util.JournalCodec;
+import com.example.poker.util.JournalReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 游戏事件日志
+ * <p>
+ * 引擎的每个动作（发牌、出牌、过牌、质疑、获胜、加入、离开）作为一条 {@link JournalEntry}
+ * 追加到二进制日志文件，编码见 {@link JournalCodec}。房间信箱线程只把条目放入有界队列，
+ * 从不等待磁盘；单独的写入线程一次取出一批，编码后一次写入，
+ * 开启 fsync 时每批只强制刷盘一次（组提交）。启动时截掉上次崩溃留下的半条记录后继续追加。
+ * </p>
+ * <p>
+ * 房间的事件必须连续才能重放。队列满或写入失败丢失某个房间的条目时，该房间标记为有缺口：
+ * 之后它的事件一律丢弃，直到下一个快照被写入，{@link RoomRecovery} 在命令结束时看到缺口会立即写快照。
+ * 崩溃发生在缺口期间时，房间恢复到缺口之前的状态，而不是在缺了事件的状态上继续重放。
+ * 写入失败时文件截回上一批结束的位置，不留下半条记录。
+ * </p>
+ * <p>
+ * 日志按段滚动：当前段超过 segment-bytes 后改名为 {@code 路径.最后序号}，再新建当前段。
+ * 滚动后 {@link RoomRecovery} 给每个房间写一个新快照，这些快照全部写入后旧段不再需要，
+ * 通过 {@link #retireSegments} 删除。启动时只扫描当前段，恢复时按顺序读取剩下的各段。
+ * 恢复时重放的命令在 {@link #replay} 中执行，不会再次写入日志。
+ * </p>
+ */
+@Service
+public class GameJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(GameJournal.class);
+
+    /** 当前线程是否在重放日志 */
+    private static final ThreadLocal<Boolean> REPLAYING = ThreadLocal.withInitial(() -> false);
+
+    @Value("${game.journal.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${game.journal.path:logs/game-events.journal}")
+    private String path = "logs/game-events.journal";
+
+    /** 等待写入的条目上限 */
+    @Value("${game.journal.queue-capacity:65536}")
+    private int queueCapacity = 65536;
+
+    /** 每批最多写入的条目数 */
+    @Value("${game.journal.batch-size:1024}")
+    private int batchSize = 1024;
+
+    /** 每批写入后是否强制刷盘 */
+    @Value("${game.journal.fsync:true}")
+    private boolean fsync = true;
+
+    /** 当前段超过该字节数后滚动 */
+    @Value("${game.journal.segment-bytes:67108864}")
+    private long segmentBytes = 64L << 20;
+
+    private BlockingQueue<JournalEntry> queue;
+    private FileChannel channel;
+    private Thread writer;
+    private volatile boolean running;
+
+    /** 写入线程分配的最后一个序号 */
+    private long sequence;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long committed;
+    /** 已接受但写入线程没有写入的条目数（写入失败或属于有缺口的房间） */
+    private volatile long discarded;
+    private volatile long batches;
+
+    /** 最后一批成功写入后的文件位置，只在写入线程上修改 */
+    private long written;
+
+    /** 有缺口的房间，等待下一个快照 */
+    private final Set<String> gapRooms = ConcurrentHashMap.newKeySet();
+
+    /** 写入失败丢了条目的房间，写入线程跳过它们的事件直到写入快照，只在写入线程上访问 */
+    private final Set<String> lostRooms = new HashSet<>();
+
+    /** 段滚动后在写入线程上调用，参数为滚动出去的段的最后序号 */
+    private volatile LongConsumer rollListener;
+
+    /** 等待已接受条目全部写入后删除的旧段 */
+    private final AtomicReference<Retirement> retirement = new AtomicReference<>();
+
+    /** 房间ID -> 本次运行中该房间已接受的条目数 */
+    private final Map<String, AtomicLong> roomEntries = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path file = Paths.get(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (!lock()) {
+            log.warn("游戏日志 {} 已被其他实例使用，本实例不记录游戏日志", file.toAbsolutePath());
+            channel.close();
+            channel = null;
+            return;
+        }
+        List<Path> rolled = rolledSegments();
+        long[] lastSequence = {rolled.isEmpty() ? 0 : segmentSequence(rolled.get(rolled.size() - 1))};
+        long validLength = new JournalReader(file).validLength(entry -> lastSequence[0] = entry.getSequence());
+        sequence = lastSequence[0];
+        if (channel.size() > validLength) {
+            log.warn("游戏日志末尾有 {} 字节不完整的记录，已截断", channel.size() - validLength);
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        written = validLength;
+
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        running = true;
+        writer = new Thread(this::writeLoop, "game-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("游戏日志: {}，从序号 {} 继续", file.toAbsolutePath(), sequence + 1);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null) {
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                log.error("关闭游戏日志失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 独占日志文件，同一文件只能有一个写入者
+     */
+    private boolean lock() throws IOException {
+        try {
+            return channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 追加一条日志，不等待写入
+     * @param entry 日志条目
+     */
+    public void append(JournalEntry entry) {
+        if (queue == null || REPLAYING.get()) {
+            return;
+        }
+        String roomId = entry.getRoomId();
+        if (roomId != null && isEvent(entry) && gapRooms.contains(roomId)) {
+            // 缺口之后的事件无法重放，等快照
+            dropped.incrementAndGet();
+            return;
+        }
+        if (queue.offer(entry)) {
+            accepted.incrementAndGet();
+            if (roomId != null) {
+                if (!isEvent(entry)) {
+                    gapRooms.remove(roomId);
+                }
+                roomEntries.computeIfAbsent(roomId, id -> new AtomicLong()).incrementAndGet();
+            }
+        } else {
+            if (roomId != null && entry.getType() != JournalEntryType.REMOVE) {
+                gapRooms.add(roomId);
+            }
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 10000 == 0) {
+                log.warn("游戏日志队列已满，累计丢弃 {} 条", count);
+            }
+        }
+    }
+
+    /**
+     * 快照和移除之外的条目都是事件，重放时依赖之前的条目
+     */
+    private static boolean isEvent(JournalEntry entry) {
+        return entry.getType() != JournalEntryType.SNAPSHOT && entry.getType() != JournalEntryType.REMOVE;
+    }
+
+    /**
+     * 房间是否有丢失的条目，需要写一个新快照
+     * @param roomId 房间ID
+     * @return 是否有缺口
+     */
+    public boolean hasGap(String roomId) {
+        return gapRooms.contains(roomId);
+    }
+
+    /**
+     * 在重放模式下执行，期间当前线程追加的条目全部忽略
+     * @param task 重放动作
+     * @return 动作结果
+     */
+    public <T> T replay(Supplier<T> task) {
+        boolean outer = REPLAYING.get();
+        REPLAYING.set(true);
+        try {
+            return task.get();
+        } finally {
+            REPLAYING.set(outer);
+        }
+    }
+
+    /**
+     * 当前线程是否在重放日志
+     * @return 是否在重放
+     */
+    public boolean isReplaying() {
+        return REPLAYING.get();
+    }
+
+    /**
+     * 本实例是否在写日志（未关闭且拿到了文件锁）
+     * @return 是否在写日志
+     */
+    public boolean isActive() {
+        return queue != null;
+    }
+
+    /**
+     * 本次运行中房间已接受的条目数，被丢弃的条目不计
+     * @param roomId 房间ID
+     * @return 条目数
+     */
+    public long getEntryCount(String roomId) {
+        AtomicLong count = roomEntries.get(roomId);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 房间移除后丢弃它的条目计数
+     * @param roomId 房间ID
+     */
+    public void forget(String roomId) {
+        if (roomId != null) {
+            roomEntries.remove(roomId);
+            gapRooms.remove(roomId);
+        }
+    }
+
+    /**
+     * 等待已追加的条目全部写入
+     * @param timeoutMillis 最长等待时间
+     * @return 是否全部写入
+     */
+    public boolean awaitCommitted(long timeoutMillis) throws InterruptedException {
+        long target = accepted.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (committed + discarded < target) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    public long getCommittedCount() {
+        return committed;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getBatchCount() {
+        return batches;
+    }
+
+    public Path getPath() {
+        return Paths.get(path);
+    }
+
+    /**
+     * 按写入顺序排列的日志段，最后一个是当前段
+     * @return 日志段文件
+     * @throws IOException 无法列出目录
+     */
+    public List<Path> getSegments() throws IOException {
+        List<Path> segments = new ArrayList<>(rolledSegments());
+        if (Files.exists(getPath())) {
+            segments.add(getPath());
+        }
+        return segments;
+    }
+
+    /**
+     * 已滚动出去的段，按序号排列
+     */
+    private List<Path> rolledSegments() throws IOException {
+        Path file = getPath().toAbsolutePath();
+        String prefix = file.getFileName() + ".";
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            return files.filter(f -> {
+                        String name = f.getFileName().toString();
+                        return name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d{20}");
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * 旧段文件名中的最后序号
+     * @param segment 旧段文件
+     * @return 最后序号
+     */
+    static long segmentSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    /**
+     * 登记段滚动的监听器，在写入线程上调用，不能阻塞
+     * @param listener 参数为滚动出去的段的最后序号
+     */
+    public void onRoll(LongConsumer listener) {
+        this.rollListener = listener;
+    }
+
+    /**
+     * 目前已接受的条目全部写入后，删除最后序号不超过 upTo 的旧段
+     * 仍有房间存在缺口时不删除，等下一次滚动
+     * @param upTo 旧段的最后序号
+     */
+    public void retireSegments(long upTo) {
+        retirement.set(new Retirement(accepted.get(), upTo));
+    }
+
+    /**
+     * 在写入线程上检查待删除的旧段
+     */
+    private void checkRetirement() {
+        Retirement pending = retirement.get();
+        if (pending == null || committed + discarded < pending.target || !retirement.compareAndSet(pending, null)) {
+            return;
+        }
+        if (!gapRooms.isEmpty()) {
+            log.warn("有 {} 个房间的日志存在缺口，暂不删除旧的日志段", gapRooms.size());
+            return;
+        }
+        try {
+            for (Path segment : rolledSegments()) {
+                if (segmentSequence(segment) <= pending.upTo) {
+                    Files.deleteIfExists(segment);
+                    log.info("删除旧的游戏日志段: {}", segment.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            log.error("删除旧的游戏日志段失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 当前段超过 segment-bytes 时改名为旧段，新建当前段
+     */
+    private void rollIfNeeded() {
+        if (written < segmentBytes) {
+            return;
+        }
+        Path file = getPath();
+        long last = sequence;
+        try {
+            channel.force(false);
+            Files.move(file, file.resolveSibling(file.getFileName() + "." + String.format("%020d", last)),
+                    StandardCopyOption.ATOMIC_MOVE);
+            FileChannel next = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileChannel previous = channel;
+            channel = next;
+            written = 0;
+            if (!lock()) {
+                log.warn("无法锁定新的游戏日志段 {}", file.toAbsolutePath());
+            }
+            previous.close();
+        } catch (IOException e) {
+            log.error("滚动游戏日志失败，继续写入当前段: {}", e.getMessage());
+            return;
+        }
+        log.info("游戏日志滚动，旧段最后序号 {}", last);
+        LongConsumer listener = rollListener;
+        if (listener != null) {
+            try {
+                listener.accept(last);
+            } catch (RuntimeException e) {
+                log.error("处理游戏日志滚动失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<JournalEntry> batch = new ArrayList<>(batchSize);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        while (running || !queue.isEmpty()) {
+            checkRetirement();
+            try {
+                JournalEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // 停止时写完队列中剩余的条目
+                running = false;
+                if (queue.isEmpty()) {
+                    break;
+                }
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            if (batch.isEmpty()) {
+                continue;
+            }
+            buffer = writeBatch(batch, buffer);
+            batch.clear();
+            rollIfNeeded();
+        }
+    }
+
+    /**
+     * 编码并写入一批条目，每批只刷盘一次
+     * @return 可能扩容后的缓冲区
+     */
+    private ByteBuffer writeBatch(List<JournalEntry> batch, ByteBuffer buffer) {
+        buffer.clear();
+        long firstSequence = sequence;
+        List<JournalEntry> writing = new ArrayList<>(batch.size());
+        for (JournalEntry entry : batch) {
+            String roomId = entry.getRoomId();
+            if (roomId != null && !lostRooms.isEmpty()) {
+                if (isEvent(entry) && lostRooms.contains(roomId)) {
+                    continue;
+                }
+                lostRooms.remove(roomId);
+            }
+            writing.add(entry);
+            entry.setSequence(++sequence);
+            while (true) {
+                try {
+                    JournalCodec.write(entry, buffer);
+                    break;
+                } catch (BufferOverflowException e) {
+                    ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+            }
+        }
+        buffer.flip();
+        int skipped = batch.size() - writing.size();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            written = channel.position();
+        } catch (IOException e) {
+            log.error("写入游戏日志失败，丢弃 {} 条: {}", writing.size(), e.getMessage());
+            rollback(writing, firstSequence);
+            skipped = batch.size();
+        }
+        if (skipped > 0) {
+            dropped.addAndGet(skipped);
+            discarded += skipped;
+        }
+        batches++;
+        committed += batch.size() - skipped;
+        return buffer;
+    }
+
+    /**
+     * 写入失败后截回上一批结束的位置，丢失条目的房间标记为有缺口
+     */
+    private void rollback(List<JournalEntry> lost, long firstSequence) {
+        sequence = firstSequence;
+        try {
+            channel.truncate(written);
+            channel.position(written);
+        } catch (IOException e) {
+            log.error("截断游戏日志失败: {}", e.getMessage());
+        }
+        for (JournalEntry entry : lost) {
+            if (entry.getRoomId() != null && entry.getType() != JournalEntryType.REMOVE) {
+                lostRooms.add(entry.getRoomId());
+                gapRooms.add(entry.getRoomId());
+            }
+        }
+    }
+
+    /**
+     * 等待删除的旧段：accepted 达到 target 时的条目全部写入后删除
+     */
+    private static final class Retirement {
+        final long target;
+        final long upTo;
+
+        Retirement(long target, long upTo) {
+            this.target = target;
+            this.upTo = upTo;
+        }
+    }
+}
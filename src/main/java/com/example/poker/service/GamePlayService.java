@@ -2,6 +2,7 @@ package com.example.poker.service;
 
 import com.example.poker.model.GameState;
 import com.example.poker.model.Card;
+import com.example.poker.model.CardHand;
 import com.example.poker.model.GameStatus;
 import com.example.poker.exception.GameException;
 import com.example.poker.constant.GameConstants;
@@ -55,7 +56,7 @@ public class GamePlayService {
         state.setStatus(GameStatus.PLAYING);
         state.setGameStatus(GameConstants.GAME_STATUS_PLAYING);
         state.setCurrentPlayer(state.getPlayers().get(0));
-        state.setCurrentPile(new ArrayList<>());
+        state.setCurrentPile(new CardHand());
         state.setPlayerHands(new HashMap<>());
         state.setLastPlayedCards(new ArrayList<>());
         state.setLastPlayedValue(null);
@@ -102,7 +103,7 @@ public class GamePlayService {
         state.setLastPlayedTime(new Date());
         
         // 从玩家手牌中移除打出的牌
-        List<Card> playerHand = state.getPlayerHands().get(playerId);
+        CardHand playerHand = state.getPlayerHands().get(playerId);
         playerHand.removeAll(cards);
         
         // 将打出的牌加入底盘
@@ -153,13 +154,13 @@ public class GamePlayService {
             // 上一个玩家说谎，获得所有底盘牌
             logger.info("挑战成功，上一个玩家说谎 - 房间ID: {}", roomId);
             state.getPlayerHands().get(lastPlayer).addAll(state.getCurrentPile());
-            state.setCurrentPile(new ArrayList<>());
+            state.setCurrentPile(new CardHand());
             state.setCurrentPlayer(lastPlayer);
         } else {
             // 挑战失败，挑战者获得所有底盘牌
             logger.info("挑战失败，挑战者获得所有底盘牌 - 房间ID: {}", roomId);
             state.getPlayerHands().get(playerId).addAll(state.getCurrentPile());
-            state.setCurrentPile(new ArrayList<>());
+            state.setCurrentPile(new CardHand());
             state.setCurrentPlayer(playerId);
         }
         
@@ -245,7 +246,7 @@ public class GamePlayService {
         
         int cardsPerPlayer = deck.size() / state.getPlayers().size();
         for (String playerId : state.getPlayers()) {
-            List<Card> playerHand = new ArrayList<>();
+            CardHand playerHand = new CardHand();
             for (int i = 0; i < cardsPerPlayer; i++) {
                 playerHand.add(deck.remove(0));
             }
@@ -1,27 +1,43 @@
 package com.example.poker.service;
 
 import com.example.poker.model.*;
+import com.example.poker.util.RandomProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
 
 /**
  * 游戏服务类，负责处理游戏的主要逻辑
+ * 修改房间状态的公开方法都通过 {@link RoomExecutor} 在房间信箱上串行执行
  */
 @Service
 public class GameService {
-    private Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
-    
+    @Autowired
+    private RoomRegistry rooms;
+
     @Autowired
     private DeckService deckService;
-    
+
+    @Autowired
+    private RandomProvider randomProvider;
+
+    @Autowired
+    private RoomExecutor roomExecutor;
+
+    @Autowired
+    private RobotScheduler robotScheduler;
+
+    @Autowired
+    private RobotSearchPool robotSearchPool;
+
+    @Autowired
+    private GameEventPublisher eventPublisher;
+
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private GameJournal journal;
 
     @Autowired
     @Lazy
@@ -29,22 +45,6 @@ public class GameService {
 
     private static final Logger log = LoggerFactory.getLogger(GameService.class);
 
-    /**
-     * 同步房间数据
-     * @param rooms 房间映射
-     */
-    public void syncRooms(Map<String, GameRoom> rooms) {
-        this.rooms = rooms;
-    }
-
-    /**
-     * 保留此方法以兼容现有代码，但内部实现已更改
-     */
-    public void syncRoomsAndGameStates(Map<String, GameRoom> rooms, Map<String, GameState> gameStates) {
-        this.rooms = rooms;
-        // gameStates不再使用，忽略此参数
-    }
-
     /**
      * 玩家准备
      * @param roomId 房间ID
@@ -52,6 +52,10 @@ public class GameService {
      * @return 房间
      */
     public GameRoom playerReady(String roomId, String playerId) {
+        return roomExecutor.execute(roomId, () -> afterCommand(doPlayerReady(roomId, playerId)));
+    }
+
+    private GameRoom doPlayerReady(String roomId, String playerId) {
         GameRoom room = rooms.get(roomId);
         if (room == null) {
             throw new RuntimeException("房间不存在");
@@ -88,6 +92,10 @@ public class GameService {
      * @return 房间
      */
     public GameRoom startGame(String roomId, String playerId, int deckCount) {
+        return roomExecutor.execute(roomId, () -> afterCommand(doStartGame(roomId, playerId, deckCount)));
+    }
+
+    private GameRoom doStartGame(String roomId, String playerId, int deckCount) {
         GameRoom room = rooms.get(roomId);
         if (room == null) {
             throw new RuntimeException("房间不存在");
@@ -103,27 +111,73 @@ public class GameService {
             throw new RuntimeException("玩家人数不足");
         }
         
-        // 生成牌堆
-        List<Card> deck = deckService.generateShuffledDecks(deckCount);
-        
-        // 分发手牌
-        Map<String, List<Card>> playerHands = deckService.dealCards(deck, room.getPlayers());
-        
-        // 更新房间状态
-        room.setStatus(GameStatus.PLAYING);
-        room.setGameStatus("PLAYING");
-        room.setCardDeck(new ArrayList<>());  // 牌已经分完了
-        room.setPlayerHands(playerHands);
-        room.setCurrentPlayerIndex(0);  // 房主先手
-        room.setCurrentPile(new ArrayList<>());
-        room.setCurrentPlayer(room.getPlayers().get(0));
+        // 取一副洗好的牌并直接分发手牌
+        Map<String, CardHand> playerHands = deckService.dealShuffled(deckCount, room.getPlayers());
+        GameRules.deal(room, playerHands);
         
         // 发送状态更新
         sendGameStateUpdate(roomId);
+        for (Map.Entry<String, CardHand> hand : playerHands.entrySet()) {
+            journal.append(new JournalEntry(JournalEntryType.DEAL, roomId, room.getVersion(), hand.getKey())
+                    .withCards(hand.getValue()));
+        }
         
         return room;
     }
 
+    /**
+     * 重放日志中的发牌，必须在房间信箱线程上调用
+     * @param roomId 房间ID
+     * @param playerHands 日志记录的各玩家手牌
+     */
+    void replayDeal(String roomId, Map<String, CardHand> playerHands) {
+        GameRoom room = rooms.get(roomId);
+        if (room == null || room.getPlayers().isEmpty()) {
+            throw new RuntimeException("房间不存在");
+        }
+        GameRules.deal(room, playerHands);
+        sendGameStateUpdate(roomId);
+    }
+
+    /**
+     * 重放日志中的出牌、过牌和质疑，必须在房间信箱线程上调用
+     * 走与玩家命令相同的流程，质疑结果与日志不一致时抛出异常
+     * @param entry 日志条目
+     */
+    void replay(JournalEntry entry) {
+        String roomId = entry.getRoomId();
+        GameMessage message = new GameMessage();
+        message.setRoomId(roomId);
+        message.setPlayerId(entry.getPlayerId());
+        switch (entry.getType()) {
+            case PLAY: {
+                // 按记录的声明张数重放；没有记录声明张数的旧日志按实际张数
+                List<Card> cards = new ArrayList<>(CardHand.ofCodes(entry.getCards()));
+                message.setCards(cards);
+                message.setDeclaredCount(entry.getDeclaredCount() != null ? entry.getDeclaredCount() : cards.size());
+                message.setDeclaredValue(entry.getValue());
+                doPlayCards(roomId, message);
+                break;
+            }
+            case PASS:
+                doPass(roomId, entry.getPlayerId());
+                break;
+            case CHALLENGE: {
+                GameRoom room = rooms.get(roomId);
+                if (room != null && entry.getSuccess() != null && room.getLastClaim() != null
+                        && entry.getSuccess() == GameRules.isClaimValid(room.getCurrentPile(), room.getLastPlayedValue())) {
+                    throw new RuntimeException("重放的质疑结果与日志不一致");
+                }
+                message.setTargetPlayerId(entry.getTargetPlayerId());
+                doChallenge(roomId, message);
+                break;
+            }
+            default:
+                // 获胜由出牌推导，其余类型不在这里处理
+                break;
+        }
+    }
+
     /**
      * 玩家出牌
      * @param roomId 房间ID
@@ -131,75 +185,41 @@ public class GameService {
      * @return 房间
      */
     public GameRoom playCards(String roomId, GameMessage message) {
+        return roomExecutor.execute(roomId, () -> afterCommand(doPlayCards(roomId, message)));
+    }
+
+    private GameRoom doPlayCards(String roomId, GameMessage message) {
         GameRoom room = rooms.get(roomId);
         if (room == null) {
             throw new RuntimeException("房间不存在");
         }
-        if (room.getStatus() != GameStatus.PLAYING) {
-            throw new RuntimeException("游戏未开始");
-        }
-        if (!room.getPlayers().contains(message.getPlayerId())) {
-            throw new RuntimeException("玩家不在房间中");
-        }
-        
-        // 检查是否是当前玩家的回合
-        if (!message.getPlayerId().equals(room.getCurrentPlayer())) {
-            throw new RuntimeException("不是你的回合");
-        }
-        
-        // 检查玩家是否有这些牌
-        List<Card> playerCards = room.getPlayerHands().get(message.getPlayerId());
+
+        int playerCount = room.getPlayers().size();
         List<Card> selectedCards = message.getCards();
-        if (!hasAllCards(playerCards, selectedCards)) {
-            throw new RuntimeException("你没有这些牌");
-        }
-        
-        // 如果已有上一玩家出牌且有声明值，则当前玩家必须遵守相同的声明值
-        // 除非所有其他玩家都已过牌，此时玩家可以自由选择牌值
-        if (room.getLastClaim() != null && !room.haveAllPlayersPassed()) {
-            if (!message.getDeclaredValue().equals(room.getLastClaim())) {
-                throw new RuntimeException("必须声明与上一玩家相同的牌值: " + room.getLastClaim());
-            }
-        }
-        
-        // 从玩家手牌中移除这些牌
-        removeCards(playerCards, selectedCards);
-        
-        // 添加到当前牌堆
-        room.getCurrentPile().addAll(selectedCards);
-        
-        // 记录玩家声明
-        room.setLastClaim("玩家" + message.getPlayerId() + 
-                           "打出" + message.getDeclaredCount() + 
-                           "张" + message.getDeclaredValue());
-        
-        // 清空过牌玩家列表，因为新的一轮出牌开始了
-        room.clearPassedPlayers();
-        
-        // 检查是否有其他玩家已经打完手牌但仍在等待确认
-        // 当其他玩家出牌后，这些玩家满足"被质疑失败或其他玩家出牌"的条件
-        List<String> pendingWinners = new ArrayList<>(room.getWinners());
-        for (String winner : pendingWinners) {
-            // 如果赢家不是当前出牌的玩家，且仍在玩家列表中
-            if (!winner.equals(message.getPlayerId()) && room.getPlayers().contains(winner)) {
-                // 将该玩家从当前玩家列表中移除（确认胜利）
-                room.getPlayers().remove(winner);
-            }
-        }
-        
+        boolean emptied = GameRules.play(room, message.getPlayerId(), selectedCards,
+                message.getDeclaredCount(), message.getDeclaredValue());
+        CardHand playerCards = room.getPlayerHands().get(message.getPlayerId());
+
         // 检查是否胜利（手牌为空）
-        if (playerCards.isEmpty()) {
+        if (emptied) {
+            journalPlay(room, message, selectedCards);
             handlePlayerWin(roomId, message.getPlayerId());
             return room;
         }
         
-        // 切换到下一个玩家
-        int nextIndex = (room.getPlayers().indexOf(message.getPlayerId()) + 1) % room.getPlayers().size();
-        room.setCurrentPlayer(room.getPlayers().get(nextIndex));
-        room.setCurrentPlayerIndex(nextIndex);
+        // 发布出牌事件，只包含张数，不包含实际打出的牌
+        GameEvent event = new GameEvent(GameEventType.PLAY, message.getPlayerId());
+        event.setCount(selectedCards.size());
+        event.setValue(message.getDeclaredValue());
+        event.setHandCounts(Map.of(message.getPlayerId(), playerCards.size()));
+        publishEvent(room, event);
+        journalPlay(room, message, selectedCards);
+        eventPublisher.sendHand(room, message.getPlayerId());
         
-        // 发送状态更新
-        sendGameStateUpdate(roomId);
+        // 有玩家确认胜利离开时，玩家列表变化需要完整快照
+        if (room.getPlayers().size() != playerCount) {
+            eventPublisher.publishSnapshot(room);
+        }
         
         return room;
     }
@@ -211,76 +231,39 @@ public class GameService {
      * @return 房间
      */
     public GameRoom challenge(String roomId, GameMessage message) {
+        return roomExecutor.execute(roomId, () -> afterCommand(doChallenge(roomId, message)));
+    }
+
+    private GameRoom doChallenge(String roomId, GameMessage message) {
         GameRoom room = rooms.get(roomId);
         if (room == null) {
             throw new RuntimeException("房间不存在");
         }
-        if (room.getStatus() != GameStatus.PLAYING) {
-            throw new RuntimeException("游戏未开始");
-        }
-        if (!room.getPlayers().contains(message.getPlayerId())) {
-            throw new RuntimeException("玩家不在房间中");
-        }
-        
-        // 获取当前牌堆中的牌
-        List<Card> currentPile = room.getCurrentPile();
-        if (currentPile.isEmpty()) {
-            throw new RuntimeException("当前没有可质疑的牌");
-        }
+
+        int playerCount = room.getPlayers().size();
+        boolean challengeSuccess = GameRules.challenge(room, message.getPlayerId(), message.getTargetPlayerId());
+        String loserId = challengeSuccess ? message.getTargetPlayerId() : message.getPlayerId();
         
-        // 获取声明的值
-        String declaredValue = room.getLastClaim();
-        if (declaredValue == null) {
-            throw new RuntimeException("当前没有声明");
+        // 发布质疑结果事件，收走底盘的玩家单独收到新的手牌
+        GameEvent event = new GameEvent(GameEventType.CHALLENGE, message.getPlayerId());
+        event.setTargetPlayerId(message.getTargetPlayerId());
+        event.setSuccess(challengeSuccess);
+        event.setLoserId(loserId);
+        CardHand loserHand = room.getPlayerHands().get(loserId);
+        if (loserId != null && loserHand != null) {
+            event.setHandCounts(Map.of(loserId, loserHand.size()));
         }
+        publishEvent(room, event);
+        JournalEntry entry = new JournalEntry(JournalEntryType.CHALLENGE, roomId, room.getVersion(), message.getPlayerId());
+        entry.setTargetPlayerId(message.getTargetPlayerId());
+        entry.setSuccess(challengeSuccess);
+        journal.append(entry);
+        eventPublisher.sendHand(room, loserId);
         
-        // 判断质疑是否成功
-        boolean challengeSuccess = !isClaimValid(currentPile, declaredValue);
-        
-        // 处理质疑结果
-        if (challengeSuccess) {
-            // 质疑成功，出牌者收走底盘
-            String targetPlayerId = message.getTargetPlayerId(); // 被质疑的玩家
-            punishPlayer(room, targetPlayerId);
-            
-            // 如果被质疑的玩家之前已经打完手牌（手牌为空但仍在players列表中等待确认）
-            // 则需要将其从winners列表中移除，因为质疑成功意味着他需要重新开始
-            List<Card> targetPlayerHand = room.getPlayerHands().get(targetPlayerId);
-            if (targetPlayerHand.isEmpty() && room.getWinners().contains(targetPlayerId)) {
-                room.getWinners().remove(targetPlayerId);
-            }
-            
-            // 质疑玩家获得出牌权
-            room.setCurrentPlayer(message.getPlayerId());
-            room.setCurrentPlayerIndex(room.getPlayers().indexOf(message.getPlayerId()));
-        } else {
-            // 质疑失败，质疑者收走底盘
-            punishPlayer(room, message.getPlayerId());
-            // 被质疑玩家ID
-            String targetPlayerId = message.getTargetPlayerId();
-            // 出牌者获得出牌权
-            room.setCurrentPlayer(targetPlayerId);
-            room.setCurrentPlayerIndex(room.getPlayers().indexOf(targetPlayerId));
-            
-            // 如果被质疑的玩家手牌为空，且在winners列表中，此时应确认其真正赢得比赛
-            // 因为他被质疑但质疑失败，满足"出完手牌后无人质疑成功"的条件
-            List<Card> targetPlayerHand = room.getPlayerHands().get(targetPlayerId);
-            if (targetPlayerHand.isEmpty() && room.getWinners().contains(targetPlayerId)) {
-                // 将玩家从游戏中移除，但保留在winners列表中
-                room.getPlayers().remove(targetPlayerId);
-            }
+        if (room.getPlayers().size() != playerCount) {
+            eventPublisher.publishSnapshot(room);
         }
         
-        // 清空当前牌堆
-        room.getCurrentPile().clear();
-        room.setLastClaim(null);
-        
-        // 清空过牌玩家列表，因为新的一轮开始了
-        room.clearPassedPlayers();
-        
-        // 发送状态更新
-        sendGameStateUpdate(roomId);
-        
         return room;
     }
 
@@ -291,38 +274,20 @@ public class GameService {
      * @return 房间
      */
     public GameRoom pass(String roomId, String playerId) {
+        return roomExecutor.execute(roomId, () -> afterCommand(doPass(roomId, playerId)));
+    }
+
+    private GameRoom doPass(String roomId, String playerId) {
         GameRoom room = rooms.get(roomId);
         if (room == null) {
             throw new RuntimeException("房间不存在");
         }
-        if (room.getStatus() != GameStatus.PLAYING) {
-            throw new RuntimeException("游戏未开始");
-        }
-        if (!room.getPlayers().contains(playerId)) {
-            throw new RuntimeException("玩家不在房间中");
-        }
-        
-        // 检查是否是当前玩家的回合
-        if (!playerId.equals(room.getCurrentPlayer())) {
-            throw new RuntimeException("不是你的回合");
-        }
-        
-        // 记录该玩家已过牌
-        room.addPassedPlayer(playerId);
-        
-        // 切换到下一个玩家
-        int nextIndex = (room.getPlayers().indexOf(playerId) + 1) % room.getPlayers().size();
-        room.setCurrentPlayer(room.getPlayers().get(nextIndex));
-        room.setCurrentPlayerIndex(nextIndex);
-        
-        // 如果下一个玩家是最初出牌的玩家，说明已经轮了一圈都过牌了
-        // 此时清空过牌记录，给这个玩家重新出牌的自由度
-        if (nextIndex == room.getPlayers().indexOf(room.getLastPlayerId())) {
-            room.clearPassedPlayers();
-        }
+
+        GameRules.pass(room, playerId);
         
-        // 发送状态更新
-        sendGameStateUpdate(roomId);
+        // 发布过牌事件
+        publishEvent(room, new GameEvent(GameEventType.PASS, playerId));
+        journal.append(new JournalEntry(JournalEntryType.PASS, roomId, room.getVersion(), playerId));
         
         return room;
     }
@@ -342,7 +307,8 @@ public class GameService {
         for (String playerId : room.getPlayers()) {
             // 创建一个临时的Player对象
             Player player = new Player(playerId, playerId);
-            player.setHand(room.getPlayerHands().getOrDefault(playerId, new ArrayList<>()));
+            CardHand hand = room.getPlayerHands().get(playerId);
+            player.setHand(hand != null ? hand : new CardHand());
             player.setReady(room.getReadyPlayers().contains(playerId));
             player.setHost(playerId.equals(room.getHostId()));
             
@@ -355,115 +321,78 @@ public class GameService {
     }
     
     /**
-     * 检查玩家是否拥有所有指定的牌
-     * @param playerCards 玩家的手牌
-     * @param selectedCards 选中的牌
-     * @return 是否拥有所有牌
+     * 处理玩家胜利
+     * @param roomId 房间ID
+     * @param playerId 胜利的玩家ID
      */
-    private boolean hasAllCards(List<Card> playerCards, List<Card> selectedCards) {
-        // 创建玩家手牌的副本
-        List<Card> playerCardsCopy = new ArrayList<>(playerCards);
+    private void handlePlayerWin(String roomId, String playerId) {
+        GameRoom room = rooms.get(roomId);
         
-        // 检查是否包含每一张选中的牌
-        for (Card card : selectedCards) {
-            if (!playerCardsCopy.remove(card)) {
-                return false;
-            }
+        if (room != null) {
+            GameRules.win(room, playerId);
+            
+            // 发送状态更新
+            sendGameStateUpdate(roomId);
+            journal.append(new JournalEntry(JournalEntryType.WIN, roomId, room.getVersion(), playerId));
         }
-        
-        return true;
     }
-    
+
     /**
-     * 从玩家手牌中移除指定的牌
-     * @param playerCards 玩家的手牌
-     * @param cardsToRemove 要移除的牌
+     * 记录出牌，包括实际打出的牌和声明的点数、张数
      */
-    private void removeCards(List<Card> playerCards, List<Card> cardsToRemove) {
-        for (Card card : cardsToRemove) {
-            playerCards.remove(card);
-        }
+    private void journalPlay(GameRoom room, GameMessage message, List<Card> cards) {
+        JournalEntry entry = new JournalEntry(JournalEntryType.PLAY, room.getId(), room.getVersion(), message.getPlayerId())
+                .withCards(cards);
+        entry.setValue(message.getDeclaredValue());
+        entry.setDeclaredCount(message.getDeclaredCount());
+        journal.append(entry);
     }
     
     /**
-     * 检查声明是否有效
-     * @param cards 实际打出的牌
-     * @param declaredValue 声明的值
-     * @return 声明是否有效
+     * 补全事件中动作后的公共状态并发布
+     * @param room 游戏房间
+     * @param event 事件
      */
-    private boolean isClaimValid(List<Card> cards, String declaredValue) {
-        int count = 0;
-        
-        // 计算实际匹配声明的牌的数量
-        for (Card card : cards) {
-            if (card.isJoker() || card.getRank().equals(declaredValue)) {
-                count++;
-            }
-        }
-        
-        // 如果所有牌都符合声明，则声明有效
-        return count == cards.size();
+    private void publishEvent(GameRoom room, GameEvent event) {
+        event.setCurrentPlayer(room.getCurrentPlayer());
+        event.setPileSize(room.getCurrentPile().size());
+        event.setPassedPlayers(new ArrayList<>(room.getPassedPlayers()));
+        eventPublisher.publish(room, event);
     }
-    
+
     /**
-     * 处理玩家胜利
+     * 发送游戏状态更新到客户端
+     * 版本号加一并发送完整快照，用于事件无法描述的变化（开局、加入、离开等）
      * @param roomId 房间ID
-     * @param playerId 胜利的玩家ID
      */
-    private void handlePlayerWin(String roomId, String playerId) {
+    public void sendGameStateUpdate(String roomId) {
         GameRoom room = rooms.get(roomId);
-        
         if (room != null) {
-            // 检查是否有人质疑当前出牌
-            if (room.getLastClaim() != null && room.getLastPlayerId() != null 
-                && room.getLastPlayerId().equals(playerId)) {
-                // 添加玩家到胜利列表，但不从游戏中移除
-                // 只有当被质疑失败或其他玩家出牌后，才算真正胜利
-                if (!room.getWinners().contains(playerId)) {
-                    room.getWinners().add(playerId);
-                }
-            } else {
-                // 如果是被质疑失败或其他玩家已出牌，则算真正胜利
-                // 将玩家从当前玩家列表中移除，但保留在胜利列表中
-                if (!room.getWinners().contains(playerId)) {
-                    room.getWinners().add(playerId);
-                }
-                room.getPlayers().remove(playerId);
-            }
-            
-            // 如果只剩最后一个玩家有手牌，游戏结束
-            if (room.checkGameEnd()) {
-                room.setStatus(GameStatus.FINISHED);
-                room.setGameStatus("FINISHED");
-            }
-            
-            // 发送状态更新
-            sendGameStateUpdate(roomId);
+            eventPublisher.publishSnapshot(room);
         }
     }
-    
+
     /**
-     * 惩罚玩家（将底盘牌加入其手牌）
-     * @param room 游戏房间
-     * @param playerId 被惩罚的玩家ID
+     * 按当前版本号重新发送公开快照，同一版本复用已序列化的内容
+     * @param roomId 房间ID
      */
-    private void punishPlayer(GameRoom room, String playerId) {
-        List<Card> playerHand = room.getPlayerHands().get(playerId);
-        if (playerHand != null && room.getCurrentPile() != null) {
-            playerHand.addAll(room.getCurrentPile());
+    public void resendSnapshot(String roomId) {
+        GameRoom room = roomId == null ? null : rooms.get(roomId);
+        if (room != null) {
+            eventPublisher.sendSnapshot(room);
         }
     }
-    
+
     /**
-     * 发送游戏状态更新到客户端
+     * 客户端发现版本号不连续时请求重新同步：公开快照加上自己的手牌
      * @param roomId 房间ID
+     * @param playerId 玩家ID
      */
-    public void sendGameStateUpdate(String roomId) {
-        GameRoom room = rooms.get(roomId);
-        if (room != null && messagingTemplate != null) {
-            // 使用toGameState方法转换为GameState对象，保持与前端的兼容性
-            GameState state = room.toGameState();
-            messagingTemplate.convertAndSend("/topic/game/state/" + roomId, state);
+    public void resync(String roomId, String playerId) {
+        GameRoom room = roomId == null ? null : rooms.get(roomId);
+        if (room != null) {
+            eventPublisher.sendSnapshot(room);
+            eventPublisher.sendHand(room, playerId);
         }
     }
 
@@ -475,6 +404,13 @@ public class GameService {
      * @param playerId 当前操作的玩家ID
      */
     public void addRobotsToRoom(String roomId, int count, String difficulty, String playerId) {
+        roomExecutor.execute(roomId, () -> {
+            doAddRobotsToRoom(roomId, count, difficulty, playerId);
+            afterCommand(rooms.get(roomId));
+        });
+    }
+
+    private void doAddRobotsToRoom(String roomId, int count, String difficulty, String playerId) {
         GameRoom room = rooms.get(roomId);
         if (room == null) {
             throw new IllegalArgumentException("房间不存在");
@@ -515,7 +451,8 @@ public class GameService {
         return difficulty != null && 
                (difficulty.equals("EASY") || 
                 difficulty.equals("MEDIUM") || 
-                difficulty.equals("HARD"));
+                difficulty.equals("HARD") ||
+                difficulty.equals("EXPERT"));
     }
 
     /**
@@ -524,6 +461,13 @@ public class GameService {
      * @param playerId 当前操作的玩家ID
      */
     public void removeRobotsFromRoom(String roomId, String playerId) {
+        roomExecutor.execute(roomId, () -> {
+            doRemoveRobotsFromRoom(roomId, playerId);
+            afterCommand(rooms.get(roomId));
+        });
+    }
+
+    private void doRemoveRobotsFromRoom(String roomId, String playerId) {
         GameRoom room = rooms.get(roomId);
         if (room == null) {
             throw new IllegalArgumentException("房间不存在");
@@ -544,16 +488,14 @@ public class GameService {
         // 检查房间是否需要解散
         if (room.getPlayers().isEmpty() || room.getPlayers().stream().allMatch(room::isRobot)) {
             // 如果房间内只剩下机器人或没有玩家，解散房间
-            rooms.remove(roomId);
+            roomManagementService.removeRoom(roomId);
             
             // 广播房间解散消息
-            if (messagingTemplate != null) {
-                GameNotification notification = new GameNotification();
-                notification.setType("ROOM_DISSOLVED");
-                notification.setContent("房间已解散");
-                notification.setRoomId(roomId);
-                messagingTemplate.convertAndSend("/topic/game/notification/" + roomId, notification);
-            }
+            GameNotification notification = new GameNotification();
+            notification.setType("ROOM_DISSOLVED");
+            notification.setContent("房间已解散");
+            notification.setRoomId(roomId);
+            eventPublisher.notify(roomId, notification);
         } else {
             // 广播房间状态更新
             broadcastRoomState(room);
@@ -561,127 +503,126 @@ public class GameService {
     }
 
     /**
-     * 处理机器人的回合
+     * 命令执行后的收尾：按新的房间状态重新调度机器人回合
      * @param room 游戏房间
+     * @return 同一房间
      */
-    private void handleRobotTurn(GameRoom room) {
-        String currentPlayerId = room.getCurrentPlayerId();
-        if (!room.isRobot(currentPlayerId)) {
+    private GameRoom afterCommand(GameRoom room) {
+        rooms.update(room);
+        robotScheduler.reschedule(room);
+        return room;
+    }
+
+    /**
+     * 执行机器人的回合（由RobotScheduler在房间信箱线程上调用）
+     * 决策通过与玩家相同的出牌、质疑、过牌流程执行，执行后会继续调度下一个机器人
+     * @param roomId 房间ID
+     * @param robotId 机器人ID
+     */
+    public void playRobotTurn(String roomId, String robotId) {
+        GameRoom room = rooms.get(roomId);
+        if (room == null || room.getStatus() != GameStatus.PLAYING
+                || !room.isRobot(robotId) || !robotId.equals(room.getCurrentPlayerId())) {
             return;
         }
 
-        try {
-            // 创建机器人玩家实例
-            RobotPlayer robot = new RobotPlayer(
-                currentPlayerId,
-                "机器人" + currentPlayerId.substring(6), // 从"robot_X"中提取数字
-                room.getRobotDifficulty()
+        // 每个机器人座位只创建一次机器人玩家实例，难度改变时重新创建
+        RobotPlayer robot = room.getRobotSeats().get(robotId);
+        if (robot == null || !Objects.equals(robot.getDifficulty(), room.getRobotDifficulty())) {
+            robot = new RobotPlayer(
+                robotId,
+                "机器人" + robotId.substring(6), // 从"robot_X"中提取数字
+                room.getRobotDifficulty(),
+                randomProvider.forRoom(roomId)
             );
-            robot.setHand(room.getPlayerHands().get(currentPlayerId));
-
-            // 获取上一个声明
-            String lastClaim = room.getLastClaim();
-            List<Card> currentPile = room.getCurrentPile();
+            room.getRobotSeats().put(robotId, robot);
+        }
+        robot.setHand(room.getPlayerHands().get(robotId));
 
-            // 根据难度设置延迟时间
-            int delay = switch (room.getRobotDifficulty()) {
-                case "EASY" -> 2000;    // 简单模式延迟2秒
-                case "MEDIUM" -> 1500;  // 中等模式延迟1.5秒
-                case "HARD" -> 1000;    // 困难模式延迟1秒
-                default -> 1500;
-            };
+        // 专家难度先异步搜索，结果回到房间信箱后再执行本回合
+        MonteCarloRobotStrategy expert = robot.getStrategy() instanceof MonteCarloRobotStrategy
+                ? (MonteCarloRobotStrategy) robot.getStrategy() : null;
+        if (expert != null && !expert.hasPlan(room.getVersion())) {
+            searchRobotTurn(room, robotId, expert);
+            return;
+        }
 
-            // 延迟执行，让玩家能看清机器人的操作
-            Thread.sleep(delay);
+        Claim lastClaim = room.getLastClaim();
+        CardHand currentPile = room.getCurrentPile();
 
+        try {
             // 决定是否质疑上一个玩家
-            if (lastClaim != null && !currentPile.isEmpty() && robot.decideToChallenge(lastClaim, currentPile)) {
-                // 机器人选择质疑
-                handleChallenge(room.getId(), currentPlayerId);
+            String lastPlayerId = room.getLastPlayerId();
+            if (lastClaim != null && !currentPile.isEmpty() && lastPlayerId != null
+                    && !robotId.equals(lastPlayerId)
+                    && robot.decideToChallenge(lastClaim, currentPile, GameRules.knowledge(room))) {
+                GameMessage message = new GameMessage();
+                message.setRoomId(roomId);
+                message.setPlayerId(robotId);
+                message.setTargetPlayerId(lastPlayerId);
+                afterCommand(doChallenge(roomId, message));
                 return;
             }
 
-            // 选择要打出的牌
+            // 选择要打出的牌，没有选牌则过牌；选出的牌在机器人的缓冲区中，下次决策前有效
             List<Card> selectedCards = robot.selectCardsToPlay(lastClaim);
-            if (selectedCards.isEmpty()) {
-                // 机器人选择过牌
-                handlePass(room.getId(), currentPlayerId);
+            int claimRank = robot.chooseClaimRank(selectedCards, lastClaim);
+            if (selectedCards.isEmpty() || claimRank < 0) {
+                afterCommand(doPass(roomId, robotId));
                 return;
             }
 
-            // 生成声明
-            String claim = robot.generateClaim(selectedCards, lastClaim);
-            
-            // 执行出牌
-            handlePlayCards(room.getId(), currentPlayerId, selectedCards, claim);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            // 如果被中断，让下一个玩家继续
-            String nextPlayerId = room.getNextPlayerId();
-            if (nextPlayerId != null) {
-                room.setCurrentPlayer(nextPlayerId);
-                room.setCurrentPlayerIndex(room.getPlayers().indexOf(nextPlayerId));
-                sendGameStateUpdate(room.getId());
+            GameMessage message = new GameMessage();
+            message.setRoomId(roomId);
+            message.setPlayerId(robotId);
+            message.setCards(new ArrayList<>(selectedCards));
+            message.setDeclaredCount(selectedCards.size());
+            // 跟随上一声明时沿用上一玩家的写法，保证与声明值校验一致
+            message.setDeclaredValue(lastClaim != null && claimRank == lastClaim.getRank()
+                    ? room.getLastPlayedValue() : Card.rankName(claimRank));
+            afterCommand(doPlayCards(roomId, message));
+        } catch (RuntimeException e) {
+            // 决策不合法时退回过牌，保证游戏继续
+            log.warn("机器人 {} 的决策执行失败，改为过牌: {}", robotId, e.getMessage());
+            try {
+                afterCommand(doPass(roomId, robotId));
+            } catch (RuntimeException passError) {
+                log.error("机器人 {} 过牌失败: {}", robotId, passError.getMessage());
             }
-        } catch (Exception e) {
-            // 处理其他异常，记录错误并让下一个玩家继续
-            log.error("机器人回合处理出错: " + e.getMessage());
-            e.printStackTrace();
-            String nextPlayerId = room.getNextPlayerId();
-            if (nextPlayerId != null) {
-                room.setCurrentPlayer(nextPlayerId);
-                room.setCurrentPlayerIndex(room.getPlayers().indexOf(nextPlayerId));
-                sendGameStateUpdate(room.getId());
+        } finally {
+            if (expert != null) {
+                expert.clearPlan();
             }
         }
     }
 
     /**
-     * 修改原有的handlePlayCards方法，在处理完玩家出牌后检查下一个玩家是否是机器人
-     */
-    public void handlePlayCards(String roomId, String playerId, List<Card> cards, String claim) {
-        // ... 原有的出牌处理逻辑 ...
-
-        // 在处理完出牌后，检查下一个玩家是否是机器人
-        GameRoom room = rooms.get(roomId);
-        
-        String nextPlayerId = room.getNextPlayerId();
-        if (room.isRobot(nextPlayerId)) {
-            // 如果下一个玩家是机器人，执行机器人的回合
-            handleRobotTurn(room);
-        }
-    }
-
-    /**
-     * 修改原有的handleChallenge方法，在处理完质疑后检查下一个玩家是否是机器人
-     */
-    public void handleChallenge(String roomId, String playerId) {
-        // ... 原有的质疑处理逻辑 ...
-
-        // 在处理完质疑后，检查下一个玩家是否是机器人
-        GameRoom room = rooms.get(roomId);
-        
-        String nextPlayerId = room.getNextPlayerId();
-        if (room.isRobot(nextPlayerId)) {
-            // 如果下一个玩家是机器人，执行机器人的回合
-            handleRobotTurn(room);
-        }
-    }
-
-    /**
-     * 修改原有的handlePass方法，在处理完过牌后检查下一个玩家是否是机器人
+     * 在机器人搜索线程池上为专家机器人搜索动作，房间信箱线程不等待搜索结果
+     * 结果投递回房间信箱：房间状态版本未变时按结果执行回合，否则丢弃结果并重新调度
+     * @param room 游戏房间
+     * @param robotId 机器人ID
+     * @param strategy 机器人的搜索策略
      */
-    public void handlePass(String roomId, String playerId) {
-        // ... 原有的过牌处理逻辑 ...
-
-        // 在处理完过牌后，检查下一个玩家是否是机器人
-        GameRoom room = rooms.get(roomId);
-        
-        String nextPlayerId = room.getNextPlayerId();
-        if (room.isRobot(nextPlayerId)) {
-            // 如果下一个玩家是机器人，执行机器人的回合
-            handleRobotTurn(room);
-        }
+    private void searchRobotTurn(GameRoom room, String robotId, MonteCarloRobotStrategy strategy) {
+        String roomId = room.getId();
+        long version = room.getVersion();
+        robotSearchPool.search(roomId, RobotView.of(room, robotId)).whenComplete((action, error) -> {
+            if (error != null) {
+                log.warn("机器人 {} 的搜索失败，改用默认策略: {}", robotId, error.getMessage());
+            }
+            roomExecutor.submit(roomId, () -> {
+                GameRoom current = rooms.get(roomId);
+                if (current == null) {
+                    return;
+                }
+                if (current.getVersion() != version) {
+                    robotScheduler.reschedule(current);
+                    return;
+                }
+                strategy.setPlan(version, error == null ? action : null);
+                playRobotTurn(roomId, robotId);
+            });
+        });
     }
 
     /**
@@ -693,78 +634,11 @@ public class GameService {
             return;
         }
         
-        // 获取公共视图的房间数据
-        GameRoom publicRoom = createPublicRoomView(room);
-        
-        // 向房间内的每个玩家发送他们的私有视图
-        for (String playerId : room.getPlayers()) {
-            GameRoom playerView = createPlayerView(room, playerId);
-            messagingTemplate.convertAndSendToUser(playerId, "/queue/game", playerView);
-        }
-        
-        // 向房间主题广播公共视图
-        messagingTemplate.convertAndSend("/topic/game/" + room.getId(), publicRoom);
-        
-        // 使用RoomManagementService广播房间列表更新，确保数据一致性
-        roomManagementService.syncRoomData();
-    }
-
-    /**
-     * 创建房间的公开视图（不包含机器人信息）
-     * @param room 原始房间
-     * @return 公开视图
-     */
-    private GameRoom createPublicRoomView(GameRoom room) {
-        GameRoom publicView = new GameRoom();
-        publicView.setId(room.getId());
-        publicView.setHostId(room.getHostId());
-        publicView.setMaxPlayers(room.getMaxPlayers());
-        publicView.setStatus(room.getStatus());
-        
-        // 只包含非机器人玩家
-        List<String> humanPlayers = room.getPlayers().stream()
-                .filter(p -> !room.isRobot(p))
-                .toList();
-        publicView.setPlayers(new ArrayList<>(humanPlayers));
-        
-        // 设置准备状态
-        List<String> readyHumanPlayers = room.getReadyPlayers().stream()
-                .filter(p -> !room.isRobot(p))
-                .toList();
-        publicView.setReadyPlayers(new ArrayList<>(readyHumanPlayers));
-        
-        return publicView;
-    }
-
-    /**
-     * 创建房间的玩家私有视图
-     * @param room 原始房间
-     * @param playerId 玩家ID
-     * @return 玩家私有视图
-     */
-    private GameRoom createPlayerView(GameRoom room, String playerId) {
-        GameRoom playerView = new GameRoom();
-        playerView.setId(room.getId());
-        playerView.setHostId(room.getHostId());
-        playerView.setMaxPlayers(room.getMaxPlayers());
-        playerView.setStatus(room.getStatus());
-        
-        // 只包含玩家自己的手牌
-        List<Card> playerCards = room.getPlayerHands().get(playerId);
-        Map<String, List<Card>> playerHandMap = new HashMap<>();
-        if (playerCards != null) {
-            playerHandMap.put(playerId, playerCards);
-        }
-        playerView.setPlayerHands(playerHandMap);
-        
-        // 设置准备状态
-        List<String> readyPlayers = new ArrayList<>();
-        if (room.getReadyPlayers().contains(playerId)) {
-            readyPlayers.add(playerId);
-        }
-        playerView.setReadyPlayers(readyPlayers);
+        // 公开快照和各玩家的手牌在命令结束时合并发送
+        eventPublisher.publishSnapshot(room);
         
-        return playerView;
+        // 重新索引房间，大厅列表按增量合并发送
+        rooms.update(room);
     }
 
     /**
@@ -0,0 +1,130 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.ClusterCommand;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于HTTP的命令传输
+ * <p>
+ * 命令POST到目标节点的 /internal/cluster/commands，需要答复的请求POST到 /internal/cluster/requests。
+ * 请求在专用的转发线程上发送，
+ * 连接和读取都有超时，调用方（入站通道线程）不等待对方节点；转发队列满时直接失败。
+ * 请求带上集群共享密钥，对方节点的 {@code ClusterController} 校验后才执行。
+ * 只有显式配置 game.cluster.transport=http 时启用。
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(name = "game.cluster.transport", havingValue = "http")
+public class HttpClusterTransport implements ClusterTransport {
+
+    public static final String COMMAND_PATH = "/internal/cluster/commands";
+
+    public static final String REQUEST_PATH = "/internal/cluster/requests";
+
+    /** 携带集群共享密钥的请求头 */
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    @Autowired
+    private RoomOwnership ownership;
+
+    private final RestTemplate restTemplate;
+    private final ThreadPoolExecutor senders;
+    private final HttpHeaders headers = new HttpHeaders();
+
+    /**
+     * 构造函数
+     * @param builder RestTemplate构建器
+     * @param connectTimeoutMillis 连接超时（毫秒）
+     * @param readTimeoutMillis 读取超时（毫秒）
+     * @param threads 转发线程数
+     * @param queueCapacity 等待转发的命令数上限
+     * @param secret 集群共享密钥
+     */
+    public HttpClusterTransport(RestTemplateBuilder builder,
+                                @Value("${game.cluster.connect-timeout-millis:1000}") long connectTimeoutMillis,
+                                @Value("${game.cluster.read-timeout-millis:3000}") long readTimeoutMillis,
+                                @Value("${game.cluster.forward-threads:4}") int threads,
+                                @Value("${game.cluster.forward-queue-capacity:1000}") int queueCapacity,
+                                @Value("${game.cluster.secret:}") String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("启用集群转发时必须配置 game.cluster.secret");
+        }
+        headers.set(SECRET_HEADER, secret);
+        this.restTemplate = builder
+                .setConnectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .setReadTimeout(Duration.ofMillis(readTimeoutMillis))
+                .build();
+        AtomicInteger counter = new AtomicInteger();
+        int size = Math.max(1, threads);
+        this.senders = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+            Thread thread = new Thread(r, "cluster-forward-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> send(String nodeId, ClusterCommand command) {
+        String address = ownership.addressOf(nodeId);
+        if (address == null) {
+            return CompletableFuture.failedFuture(new RuntimeException("未配置节点地址: " + nodeId));
+        }
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    restTemplate.postForEntity(address + COMMAND_PATH, new HttpEntity<>(command, headers), Void.class);
+                } catch (RestClientException e) {
+                    throw new RuntimeException("转发房间命令失败: " + nodeId, e);
+                }
+            }, senders);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("转发队列已满: " + nodeId, e));
+        }
+    }
+
+    @Override
+    public CompletableFuture<JsonNode> request(String nodeId, ClusterCommand command) {
+        String address = ownership.addressOf(nodeId);
+        if (address == null) {
+            return CompletableFuture.failedFuture(new RuntimeException("未配置节点地址: " + nodeId));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return restTemplate.postForObject(address + REQUEST_PATH, new HttpEntity<>(command, headers), JsonNode.class);
+                } catch (RestClientException e) {
+                    throw new RuntimeException("集群请求失败: " + nodeId, e);
+                }
+            }, senders);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("转发队列已满: " + nodeId, e));
+        }
+    }
+
+    /**
+     * 应用关闭时停止转发线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.ClusterCommand;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内的命令传输
+ * 同一JVM中启动多个节点（本地调试、测试）时，命令直接交给目标节点的 {@link RoomRouter}
+ */
+@Service
+@ConditionalOnProperty(name = "game.cluster.transport", havingValue = "in-process")
+public class InProcessClusterTransport implements ClusterTransport {
+
+    /** 节点ID -> 该节点的路由器 */
+    private static final Map<String, RoomRouter> NODES = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RoomOwnership ownership;
+
+    @Autowired
+    private RoomRouter router;
+
+    @PostConstruct
+    public void init() {
+        NODES.put(ownership.getNodeId(), router);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        NODES.remove(ownership.getNodeId(), router);
+    }
+
+    @Override
+    public CompletableFuture<Void> send(String nodeId, ClusterCommand command) {
+        RoomRouter target = NODES.get(nodeId);
+        if (target == null) {
+            return CompletableFuture.failedFuture(new RuntimeException("节点未启动: " + nodeId));
+        }
+        try {
+            // 目标节点的处理方法只把命令投递到房间信箱，直接在当前线程上调用
+            target.receive(command);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<JsonNode> request(String nodeId, ClusterCommand command) {
+        RoomRouter target = NODES.get(nodeId);
+        if (target == null) {
+            return CompletableFuture.failedFuture(new RuntimeException("节点未启动: " + nodeId));
+        }
+        try {
+            return CompletableFuture.completedFuture(target.answer(command));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
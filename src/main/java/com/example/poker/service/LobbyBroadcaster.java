@@ -0,0 +1,233 @@
+package com.example.poker.service;
+
+import com.example.poker.controller.WebSocketController;
+import com.example.poker.dto.LobbyUpdate;
+import com.example.poker.model.GameRoom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 大厅房间列表广播服务
+ * <p>
+ * 作为 {@link RoomRegistry} 的监听器接收房间变化。房间的新增、变化和移除先按房间ID合并，一个时间窗口结束后作为一条增量发到
+ * /topic/rooms/delta/{节点ID}，同一房间在窗口内多次变化只发最后的状态。
+ * 客户端订阅 /app/rooms/snapshot 时单独收到当前的完整列表，
+ * 之后按版本号应用增量。大厅的开销因此取决于变化频率，而不是房间总数。
+ * </p>
+ * <p>
+ * 每个节点只发布自己所属的房间，版本号也只在本节点内递增；
+ * 集群中各节点的增量发到各自的主题上，客户端按节点分别记录版本号。
+ * </p>
+ * <p>
+ * 房间信箱线程上只比较注册表的房间概要并放入并发的待发布表，不加锁、不生成消息；
+ * 生成和发送增量都在单独的一个发布线程上进行，增量因此按版本号顺序发出。
+ * </p>
+ */
+@Service
+public class LobbyBroadcaster implements RoomRegistry.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LobbyBroadcaster.class);
+
+    /** 待发布表中表示房间已移除的占位 */
+    private static final RoomRegistry.IndexEntry REMOVED = RoomRegistry.IndexEntry.probe(0, 0, null);
+
+    @Autowired(required = false)
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private RoomRegistry roomRegistry;
+
+    @Autowired
+    private RoomOwnership ownership;
+
+    /** 合并窗口（毫秒） */
+    @Value("${game.lobby.flush-millis:250}")
+    private long flushMillis = 250;
+
+    /** 已发布的房间概要，只在发布线程上修改 */
+    private final Map<String, RoomRegistry.IndexEntry> published = new LinkedHashMap<>();
+
+    /** 窗口内待发布的变化 */
+    private final Map<String, RoomRegistry.IndexEntry> pending = new ConcurrentHashMap<>();
+
+    /** 每个房间最近一次收到的概要，概要没有变化的通知直接忽略 */
+    private final Map<String, RoomRegistry.IndexEntry> seen = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private ScheduledExecutorService flusher;
+
+    private long version;
+
+    /**
+     * 注册为房间注册表的监听器
+     */
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lobby-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        roomRegistry.addListener(this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+    }
+
+    @Override
+    public void roomChanged(GameRoom room) {
+        RoomRegistry.IndexEntry entry = roomRegistry.getEntry(room.getId());
+        if (entry == null || entry.equals(seen.put(room.getId(), entry))) {
+            // 房间已移除，或者大厅可见的信息没有变化
+            return;
+        }
+        pending.put(room.getId(), entry);
+        scheduleFlush();
+    }
+
+    /**
+     * 记录房间移除
+     * @param roomId 房间ID
+     */
+    @Override
+    public void roomRemoved(String roomId) {
+        seen.remove(roomId);
+        pending.put(roomId, REMOVED);
+        scheduleFlush();
+    }
+
+    /**
+     * 获取节点的大厅增量主题
+     * @param nodeId 节点ID
+     * @return 主题地址
+     */
+    public static String deltaTopic(String nodeId) {
+        return "/topic/rooms/delta/" + nodeId;
+    }
+
+    /**
+     * 获取当前已发布的完整房间列表
+     * @return 快照
+     */
+    public LobbyUpdate snapshot() {
+        List<RoomRegistry.IndexEntry> entries;
+        long snapshotVersion;
+        synchronized (this) {
+            entries = new ArrayList<>(published.values());
+            snapshotVersion = version;
+        }
+        List<WebSocketController.RoomInfo> rooms = new ArrayList<>(entries.size());
+        for (RoomRegistry.IndexEntry entry : entries) {
+            rooms.add(WebSocketController.RoomInfo.from(entry));
+        }
+        return LobbyUpdate.builder()
+                .nodeId(ownership.getNodeId())
+                .version(snapshotVersion)
+                .snapshot(true)
+                .rooms(rooms)
+                .build();
+    }
+
+    /**
+     * 获取最近一次发布的大厅版本号
+     * @return 版本号
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * 立即发布窗口内的变化，在发布线程上执行并等待完成
+     */
+    public void flush() {
+        try {
+            flusher.submit(this::publishPending).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            logger.warn("发布大厅增量失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 取出待发布的变化，在短暂的锁内更新已发布列表和版本号，锁外生成并发送增量；只在发布线程上调用
+     */
+    private void publishPending() {
+        flushScheduled.set(false);
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<RoomRegistry.IndexEntry> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        long updateVersion;
+        synchronized (this) {
+            for (String roomId : new ArrayList<>(pending.keySet())) {
+                RoomRegistry.IndexEntry entry = pending.remove(roomId);
+                if (entry == null) {
+                    continue;
+                }
+                if (entry == REMOVED) {
+                    // 还没发布过的房间直接丢弃
+                    if (published.remove(roomId) != null) {
+                        removed.add(roomId);
+                    }
+                } else if (!entry.equals(published.put(roomId, entry))) {
+                    // 与已发布的状态相同时窗口内的变化相互抵消
+                    changed.add(entry);
+                }
+            }
+            if (changed.isEmpty() && removed.isEmpty()) {
+                return;
+            }
+            updateVersion = ++version;
+        }
+        List<WebSocketController.RoomInfo> rooms = new ArrayList<>(changed.size());
+        for (RoomRegistry.IndexEntry entry : changed) {
+            rooms.add(WebSocketController.RoomInfo.from(entry));
+        }
+        LobbyUpdate update = LobbyUpdate.builder()
+                .nodeId(ownership.getNodeId())
+                .version(updateVersion)
+                .rooms(rooms.isEmpty() ? null : rooms)
+                .removed(removed.isEmpty() ? null : removed)
+                .build();
+        if (messagingTemplate != null) {
+            messagingTemplate.convertAndSend(deltaTopic(ownership.getNodeId()), update);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flusher.schedule(this::publishPending, Math.max(0, flushMillis), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 关闭期间不再发布
+            flushScheduled.set(false);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.poker.service;
+
+import com.example.poker.exception.GameException;
+import com.example.poker.model.GameRoom;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 玩家房间成员关系的集群权威
+ * <p>
+ * {@link RoomRegistry} 只知道本节点上的房间，集群中一个玩家可能同时加入两个节点上的房间。
+ * 每个玩家的成员关系因此只由一个节点裁决：把玩家ID映射到哈希环上得到的节点（权威节点）。
+ * 加入或创建房间前先向权威节点占用成员关系，玩家已在其他房间（不论房间在哪个节点上）时拒绝。
+ * 占用要等待权威节点答复，所以在投递到房间信箱之前进行，不占用信箱线程。
+ * </p>
+ * <p>
+ * 作为注册表的监听器，玩家离开房间、房间被移除时释放成员关系；
+ * 从存档或日志恢复的房间登记时也通过成员变化通知补记到权威节点上。
+ * 单节点运行时权威总是本节点，占用只是一次本地的原子操作。
+ * </p>
+ */
+@Service
+public class PlayerMembership implements RoomRegistry.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlayerMembership.class);
+
+    static final String CLAIM = "/cluster/membership/claim";
+    static final String ADOPT = "/cluster/membership/adopt";
+    static final String RELEASE = "/cluster/membership/release";
+
+    @Autowired
+    private RoomOwnership ownership;
+
+    @Autowired
+    private RoomRegistry rooms;
+
+    @Autowired
+    private RoomRouter router;
+
+    /** 等待权威节点答复的时间（毫秒） */
+    @Value("${game.cluster.claim-timeout-millis:3000}")
+    private long claimTimeoutMillis = 3000;
+
+    /** 本节点裁决的玩家：玩家ID -> 所在房间ID */
+    private final Map<String, String> claims = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        router.registerQuery(CLAIM, Membership.class, m -> claimLocal(m.getPlayerId(), m.getRoomId()));
+        router.register(ADOPT, Membership.class, m -> adoptLocal(m.getPlayerId(), m.getRoomId()));
+        router.register(RELEASE, Membership.class, m -> releaseLocal(m.getPlayerId(), m.getRoomId()));
+        rooms.addListener(this);
+    }
+
+    /**
+     * 获取玩家的权威节点
+     * @param playerId 玩家ID
+     * @return 节点ID
+     */
+    public String authorityOf(String playerId) {
+        return ownership.ownerOf("player:" + playerId);
+    }
+
+    /**
+     * 在权威节点上占用玩家的成员关系，玩家已属于同一房间时直接返回
+     * @param playerId 玩家ID
+     * @param roomId 房间ID
+     * @throws GameException 玩家已在其他房间中，或权威节点暂时不可用
+     */
+    public void claim(String playerId, String roomId) {
+        String authority = authorityOf(playerId);
+        boolean claimed;
+        if (ownership.getNodeId().equals(authority)) {
+            claimed = claimLocal(playerId, roomId);
+        } else {
+            try {
+                JsonNode answer = router.request(authority, CLAIM, new Membership(playerId, roomId))
+                        .get(claimTimeoutMillis, TimeUnit.MILLISECONDS);
+                claimed = answer != null && answer.asBoolean();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GameException("玩家状态服务暂时不可用，请稍后重试", "CLUSTER_UNAVAILABLE");
+            } catch (ExecutionException | TimeoutException e) {
+                logger.error("占用成员关系失败 - 玩家: {}, 权威节点: {}, 错误: {}", playerId, authority, e.getMessage());
+                throw new GameException("玩家状态服务暂时不可用，请稍后重试", "CLUSTER_UNAVAILABLE");
+            }
+        }
+        if (!claimed) {
+            throw new GameException("您已在其他房间中", "ALREADY_IN_ROOM");
+        }
+    }
+
+    /**
+     * 释放玩家在某个房间的成员关系，不等待权威节点；玩家属于其他房间时不受影响
+     * @param playerId 玩家ID
+     * @param roomId 房间ID
+     */
+    public void release(String playerId, String roomId) {
+        String authority = authorityOf(playerId);
+        if (ownership.getNodeId().equals(authority)) {
+            releaseLocal(playerId, roomId);
+        } else {
+            router.sendToNode(authority, null, RELEASE, new Membership(playerId, roomId));
+        }
+    }
+
+    /**
+     * 本节点裁决的玩家当前所在的房间
+     * @param playerId 玩家ID
+     * @return 房间ID，没有时为null
+     */
+    public String claimedRoomOf(String playerId) {
+        return claims.get(playerId);
+    }
+
+    /**
+     * 补记加入本节点房间的人类玩家，释放离开的人类玩家；机器人只属于所在房间，不需要裁决
+     */
+    @Override
+    public void playersChanged(GameRoom room, Set<String> joined, Set<String> left) {
+        for (String playerId : joined) {
+            if (!room.isRobot(playerId)) {
+                adopt(playerId, room.getId());
+            }
+        }
+        for (String playerId : left) {
+            if (!room.isRobot(playerId)) {
+                release(playerId, room.getId());
+            }
+        }
+    }
+
+    @Override
+    public void roomChanged(GameRoom room) {
+    }
+
+    @Override
+    public void roomRemoved(String roomId) {
+    }
+
+    private void adopt(String playerId, String roomId) {
+        String authority = authorityOf(playerId);
+        if (ownership.getNodeId().equals(authority)) {
+            adoptLocal(playerId, roomId);
+        } else {
+            router.sendToNode(authority, null, ADOPT, new Membership(playerId, roomId));
+        }
+    }
+
+    private boolean claimLocal(String playerId, String roomId) {
+        String current = claims.putIfAbsent(playerId, roomId);
+        return current == null || current.equals(roomId);
+    }
+
+    private void adoptLocal(String playerId, String roomId) {
+        String current = claims.putIfAbsent(playerId, roomId);
+        if (current != null && !current.equals(roomId)) {
+            logger.warn("玩家 {} 已登记在房间 {} 中，又出现在房间 {} 中", playerId, current, roomId);
+        }
+    }
+
+    private void releaseLocal(String playerId, String roomId) {
+        claims.remove(playerId, roomId);
+    }
+
+    /**
+     * 节点之间传递的成员关系
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Membership {
+        private String playerId;
+        private String roomId;
+    }
+}
@@ -129,11 +129,7 @@ public class PlayerService {
             logger.info("开始踢出玩家 {}", playerId);
             
             // 1. 获取玩家当前所在的房间（如果有）
-            String currentRoomId = null;
-            Player player = playerCache.get(playerId);
-            if (player != null) {
-                currentRoomId = player.getRoomId();
-            }
+            String currentRoomId = roomManagementService.getPlayerRoomId(playerId);
             
             // 2. 如果玩家在房间中，先处理房间相关的清理
             if (currentRoomId != null) {
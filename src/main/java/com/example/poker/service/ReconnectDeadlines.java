@@ -0,0 +1,176 @@
+package com.example.poker.service;
+
+import com.example.poker.model.GameRoom;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 恢复出的玩家的重连期限
+ * <p>
+ * 从游戏日志或数据库恢复的房间里，人类玩家还没有WebSocket会话，成员关系却一直占着，
+ * 没有人回来的房间也就永远不会解散。恢复后给每个人类玩家登记一个期限，
+ * 期限内订阅了房间更新（/topic/game/updates/{房间ID}）的玩家视为已重连；
+ * 到期仍未重连的玩家按离开房间处理，空房间和只剩机器人的房间随之解散。
+ * </p>
+ */
+@Service
+public class ReconnectDeadlines {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconnectDeadlines.class);
+
+    /** 玩家重新订阅房间的目标地址，房间属于其他节点时转发给所属节点 */
+    static final String RECONNECTED = "/rooms/reconnected";
+
+    @Autowired
+    private RoomRegistry rooms;
+
+    @Autowired
+    private RoomRouter roomRouter;
+
+    @Autowired
+    @Lazy
+    private RoomManagementService roomManagementService;
+
+    /** 恢复的玩家重连的期限（毫秒） */
+    @Value("${game.recovery.reconnect-grace-millis:120000}")
+    private long graceMillis = 120000;
+
+    /** 玩家ID -> 等待重连的房间和到期任务 */
+    private final Map<String, Deadline> deadlines = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService timer;
+
+    @PostConstruct
+    public void init() {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reconnect-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        roomRouter.register(RECONNECTED, Reconnect.class, r -> reconnected(r.getRoomId(), r.getPlayerId()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * 给恢复出的房间中的每个人类玩家登记重连期限
+     * @param room 恢复出的房间
+     */
+    public void expect(GameRoom room) {
+        if (room == null) {
+            return;
+        }
+        for (String playerId : new ArrayList<>(room.getPlayers())) {
+            if (room.isRobot(playerId)) {
+                continue;
+            }
+            Deadline deadline = new Deadline(room.getId());
+            Deadline previous = deadlines.put(playerId, deadline);
+            if (previous != null) {
+                previous.cancel();
+            }
+            try {
+                deadline.task = timer.schedule(() -> expire(playerId, deadline),
+                        Math.max(0, graceMillis), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                deadlines.remove(playerId, deadline);
+            }
+        }
+    }
+
+    /**
+     * 玩家重新订阅了房间，取消期限；房间属于其他节点时转发给所属节点
+     * @param roomId 房间ID
+     * @param playerId 玩家ID
+     */
+    public void reconnected(String roomId, String playerId) {
+        if (roomId == null || playerId == null) {
+            return;
+        }
+        Deadline deadline = deadlines.get(playerId);
+        if (deadline != null && deadline.roomId.equals(roomId)) {
+            if (deadlines.remove(playerId, deadline)) {
+                deadline.cancel();
+                log.info("恢复的玩家 {} 已重新进入房间 {}", playerId, roomId);
+            }
+            return;
+        }
+        if (!rooms.contains(roomId)) {
+            roomRouter.forwardIfRemote(roomId, null, RECONNECTED, new Reconnect(roomId, playerId));
+        }
+    }
+
+    /**
+     * 获取还在等待重连的玩家数
+     * @return 玩家数
+     */
+    public int getPendingCount() {
+        return deadlines.size();
+    }
+
+    private void expire(String playerId, Deadline deadline) {
+        if (!deadlines.remove(playerId, deadline)) {
+            return;
+        }
+        if (!deadline.roomId.equals(rooms.findRoomIdOf(playerId))) {
+            // 期限内已经离开
+            return;
+        }
+        log.info("恢复的玩家 {} 在 {} ms 内没有重连，移出房间 {}", playerId, graceMillis, deadline.roomId);
+        try {
+            roomManagementService.leaveRoom(deadline.roomId, playerId);
+        } catch (RuntimeException e) {
+            log.error("移出未重连的玩家 {} 失败: {}", playerId, e.getMessage());
+        }
+    }
+
+    private static final class Deadline {
+        final String roomId;
+        volatile ScheduledFuture<?> task;
+
+        Deadline(String roomId) {
+            this.roomId = roomId;
+        }
+
+        void cancel() {
+            ScheduledFuture<?> scheduled = task;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 转发给所属节点的重连通知
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Reconnect {
+        private String roomId;
+        private String playerId;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.poker.service;
+
+import com.example.poker.model.GameRoom;
+import com.example.poker.model.GameStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 机器人回合调度器
+ * <p>
+ * 轮到机器人时只登记一个定时器，不占用任何线程等待。
+ * 定时器到期后把机器人的决策投递到房间信箱执行，决策产生的新状态会再次触发调度，
+ * 从而串起连续的机器人回合。房间状态发生变化时，之前登记的决策会被取消。
+ * 所有调度和取消都在房间信箱线程上进行。
+ * </p>
+ */
+@Service
+public class RobotScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RobotScheduler.class);
+
+    /** 房间ID -> 等待执行的机器人回合 */
+    private final Map<String, PendingTurn> pendingTurns = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Autowired
+    private RoomExecutor roomExecutor;
+
+    @Autowired
+    @Lazy
+    private GameService gameService;
+
+    /** 思考时间的百分比，用于测试或压测时缩短机器人延迟 */
+    @Value("${game.robot.delay-percent:100}")
+    private int delayPercent = 100;
+
+    /**
+     * 房间状态变化后重新调度：取消已登记的回合，如果当前轮到机器人则登记新的回合
+     * @param room 游戏房间
+     */
+    public void reschedule(GameRoom room) {
+        if (room == null) {
+            return;
+        }
+        String roomId = room.getId();
+        cancel(roomId);
+        if (room.getStatus() != GameStatus.PLAYING) {
+            return;
+        }
+        String robotId = room.getCurrentPlayerId();
+        if (robotId == null || !room.isRobot(robotId)) {
+            return;
+        }
+
+        PendingTurn turn = new PendingTurn(robotId);
+        pendingTurns.put(roomId, turn);
+        try {
+            turn.future = scheduledExecutorService.schedule(
+                    () -> roomExecutor.submit(roomId, () -> fire(roomId, turn)),
+                    thinkMillis(room.getRobotDifficulty()), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingTurns.remove(roomId, turn);
+            logger.warn("机器人回合调度被拒绝，房间: {}", roomId);
+        }
+    }
+
+    /**
+     * 取消房间中等待执行的机器人回合
+     * @param roomId 房间ID
+     */
+    public void cancel(String roomId) {
+        if (roomId == null) {
+            return;
+        }
+        PendingTurn turn = pendingTurns.remove(roomId);
+        if (turn != null && turn.future != null) {
+            turn.future.cancel(false);
+        }
+    }
+
+    /**
+     * 获取等待执行的机器人回合数
+     * @return 数量
+     */
+    public int getPendingCount() {
+        return pendingTurns.size();
+    }
+
+    /**
+     * 定时器到期，在房间信箱线程上执行机器人决策
+     * 回合已被取消或替换时直接丢弃
+     */
+    private void fire(String roomId, PendingTurn turn) {
+        if (!pendingTurns.remove(roomId, turn)) {
+            return;
+        }
+        gameService.playRobotTurn(roomId, turn.robotId);
+    }
+
+    /**
+     * 根据难度计算机器人的思考时间
+     * @param difficulty 难度
+     * @return 毫秒数
+     */
+    private long thinkMillis(String difficulty) {
+        long millis = switch (difficulty == null ? "" : difficulty) {
+            case "EASY" -> 2000;    // 简单模式延迟2秒
+            case "HARD", "EXPERT" -> 1000;    // 困难和专家模式延迟1秒，专家模式另有搜索时间
+            default -> 1500;        // 中等模式延迟1.5秒
+        };
+        return millis * Math.max(0, delayPercent) / 100;
+    }
+
+    /**
+     * 等待执行的机器人回合
+     */
+    private static final class PendingTurn {
+        private final String robotId;
+        private volatile ScheduledFuture<?> future;
+
+        PendingTurn(String robotId) {
+            this.robotId = robotId;
+        }
+    }
+}
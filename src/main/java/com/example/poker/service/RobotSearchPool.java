@@ -0,0 +1,276 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.RobotSearchStats;
+import com.example.poker.model.MonteCarloSearch;
+import com.example.poker.model.RobotAction;
+import com.example.poker.model.RobotView;
+import com.example.poker.util.RandomProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+/**
+ * 机器人搜索线程池
+ * <p>
+ * 所有房间的专家机器人共享一个固定线程数的线程池，线程数默认为CPU核数的一半，
+ * 房间信箱线程只提交搜索、不等待结果，因此搜索再多也不会占用处理玩家命令的线程。
+ * 每个决策拆成若干个并行的迭代者，每个迭代者每次只执行一小段迭代，然后重新排到共享队列的队尾，
+ * 同时进行的决策按时间片轮流使用线程。ForkJoinPool 的工作线程重新提交任务时会放进自己的本地队列，
+ * 先开始的决策会一直占着线程，所以这里用单一的FIFO队列。
+ * 每个决策的时间预算从它的第一个时间片开始计算，排队的时间不占用预算，到期后合并结果。
+ * 等待中的决策超过上限时新的搜索直接返回null，由调用方退回默认策略。
+ * 迭代者的种子取自房间的随机数生成器。按时间预算搜索时迭代次数取决于机器负载，
+ * 因此SEEDED模式下改为每个决策固定迭代次数、不限时间，同一种子下的决策可以复现。
+ * </p>
+ */
+@Service
+public class RobotSearchPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(RobotSearchPool.class);
+
+    private final ThreadPoolExecutor pool;
+    private final int parallelism;
+    private final long budgetNanos;
+    private final int tasksPerDecision;
+    private final int sliceIterations;
+    private final int maxPending;
+    private final int seededIterations;
+
+    @Autowired(required = false)
+    private RandomProvider randomProvider;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder iterations = new LongAdder();
+    private final LongAccumulator minIterations = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maxIterations = new LongAccumulator(Math::max, 0);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 构造函数
+     * @param parallelism 搜索线程数，小于等于0时使用CPU核数的一半
+     * @param budgetMillis 每个决策的时间预算（毫秒）
+     * @param tasksPerDecision 每个决策的并行迭代者数
+     * @param sliceIterations 迭代者每个时间片执行的迭代次数
+     * @param maxPending 同时进行的决策上限
+     * @param seededIterations SEEDED模式下每个决策的迭代次数
+     */
+    public RobotSearchPool(@Value("${game.robot.search.parallelism:0}") int parallelism,
+                           @Value("${game.robot.search.budget-millis:50}") long budgetMillis,
+                           @Value("${game.robot.search.tasks-per-decision:2}") int tasksPerDecision,
+                           @Value("${game.robot.search.slice-iterations:64}") int sliceIterations,
+                           @Value("${game.robot.search.max-pending:4096}") int maxPending,
+                           @Value("${game.robot.search.seeded-iterations:512}") int seededIterations) {
+        this.parallelism = parallelism > 0 ? parallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, budgetMillis));
+        this.tasksPerDecision = Math.max(1, tasksPerDecision);
+        this.sliceIterations = Math.max(1, sliceIterations);
+        this.maxPending = Math.max(1, maxPending);
+        this.seededIterations = Math.max(1, seededIterations);
+        AtomicInteger counter = new AtomicInteger();
+        // 队列不设上限，排队的决策数由 maxPending 控制
+        this.pool = new ThreadPoolExecutor(this.parallelism, this.parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "robot-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 在时间预算内搜索机器人的最佳动作，必须在房间信箱线程上调用
+     * @param roomId 房间ID，迭代者的种子取自该房间的随机数生成器
+     * @param view 机器人视角
+     * @return 最佳动作；没有候选动作或等待中的决策过多时为null
+     */
+    public CompletableFuture<RobotAction> search(String roomId, RobotView view) {
+        CompletableFuture<RobotAction> result = new CompletableFuture<>();
+        MonteCarloSearch search = new MonteCarloSearch(view);
+        if (search.getActions().size() <= 1) {
+            // 只有一个动作时不需要搜索
+            result.complete(search.getActions().isEmpty() ? null : search.getActions().get(0));
+            return result;
+        }
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.increment();
+            result.complete(null);
+            return result;
+        }
+        RandomProvider provider = provider();
+        // SEEDED模式下按固定次数分给各迭代者
+        int fixedIterations = provider.isDeterministic()
+                ? (seededIterations + tasksPerDecision - 1) / tasksPerDecision : 0;
+        new Decision(search, result, provider.forRoom(roomId), fixedIterations).start();
+        return result;
+    }
+
+    /**
+     * 获取搜索统计
+     * @return 统计信息
+     */
+    public RobotSearchStats getStats() {
+        long count = completed.sum();
+        return RobotSearchStats.builder()
+                .parallelism(parallelism)
+                .budgetMillis(TimeUnit.NANOSECONDS.toMillis(budgetNanos))
+                .pendingDecisions(pending.get())
+                .completedDecisions(count)
+                .rejectedDecisions(rejected.sum())
+                .avgIterations(count == 0 ? 0 : iterations.sum() / count)
+                .minIterations(count == 0 ? 0 : minIterations.get())
+                .maxIterations(maxIterations.get())
+                .avgLatencyMicros(count == 0 ? 0 : totalNanos.sum() / count / 1000)
+                .maxLatencyMicros(maxNanos.get() / 1000)
+                .activeThreads(pool.getActiveCount())
+                .queuedTasks(pool.getQueue().size())
+                .build();
+    }
+
+    private RandomProvider provider() {
+        return randomProvider != null ? randomProvider : RandomProvider.getDefault();
+    }
+
+    /**
+     * 应用关闭时停止搜索线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 一次进行中的决策
+     */
+    private final class Decision {
+        private final MonteCarloSearch search;
+        private final CompletableFuture<RobotAction> result;
+        private final List<MonteCarloSearch.Worker> workers = new ArrayList<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private final long startNanos = System.nanoTime();
+        /** 每个迭代者的固定迭代次数，0表示按时间预算 */
+        private final int fixedIterations;
+        /** 时间预算的截止时间，第一个时间片开始运行时才设置，0表示还没有开始 */
+        private final AtomicLong deadline = new AtomicLong();
+
+        Decision(MonteCarloSearch search, CompletableFuture<RobotAction> result, RandomGenerator random,
+                 int fixedIterations) {
+            this.search = search;
+            this.result = result;
+            this.fixedIterations = fixedIterations;
+            for (int i = 0; i < tasksPerDecision; i++) {
+                workers.add(search.newWorker(random.nextLong()));
+            }
+        }
+
+        void start() {
+            running.set(workers.size());
+            for (MonteCarloSearch.Worker worker : workers) {
+                Slice slice = new Slice(worker);
+                try {
+                    pool.execute(slice);
+                } catch (RejectedExecutionException e) {
+                    finishOne();
+                }
+            }
+        }
+
+        /**
+         * 一个迭代者结束，全部结束时合并结果
+         */
+        void finishOne() {
+            if (running.decrementAndGet() != 0) {
+                return;
+            }
+            RobotAction best = null;
+            try {
+                best = search.best(workers);
+                long total = 0;
+                for (MonteCarloSearch.Worker worker : workers) {
+                    total += worker.getIterations();
+                }
+                long elapsed = System.nanoTime() - startNanos;
+                iterations.add(total);
+                minIterations.accumulate(total);
+                maxIterations.accumulate(total);
+                totalNanos.add(elapsed);
+                maxNanos.accumulate(elapsed);
+                completed.increment();
+            } catch (RuntimeException e) {
+                logger.warn("合并机器人搜索结果失败: {}", e.getMessage());
+            } finally {
+                pending.decrementAndGet();
+                result.complete(best);
+            }
+        }
+
+        /**
+         * 第一个时间片运行时开始计算时间预算
+         * @return 截止时间
+         */
+        long deadline() {
+            long value = deadline.get();
+            if (value == 0) {
+                deadline.compareAndSet(0, System.nanoTime() + budgetNanos);
+                value = deadline.get();
+            }
+            return value;
+        }
+
+        /**
+         * 迭代者的一个时间片，预算未到（或固定次数未完成）时重新排到共享队列的队尾
+         */
+        private final class Slice implements Runnable {
+            private final MonteCarloSearch.Worker worker;
+
+            Slice(MonteCarloSearch.Worker worker) {
+                this.worker = worker;
+            }
+
+            @Override
+            public void run() {
+                long end = fixedIterations > 0 ? 0 : deadline();
+                try {
+                    worker.run(fixedIterations > 0
+                            ? Math.min(sliceIterations, fixedIterations - worker.getIterations())
+                            : sliceIterations);
+                } catch (RuntimeException e) {
+                    logger.warn("机器人搜索迭代失败: {}", e.getMessage());
+                    finishOne();
+                    return;
+                }
+                boolean more = fixedIterations > 0
+                        ? worker.getIterations() < fixedIterations
+                        : System.nanoTime() - end < 0;
+                if (more && !pool.isShutdown()) {
+                    try {
+                        pool.execute(this);
+                        return;
+                    } catch (RejectedExecutionException e) {
+                        // 线程池已关闭，按当前结果结束
+                    }
+                }
+                finishOne();
+            }
+        }
+    }
+}
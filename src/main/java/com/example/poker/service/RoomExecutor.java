@@ -0,0 +1,346 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.RoomQueueStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 房间命令执行器
+ * <p>
+ * 每个房间有一个信箱，同一房间的命令按提交顺序在共享线程池上串行执行，
+ * 不同房间的命令可以并行执行。房间状态只在其信箱线程上修改，无需加锁。
+ * 每个信箱一次最多连续处理 {@link #MAX_BATCH} 条命令，然后让出线程，避免繁忙房间饿死其他房间。
+ * 命令执行期间可以通过 {@link #afterCommand} 登记收尾动作（例如合并后的广播），在命令结果返回前执行。
+ * 信箱处理完命令后，如果房间已经释放或不在注册表中，信箱随即移除，
+ * 房间移除后迟到的命令（例如机器人搜索的回调）不会留下信箱。
+ * </p>
+ */
+@Service
+public class RoomExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomExecutor.class);
+
+    /** 信箱每次被调度时最多连续处理的命令数 */
+    private static final int MAX_BATCH = 32;
+
+    /** 当前线程正在处理的房间ID，用于支持同一房间内的重入调用 */
+    private static final ThreadLocal<String> CURRENT_ROOM = new ThreadLocal<>();
+
+    /** 当前命令结束时要执行的收尾动作 */
+    private static final ThreadLocal<List<Runnable>> AFTER_COMMAND = new ThreadLocal<>();
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+
+    @Autowired(required = false)
+    private RoomRegistry roomRegistry;
+
+    /**
+     * 构造函数
+     * @param threads 工作线程数，小于等于0时使用CPU核数
+     */
+    public RoomExecutor(@Value("${game.room-executor.threads:0}") int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(size, r -> {
+            Thread thread = new Thread(r, "room-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 异步提交房间命令
+     * @param roomId 房间ID
+     * @param task 命令
+     * @return 命令结果
+     */
+    public <T> CompletableFuture<T> submit(String roomId, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (roomId == null) {
+            completeWith(future, task);
+            return future;
+        }
+        Runnable command = () -> {
+            try {
+                T result = task.get();
+                runAfterCommand();
+                future.complete(result);
+            } catch (Throwable t) {
+                runAfterCommand();
+                future.completeExceptionally(t);
+            }
+        };
+        try {
+            // 在compute中入队，与信箱的移除互斥，命令不会进入已经移除的信箱
+            mailboxes.compute(roomId, (id, mailbox) -> {
+                Mailbox target = mailbox != null ? mailbox : new Mailbox(id);
+                target.add(command);
+                return target;
+            }).schedule();
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 异步提交房间命令（无返回值）
+     * @param roomId 房间ID
+     * @param task 命令
+     * @return 命令完成的Future
+     */
+    public CompletableFuture<Void> submit(String roomId, Runnable task) {
+        return submit(roomId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在房间信箱上执行命令并等待结果
+     * 如果当前已经在该房间的信箱线程上，直接执行
+     * @param roomId 房间ID
+     * @param task 命令
+     * @return 命令结果
+     */
+    public <T> T execute(String roomId, Supplier<T> task) {
+        if (roomId == null || roomId.equals(CURRENT_ROOM.get())) {
+            return task.get();
+        }
+        try {
+            return submit(roomId, task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待房间命令执行时被中断", e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * 在房间信箱上执行命令并等待完成（无返回值）
+     * @param roomId 房间ID
+     * @param task 命令
+     */
+    public void execute(String roomId, Runnable task) {
+        execute(roomId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 当前线程是否正在处理指定房间的命令
+     * @param roomId 房间ID
+     * @return 是否在该房间的信箱线程上
+     */
+    public boolean inRoom(String roomId) {
+        return roomId != null && roomId.equals(CURRENT_ROOM.get());
+    }
+
+    /**
+     * 登记当前命令结束时执行的收尾动作，在命令结果返回给调用方之前执行
+     * 不在房间信箱线程上时立即执行
+     * @param roomId 房间ID
+     * @param action 收尾动作
+     */
+    public void afterCommand(String roomId, Runnable action) {
+        List<Runnable> actions = AFTER_COMMAND.get();
+        if (!inRoom(roomId) || actions == null) {
+            action.run();
+            return;
+        }
+        actions.add(action);
+    }
+
+    /**
+     * 释放房间信箱，信箱中剩余的命令处理完后移除
+     * @param roomId 房间ID
+     */
+    public void release(String roomId) {
+        Mailbox mailbox = mailboxes.get(roomId);
+        if (mailbox != null) {
+            mailbox.retired = true;
+            mailbox.removeIfDone();
+        }
+    }
+
+    /**
+     * 获取所有房间信箱中等待执行的命令总数
+     * @return 队列深度
+     */
+    public int getTotalQueueDepth() {
+        int total = 0;
+        for (Mailbox mailbox : mailboxes.values()) {
+            total += mailbox.depth.get();
+        }
+        return total;
+    }
+
+    /**
+     * 获取各房间信箱的统计信息
+     * @return 统计信息列表
+     */
+    public List<RoomQueueStats> getStats() {
+        List<RoomQueueStats> stats = new ArrayList<>(mailboxes.size());
+        for (Mailbox mailbox : mailboxes.values()) {
+            long processed = mailbox.processed.sum();
+            stats.add(RoomQueueStats.builder()
+                    .roomId(mailbox.roomId)
+                    .queueDepth(mailbox.depth.get())
+                    .processedCount(processed)
+                    .avgProcessingMicros(processed == 0 ? 0 : mailbox.totalNanos.sum() / processed / 1000)
+                    .maxProcessingMicros(mailbox.maxNanos.get() / 1000)
+                    .build());
+        }
+        return stats;
+    }
+
+    /**
+     * 应用关闭时停止工作线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runAfterCommand() {
+        List<Runnable> actions = AFTER_COMMAND.get();
+        // 收尾动作中也可能登记新的收尾动作，按登记顺序执行完为止
+        for (int i = 0; actions != null && i < actions.size(); i++) {
+            try {
+                actions.get(i).run();
+            } catch (Throwable t) {
+                logger.error("命令收尾动作执行失败: {}", t.getMessage(), t);
+            }
+        }
+        if (actions != null) {
+            actions.clear();
+        }
+    }
+
+    private static <T> void completeWith(CompletableFuture<T> future, Supplier<T> task) {
+        try {
+            future.complete(task.get());
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * 房间信箱
+     */
+    private final class Mailbox implements Runnable {
+        private final String roomId;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private volatile boolean retired;
+
+        Mailbox(String roomId) {
+            this.roomId = roomId;
+        }
+
+        void add(Runnable command) {
+            queue.add(command);
+            depth.incrementAndGet();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            CURRENT_ROOM.set(roomId);
+            AFTER_COMMAND.set(new ArrayList<>());
+            try {
+                Runnable command;
+                for (int i = 0; i < MAX_BATCH && (command = queue.poll()) != null; i++) {
+                    depth.decrementAndGet();
+                    long start = System.nanoTime();
+                    try {
+                        command.run();
+                    } catch (Throwable t) {
+                        logger.error("房间 {} 的命令执行失败: {}", roomId, t.getMessage(), t);
+                    } finally {
+                        long elapsed = System.nanoTime() - start;
+                        processed.increment();
+                        totalNanos.add(elapsed);
+                        maxNanos.accumulate(elapsed);
+                    }
+                }
+            } finally {
+                CURRENT_ROOM.remove();
+                AFTER_COMMAND.remove();
+                scheduled.set(false);
+                if (!queue.isEmpty()) {
+                    try {
+                        schedule();
+                    } catch (RejectedExecutionException e) {
+                        logger.warn("房间 {} 的命令被拒绝，执行器可能已关闭", roomId);
+                    }
+                } else {
+                    removeIfDone();
+                }
+            }
+        }
+
+        private void removeIfDone() {
+            if (!retired && (roomRegistry == null || roomRegistry.contains(roomId))) {
+                return;
+            }
+            mailboxes.computeIfPresent(roomId,
+                    (id, mailbox) -> mailbox == this && queue.isEmpty() && !scheduled.get() ? null : mailbox);
+        }
+    }
+}
@@ -1,52 +1,64 @@
 package com.example.poker.service;
 
+import com.example.poker.controller.WebSocketController;
+import com.example.poker.dto.RoomPage;
+import com.example.poker.dto.RoomQuery;
+import com.example.poker.model.GameNotification;
 import com.example.poker.model.GameRoom;
 import com.example.poker.model.GameState;
 import com.example.poker.model.GameStatus;
-import com.example.poker.model.Card;
+import com.example.poker.model.JournalEntry;
+import com.example.poker.model.JournalEntryType;
+import com.example.poker.model.CardHand;
 import com.example.poker.exception.GameException;
-import com.example.poker.controller.WebSocketController;
+import com.example.poker.util.RandomProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.context.annotation.Lazy;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
  * 房间管理服务
- * 负责处理房间的创建、加入、离开等基本操作，并确保WebSocketController和GameService中的房间数据一致
+ * 负责处理房间的创建、加入、离开等基本操作，房间保存在 {@link RoomRegistry} 中
+ * 加入和离开通过 {@link RoomExecutor} 在房间信箱上串行执行
  */
 @Service
 public class RoomManagementService {
     private static final Logger logger = LoggerFactory.getLogger(RoomManagementService.class);
     
     // 中央房间存储，作为唯一的房间数据源
-    private final Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
+    @Autowired
+    private RoomRegistry rooms;
 
     @Autowired
     @Lazy
     private GameService gameService;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
-    
+    private RandomProvider randomProvider;
+
     @Autowired
-    @Lazy
-    private WebSocketController webSocketController;
+    private RoomExecutor roomExecutor;
 
-    /**
-     * 初始化方法，确保服务启动时数据同步
-     */
-    public void init() {
-        // 同步GameService中的房间数据
-        gameService.syncRooms(rooms);
-        // 同步WebSocketController中的房间数据
-        webSocketController.syncRooms(getRoomInfoList());
-    }
+    @Autowired
+    private RobotScheduler robotScheduler;
+
+    @Autowired
+    private GameEventPublisher eventPublisher;
+
+    @Autowired
+    private RoomOwnership roomOwnership;
+
+    @Autowired
+    private RoomRouter roomRouter;
+
+    @Autowired
+    private GameJournal journal;
+
+    @Autowired
+    private PlayerMembership membership;
 
     /**
      * 创建游戏房间
@@ -58,7 +70,7 @@ public class RoomManagementService {
         logger.info("创建新房间 - 房主: {}, 最大玩家数: {}", hostId, maxPlayers);
         
         GameRoom room = new GameRoom();
-        room.setId(UUID.randomUUID().toString());
+        room.setId(roomOwnership.newLocalRoomId(() -> UUID.randomUUID().toString()));
         room.setHostId(hostId);
         room.setMaxPlayers(maxPlayers);
         room.setStatus(GameStatus.WAITING);
@@ -68,11 +80,16 @@ public class RoomManagementService {
         room.setCurrentPlayerIndex(0);
         room.setRobotCount(0); // 初始化机器人数量为0
         
+        // 房主已在其他房间中（包括其他节点上的房间）时拒绝创建
+        membership.claim(hostId, room.getId());
+        try {
+            rooms.claimPlayer(hostId, room.getId());
+        } catch (RuntimeException e) {
+            membership.release(hostId, room.getId());
+            throw e;
+        }
         // 存储房间
-        rooms.put(room.getId(), room);
-
-        // 同步游戏服务中的房间
-        syncRoomData();
+        rooms.add(room);
         
         logger.info("房间创建成功 - 房间ID: {}", room.getId());
         return room;
@@ -90,7 +107,7 @@ public class RoomManagementService {
         logger.info("使用指定ID创建房间: " + roomId);
         
         // 检查房间是否已存在
-        if (rooms.containsKey(roomId)) {
+        if (rooms.contains(roomId)) {
             logger.info("房间已存在，返回现有房间: " + roomId);
             return rooms.get(roomId);
         }
@@ -106,30 +123,51 @@ public class RoomManagementService {
         room.setCurrentPlayerIndex(0);
         room.setRoomName(roomName);
         
+        // 房主已在其他房间中（包括其他节点上的房间）时拒绝创建
+        membership.claim(hostId, roomId);
+        try {
+            rooms.claimPlayer(hostId, roomId);
+        } catch (RuntimeException e) {
+            membership.release(hostId, roomId);
+            throw e;
+        }
         // 存储房间
-        rooms.put(roomId, room);
-
-        // 同步房间数据
-        syncRoomData();
+        room = rooms.add(room);
+        if (!room.getPlayers().contains(hostId)) {
+            // 同ID的房间已被并发创建，房主不在其中
+            rooms.releasePlayer(hostId, roomId);
+            membership.release(hostId, roomId);
+        }
         
         logger.info("成功创建指定ID的房间: " + roomId);
-        logger.info("当前所有房间: " + rooms.keySet());
         
         return room;
     }
 
     /**
      * 加入房间
+     * 先在玩家的权威节点上占用成员关系，等待答复时不占用房间信箱；加入失败时释放
      * @param roomId 房间ID
      * @param playerId 玩家ID
      * @return 加入的房间
      */
     public GameRoom joinRoom(String roomId, String playerId) {
+        membership.claim(playerId, roomId);
+        try {
+            return roomExecutor.execute(roomId, () -> doJoinRoom(roomId, playerId));
+        } catch (RuntimeException e) {
+            if (!roomId.equals(rooms.findRoomIdOf(playerId))) {
+                membership.release(playerId, roomId);
+            }
+            throw e;
+        }
+    }
+
+    private GameRoom doJoinRoom(String roomId, String playerId) {
         logger.info("尝试加入房间, roomId: " + roomId + ", playerId: " + playerId);
         GameRoom room = rooms.get(roomId);
         if (room == null) {
             logger.error("房间不存在: " + roomId);
-            logger.info("当前存在的房间: " + rooms.keySet());
             throw new GameException("房间不存在：" + roomId, "ROOM_NOT_FOUND");
         }
         
@@ -142,16 +180,16 @@ public class RoomManagementService {
             throw new GameException("房间已满", "ROOM_FULL");
         }
         
-        // 添加玩家到房间
+        // 添加玩家到房间，先占用成员关系，玩家已在其他房间中时拒绝加入
         if (!room.getPlayers().contains(playerId)) {
+            rooms.claimPlayer(playerId, roomId);
             logger.info("添加玩家到房间: " + playerId);
             room.addPlayer(playerId);
-            
-            // 同步房间数据
-            syncRoomData();
+            rooms.update(room);
             
             // 发送状态更新
             gameService.sendGameStateUpdate(roomId);
+            journal.append(new JournalEntry(JournalEntryType.JOIN, roomId, room.getVersion(), playerId));
         } else {
             logger.info("玩家已在房间中: " + playerId);
         }
@@ -164,6 +202,26 @@ public class RoomManagementService {
      * @param playerId 玩家ID
      */
     public void leaveRoom(String roomId, String playerId) {
+        roomExecutor.execute(roomId, () -> {
+            doLeaveRoom(roomId, playerId);
+            // 离开可能改变当前玩家，重新调度机器人回合
+            robotScheduler.reschedule(rooms.get(roomId));
+        });
+    }
+
+    /**
+     * 重放日志中的加入和离开，必须在房间信箱线程上调用
+     * @param entry 日志条目
+     */
+    void replay(JournalEntry entry) {
+        if (entry.getType() == JournalEntryType.JOIN) {
+            doJoinRoom(entry.getRoomId(), entry.getPlayerId());
+        } else if (entry.getType() == JournalEntryType.LEAVE) {
+            doLeaveRoom(entry.getRoomId(), entry.getPlayerId());
+        }
+    }
+
+    private void doLeaveRoom(String roomId, String playerId) {
         if (roomId == null || playerId == null) {
             throw new IllegalArgumentException("房间ID和玩家ID不能为空");
         }
@@ -182,23 +240,28 @@ public class RoomManagementService {
             logger.info("玩家 {} 不在房间 {} 中", playerId, roomId);
             return;
         }
+        journal.append(new JournalEntry(JournalEntryType.LEAVE, roomId, room.getVersion(), playerId));
         
         // 处理玩家手牌（如果游戏已经开始）
         if (room.getStatus() == GameStatus.PLAYING && room.getPlayerHands() != null) {
             // 将玩家手牌放入底盘
-            List<Card> playerCards = room.getPlayerHands().remove(playerId);
+            CardHand playerCards = room.getPlayerHands().remove(playerId);
             if (playerCards != null && !playerCards.isEmpty()) {
                 logger.info("将玩家 {} 的 {} 张手牌放入底盘", playerId, playerCards.size());
                 if (room.getCurrentPile() == null) {
-                    room.setCurrentPile(new ArrayList<>());
+                    room.setCurrentPile(new CardHand());
                 }
                 room.getCurrentPile().addAll(playerCards);
             }
+            if (playerCards != null && room.getCardKnowledge() != null) {
+                room.getCardKnowledge().onLeave(playerId, playerCards.size());
+            }
             
             // 如果是当前玩家退出，轮到下一个玩家
             if (playerId.equals(room.getCurrentPlayer()) && !room.getPlayers().isEmpty()) {
                 // 先移除当前玩家，再计算下一个玩家
                 room.removePlayer(playerId);
+                rooms.releasePlayer(playerId, roomId);
                 
                 if (!room.getPlayers().isEmpty()) {
                     int nextIndex = 0; // 默认从第一个玩家开始
@@ -207,6 +270,7 @@ public class RoomManagementService {
                     logger.info("当前玩家退出，轮到下一个玩家: {}", room.getCurrentPlayer());
                 }
                 
+                rooms.update(room);
                 // 发送游戏状态更新
                 gameService.sendGameStateUpdate(roomId);
                 return; // 已经处理完成，不需要执行后续的removePlayer
@@ -215,6 +279,7 @@ public class RoomManagementService {
         
         // 从房间移除玩家
         room.removePlayer(playerId);
+        rooms.releasePlayer(playerId, roomId);
         logger.info("玩家 {} 离开房间 {}", playerId, roomId);
         
         // 如果玩家是房主，更换房主
@@ -226,8 +291,7 @@ public class RoomManagementService {
             
             // 发送房主变更通知
             try {
-                messagingTemplate.convertAndSend("/topic/room/" + roomId + "/notify", 
-                    Map.of("type", "HOST_CHANGED", "newHostId", newHostId));
+                eventPublisher.notify(roomId, new GameNotification("HOST_CHANGED", newHostId, "房主变更为 " + newHostId));
             } catch (Exception e) {
                 logger.error("发送房主变更通知失败: {}", e.getMessage());
             }
@@ -239,8 +303,8 @@ public class RoomManagementService {
             
             // 发送房间解散通知
             try {
-                messagingTemplate.convertAndSend("/topic/game/notification/" + roomId, 
-                    Map.of("type", "ROOM_DISSOLVED", "content", "房间已解散", "roomId", roomId));
+                GameNotification notification = new GameNotification("ROOM_DISSOLVED", null, "房间已解散");
+                eventPublisher.notify(roomId, notification);
             } catch (Exception e) {
                 logger.error("发送房间解散通知失败: {}", e.getMessage());
             }
@@ -250,14 +314,12 @@ public class RoomManagementService {
         } else {
             // 发送玩家离开通知
             try {
-                messagingTemplate.convertAndSend("/topic/room/" + roomId + "/notify", 
-                    Map.of("type", "PLAYER_LEFT", "playerId", playerId));
+                eventPublisher.notify(roomId, new GameNotification("PLAYER_LEFT", playerId, "玩家 " + playerId + " 离开了房间"));
             } catch (Exception e) {
                 logger.error("发送玩家离开通知失败: {}", e.getMessage());
             }
             
-            // 同步房间数据
-            syncRoomData();
+            rooms.update(room);
             
             // 发送状态更新
             gameService.sendGameStateUpdate(roomId);
@@ -275,9 +337,10 @@ public class RoomManagementService {
         GameRoom room = rooms.remove(roomId);
         if (room != null) {
             logger.info("成功移除房间: {}", roomId);
-            
-            // 同步房间数据
-            syncRoomData();
+            randomProvider.releaseRoom(roomId);
+            robotScheduler.cancel(roomId);
+            roomExecutor.release(roomId);
+            eventPublisher.evict(roomId);
             
             return true;
         } else {
@@ -344,7 +407,27 @@ public class RoomManagementService {
      * @return 所有房间列表
      */
     public List<GameRoom> getAllRooms() {
-        return new ArrayList<>(rooms.values());
+        return new ArrayList<>(rooms.all());
+    }
+    
+    /**
+     * 大厅分页查询，只返回本节点上的房间概要，不包含手牌等对局数据
+     * 概要取自注册表的索引快照，不在调用线程上读取房间的可变状态
+     * @param query 查询条件
+     * @return 一页房间
+     */
+    public RoomPage queryRooms(RoomQuery query) {
+        RoomRegistry.Page page = rooms.query(query == null ? new RoomQuery() : query);
+        List<WebSocketController.RoomInfo> roomInfos = new ArrayList<>(page.getRooms().size());
+        for (RoomRegistry.IndexEntry entry : page.getRooms()) {
+            roomInfos.add(WebSocketController.RoomInfo.from(entry));
+        }
+        return RoomPage.builder()
+                .rooms(roomInfos)
+                .nextCursor(page.getNextCursor())
+                .nodeId(roomOwnership.getNodeId())
+                .nodes(new ArrayList<>(roomOwnership.getNodes().keySet()))
+                .build();
     }
     
     /**
@@ -362,150 +445,48 @@ public class RoomManagementService {
     
     /**
      * 从所有房间中移除玩家
+     * 玩家所在的房间属于其他节点时转发给所属节点处理
      * @param playerId 玩家ID
      */
     public void removePlayerFromAllRooms(String playerId) {
-        List<GameRoom> playerRooms = getAllRooms().stream()
-                .filter(room -> room.getPlayers().contains(playerId))
-                .collect(Collectors.toList());
-        
-        for (GameRoom room : playerRooms) {
-            leaveRoom(room.getId(), playerId);
+        String roomId = rooms.findRoomIdOf(playerId);
+        if (roomId == null) {
+            roomId = roomRouter.remoteRoomOf(playerId);
+        }
+        if (roomId == null) {
+            return;
+        }
+        WebSocketController.LeaveRoomRequest request = new WebSocketController.LeaveRoomRequest();
+        request.setRoomId(roomId);
+        request.setPlayerId(playerId);
+        if (!roomRouter.forwardIfRemote(roomId, playerId, RoomRouter.LEAVE_ROOM, request)) {
+            leaveRoom(roomId, playerId);
         }
     }
-    
+
     /**
-     * 清理玩家的游戏状态
+     * 获取玩家所在的房间ID
      * @param playerId 玩家ID
+     * @return 房间ID，不在任何房间中时为null
      */
-    public void cleanupPlayerGameState(String playerId) {
-        // 从所有房间中移除玩家
-        removePlayerFromAllRooms(playerId);
-        
-        // 同步房间数据
-        syncRoomData();
-    }
-    
-    /**
-     * 将GameRoom转换为WebSocketController使用的RoomInfo对象
-     * @return RoomInfo列表
-     */
-    public List<WebSocketController.RoomInfo> getRoomInfoList() {
-        List<WebSocketController.RoomInfo> roomInfoList = new ArrayList<>();
-        
-        for (GameRoom gameRoom : rooms.values()) {
-            WebSocketController.RoomInfo roomInfo = new WebSocketController.RoomInfo();
-            roomInfo.setId(gameRoom.getId());
-            roomInfo.setName(gameRoom.getRoomName());
-            roomInfo.setMaxPlayers(gameRoom.getMaxPlayers());
-            roomInfo.setHostId(gameRoom.getHostId());
-            roomInfo.setPlayerCount(gameRoom.getPlayers().size());
-            roomInfo.setPlayers(new ArrayList<>(gameRoom.getPlayers()));
-            
-            roomInfoList.add(roomInfo);
-        }
-        
-        return roomInfoList;
+    public String getPlayerRoomId(String playerId) {
+        return rooms.findRoomIdOf(playerId);
     }
-    
+
     /**
-     * 同步房间数据到所有相关服务
+     * 获取所有在房间中的玩家及其房间
+     * @return 玩家ID -> 房间ID（只读视图）
      */
-    public void syncRoomData() {
-        // 同步到GameService
-        gameService.syncRooms(rooms);
-        
-        // 同步到WebSocketController
-        webSocketController.syncRooms(getRoomInfoList());
-        
-        // 广播房间列表更新
-        webSocketController.broadcastRoomList();
+    public Map<String, String> getPlayerRooms() {
+        return rooms.playerRooms();
     }
     
     /**
-     * 从WebSocketController更新房间信息
-     * @param roomInfoList WebSocketController中的房间信息列表
+     * 清理玩家的游戏状态
+     * @param playerId 玩家ID
      */
-    public void updateFromWebSocketController(List<WebSocketController.RoomInfo> roomInfoList) {
-        // 仅在必要时更新，避免不必要的同步
-        boolean needsSync = false;
-        
-        // 检查新增或更新的房间
-        for (WebSocketController.RoomInfo roomInfo : roomInfoList) {
-            GameRoom existingRoom = rooms.get(roomInfo.getId());
-            
-            if (existingRoom == null) {
-                // 新房间，需要创建
-                createRoomWithId(roomInfo.getId(), roomInfo.getHostId(), roomInfo.getMaxPlayers(), roomInfo.getName());
-                needsSync = true;
-            } else {
-                // 检查是否需要更新现有房间
-                boolean updated = false;
-                
-                if (!Objects.equals(existingRoom.getHostId(), roomInfo.getHostId())) {
-                    existingRoom.setHostId(roomInfo.getHostId());
-                    updated = true;
-                }
-                
-                if (existingRoom.getMaxPlayers() != roomInfo.getMaxPlayers()) {
-                    existingRoom.setMaxPlayers(roomInfo.getMaxPlayers());
-                    updated = true;
-                }
-                
-                if (!Objects.equals(existingRoom.getRoomName(), roomInfo.getName())) {
-                    existingRoom.setRoomName(roomInfo.getName());
-                    updated = true;
-                }
-                
-                // 检查玩家列表是否有变化
-                if (!existingRoom.getPlayers().equals(roomInfo.getPlayers())) {
-                    // 更新玩家列表，保留现有玩家的其他状态
-                    List<String> currentPlayers = new ArrayList<>(existingRoom.getPlayers());
-                    
-                    // 移除不在新列表中的玩家
-                    for (String player : new ArrayList<>(currentPlayers)) {
-                        if (!roomInfo.getPlayers().contains(player)) {
-                            existingRoom.removePlayer(player);
-                            updated = true;
-                        }
-                    }
-                    
-                    // 添加新玩家
-                    for (String player : roomInfo.getPlayers()) {
-                        if (!currentPlayers.contains(player)) {
-                            existingRoom.addPlayer(player);
-                            updated = true;
-                        }
-                    }
-                }
-                
-                if (updated) {
-                    needsSync = true;
-                }
-            }
-        }
-        
-        // 检查需要删除的房间
-        Set<String> roomInfoIds = roomInfoList.stream()
-                .map(WebSocketController.RoomInfo::getId)
-                .collect(Collectors.toSet());
-        
-        List<String> roomsToRemove = new ArrayList<>();
-        for (String roomId : rooms.keySet()) {
-            if (!roomInfoIds.contains(roomId)) {
-                roomsToRemove.add(roomId);
-                needsSync = true;
-            }
-        }
-        
-        // 移除不存在的房间
-        for (String roomId : roomsToRemove) {
-            rooms.remove(roomId);
-        }
-        
-        // 如果有变化，同步数据
-        if (needsSync) {
-            syncRoomData();
-        }
+    public void cleanupPlayerGameState(String playerId) {
+        // 从所有房间中移除玩家
+        removePlayerFromAllRooms(playerId);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package com.example.poker.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * 房间归属
+ * <p>
+ * 用一致性哈希把房间ID映射到节点，每个节点在环上有若干虚拟节点，
+ * 增减节点时只有相邻区间的房间改变归属。每个房间只由所属节点上的 {@link RoomExecutor} 处理，
+ * 其他节点收到的命令由 {@link RoomRouter} 转发过去。
+ * 未配置 game.cluster.nodes 时只有本节点，所有房间都在本地。
+ * </p>
+ */
+@Service
+public class RoomOwnership {
+
+    /** 创建房间时为落在本节点上最多尝试的房间ID数 */
+    private static final int MAX_ID_ATTEMPTS = 1000;
+
+    /** 本节点ID */
+    @Value("${game.cluster.node-id:local}")
+    private String nodeId = "local";
+
+    /** 集群节点，格式 节点ID=地址,节点ID=地址 */
+    @Value("${game.cluster.nodes:}")
+    private String nodesConfig = "";
+
+    /** 每个节点的虚拟节点数 */
+    @Value("${game.cluster.virtual-nodes:128}")
+    private int virtualNodes = 128;
+
+    /** 节点ID -> 地址，按配置顺序 */
+    private Map<String, String> nodes = Collections.emptyMap();
+
+    /** 哈希环 */
+    private NavigableMap<Long, String> ring = new TreeMap<>();
+
+    public RoomOwnership() {
+    }
+
+    /**
+     * 直接指定节点，供测试和工具使用
+     * @param nodeId 本节点ID
+     * @param nodesConfig 集群节点
+     * @param virtualNodes 每个节点的虚拟节点数
+     */
+    public RoomOwnership(String nodeId, String nodesConfig, int virtualNodes) {
+        this.nodeId = nodeId;
+        this.nodesConfig = nodesConfig;
+        this.virtualNodes = virtualNodes;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        if (nodesConfig != null) {
+            for (String entry : nodesConfig.split(",")) {
+                String trimmed = entry.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int eq = trimmed.indexOf('=');
+                String id = eq < 0 ? trimmed : trimmed.substring(0, eq).trim();
+                String address = eq < 0 ? null : trimmed.substring(eq + 1).trim();
+                parsed.put(id, address);
+            }
+        }
+        // 本节点总是在环上
+        parsed.putIfAbsent(nodeId, null);
+
+        NavigableMap<Long, String> built = new TreeMap<>();
+        for (String id : parsed.keySet()) {
+            for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                built.putIfAbsent(hash(id + "#" + i), id);
+            }
+        }
+        this.nodes = Collections.unmodifiableMap(parsed);
+        this.ring = built;
+    }
+
+    /**
+     * 获取房间的所属节点
+     * @param roomId 房间ID
+     * @return 节点ID
+     */
+    public String ownerOf(String roomId) {
+        if (roomId == null || nodes.size() == 1) {
+            return nodeId;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(roomId));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * 房间是否由本节点处理
+     * @param roomId 房间ID
+     * @return 是否本地房间
+     */
+    public boolean isLocal(String roomId) {
+        return nodeId.equals(ownerOf(roomId));
+    }
+
+    /**
+     * 生成一个归属本节点的房间ID，在哪个节点创建的房间就由哪个节点处理
+     * @param generator 房间ID生成器，每次调用返回不同的ID
+     * @return 房间ID
+     */
+    public String newLocalRoomId(Supplier<String> generator) {
+        for (int i = 0; i < MAX_ID_ATTEMPTS; i++) {
+            String roomId = generator.get();
+            if (isLocal(roomId)) {
+                return roomId;
+            }
+        }
+        throw new RuntimeException("无法生成归属本节点的房间ID");
+    }
+
+    /**
+     * 是否配置了多个节点
+     * @return 是否集群模式
+     */
+    public boolean isClustered() {
+        return nodes.size() > 1;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 获取节点地址
+     * @param id 节点ID
+     * @return 地址，未配置时为null
+     */
+    public String addressOf(String id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * 获取所有节点
+     * @return 节点ID -> 地址
+     */
+    public Map<String, String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 取MD5的前8个字节作为环上的位置，各节点的JVM得到相同的结果
+     */
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) {
+                h = (h << 8) | (digest[i] & 0xFF);
+            }
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.RecoveryStats;
+import com.example.poker.model.CardHand;
+import com.example.poker.model.GameRoom;
+import com.example.poker.model.JournalEntry;
+import com.example.poker.model.JournalEntryType;
+import com.example.poker.model.RoomSnapshot;
+import com.example.poker.util.JournalReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 房间的快照与崩溃恢复
+ * <p>
+ * 游戏日志中的发牌、出牌、过牌、质疑、加入、离开就是房间的事件流。本服务作为 {@link RoomRegistry} 的监听器，
+ * 在一条命令结束时判断是否需要给房间写一个 {@link RoomSnapshot}：新房间、没有产生事件的状态变化
+ * （准备、添加机器人等事件无法描述的修改）、日志丢了该房间的条目以及距上次快照已有 snapshot-every 条事件时写入快照。
+ * 快照和事件都在房间信箱线程上追加，在日志中的先后顺序与执行顺序一致。
+ * </p>
+ * <p>
+ * 启动时（所有单例创建完成、开始接受连接之前）读取日志，每个房间从最后一个快照开始，
+ * 把之后的事件通过与玩家命令相同的流程在房间信箱上重放，重放期间不写日志，也不向客户端发送更新。
+ * 已移除的房间不恢复；某条事件重放失败时房间停在失败前的状态。日志中没有的房间再由 {@link RoomStore} 从数据库补上。
+ * 恢复出的人类玩家交给 {@link ReconnectDeadlines}，期限内没有重新订阅房间的按离开处理。
+ * </p>
+ * <p>
+ * 日志段滚动后（以及启动时还留有旧段时）给每个房间写一个新快照，全部写入后旧段里的内容都已被快照覆盖，
+ * 交给 {@link GameJournal#retireSegments} 删除，日志和启动时读取的内容不会随运行时间无限增长。
+ * </p>
+ */
+@Service
+public class RoomRecovery implements RoomRegistry.Listener, SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomRecovery.class);
+
+    @Autowired
+    private RoomRegistry rooms;
+
+    @Autowired
+    private GameJournal journal;
+
+    @Autowired
+    private RoomExecutor roomExecutor;
+
+    @Autowired
+    private GameEventPublisher eventPublisher;
+
+    @Autowired
+    private RobotScheduler robotScheduler;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RoomStore roomStore;
+
+    @Autowired
+    private ReconnectDeadlines reconnectDeadlines;
+
+    @Autowired
+    @Lazy
+    private GameService gameService;
+
+    @Autowired
+    @Lazy
+    private RoomManagementService roomManagementService;
+
+    /** 启动时是否从游戏日志恢复房间 */
+    @Value("${game.recovery.enabled:true}")
+    private boolean enabled = true;
+
+    /** 每隔多少条事件写一次快照 */
+    @Value("${game.recovery.snapshot-every:100}")
+    private int snapshotEvery = 100;
+
+    /** 房间ID -> 快照进度，只在房间信箱线程上修改 */
+    private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+
+    /** 已登记命令结束时检查快照的房间 */
+    private final Set<String> checkpointPending = ConcurrentHashMap.newKeySet();
+
+    private volatile RecoveryStats lastRecovery;
+
+    /**
+     * 注册为房间注册表的监听器
+     */
+    @PostConstruct
+    public void init() {
+        rooms.addListener(this);
+        journal.onRoll(this::compact);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled && journal.isActive()) {
+            try {
+                List<Path> segments = journal.getSegments();
+                recover(segments);
+                if (segments.size() > 1) {
+                    // 上次运行留下的旧段：恢复出的房间写入新快照后删除
+                    compact(GameJournal.segmentSequence(segments.get(segments.size() - 2)));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("读取游戏日志失败，不恢复房间: {}", e.getMessage());
+            }
+        }
+        // 日志中没有的房间（日志关闭或已丢失）按数据库中的房间信息重建
+        roomStore.load();
+    }
+
+    @Override
+    public void roomChanged(GameRoom room) {
+        if (!journal.isActive() || journal.isReplaying()) {
+            return;
+        }
+        String roomId = room.getId();
+        if (!roomExecutor.inRoom(roomId)) {
+            // 信箱之外的修改（创建房间）转到信箱上检查，排在之后的命令前面
+            roomExecutor.submit(roomId, () -> checkpoint(room));
+            return;
+        }
+        if (checkpointPending.add(roomId)) {
+            roomExecutor.afterCommand(roomId, () -> {
+                checkpointPending.remove(roomId);
+                checkpoint(room);
+            });
+        }
+    }
+
+    @Override
+    public void roomRemoved(String roomId) {
+        progress.remove(roomId);
+        if (!journal.isActive() || journal.isReplaying()) {
+            return;
+        }
+        journal.append(new JournalEntry(JournalEntryType.REMOVE, roomId, 0, null));
+        journal.forget(roomId);
+    }
+
+    /**
+     * 命令结束时按事件数决定是否写快照
+     */
+    private void checkpoint(GameRoom room) {
+        String roomId = room.getId();
+        if (rooms.get(roomId) != room) {
+            return;
+        }
+        long entries = journal.getEntryCount(roomId);
+        Progress p = progress.computeIfAbsent(roomId, id -> new Progress());
+        boolean changedWithoutEvent = entries == p.lastSeen;
+        if (p.snapshotAt < 0 || changedWithoutEvent || journal.hasGap(roomId)
+                || entries - p.snapshotAt >= snapshotEvery) {
+            appendSnapshot(room);
+            entries = journal.getEntryCount(roomId);
+            p.snapshotAt = entries;
+        }
+        p.lastSeen = entries;
+    }
+
+    /**
+     * 追加房间快照
+     * @return 快照是否进入日志
+     */
+    private boolean appendSnapshot(GameRoom room) {
+        try {
+            JournalEntry entry = new JournalEntry(JournalEntryType.SNAPSHOT, room.getId(), room.getVersion(), null);
+            entry.setData(objectMapper.writeValueAsBytes(RoomSnapshot.of(room)));
+            journal.append(entry);
+            return !journal.hasGap(room.getId());
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("写入房间 {} 的快照失败: {}", room.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 给每个房间写一个新快照，全部成功后删除最后序号不超过 upTo 的旧日志段
+     * 在日志写入线程上调用，只向房间信箱提交任务，不等待
+     * @param upTo 旧段的最后序号
+     */
+    private void compact(long upTo) {
+        AtomicBoolean complete = new AtomicBoolean(true);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (GameRoom room : rooms.all()) {
+            String roomId = room.getId();
+            futures.add(roomExecutor.submit(roomId, () -> {
+                GameRoom current = rooms.get(roomId);
+                if (current == null) {
+                    return;
+                }
+                if (!appendSnapshot(current)) {
+                    complete.set(false);
+                    return;
+                }
+                Progress p = progress.computeIfAbsent(roomId, id -> new Progress());
+                p.snapshotAt = journal.getEntryCount(roomId);
+                p.lastSeen = p.snapshotAt;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> {
+            if (error == null && complete.get()) {
+                journal.retireSegments(upTo);
+            } else {
+                log.warn("部分房间的快照没有写入，保留旧的游戏日志段");
+            }
+        });
+    }
+
+    /**
+     * 从日志文件恢复房间：每个房间取最后一个快照，在房间信箱上重放之后的事件
+     * @param file 日志文件
+     * @return 恢复统计
+     * @throws IOException 无法读取文件
+     */
+    public RecoveryStats recover(Path file) throws IOException {
+        return recover(List.of(file));
+    }
+
+    /**
+     * 按顺序读取各日志段恢复房间
+     * @param segments 日志段文件，按写入顺序排列
+     * @return 恢复统计
+     * @throws IOException 无法读取文件
+     */
+    public RecoveryStats recover(List<Path> segments) throws IOException {
+        long start = System.nanoTime();
+        Map<String, RoomLog> logs = new LinkedHashMap<>();
+        Set<String> orphaned = new HashSet<>();
+        long entries = 0;
+        for (Path file : segments) {
+            if (!Files.exists(file)) {
+                continue;
+            }
+            for (JournalEntry entry : new JournalReader(file)) {
+                entries++;
+                String roomId = entry.getRoomId();
+                if (roomId == null) {
+                    continue;
+                }
+                if (entry.getType() == JournalEntryType.SNAPSHOT) {
+                    logs.put(roomId, new RoomLog(entry));
+                    orphaned.remove(roomId);
+                } else if (entry.getType() == JournalEntryType.REMOVE) {
+                    logs.remove(roomId);
+                    orphaned.remove(roomId);
+                } else {
+                    RoomLog roomLog = logs.get(roomId);
+                    if (roomLog != null) {
+                        roomLog.events.add(entry);
+                    } else {
+                        orphaned.add(roomId);
+                    }
+                }
+            }
+        }
+        long readNanos = System.nanoTime() - start;
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(logs.size());
+        for (RoomLog roomLog : logs.values()) {
+            futures.add(roomExecutor.submit(roomLog.snapshot.getRoomId(), () -> restore(roomLog)));
+        }
+        int recovered = 0;
+        int failed = 0;
+        long replayed = 0;
+        int i = 0;
+        for (RoomLog roomLog : logs.values()) {
+            try {
+                futures.get(i++).join();
+                recovered++;
+                replayed += roomLog.replayed;
+                if (roomLog.failed) {
+                    failed++;
+                }
+            } catch (CompletionException e) {
+                failed++;
+                log.error("恢复房间 {} 失败: {}", roomLog.snapshot.getRoomId(), e.getCause().getMessage());
+            }
+        }
+
+        RecoveryStats stats = RecoveryStats.builder()
+                .entries(entries)
+                .rooms(recovered)
+                .replayedEvents(replayed)
+                .failedRooms(failed)
+                .skippedRooms(orphaned.size())
+                .readMillis(TimeUnit.NANOSECONDS.toMillis(readNanos))
+                .totalMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .build();
+        lastRecovery = stats;
+        if (entries > 0) {
+            log.info("从游戏日志恢复 {} 个房间，重放 {} 条事件，失败 {} 个，无快照跳过 {} 个，用时 {} ms",
+                    recovered, replayed, failed, orphaned.size(), stats.getTotalMillis());
+        }
+        return stats;
+    }
+
+    /**
+     * 在房间信箱上按快照重建房间并重放之后的事件
+     */
+    private void restore(RoomLog roomLog) {
+        String roomId = roomLog.snapshot.getRoomId();
+        journal.replay(() -> {
+            GameRoom room;
+            try {
+                room = objectMapper.readValue(roomLog.snapshot.getData(), RoomSnapshot.class).toRoom();
+            } catch (IOException e) {
+                throw new RuntimeException("房间快照无法解析", e);
+            }
+            if (rooms.add(room) != room) {
+                throw new RuntimeException("房间已存在");
+            }
+            try {
+                replay(roomId, roomLog);
+            } catch (RuntimeException e) {
+                roomLog.failed = true;
+                log.warn("房间 {} 重放第 {} 条事件失败，停在此前的状态: {}",
+                        roomId, roomLog.replayed + 1, e.getMessage());
+            } finally {
+                eventPublisher.discard(roomId);
+            }
+            GameRoom current = rooms.get(roomId);
+            rooms.update(current);
+            robotScheduler.reschedule(current);
+            // 恢复的玩家还没有连接，期限内不回来的按离开处理
+            reconnectDeadlines.expect(current);
+            return null;
+        });
+    }
+
+    private void replay(String roomId, RoomLog roomLog) {
+        // 一次开局的发牌是连续的多条记录，收齐后一起重放
+        Map<String, CardHand> deal = null;
+        for (JournalEntry entry : roomLog.events) {
+            if (entry.getType() == JournalEntryType.DEAL) {
+                if (deal == null) {
+                    deal = new LinkedHashMap<>();
+                }
+                deal.put(entry.getPlayerId(), CardHand.ofCodes(entry.getCards()));
+                roomLog.replayed++;
+                continue;
+            }
+            if (deal != null) {
+                gameService.replayDeal(roomId, deal);
+                deal = null;
+            }
+            switch (entry.getType()) {
+                case PLAY:
+                case PASS:
+                case CHALLENGE:
+                    gameService.replay(entry);
+                    break;
+                case JOIN:
+                case LEAVE:
+                    roomManagementService.replay(entry);
+                    break;
+                default:
+                    break;
+            }
+            roomLog.replayed++;
+        }
+        if (deal != null) {
+            gameService.replayDeal(roomId, deal);
+        }
+    }
+
+    /**
+     * 获取最近一次恢复的统计
+     * @return 统计信息，未恢复过时为null
+     */
+    public RecoveryStats getLastRecovery() {
+        return lastRecovery;
+    }
+
+    /**
+     * 一个房间最后的快照和之后的事件
+     */
+    private static final class RoomLog {
+        final JournalEntry snapshot;
+        final List<JournalEntry> events = new ArrayList<>();
+        int replayed;
+        boolean failed;
+
+        RoomLog(JournalEntry snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * 房间的快照进度，按本次运行中的日志条目数计
+     */
+    private static final class Progress {
+        long snapshotAt = -1;
+        long lastSeen = -1;
+    }
+}
@@ -0,0 +1,682 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.RoomQuery;
+import com.example.poker.exception.GameException;
+import com.example.poker.model.GameRoom;
+import com.example.poker.model.GameStatus;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 房间注册表
+ * <p>
+ * 所有房间的唯一数据源，服务和控制器都直接从这里读取，不再各自保存房间副本。
+ * 除了按ID查找外，还维护按状态、按是否有空位、按房主的二级索引，玩家到所在房间的反向索引，
+ * 以及供大厅分页查询使用的有序索引（按创建顺序、名称、玩家数），有序索引对每种状态和可加入房间各维护一份。
+ * 房间在信箱线程上被修改后调用 {@link #update(GameRoom)} 重新索引，
+ * 每次更新和移除都会通知监听器（例如大厅广播）。
+ * 同一房间的重新索引按房间ID分段加锁，不同房间互不等待；索引本身都是并发集合，
+ * 监听器在锁外调用。
+ * 玩家加入房间前通过 {@link #claimPlayer(String, String)} 原子地占用成员关系，保证一个玩家同时只在一个房间中。
+ * </p>
+ */
+@Service
+public class RoomRegistry {
+
+    /**
+     * 房间变化监听器
+     */
+    public interface Listener {
+        /**
+         * 房间新增或状态变化，在修改房间的线程上调用
+         * @param room 游戏房间
+         */
+        void roomChanged(GameRoom room);
+
+        /**
+         * 房间被移除
+         * @param roomId 房间ID
+         */
+        void roomRemoved(String roomId);
+
+        /**
+         * 房间成员变化（包括新登记的房间和被移除房间的全部玩家），在锁外调用
+         * @param room 游戏房间
+         * @param joined 新加入的玩家
+         * @param left 离开的玩家
+         */
+        default void playersChanged(GameRoom room, Set<String> joined, Set<String> left) {
+        }
+    }
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
+
+    /** 房间ID -> 上次建立索引时的条目，用于更新时移除旧索引 */
+    private final Map<String, IndexEntry> indexed = new ConcurrentHashMap<>();
+
+    /** 分页查询使用的有序索引 */
+    private final Map<RoomQuery.Sort, ConcurrentSkipListSet<IndexEntry>> sorted = new EnumMap<>(RoomQuery.Sort.class);
+
+    /** 按状态划分的有序索引，状态 -> 排序方式 -> 条目 */
+    private final Map<GameStatus, Map<RoomQuery.Sort, ConcurrentSkipListSet<IndexEntry>>> sortedByStatus =
+            new EnumMap<>(GameStatus.class);
+
+    /** 可加入房间的有序索引 */
+    private final Map<RoomQuery.Sort, ConcurrentSkipListSet<IndexEntry>> sortedOpen = new EnumMap<>(RoomQuery.Sort.class);
+
+    /** 房间登记顺序 */
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> sequences = new ConcurrentHashMap<>();
+
+    private final Map<GameStatus, Set<String>> byStatus = new EnumMap<>(GameStatus.class);
+    private final Set<String> openRooms = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<String>> byHost = new ConcurrentHashMap<>();
+
+    /** 玩家ID -> 所在房间ID，一个玩家同时只在一个房间中，加入时通过putIfAbsent占用 */
+    private final Map<String, String> roomByPlayer = new ConcurrentHashMap<>();
+
+    /** 房间ID -> 上次建立索引时的玩家，用于计算加入和离开的玩家 */
+    private final Map<String, Set<String>> indexedPlayers = new ConcurrentHashMap<>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /** 分段锁，保证同一房间的旧索引移除和新索引建立不会交错 */
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public RoomRegistry() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        for (GameStatus status : GameStatus.values()) {
+            byStatus.put(status, ConcurrentHashMap.newKeySet());
+            Map<RoomQuery.Sort, ConcurrentSkipListSet<IndexEntry>> statusIndexes = new EnumMap<>(RoomQuery.Sort.class);
+            for (RoomQuery.Sort sort : RoomQuery.Sort.values()) {
+                statusIndexes.put(sort, new ConcurrentSkipListSet<>(comparator(sort)));
+            }
+            sortedByStatus.put(status, statusIndexes);
+        }
+        for (RoomQuery.Sort sort : RoomQuery.Sort.values()) {
+            sorted.put(sort, new ConcurrentSkipListSet<>(comparator(sort)));
+            sortedOpen.put(sort, new ConcurrentSkipListSet<>(comparator(sort)));
+        }
+    }
+
+    /**
+     * 注册监听器
+     * @param listener 监听器
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 登记新房间，ID已存在时返回已有的房间
+     * @param room 游戏房间
+     * @return 注册表中的房间
+     */
+    public GameRoom add(GameRoom room) {
+        GameRoom existing = rooms.putIfAbsent(room.getId(), room);
+        if (existing != null) {
+            return existing;
+        }
+        sequences.put(room.getId(), sequence.incrementAndGet());
+        update(room);
+        return room;
+    }
+
+    /**
+     * 房间被修改后重新索引并通知监听器；已移除的房间忽略
+     * @param room 游戏房间
+     */
+    public void update(GameRoom room) {
+        if (room == null) {
+            return;
+        }
+        String roomId = room.getId();
+        Set<String> joined = new HashSet<>();
+        Set<String> left = new HashSet<>();
+        synchronized (lockFor(roomId)) {
+            if (rooms.get(roomId) != room) {
+                return;
+            }
+            IndexEntry entry = IndexEntry.of(room, sequences.get(roomId));
+            IndexEntry old = indexed.get(roomId);
+            if (entry.equals(old)) {
+                // 保留原来的条目，监听器可以按引用判断房间概要没有变化
+                entry = old;
+            } else {
+                indexed.put(roomId, entry);
+                unindex(roomId, old);
+                index(roomId, entry);
+            }
+            indexPlayers(roomId, entry.players, joined, left);
+        }
+        if (!joined.isEmpty() || !left.isEmpty()) {
+            for (Listener listener : listeners) {
+                listener.playersChanged(room, joined, left);
+            }
+        }
+        for (Listener listener : listeners) {
+            listener.roomChanged(room);
+        }
+        if (rooms.get(roomId) != room) {
+            // 通知期间房间被移除，移除通知可能先到，再通知一次，保证监听器最后看到的是移除
+            for (Listener listener : listeners) {
+                listener.roomRemoved(roomId);
+            }
+        }
+    }
+
+    /**
+     * 移除房间
+     * @param roomId 房间ID
+     * @return 被移除的房间，不存在时为null
+     */
+    public GameRoom remove(String roomId) {
+        if (roomId == null) {
+            return null;
+        }
+        GameRoom room;
+        Set<String> players;
+        synchronized (lockFor(roomId)) {
+            room = rooms.remove(roomId);
+            if (room == null) {
+                return null;
+            }
+            unindex(roomId, indexed.remove(roomId));
+            sequences.remove(roomId);
+            players = indexedPlayers.remove(roomId);
+            if (players != null) {
+                for (String playerId : players) {
+                    roomByPlayer.remove(playerId, roomId);
+                }
+            }
+        }
+        if (players != null && !players.isEmpty()) {
+            for (Listener listener : listeners) {
+                listener.playersChanged(room, Collections.emptySet(), players);
+            }
+        }
+        for (Listener listener : listeners) {
+            listener.roomRemoved(roomId);
+        }
+        return room;
+    }
+
+    /**
+     * 按ID获取房间
+     * @param roomId 房间ID
+     * @return 房间，不存在时为null
+     */
+    public GameRoom get(String roomId) {
+        return roomId == null ? null : rooms.get(roomId);
+    }
+
+    /**
+     * 获取房间最近一次建立索引时的概要
+     * <p>
+     * 概要没有变化的重新索引返回同一个对象。
+     * </p>
+     * @param roomId 房间ID
+     * @return 房间概要，房间不存在时为null
+     */
+    public IndexEntry getEntry(String roomId) {
+        return roomId == null ? null : indexed.get(roomId);
+    }
+
+    /**
+     * 房间是否存在
+     * @param roomId 房间ID
+     * @return 是否存在
+     */
+    public boolean contains(String roomId) {
+        return roomId != null && rooms.containsKey(roomId);
+    }
+
+    /**
+     * 获取房间数量
+     * @return 房间数量
+     */
+    public int size() {
+        return rooms.size();
+    }
+
+    /**
+     * 获取所有房间（只读视图）
+     * @return 房间集合
+     */
+    public Collection<GameRoom> all() {
+        return Collections.unmodifiableCollection(rooms.values());
+    }
+
+    /**
+     * 获取所有房间ID（只读视图）
+     * @return 房间ID集合
+     */
+    public Set<String> ids() {
+        return Collections.unmodifiableSet(rooms.keySet());
+    }
+
+    /**
+     * 按状态查找房间
+     * @param status 房间状态
+     * @return 房间列表
+     */
+    public List<GameRoom> findByStatus(GameStatus status) {
+        return resolve(byStatus.get(status));
+    }
+
+    /**
+     * 查找还可以加入的房间（等待中且未满员）
+     * @return 房间列表
+     */
+    public List<GameRoom> findOpen() {
+        return resolve(openRooms);
+    }
+
+    /**
+     * 查找某个玩家作为房主的房间
+     * @param hostId 房主ID
+     * @return 房间列表
+     */
+    public List<GameRoom> findByHost(String hostId) {
+        return resolve(hostId == null ? null : byHost.get(hostId));
+    }
+
+    /**
+     * 获取玩家所在的房间ID
+     * @param playerId 玩家ID
+     * @return 房间ID，不在任何房间中时为null
+     */
+    public String findRoomIdOf(String playerId) {
+        return playerId == null ? null : roomByPlayer.get(playerId);
+    }
+
+    /**
+     * 获取玩家所在的房间
+     * @param playerId 玩家ID
+     * @return 房间，不在任何房间中时为null
+     */
+    public GameRoom findByPlayer(String playerId) {
+        return get(findRoomIdOf(playerId));
+    }
+
+    /**
+     * 占用玩家的房间成员关系，玩家加入房间前在房间信箱线程上调用
+     * <p>
+     * 玩家已属于同一房间时直接返回；属于其他房间时抛出异常，
+     * 两个房间同时加入同一个玩家时只有一个能成功。
+     * </p>
+     * @param playerId 玩家ID
+     * @param roomId 房间ID
+     * @throws GameException 玩家已在其他房间中
+     */
+    public void claimPlayer(String playerId, String roomId) {
+        String current = roomByPlayer.putIfAbsent(playerId, roomId);
+        if (current != null && !current.equals(roomId)) {
+            throw new GameException("您已在其他房间中", "ALREADY_IN_ROOM");
+        }
+    }
+
+    /**
+     * 释放玩家在某个房间的成员关系，玩家属于其他房间时不受影响
+     * @param playerId 玩家ID
+     * @param roomId 房间ID
+     */
+    public void releasePlayer(String playerId, String roomId) {
+        if (playerId != null && roomId != null) {
+            roomByPlayer.remove(playerId, roomId);
+        }
+    }
+
+    /**
+     * 获取玩家到房间的索引（只读视图）
+     * @return 玩家ID -> 房间ID
+     */
+    public Map<String, String> playerRooms() {
+        return Collections.unmodifiableMap(roomByPlayer);
+    }
+
+    /**
+     * 大厅分页查询
+     * <p>
+     * 按过滤条件选择最小的有序索引：只查可加入房间时用可加入索引，指定状态时用该状态的索引，
+     * 从游标之后开始遍历，其余条件在索引条目上判断，取满一页即停止，开销与页大小相关而不是房间总数。
+     * 指定名称前缀时在同一过滤索引的按名称版本上只遍历前缀范围；排序方式不是名称时，
+     * 把前缀范围内的条目按所选排序整理后再分页。
+     * </p>
+     * @param query 查询条件
+     * @return 一页房间概要
+     */
+    public Page query(RoomQuery query) {
+        RoomQuery.Sort sort = query.getSort() == null ? RoomQuery.Sort.NEWEST : query.getSort();
+        int limit = query.getLimit() == null ? RoomQuery.DEFAULT_LIMIT
+                : Math.max(1, Math.min(RoomQuery.MAX_LIMIT, query.getLimit()));
+        String prefix = query.getNamePrefix() == null || query.getNamePrefix().isEmpty() ? null : query.getNamePrefix();
+        IndexEntry after = query.getCursor() == null || query.getCursor().isEmpty() ? null : decodeCursor(query.getCursor());
+
+        Collection<IndexEntry> candidates;
+        if (prefix == null) {
+            NavigableSet<IndexEntry> index = indexFor(query, sort);
+            candidates = after == null ? index : index.tailSet(after, false);
+        } else if (sort == RoomQuery.Sort.NAME) {
+            NavigableSet<IndexEntry> index = indexFor(query, sort);
+            candidates = prefixRange(after == null ? index.tailSet(prefixStart(prefix), true) : index.tailSet(after, false), prefix);
+        } else {
+            // 前缀范围通常远小于全部房间，按名称索引取出范围后按所选排序整理
+            Comparator<IndexEntry> order = comparator(sort);
+            List<IndexEntry> range = new ArrayList<>();
+            for (IndexEntry entry : prefixRange(indexFor(query, RoomQuery.Sort.NAME).tailSet(prefixStart(prefix), true), prefix)) {
+                if (after == null || order.compare(entry, after) > 0) {
+                    range.add(entry);
+                }
+            }
+            range.sort(order);
+            candidates = range;
+        }
+
+        List<IndexEntry> page = new ArrayList<>();
+        boolean more = false;
+        for (IndexEntry entry : candidates) {
+            if (!entry.matches(query) || !rooms.containsKey(entry.roomId)) {
+                continue;
+            }
+            if (page.size() == limit) {
+                more = true;
+                break;
+            }
+            page.add(entry);
+        }
+        return new Page(page, more ? encodeCursor(page.get(page.size() - 1)) : null);
+    }
+
+    private NavigableSet<IndexEntry> indexFor(RoomQuery query, RoomQuery.Sort sort) {
+        if (Boolean.TRUE.equals(query.getOpen())) {
+            return sortedOpen.get(sort);
+        }
+        if (query.getStatus() != null) {
+            return sortedByStatus.get(query.getStatus()).get(sort);
+        }
+        return sorted.get(sort);
+    }
+
+    private static IndexEntry prefixStart(String prefix) {
+        return IndexEntry.probe(Long.MIN_VALUE, 0, prefix);
+    }
+
+    // 按名称有序的集合中取前缀范围，越过前缀即结束
+    private static List<IndexEntry> prefixRange(Collection<IndexEntry> fromPrefix, String prefix) {
+        List<IndexEntry> range = new ArrayList<>();
+        for (IndexEntry entry : fromPrefix) {
+            if (!entry.nameKey().startsWith(prefix)) {
+                break;
+            }
+            range.add(entry);
+        }
+        return range;
+    }
+
+    /**
+     * 一页查询结果，房间为建立索引时的不可变快照，不会与房间信箱线程上的修改冲突
+     */
+    public static final class Page {
+        private final List<IndexEntry> rooms;
+        private final String nextCursor;
+
+        Page(List<IndexEntry> rooms, String nextCursor) {
+            this.rooms = rooms;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<IndexEntry> getRooms() {
+            return rooms;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    private static Comparator<IndexEntry> comparator(RoomQuery.Sort sort) {
+        switch (sort) {
+            case NAME:
+                return Comparator.comparing(IndexEntry::nameKey).thenComparingLong(entry -> entry.seq);
+            case PLAYERS:
+                return Comparator.<IndexEntry>comparingInt(entry -> -entry.playerCount)
+                        .thenComparingLong(entry -> -entry.seq);
+            case NEWEST:
+            default:
+                return Comparator.comparingLong(entry -> -entry.seq);
+        }
+    }
+
+    // 游标记录上一页最后一个条目的排序键：登记顺序、玩家数、名称
+    private static String encodeCursor(IndexEntry entry) {
+        String raw = entry.seq + ":" + entry.playerCount + ":" + entry.nameKey();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static IndexEntry decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            return IndexEntry.probe(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), parts[2]);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+    }
+
+    private void indexPlayers(String roomId, List<String> players, Set<String> joined, Set<String> left) {
+        Set<String> current = new HashSet<>(players);
+        Set<String> previous = indexedPlayers.put(roomId, current);
+        if (previous != null) {
+            for (String playerId : previous) {
+                if (!current.contains(playerId)) {
+                    roomByPlayer.remove(playerId, roomId);
+                    left.add(playerId);
+                }
+            }
+        }
+        for (String playerId : current) {
+            if (previous == null || !previous.contains(playerId)) {
+                // 不覆盖其他房间的成员关系，加入时已经通过claimPlayer占用
+                roomByPlayer.putIfAbsent(playerId, roomId);
+                joined.add(playerId);
+            }
+        }
+    }
+
+    private List<GameRoom> resolve(Set<String> roomIds) {
+        List<GameRoom> result = new ArrayList<>();
+        if (roomIds == null) {
+            return result;
+        }
+        for (String roomId : roomIds) {
+            GameRoom room = rooms.get(roomId);
+            if (room != null) {
+                result.add(room);
+            }
+        }
+        return result;
+    }
+
+    private void index(String roomId, IndexEntry key) {
+        for (ConcurrentSkipListSet<IndexEntry> index : sorted.values()) {
+            index.add(key);
+        }
+        if (key.status != null) {
+            byStatus.get(key.status).add(roomId);
+            for (ConcurrentSkipListSet<IndexEntry> index : sortedByStatus.get(key.status).values()) {
+                index.add(key);
+            }
+        }
+        if (key.open) {
+            openRooms.add(roomId);
+            for (ConcurrentSkipListSet<IndexEntry> index : sortedOpen.values()) {
+                index.add(key);
+            }
+        }
+        if (key.hostId != null) {
+            // 与移除空集合互斥，避免加入一个刚被移除的集合
+            byHost.compute(key.hostId, (id, hosted) -> {
+                Set<String> target = hosted != null ? hosted : ConcurrentHashMap.newKeySet();
+                target.add(roomId);
+                return target;
+            });
+        }
+    }
+
+    private void unindex(String roomId, IndexEntry key) {
+        if (key == null) {
+            return;
+        }
+        for (ConcurrentSkipListSet<IndexEntry> index : sorted.values()) {
+            index.remove(key);
+        }
+        if (key.status != null) {
+            byStatus.get(key.status).remove(roomId);
+            for (ConcurrentSkipListSet<IndexEntry> index : sortedByStatus.get(key.status).values()) {
+                index.remove(key);
+            }
+        }
+        openRooms.remove(roomId);
+        if (key.open) {
+            for (ConcurrentSkipListSet<IndexEntry> index : sortedOpen.values()) {
+                index.remove(key);
+            }
+        }
+        if (key.hostId != null) {
+            byHost.computeIfPresent(key.hostId, (id, hosted) -> {
+                hosted.remove(roomId);
+                return hosted.isEmpty() ? null : hosted;
+            });
+        }
+    }
+
+    private Object lockFor(String roomId) {
+        return locks[(roomId.hashCode() & 0x7fffffff) % locks.length];
+    }
+
+    /**
+     * 房间在各个索引中的位置，建立索引时在修改房间的线程上生成的不可变快照，
+     * 同时作为大厅分页查询返回的房间概要
+     */
+    public static final class IndexEntry {
+        private final String roomId;
+        private final long seq;
+        private final String name;
+        private final int playerCount;
+        private final int maxPlayers;
+        private final GameStatus status;
+        private final boolean open;
+        private final String hostId;
+        private final List<String> players;
+
+        private IndexEntry(String roomId, long seq, String name, int playerCount, int maxPlayers,
+                           GameStatus status, boolean open, String hostId, List<String> players) {
+            this.roomId = roomId;
+            this.seq = seq;
+            this.name = name;
+            this.playerCount = playerCount;
+            this.maxPlayers = maxPlayers;
+            this.status = status;
+            this.open = open;
+            this.hostId = hostId;
+            this.players = players;
+        }
+
+        static IndexEntry of(GameRoom room, Long seq) {
+            List<String> players = room.getPlayers() == null
+                    ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(room.getPlayers()));
+            boolean open = room.getStatus() == GameStatus.WAITING && players.size() < room.getMaxPlayers();
+            return new IndexEntry(room.getId(), seq == null ? 0 : seq, room.getRoomName(), players.size(),
+                    room.getMaxPlayers(), room.getStatus(), open, room.getHostId(), players);
+        }
+
+        /** 只带排序键的条目，用于在有序索引中定位 */
+        static IndexEntry probe(long seq, int playerCount, String name) {
+            return new IndexEntry(null, seq, name, playerCount, 0, null, false, null, Collections.emptyList());
+        }
+
+        public String getId() {
+            return roomId;
+        }
+
+        public String getRoomName() {
+            return name;
+        }
+
+        public int getPlayerCount() {
+            return playerCount;
+        }
+
+        public int getMaxPlayers() {
+            return maxPlayers;
+        }
+
+        public GameStatus getStatus() {
+            return status;
+        }
+
+        public String getHostId() {
+            return hostId;
+        }
+
+        public List<String> getPlayers() {
+            return players;
+        }
+
+        String nameKey() {
+            return name == null ? "" : name;
+        }
+
+        boolean matches(RoomQuery query) {
+            if (query.getStatus() != null && query.getStatus() != status) {
+                return false;
+            }
+            if (Boolean.TRUE.equals(query.getOpen()) && !open) {
+                return false;
+            }
+            return query.getMaxPlayers() == null || query.getMaxPlayers() == maxPlayers;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IndexEntry)) {
+                return false;
+            }
+            IndexEntry other = (IndexEntry) o;
+            return seq == other.seq && playerCount == other.playerCount && maxPlayers == other.maxPlayers
+                    && open == other.open && status == other.status
+                    && Objects.equals(roomId, other.roomId) && Objects.equals(name, other.name)
+                    && Objects.equals(hostId, other.hostId) && Objects.equals(players, other.players);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(roomId, seq, name, playerCount, maxPlayers, status, open, hostId, players);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.ClusterCommand;
+import com.example.poker.model.GameNotification;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 房间命令路由
+ * <p>
+ * 消息处理方法在投递到房间信箱之前先调用 {@link #forwardIfRemote}：
+ * 房间归属本节点时返回false，照常处理；否则把原始消息转发给所属节点，
+ * 由所属节点按同一目标地址登记的处理方法执行。状态变化由所属节点发布，
+ * 启用外部消息代理后所有节点上的订阅者都能收到。
+ * 转发是异步的，入站线程不等待所属节点；转发失败时通过 /user/queue/errors 告知发出命令的玩家。
+ * </p>
+ * <p>
+ * 不属于某个房间的命令（例如查询某个节点上的大厅）用 {@link #sendToNode} 直接发给指定节点；
+ * 需要答复的请求用 {@link #registerQuery} 登记，由 {@link #request} 发出。
+ * </p>
+ */
+@Service
+public class RoomRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomRouter.class);
+
+    /** 离开房间的目标地址，转发成功后不再记录玩家所在的远程房间 */
+    public static final String LEAVE_ROOM = "/rooms/leave";
+
+    @Autowired
+    private RoomOwnership ownership;
+
+    /** 未配置 game.cluster.transport 时没有传输，单节点运行不需要 */
+    @Autowired
+    private ObjectProvider<ClusterTransport> transports;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Lazy
+    private SimpMessagingTemplate messagingTemplate;
+
+    /** 目标地址 -> 处理方法 */
+    private final Map<String, Handler<?>> handlers = new ConcurrentHashMap<>();
+
+    /**
+     * 玩家ID -> 最近一次转发命令的远程房间ID
+     * 断线清理时玩家不在本节点的房间里，按它找到需要通知离开的所属节点
+     */
+    private final Map<String, String> remoteRooms = new ConcurrentHashMap<>();
+
+    /** 正在执行转发来的命令，此时不再转发，避免节点配置不一致时来回转发 */
+    private final ThreadLocal<Boolean> receiving = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * 登记目标地址的处理方法，转发来的命令按该地址交给它执行
+     * @param destination 目标地址
+     * @param type 消息类型
+     * @param handler 处理方法
+     */
+    public <T> void register(String destination, Class<T> type, Consumer<T> handler) {
+        handlers.put(destination, new Handler<>(type, message -> {
+            handler.accept(message);
+            return null;
+        }));
+    }
+
+    /**
+     * 登记需要答复的请求的处理方法
+     * @param destination 目标地址
+     * @param type 请求类型
+     * @param handler 处理方法，返回值作为答复
+     */
+    public <T> void registerQuery(String destination, Class<T> type, Function<T, ?> handler) {
+        handlers.put(destination, new Handler<>(type, handler));
+    }
+
+    /**
+     * 房间不在本节点时转发给所属节点
+     * @param roomId 房间ID
+     * @param playerId 发出命令的玩家ID，转发失败时通知该玩家
+     * @param destination 目标地址
+     * @param message 原始消息
+     * @return 已转发返回true，调用方不再处理
+     */
+    public boolean forwardIfRemote(String roomId, String playerId, String destination, Object message) {
+        if (receiving.get() || ownership.isLocal(roomId)) {
+            return false;
+        }
+        if (playerId != null) {
+            if (LEAVE_ROOM.equals(destination)) {
+                remoteRooms.remove(playerId, roomId);
+            } else {
+                remoteRooms.put(playerId, roomId);
+            }
+        }
+        send(ownership.ownerOf(roomId), roomId, playerId, destination, message);
+        return true;
+    }
+
+    /**
+     * 把不属于某个房间的命令发给指定节点
+     * @param nodeId 目标节点ID
+     * @param playerId 发出命令的玩家ID，发送失败时通知该玩家
+     * @param destination 目标地址
+     * @param message 原始消息
+     */
+    public void sendToNode(String nodeId, String playerId, String destination, Object message) {
+        send(nodeId, null, playerId, destination, message);
+    }
+
+    /**
+     * 向指定节点发出请求，目标节点按同一目标地址登记的处理方法答复
+     * @param nodeId 目标节点ID
+     * @param destination 目标地址
+     * @param message 请求消息
+     * @return 答复，没有配置传输或发送失败时异常完成
+     */
+    public CompletableFuture<JsonNode> request(String nodeId, String destination, Object message) {
+        ClusterTransport transport = transports.getIfAvailable();
+        if (transport == null) {
+            return CompletableFuture.failedFuture(
+                    new RuntimeException("请求发往节点 " + nodeId + "，但没有配置 game.cluster.transport"));
+        }
+        return transport.request(nodeId, command(null, destination, message));
+    }
+
+    private void send(String nodeId, String roomId, String playerId, String destination, Object message) {
+        ClusterTransport transport = transports.getIfAvailable();
+        if (transport == null) {
+            logger.error("命令 {} 发往节点 {}，但没有配置 game.cluster.transport", destination, nodeId);
+            replyError(roomId, playerId);
+            return;
+        }
+        transport.send(nodeId, command(roomId, destination, message)).whenComplete((ignored, error) -> {
+            if (error != null) {
+                logger.error("转发命令失败 - 房间: {}, 节点: {}, 错误: {}", roomId, nodeId, error.getMessage());
+                replyError(roomId, playerId);
+            }
+        });
+    }
+
+    private ClusterCommand command(String roomId, String destination, Object message) {
+        return ClusterCommand.builder()
+                .roomId(roomId)
+                .destination(destination)
+                .payload(objectMapper.valueToTree(message))
+                .originNode(ownership.getNodeId())
+                .build();
+    }
+
+    /**
+     * 玩家最近一次通过本节点转发命令的远程房间
+     * @param playerId 玩家ID
+     * @return 房间ID，没有时为null
+     */
+    public String remoteRoomOf(String playerId) {
+        return remoteRooms.get(playerId);
+    }
+
+    private void replyError(String roomId, String playerId) {
+        if (playerId == null) {
+            return;
+        }
+        GameNotification notification = new GameNotification("ERROR", playerId, "房间所在的服务器暂时不可用，请稍后重试");
+        notification.setRoomId(roomId);
+        try {
+            messagingTemplate.convertAndSendToUser(playerId, "/queue/errors", notification);
+        } catch (RuntimeException e) {
+            logger.error("发送转发失败通知失败 - 玩家: {}, 错误: {}", playerId, e.getMessage());
+        }
+    }
+
+    /**
+     * 执行其他节点转发来的命令
+     * @param command 房间命令
+     */
+    public void receive(ClusterCommand command) {
+        invoke(command);
+    }
+
+    /**
+     * 回答其他节点的请求
+     * @param command 请求命令
+     * @return 答复
+     */
+    public JsonNode answer(ClusterCommand command) {
+        return objectMapper.valueToTree(invoke(command));
+    }
+
+    private Object invoke(ClusterCommand command) {
+        Handler<?> handler = handlers.get(command.getDestination());
+        if (handler == null) {
+            throw new RuntimeException("未知的命令地址: " + command.getDestination());
+        }
+        if (command.getRoomId() != null && !ownership.isLocal(command.getRoomId())) {
+            logger.warn("收到不属于本节点的房间命令 - 房间: {}, 来源: {}", command.getRoomId(), command.getOriginNode());
+        }
+        // 进程内传输时请求可能在执行转发命令的同一线程上被回答，结束后恢复原来的标记
+        boolean previous = receiving.get();
+        receiving.set(true);
+        try {
+            return handler.invoke(command);
+        } finally {
+            receiving.set(previous);
+        }
+    }
+
+    private final class Handler<T> {
+        private final Class<T> type;
+        private final Function<T, ?> function;
+
+        Handler(Class<T> type, Function<T, ?> function) {
+            this.type = type;
+            this.function = function;
+        }
+
+        Object invoke(ClusterCommand command) {
+            T message;
+            try {
+                message = objectMapper.treeToValue(command.getPayload(), type);
+            } catch (Exception e) {
+                throw new RuntimeException("无法解析转发的命令: " + command.getDestination(), e);
+            }
+            return function.apply(message);
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.RoomStoreStats;
+import com.example.poker.model.GameRoom;
+import com.example.poker.model.GameStatus;
+import com.example.poker.model.RoomRecord;
+import com.example.poker.model.SeatRecord;
+import com.example.poker.repository.RoomRecordRepository;
+import com.example.poker.repository.SeatRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 房间信息的写回存储
+ * <p>
+ * 作为 {@link RoomRegistry} 的监听器，房间变化时只复制持久化的房间信息放入待写入表，
+ * 房间ID进入有界队列；同一房间在写入前的多次变化合并为最后一次，队列满时放弃并计数，
+ * 修改房间的线程从不等待数据库。后台线程每隔 flush-millis 取出队列中的房间，
+ * 每 batch-size 个在一个事务中写入（Hibernate按JDBC批量执行）。写入失败的房间重新排队，下一轮再写。
+ * </p>
+ * <p>
+ * 数据库中一个房间是一条 {@link RoomRecord} 和每个玩家一条 {@link SeatRecord}。写入时先用两次查询取出
+ * 这一批房间现有的记录，再只改动有变化的行：玩家加入插入一个座位，离开删除一个座位，准备状态变化更新一个座位，
+ * 房间信息没有变化时不更新房间记录。
+ * </p>
+ * <p>
+ * 启动时由 {@link RoomRecovery} 调用 {@link #load()}，把数据库中有、注册表中还没有的房间放回注册表；
+ * 数据库只有房间信息，进行中的对局无法恢复，这类房间回到等待状态。
+ * 载入的人类玩家同样交给 {@link ReconnectDeadlines}，期限内没有重新订阅房间的按离开处理。
+ * </p>
+ */
+@Service
+public class RoomStore implements RoomRegistry.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomStore.class);
+
+    /** 待写入表中表示删除的占位 */
+    private static final GameRoom DELETED = new GameRoom();
+
+    @Autowired
+    private RoomRegistry rooms;
+
+    @Autowired
+    private RoomRecordRepository roomRecords;
+
+    @Autowired
+    private SeatRecordRepository seatRecords;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReconnectDeadlines reconnectDeadlines;
+
+    @Value("${game.store.enabled:true}")
+    private boolean enabled = true;
+
+    /** 等待写入的房间数上限 */
+    @Value("${game.store.queue-capacity:65536}")
+    private int queueCapacity = 65536;
+
+    /** 每个事务写入的房间数 */
+    @Value("${game.store.batch-size:256}")
+    private int batchSize = 256;
+
+    /** 写入间隔（毫秒），间隔内同一房间的变化合并写入 */
+    @Value("${game.store.flush-millis:200}")
+    private long flushMillis = 200;
+
+    private TransactionTemplate transactionTemplate;
+    private BlockingQueue<String> queue;
+    private Thread writer;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /** 房间ID -> 最新的待写入房间信息 */
+    private final Map<String, GameRoom> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long written;
+    private volatile long batches;
+    private volatile int loaded;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        rooms.addListener(this);
+        writer = new Thread(this::writeLoop, "room-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped.countDown();
+        if (writer != null) {
+            // 不中断写入线程：中断会关闭H2正在使用的文件通道
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flush();
+        }
+    }
+
+    @Override
+    public void roomChanged(GameRoom room) {
+        if (queue != null) {
+            enqueue(room.getId(), room.copyMetadata());
+        }
+    }
+
+    @Override
+    public void roomRemoved(String roomId) {
+        if (queue != null) {
+            enqueue(roomId, DELETED);
+        }
+    }
+
+    /**
+     * 记录最新状态，房间不在队列中时才入队
+     */
+    private void enqueue(String roomId, GameRoom room) {
+        if (pending.put(roomId, room) != null) {
+            coalesced.incrementAndGet();
+            return;
+        }
+        if (!queue.offer(roomId)) {
+            pending.remove(roomId, room);
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 10000 == 0) {
+                log.warn("房间写回队列已满，累计放弃 {} 次写入", count);
+            }
+        }
+    }
+
+    /**
+     * 把数据库中注册表还没有的房间放回注册表，进行中的对局回到等待状态
+     * @return 放回的房间数
+     */
+    public int load() {
+        if (!enabled) {
+            return 0;
+        }
+        List<GameRoom> stored;
+        try {
+            stored = transactionTemplate.execute(status -> {
+                Map<String, List<SeatRecord>> seats = new HashMap<>();
+                for (SeatRecord seat : seatRecords.findAll(Sort.by("roomId", "seat"))) {
+                    seats.computeIfAbsent(seat.getRoomId(), id -> new ArrayList<>()).add(seat);
+                }
+                List<GameRoom> rooms = new ArrayList<>();
+                for (RoomRecord record : roomRecords.findAll()) {
+                    rooms.add(record.toRoom(seats.getOrDefault(record.getId(), List.of())));
+                }
+                return rooms;
+            });
+        } catch (RuntimeException e) {
+            log.error("读取数据库中的房间失败，不载入房间: {}", e.getMessage());
+            return 0;
+        }
+        int added = 0;
+        for (GameRoom room : stored) {
+            if (room.getStatus() == GameStatus.PLAYING) {
+                room.setStatus(GameStatus.WAITING);
+                room.setGameStatus("WAITING");
+                room.getReadyPlayers().clear();
+                room.getReadyPlayers().addAll(room.getRobotPlayers());
+            }
+            if (rooms.add(room) == room) {
+                added++;
+                // 载入的玩家还没有连接，期限内不回来的按离开处理
+                reconnectDeadlines.expect(room);
+            }
+        }
+        loaded = added;
+        if (added > 0) {
+            log.info("从数据库载入 {} 个房间", added);
+        }
+        return added;
+    }
+
+    /**
+     * 立即写入队列中的全部房间
+     */
+    public synchronized void flush() {
+        if (queue == null) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(batchSize);
+        while (queue.drainTo(ids, batchSize) > 0) {
+            if (!writeBatch(ids)) {
+                return;
+            }
+            ids.clear();
+        }
+    }
+
+    /**
+     * 获取写回统计
+     * @return 统计信息
+     */
+    public RoomStoreStats getStats() {
+        return RoomStoreStats.builder()
+                .pendingRooms(pending.size())
+                .coalescedUpdates(coalesced.get())
+                .writtenRooms(written)
+                .batches(batches)
+                .droppedUpdates(dropped.get())
+                .failedWrites(failed.get())
+                .loadedRooms(loaded)
+                .build();
+    }
+
+    private void writeLoop() {
+        try {
+            while (!stopped.await(flushMillis, TimeUnit.MILLISECONDS)) {
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    log.error("写回房间失败: {}", e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 在一个事务中写入一批房间，失败时重新排队
+     * @return 是否写入成功
+     */
+    private boolean writeBatch(List<String> ids) {
+        List<GameRoom> saves = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (String roomId : ids) {
+            GameRoom room = pending.remove(roomId);
+            if (room == DELETED) {
+                deletes.add(roomId);
+            } else if (room != null) {
+                saves.add(room);
+            }
+        }
+        if (saves.isEmpty() && deletes.isEmpty()) {
+            return true;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(saves, deletes));
+            written += saves.size() + deletes.size();
+            batches++;
+            return true;
+        } catch (RuntimeException e) {
+            log.error("写回 {} 个房间失败，稍后重试: {}", saves.size() + deletes.size(), e.getMessage());
+            failed.addAndGet(saves.size() + deletes.size());
+            for (GameRoom room : saves) {
+                retry(room.getId(), room);
+            }
+            for (String roomId : deletes) {
+                retry(roomId, DELETED);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 对比数据库中现有的记录，插入、删除新增和移除的行，修改已加载的记录，提交时由脏检查更新有变化的行
+     */
+    private void write(List<GameRoom> saves, List<String> deletes) {
+        List<String> roomIds = new ArrayList<>(deletes);
+        saves.forEach(room -> roomIds.add(room.getId()));
+        Map<String, RoomRecord> records = new HashMap<>();
+        roomRecords.findAllById(roomIds).forEach(record -> records.put(record.getId(), record));
+        Map<String, List<SeatRecord>> seats = new HashMap<>();
+        for (SeatRecord seat : seatRecords.findByRoomIdIn(roomIds)) {
+            seats.computeIfAbsent(seat.getRoomId(), id -> new ArrayList<>()).add(seat);
+        }
+
+        List<RoomRecord> newRecords = new ArrayList<>();
+        List<RoomRecord> removedRecords = new ArrayList<>();
+        List<SeatRecord> newSeats = new ArrayList<>();
+        List<SeatRecord> removedSeats = new ArrayList<>();
+        for (GameRoom room : saves) {
+            RoomRecord record = records.get(room.getId());
+            if (record == null) {
+                record = new RoomRecord(room.getId());
+                newRecords.add(record);
+            }
+            record.apply(room);
+            List<SeatRecord> current = seats.getOrDefault(room.getId(), new ArrayList<>());
+            current.sort(Comparator.comparingInt(SeatRecord::getSeat));
+            updateSeats(room, current, newSeats, removedSeats);
+        }
+        for (String roomId : deletes) {
+            RoomRecord record = records.get(roomId);
+            if (record != null) {
+                removedRecords.add(record);
+            }
+            removedSeats.addAll(seats.getOrDefault(roomId, List.of()));
+        }
+
+        roomRecords.saveAll(newRecords);
+        seatRecords.saveAll(newSeats);
+        seatRecords.deleteAll(removedSeats);
+        roomRecords.deleteAll(removedRecords);
+    }
+
+    /**
+     * 对比房间现有的座位和当前玩家列表
+     * <p>
+     * 留下的玩家保持原来的座位，新玩家依次坐到最大座位号之后。
+     * 玩家顺序与座位顺序不一致时（很少见），所有玩家换到新的座位号上，避免与要删除的行主键冲突。
+     * </p>
+     */
+    private void updateSeats(GameRoom room, List<SeatRecord> current,
+                             List<SeatRecord> newSeats, List<SeatRecord> removedSeats) {
+        Set<String> players = new HashSet<>(room.getPlayers());
+        List<SeatRecord> kept = new ArrayList<>();
+        for (SeatRecord seat : current) {
+            if (players.contains(seat.getPlayerId())) {
+                kept.add(seat);
+            } else {
+                removedSeats.add(seat);
+            }
+        }
+        boolean inOrder = true;
+        for (int i = 0; i < kept.size() && inOrder; i++) {
+            inOrder = kept.get(i).getPlayerId().equals(room.getPlayers().get(i));
+        }
+        if (!inOrder) {
+            removedSeats.addAll(kept);
+            kept.clear();
+        }
+        int nextSeat = current.isEmpty() ? 0 : current.get(current.size() - 1).getSeat() + 1;
+        for (int i = 0; i < room.getPlayers().size(); i++) {
+            String playerId = room.getPlayers().get(i);
+            SeatRecord seat;
+            if (i < kept.size()) {
+                seat = kept.get(i);
+            } else {
+                seat = new SeatRecord(room.getId(), nextSeat++, playerId);
+                newSeats.add(seat);
+            }
+            seat.setRobot(room.getRobotPlayers().contains(playerId));
+            seat.setReady(room.getReadyPlayers().contains(playerId));
+        }
+    }
+
+    /**
+     * 重新排队，期间已有更新的状态时以更新的为准
+     */
+    private void retry(String roomId, GameRoom room) {
+        if (pending.putIfAbsent(roomId, room) == null && !queue.offer(roomId)) {
+            pending.remove(roomId, room);
+            dropped.incrementAndGet();
+        }
+    }
+}
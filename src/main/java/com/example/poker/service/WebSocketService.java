@@ -31,14 +31,17 @@ public class WebSocketService {
     
     private final SimpMessagingTemplate messagingTemplate;
     private final RoomManagementService roomManagementService;
+    private final GameEventPublisher eventPublisher;
     
     // 用户会话管理
     private final Map<String, Set<String>> userSessionIds = new ConcurrentHashMap<>();
     private final Map<String, String> sessionUserIds = new ConcurrentHashMap<>();
 
-    public WebSocketService(SimpMessagingTemplate messagingTemplate, RoomManagementService roomManagementService) {
+    public WebSocketService(SimpMessagingTemplate messagingTemplate, RoomManagementService roomManagementService,
+                            GameEventPublisher eventPublisher) {
         this.messagingTemplate = messagingTemplate;
         this.roomManagementService = roomManagementService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -80,11 +83,8 @@ public class WebSocketService {
             return;
         }
         
-        // 使用toGameState方法转换为GameState对象，保持与前端的兼容性
-        GameState state = room.toGameState();
-        String destination = GameConstants.TOPIC_GAME_STATE + roomId;
-        
-        messagingTemplate.convertAndSend(destination, state);
+        // 公开快照经房间信箱合并发送，手牌通过玩家自己的队列下发
+        eventPublisher.sendSnapshot(room);
     }
 
     /**
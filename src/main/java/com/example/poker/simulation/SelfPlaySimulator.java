@@ -0,0 +1,361 @@
+package com.example.poker.simulation;
+
+import com.example.poker.dto.SimulationResult;
+import com.example.poker.model.Card;
+import com.example.poker.model.CardHand;
+import com.example.poker.model.Claim;
+import com.example.poker.model.GameRoom;
+import com.example.poker.model.GameRules;
+import com.example.poker.model.GameStatus;
+import com.example.poker.model.MonteCarloRobotStrategy;
+import com.example.poker.model.MonteCarloSearch;
+import com.example.poker.model.RobotPlayer;
+import com.example.poker.model.RobotView;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 无界面的机器人自对弈模拟器
+ * <p>
+ * 不启动Spring，不发送消息，也没有机器人的思考延迟：每局新建一个 {@link GameRoom}，
+ * 直接调用 {@link GameRules} 执行发牌、出牌、过牌和质疑，机器人的决策流程与 {@code GameService#playRobotTurn} 一致。
+ * 对局按线程平均分配，每个线程有自己的牌桌（机器人实例、随机数和洗牌缓冲区），线程之间不共享状态；
+ * 相同的种子和线程数得到相同的结果。专家难度在当前线程上同步搜索固定的迭代次数，不使用搜索线程池。
+ * </p>
+ * <p>
+ * 运行方式：mvn compile 后以 target/classes 和依赖为classpath执行本类的 main 方法，例如
+ * {@code --games=1000000 --players=4 --decks=2 --strategies=HARD,MEDIUM --threads=8}。
+ * </p>
+ */
+public class SelfPlaySimulator {
+
+    /** 每局最多执行的动作数，超过后中止该局 */
+    public static final int DEFAULT_MAX_ACTIONS = 20000;
+    /** 专家难度每次决策的搜索迭代次数 */
+    public static final int DEFAULT_SEARCH_ITERATIONS = 200;
+
+    private final int playerCount;
+    private final int deckCount;
+    private final List<String> strategies;
+    private final int threads;
+    private final long seed;
+    private int maxActions = DEFAULT_MAX_ACTIONS;
+    private int searchIterations = DEFAULT_SEARCH_ITERATIONS;
+
+    /**
+     * 构造函数
+     * @param playerCount 每局的玩家数
+     * @param deckCount 每局使用的牌副数
+     * @param strategies 各座位机器人的难度，座位数多于列表长度时循环使用
+     * @param threads 模拟线程数，小于等于0时使用CPU核数
+     * @param seed 随机数种子
+     */
+    public SelfPlaySimulator(int playerCount, int deckCount, List<String> strategies, int threads, long seed) {
+        if (playerCount < 2) {
+            throw new IllegalArgumentException("玩家人数不足: " + playerCount);
+        }
+        if (deckCount <= 0) {
+            throw new IllegalArgumentException("牌堆数量无效: " + deckCount);
+        }
+        if (strategies == null || strategies.isEmpty()) {
+            throw new IllegalArgumentException("没有指定机器人难度");
+        }
+        this.playerCount = playerCount;
+        this.deckCount = deckCount;
+        this.strategies = List.copyOf(strategies);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.seed = seed;
+    }
+
+    public void setMaxActions(int maxActions) {
+        this.maxActions = Math.max(1, maxActions);
+    }
+
+    public void setSearchIterations(int searchIterations) {
+        this.searchIterations = Math.max(1, searchIterations);
+    }
+
+    /**
+     * 模拟指定局数，阻塞到全部完成
+     * @param games 对局数
+     * @return 模拟结果
+     */
+    public SimulationResult run(long games) {
+        Table[] tables = new Table[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Table table = newTable(t);
+            long count = games / threads + (t < games % threads ? 1 : 0);
+            tables[t] = table;
+            workers[t] = new Thread(() -> table.playGames(count), "self-play-" + (t + 1));
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("等待模拟线程时被中断", e);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        SimulationResult.SimulationResultBuilder result = SimulationResult.builder().elapsedNanos(elapsed);
+        long finished = 0, aborted = 0, actions = 0, plays = 0, passes = 0, challenges = 0, successes = 0, rejected = 0;
+        long allocated = 0;
+        long[] wins = new long[playerCount];
+        for (Table table : tables) {
+            finished += table.finished;
+            aborted += table.aborted;
+            actions += table.actions;
+            plays += table.plays;
+            passes += table.passes;
+            challenges += table.challenges;
+            successes += table.successfulChallenges;
+            rejected += table.rejected;
+            allocated = allocated < 0 || table.allocatedBytes < 0 ? -1 : allocated + table.allocatedBytes;
+            for (int seat = 0; seat < playerCount; seat++) {
+                wins[seat] += table.wins[seat];
+            }
+        }
+        return result.games(finished + aborted)
+                .finishedGames(finished)
+                .abortedGames(aborted)
+                .actions(actions)
+                .plays(plays)
+                .passes(passes)
+                .challenges(challenges)
+                .successfulChallenges(successes)
+                .rejectedActions(rejected)
+                .winsBySeat(wins)
+                .allocatedBytes(allocated)
+                .build();
+    }
+
+    /**
+     * 创建一张牌桌，用于在当前线程上逐局模拟（基准测试使用）
+     * @param index 牌桌序号，决定随机数序列
+     * @return 牌桌
+     */
+    public Table newTable(int index) {
+        return new Table(new SplittableRandom(seed + 0x9E3779B97F4A7C15L * (index + 1)));
+    }
+
+    /**
+     * 一个线程上的牌桌，不是线程安全的
+     */
+    public final class Table {
+        private final SplittableRandom random;
+        private final List<String> playerIds = new ArrayList<>();
+        private final Map<String, RobotPlayer> robots = new HashMap<>();
+        private final Map<String, Integer> seats = new HashMap<>();
+        private final int[] order = new int[deckCount * Card.CARDS_PER_DECK];
+
+        private long finished;
+        private long aborted;
+        private long actions;
+        private long plays;
+        private long passes;
+        private long challenges;
+        private long successfulChallenges;
+        private long rejected;
+        private long allocatedBytes;
+        private final long[] wins = new long[playerCount];
+
+        private Table(SplittableRandom random) {
+            this.random = random;
+            for (int seat = 0; seat < playerCount; seat++) {
+                String id = "robot_" + seat;
+                playerIds.add(id);
+                seats.put(id, seat);
+                robots.put(id, new RobotPlayer(id, "机器人" + seat, strategies.get(seat % strategies.size()), random));
+            }
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+        }
+
+        /**
+         * 连续模拟若干局，并统计本线程分配的内存
+         */
+        private void playGames(long count) {
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            com.sun.management.ThreadMXBean allocations = threadBean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()
+                    ? (com.sun.management.ThreadMXBean) threadBean : null;
+            long threadId = Thread.currentThread().getId();
+            long before = allocations == null ? 0 : allocations.getThreadAllocatedBytes(threadId);
+            for (long i = 0; i < count; i++) {
+                playGame();
+            }
+            allocatedBytes = allocations == null ? -1 : allocations.getThreadAllocatedBytes(threadId) - before;
+        }
+
+        /**
+         * 模拟一局
+         * @return 本局的动作数
+         */
+        public int playGame() {
+            GameRoom room = new GameRoom();
+            room.setId("self-play");
+            room.getPlayers().addAll(playerIds);
+            GameRules.deal(room, deal());
+
+            int turns = 0;
+            while (room.getStatus() == GameStatus.PLAYING && turns < maxActions) {
+                String current = room.getCurrentPlayer();
+                if (current == null || !room.getPlayers().contains(current) || !turn(room, current)) {
+                    break;
+                }
+                turns++;
+            }
+            actions += turns;
+            if (room.getStatus() == GameStatus.FINISHED) {
+                finished++;
+                if (!room.getWinners().isEmpty()) {
+                    wins[seats.get(room.getWinners().get(0))]++;
+                }
+            } else {
+                aborted++;
+            }
+            return turns;
+        }
+
+        /**
+         * 洗牌并按步长发牌，与 {@code DeckService#dealShuffled} 的发牌方式一致
+         */
+        private Map<String, CardHand> deal() {
+            for (int i = order.length - 1; i > 0; i--) {
+                int index = random.nextInt(i + 1);
+                int tmp = order[index];
+                order[index] = order[i];
+                order[i] = tmp;
+            }
+            Map<String, CardHand> hands = new HashMap<>();
+            for (int seat = 0; seat < playerCount; seat++) {
+                CardHand hand = new CardHand();
+                for (int j = seat; j < order.length; j += playerCount) {
+                    hand.addCode(Card.codeOfPhysical(order[j]));
+                }
+                hands.put(playerIds.get(seat), hand);
+            }
+            return hands;
+        }
+
+        /**
+         * 执行一个机器人回合：先决定是否质疑，再选牌出牌，没有选牌则过牌
+         * @return 是否执行了动作，过牌也被拒绝时返回false
+         */
+        private boolean turn(GameRoom room, String robotId) {
+            RobotPlayer robot = robots.get(robotId);
+            robot.setHand(room.getPlayerHands().get(robotId));
+            MonteCarloRobotStrategy expert = robot.getStrategy() instanceof MonteCarloRobotStrategy
+                    ? (MonteCarloRobotStrategy) robot.getStrategy() : null;
+            if (expert != null) {
+                MonteCarloSearch search = new MonteCarloSearch(RobotView.of(room, robotId));
+                MonteCarloSearch.Worker worker = search.newWorker(random.nextLong());
+                worker.run(searchIterations);
+                expert.setPlan(room.getVersion(), search.best(List.of(worker)));
+            }
+
+            Claim lastClaim = room.getLastClaim();
+            CardHand currentPile = room.getCurrentPile();
+            String lastPlayerId = room.getLastPlayerId();
+            try {
+                if (lastClaim != null && !currentPile.isEmpty() && lastPlayerId != null
+                        && !robotId.equals(lastPlayerId)
+                        && robot.decideToChallenge(lastClaim, currentPile, GameRules.knowledge(room))) {
+                    boolean success = GameRules.challenge(room, robotId, lastPlayerId);
+                    // 规则拒绝的动作会退回过牌，只在规则接受后计数，避免同一回合计两次
+                    challenges++;
+                    if (success) {
+                        successfulChallenges++;
+                    }
+                    return true;
+                }
+
+                List<Card> selectedCards = robot.selectCardsToPlay(lastClaim);
+                int claimRank = robot.chooseClaimRank(selectedCards, lastClaim);
+                if (selectedCards.isEmpty() || claimRank < 0) {
+                    GameRules.pass(room, robotId);
+                    passes++;
+                    return true;
+                }
+                // 跟随上一声明时沿用上一玩家的写法，与 GameService 一致
+                String declaredValue = lastClaim != null && claimRank == lastClaim.getRank()
+                        ? room.getLastPlayedValue() : Card.rankName(claimRank);
+                boolean emptied = GameRules.play(room, robotId, selectedCards, selectedCards.size(), declaredValue);
+                plays++;
+                if (emptied) {
+                    GameRules.win(room, robotId);
+                }
+                return true;
+            } catch (RuntimeException e) {
+                // 决策不合法时退回过牌，与 GameService 一致
+                rejected++;
+                try {
+                    GameRules.pass(room, robotId);
+                    passes++;
+                    return true;
+                } catch (RuntimeException passError) {
+                    return false;
+                }
+            } finally {
+                if (expert != null) {
+                    expert.clearPlan();
+                }
+            }
+        }
+    }
+
+    /**
+     * 命令行入口
+     * 参数：--games --players --decks --strategies（逗号分隔） --threads --seed --warmup --max-actions --search-iterations
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        long games = Long.parseLong(options.getOrDefault("games", "100000"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", String.valueOf(games / 10)));
+        SelfPlaySimulator simulator = new SelfPlaySimulator(
+                Integer.parseInt(options.getOrDefault("players", "4")),
+                Integer.parseInt(options.getOrDefault("decks", "2")),
+                Arrays.asList(options.getOrDefault("strategies", "HARD").split(",")),
+                Integer.parseInt(options.getOrDefault("threads", "0")),
+                Long.parseLong(options.getOrDefault("seed", "1")));
+        simulator.setMaxActions(Integer.parseInt(options.getOrDefault("max-actions", String.valueOf(DEFAULT_MAX_ACTIONS))));
+        simulator.setSearchIterations(Integer.parseInt(
+                options.getOrDefault("search-iterations", String.valueOf(DEFAULT_SEARCH_ITERATIONS))));
+
+        if (warmup > 0) {
+            simulator.run(warmup);
+        }
+        SimulationResult result = simulator.run(games);
+        System.out.printf(Locale.ROOT, "对局: %d（结束 %d，中止 %d），线程: %d，耗时: %.2f 秒%n",
+                result.getGames(), result.getFinishedGames(), result.getAbortedGames(), simulator.threads,
+                result.getElapsedNanos() / 1e9);
+        System.out.printf(Locale.ROOT, "对局/秒: %.0f，动作/秒: %.0f，每局动作: %.1f，每局分配: %d 字节%n",
+                result.getGamesPerSecond(), result.getActionsPerSecond(),
+                result.getGames() == 0 ? 0.0 : result.getActions() / (double) result.getGames(), result.getBytesPerGame());
+        System.out.printf(Locale.ROOT, "出牌: %d，过牌: %d，质疑: %d（成功 %d），被拒绝: %d%n",
+                result.getPlays(), result.getPasses(), result.getChallenges(), result.getSuccessfulChallenges(),
+                result.getRejectedActions());
+        System.out.println("各座位先出完的次数: " + Arrays.toString(result.getWinsBySeat()));
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.poker.util;
+
+import com.example.poker.model.Card;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑二进制消息编码
+ * <p>
+ * 对JSON树做一次无损的结构编码，用于替代发给客户端的JSON文本：
+ * 常见字段名用字典中的短标签表示，对象中的null字段直接省略，
+ * 整数用zigzag变长编码，牌对象（suit/value/joker/rank）编码为一个字节的牌面编码。
+ * 字典和类型标签必须与 game.js 中的 CompactCodec 保持一致，只能在末尾追加。
+ * </p>
+ * <pre>
+ * 消息   = FORMAT_VERSION 值
+ * 值     = 类型标签 + 内容
+ * 对象键 = 变长整数 k：k为奇数时 k&gt;&gt;1 是字典下标，为偶数时 k&gt;&gt;1 是随后UTF-8键名的字节数
+ * </pre>
+ */
+public final class CompactCodec {
+
+    /** 格式版本 */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int T_NULL = 0;
+    private static final int T_FALSE = 1;
+    private static final int T_TRUE = 2;
+    private static final int T_INT = 3;
+    private static final int T_DOUBLE = 4;
+    private static final int T_STRING = 5;
+    private static final int T_ARRAY = 6;
+    private static final int T_OBJECT = 7;
+    private static final int T_CARD = 8;
+
+    /** 字段名字典，下标即短标签 */
+    private static final List<String> FIELDS = List.of(
+            "roomId", "version", "snapshot", "events", "notifications", "type", "playerId",
+            "targetPlayerId", "count", "value", "success", "loserId", "currentPlayer", "pileSize",
+            "handCounts", "passedPlayers", "cards", "players", "status", "gameStatus", "hostId",
+            "maxPlayers", "playerCount", "id", "name", "rooms", "removed", "nextCursor", "content",
+            "message", "currentPlayerIndex", "lastClaim", "declaredValue", "lastPlayerId", "winners",
+            "winner", "roomName", "robotCount", "lastPlayedValue", "lastPlayedPlayer", "lastPlayedTime",
+            "lastChallengeTime", "lastChallengePlayer", "lastChallengeResult", "lastChallengeValue",
+            "lastChallengeSuccess", "readyPlayers", "nextPlayer", "data", "suit", "joker", "rank");
+
+    private static final Map<String, Integer> FIELD_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < FIELDS.size(); i++) {
+            FIELD_INDEX.put(FIELDS.get(i), i);
+        }
+    }
+
+    private CompactCodec() {
+    }
+
+    /**
+     * 编码JSON树
+     * @param node JSON树
+     * @return 二进制内容
+     */
+    public static byte[] encode(JsonNode node) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write(FORMAT_VERSION);
+        writeValue(out, node);
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码为JSON树
+     * @param bytes 二进制内容
+     * @return JSON树
+     */
+    public static JsonNode decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        int format = in.get() & 0xFF;
+        if (format != FORMAT_VERSION) {
+            throw new RuntimeException("不支持的消息编码版本: " + format);
+        }
+        return readValue(in);
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            out.write(T_NULL);
+        } else if (node.isBoolean()) {
+            out.write(node.booleanValue() ? T_TRUE : T_FALSE);
+        } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+            out.write(T_INT);
+            long value = node.longValue();
+            writeVarint(out, (value << 1) ^ (value >> 63));
+        } else if (node.isNumber()) {
+            out.write(T_DOUBLE);
+            long bits = Double.doubleToLongBits(node.doubleValue());
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        } else if (node.isTextual()) {
+            out.write(T_STRING);
+            writeString(out, node.textValue());
+        } else if (node.isArray()) {
+            out.write(T_ARRAY);
+            writeVarint(out, node.size());
+            for (JsonNode element : node) {
+                writeValue(out, element);
+            }
+        } else if (node.isObject()) {
+            int code = cardCode(node);
+            if (code >= 0) {
+                out.write(T_CARD);
+                out.write(code);
+                return;
+            }
+            int fields = 0;
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                if (!it.next().getValue().isNull()) {
+                    fields++;
+                }
+            }
+            out.write(T_OBJECT);
+            writeVarint(out, fields);
+            it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                if (field.getValue().isNull()) {
+                    continue;
+                }
+                Integer index = FIELD_INDEX.get(field.getKey());
+                if (index != null) {
+                    writeVarint(out, ((long) index << 1) | 1);
+                } else {
+                    byte[] key = field.getKey().getBytes(StandardCharsets.UTF_8);
+                    writeVarint(out, (long) key.length << 1);
+                    out.write(key, 0, key.length);
+                }
+                writeValue(out, field.getValue());
+            }
+        } else {
+            // 二进制等其他节点按文本处理
+            out.write(T_STRING);
+            writeString(out, node.asText());
+        }
+    }
+
+    private static JsonNode readValue(ByteBuffer in) {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        int tag = in.get() & 0xFF;
+        switch (tag) {
+            case T_NULL:
+                return factory.nullNode();
+            case T_FALSE:
+                return factory.booleanNode(false);
+            case T_TRUE:
+                return factory.booleanNode(true);
+            case T_INT: {
+                long raw = readVarint(in);
+                long value = (raw >>> 1) ^ -(raw & 1);
+                return value == (int) value ? factory.numberNode((int) value) : factory.numberNode(value);
+            }
+            case T_DOUBLE:
+                return factory.numberNode(in.getDouble());
+            case T_STRING:
+                return factory.textNode(readString(in));
+            case T_ARRAY: {
+                int size = (int) readVarint(in);
+                ArrayNode array = factory.arrayNode(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(readValue(in));
+                }
+                return array;
+            }
+            case T_OBJECT: {
+                int size = (int) readVarint(in);
+                ObjectNode object = factory.objectNode();
+                for (int i = 0; i < size; i++) {
+                    long key = readVarint(in);
+                    String name;
+                    if ((key & 1) == 1) {
+                        name = FIELDS.get((int) (key >>> 1));
+                    } else {
+                        byte[] bytes = new byte[(int) (key >>> 1)];
+                        in.get(bytes);
+                        name = new String(bytes, StandardCharsets.UTF_8);
+                    }
+                    object.set(name, readValue(in));
+                }
+                return object;
+            }
+            case T_CARD:
+                return cardNode(in.get() & 0xFF);
+            default:
+                throw new RuntimeException("无效的消息编码类型: " + tag);
+        }
+    }
+
+    /**
+     * 判断对象是否是一张牌，是则返回牌面编码
+     */
+    private static int cardCode(JsonNode node) {
+        if (node.size() > 4 || !node.has("value") || !node.has("joker")) {
+            return -1;
+        }
+        Iterator<String> names = node.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!"suit".equals(name) && !"value".equals(name) && !"joker".equals(name) && !"rank".equals(name)) {
+                return -1;
+            }
+        }
+        if (node.get("joker").asBoolean()) {
+            return Card.JOKER_CODE;
+        }
+        JsonNode suit = node.get("suit");
+        int value = node.get("value").asInt();
+        if (suit == null || !suit.isTextual() || value < 1 || value > Card.SUIT_SIZE) {
+            return -1;
+        }
+        try {
+            return Card.Suit.valueOf(suit.textValue()).ordinal() * Card.SUIT_SIZE + (value - 1);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static ObjectNode cardNode(int code) {
+        Card card = Card.ofCode(code);
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        if (card.getSuit() == null) {
+            node.putNull("suit");
+        } else {
+            node.put("suit", card.getSuit().name());
+        }
+        node.put("value", card.getValue());
+        node.put("joker", card.isJoker());
+        node.put("rank", card.getRank());
+        return node;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarint(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xFF;
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new RuntimeException("无效的变长整数");
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.poker.util;
+
+import com.example.poker.model.JournalEntry;
+import com.example.poker.model.JournalEntryType;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * 游戏日志的二进制编码
+ * <pre>
+ * 记录   = 长度(int) CRC32(int) 内容
+ * 内容   = 类型(byte) 序号(varint) 时间(long) 版本(varint) 房间ID 玩家ID 目标玩家ID 点数 质疑结果(byte) 牌 [数据 [声明张数]]
+ * 字符串 = varint(字节数+1) UTF-8，0表示null
+ * 牌     = varint(张数) 每张一个字节的牌面编码
+ * 数据   = varint(字节数+1) 内容，0表示null
+ * 声明张数 = varint(张数+1)，0表示null
+ * </pre>
+ * 数据和声明张数都为null时记录在牌之后直接结束，与没有这两个字段的旧记录格式相同。
+ * 长度和CRC只覆盖内容，读到长度不完整或CRC不符的记录即视为文件末尾（写入时崩溃留下的半条记录）。
+ */
+public final class JournalCodec {
+
+    /** 记录头：长度 + CRC32 */
+    public static final int HEADER_BYTES = 8;
+
+    private JournalCodec() {
+    }
+
+    /**
+     * 把一条记录写入缓冲区，空间不足时抛出 BufferOverflowException 且不改变缓冲区位置
+     * @param entry 日志条目
+     * @param out 缓冲区
+     */
+    public static void write(JournalEntry entry, ByteBuffer out) {
+        int start = out.position();
+        if (out.remaining() < HEADER_BYTES) {
+            throw new BufferOverflowException();
+        }
+        try {
+            out.position(start + HEADER_BYTES);
+            int bodyStart = out.position();
+            out.put((byte) entry.getType().ordinal());
+            putVarint(out, entry.getSequence());
+            out.putLong(entry.getTimestamp());
+            putVarint(out, entry.getVersion());
+            putString(out, entry.getRoomId());
+            putString(out, entry.getPlayerId());
+            putString(out, entry.getTargetPlayerId());
+            putString(out, entry.getValue());
+            out.put(entry.getSuccess() == null ? 0 : entry.getSuccess() ? (byte) 2 : (byte) 1);
+            byte[] cards = entry.getCards();
+            putVarint(out, cards == null ? 0 : cards.length);
+            if (cards != null) {
+                out.put(cards);
+            }
+            byte[] data = entry.getData();
+            Integer declaredCount = entry.getDeclaredCount();
+            if (data != null || declaredCount != null) {
+                putVarint(out, data == null ? 0 : data.length + 1L);
+                if (data != null) {
+                    out.put(data);
+                }
+            }
+            if (declaredCount != null) {
+                putVarint(out, declaredCount + 1L);
+            }
+            int length = out.position() - bodyStart;
+            out.putInt(start, length);
+            out.putInt(start + 4, crc(out, bodyStart, length));
+        } catch (RuntimeException e) {
+            out.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * 读取下一条记录
+     * @param in 缓冲区，成功时位置移到记录之后
+     * @return 日志条目，剩余内容不是完整有效的记录时返回null且不改变位置
+     */
+    public static JournalEntry read(ByteBuffer in) {
+        int start = in.position();
+        if (in.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int length = in.getInt(start);
+        int crc = in.getInt(start + 4);
+        int bodyStart = start + HEADER_BYTES;
+        if (length <= 0 || length > in.limit() - bodyStart || crc(in, bodyStart, length) != crc) {
+            return null;
+        }
+        ByteBuffer body = in.duplicate();
+        body.position(bodyStart).limit(bodyStart + length);
+        JournalEntry entry = new JournalEntry();
+        try {
+            entry.setType(JournalEntryType.values()[body.get()]);
+            entry.setSequence(getVarint(body));
+            entry.setTimestamp(body.getLong());
+            entry.setVersion(getVarint(body));
+            entry.setRoomId(getString(body));
+            entry.setPlayerId(getString(body));
+            entry.setTargetPlayerId(getString(body));
+            entry.setValue(getString(body));
+            byte success = body.get();
+            entry.setSuccess(success == 0 ? null : success == 2);
+            int count = (int) getVarint(body);
+            if (count > 0) {
+                byte[] cards = new byte[count];
+                body.get(cards);
+                entry.setCards(cards);
+            }
+            if (body.hasRemaining()) {
+                int size = (int) getVarint(body);
+                if (size > 0) {
+                    byte[] data = new byte[size - 1];
+                    body.get(data);
+                    entry.setData(data);
+                }
+            }
+            if (body.hasRemaining()) {
+                int declaredCount = (int) getVarint(body);
+                if (declaredCount > 0) {
+                    entry.setDeclaredCount(declaredCount - 1);
+                }
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        in.position(bodyStart + length);
+        return entry;
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offset).limit(offset + length);
+        crc.update(slice);
+        return (int) crc.getValue();
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            putVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarint(out, bytes.length + 1L);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = (int) getVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long getVarint(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xFF;
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("无效的变长整数");
+    }
+}
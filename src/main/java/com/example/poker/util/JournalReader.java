@@ -0,0 +1,163 @@
+package com.example.poker.util;
+
+import com.example.poker.model.JournalEntry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * 游戏日志读取器
+ * 以只读方式分段内存映射日志文件，按顺序解码记录，遇到不完整或损坏的记录即停止。
+ * 每次只映射一个窗口（默认64MB），读到窗口末尾再映射下一段，文件超过2GB也可以读取。
+ */
+public class JournalReader implements Iterable<JournalEntry> {
+
+    /** 默认的映射窗口大小 */
+    static final int WINDOW_BYTES = 64 << 20;
+
+    private final Path path;
+    private final long size;
+    private final int windowBytes;
+    private final MappedByteBuffer first;
+
+    /**
+     * 读取日志文件当前的全部内容，之后追加的记录不可见
+     * @param path 日志文件
+     * @throws IOException 无法读取文件
+     */
+    public JournalReader(Path path) throws IOException {
+        this(path, WINDOW_BYTES);
+    }
+
+    JournalReader(Path path, int windowBytes) throws IOException {
+        this.path = path;
+        this.size = Files.size(path);
+        this.windowBytes = Math.max(JournalCodec.HEADER_BYTES, windowBytes);
+        this.first = map(0, 0);
+    }
+
+    /**
+     * 读取日志文件中的所有有效记录
+     * @param path 日志文件
+     * @return 日志条目
+     * @throws IOException 无法读取文件
+     */
+    public static List<JournalEntry> readAll(Path path) throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        if (Files.exists(path)) {
+            new JournalReader(path).forEach(entries::add);
+        }
+        return entries;
+    }
+
+    /**
+     * 扫描有效记录，返回最后一条有效记录之后的位置
+     * @param lastEntry 接收最后一条有效记录，可以为null
+     * @return 有效内容的字节数
+     */
+    public long validLength(Consumer<JournalEntry> lastEntry) {
+        Cursor cursor = new Cursor();
+        JournalEntry last = null;
+        while (cursor.hasNext()) {
+            last = cursor.next();
+        }
+        if (last != null && lastEntry != null) {
+            lastEntry.accept(last);
+        }
+        return cursor.position;
+    }
+
+    @Override
+    public Iterator<JournalEntry> iterator() {
+        return new Cursor();
+    }
+
+    /**
+     * 映射从 from 开始的一个窗口，至少包含 minBytes 字节（不超过文件末尾）
+     */
+    private MappedByteBuffer map(long from, long minBytes) throws IOException {
+        long length = Math.min(size - from, Math.max(windowBytes, minBytes));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        }
+    }
+
+    private final class Cursor implements Iterator<JournalEntry> {
+        /** 当前窗口在文件中的起点 */
+        private long base;
+        private ByteBuffer view = first.duplicate();
+        private JournalEntry next;
+        private long position;
+        private boolean end;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !end) {
+                next = read();
+                if (next != null) {
+                    position = base + view.position();
+                } else {
+                    end = true;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public JournalEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JournalEntry entry = next;
+            next = null;
+            return entry;
+        }
+
+        /**
+         * 读取下一条记录，记录跨过窗口末尾时从它的起点重新映射
+         */
+        private JournalEntry read() {
+            while (true) {
+                JournalEntry entry = JournalCodec.read(view);
+                if (entry != null) {
+                    return entry;
+                }
+                long from = base + view.position();
+                if (base + view.limit() >= size) {
+                    // 窗口已经到文件末尾，剩下的是半条或损坏的记录
+                    return null;
+                }
+                long need = JournalCodec.HEADER_BYTES;
+                if (view.remaining() >= JournalCodec.HEADER_BYTES) {
+                    int length = view.getInt(view.position());
+                    if (length <= 0) {
+                        return null;
+                    }
+                    need += length;
+                }
+                if (need > size - from || need > Integer.MAX_VALUE
+                        || (view.position() == 0 && view.limit() >= need)) {
+                    // 超出文件末尾，或者整条记录都在窗口内仍然无效
+                    return null;
+                }
+                try {
+                    view = map(from, need);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                base = from;
+            }
+        }
+    }
+}
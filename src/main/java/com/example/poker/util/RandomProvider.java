@@ -0,0 +1,171 @@
+package com.example.poker.util;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * 随机数提供者
+ * <p>
+ * 洗牌和机器人决策的随机数统一从这里获取，支持三种模式：
+ * <ul>
+ *   <li>SPLITTABLE：默认模式，每个房间、每个洗牌线程各自拆分出独立的生成器，互不竞争</li>
+ *   <li>SECURE：洗牌使用批量填充的 SecureRandom 字节流，房间内的机器人决策仍用拆分生成器</li>
+ *   <li>SEEDED：由固定种子确定性派生所有生成器，用于复盘和基准测试</li>
+ * </ul>
+ * 房间生成器只应在该房间的处理线程上使用。
+ * </p>
+ */
+public class RandomProvider {
+
+    /**
+     * 随机数模式
+     */
+    public enum Mode {
+        SPLITTABLE,
+        SECURE,
+        SEEDED
+    }
+
+    private static volatile RandomProvider defaultProvider = new RandomProvider(Mode.SPLITTABLE, 0L);
+
+    private final Mode mode;
+    private final long seed;
+    private final SplittableRandom root;
+    private final Map<String, RandomGenerator> roomGenerators = new ConcurrentHashMap<>();
+    private final ThreadLocal<RandomGenerator> shuffleGenerators;
+    private final RandomGenerator sharedShuffleGenerator;
+
+    /**
+     * 构造函数
+     * @param mode 随机数模式
+     * @param seed 种子（仅SEEDED模式使用）
+     */
+    public RandomProvider(Mode mode, long seed) {
+        this.mode = mode;
+        this.seed = seed;
+        this.root = mode == Mode.SEEDED ? new SplittableRandom(seed) : new SplittableRandom();
+        this.shuffleGenerators = ThreadLocal.withInitial(this::split);
+        this.sharedShuffleGenerator = switch (mode) {
+            case SECURE -> new BufferedSecureGenerator(4096);
+            case SEEDED -> new SynchronizedGenerator(new SplittableRandom(seed));
+            default -> null;
+        };
+    }
+
+    /**
+     * 获取全局默认提供者（供不经过Spring创建的对象使用）
+     * @return 默认提供者
+     */
+    public static RandomProvider getDefault() {
+        return defaultProvider;
+    }
+
+    /**
+     * 设置全局默认提供者
+     * @param provider 提供者
+     */
+    public static void setDefault(RandomProvider provider) {
+        defaultProvider = provider;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * 是否为确定性模式（确定性模式下不应使用后台预洗牌）
+     * @return 是否确定性
+     */
+    public boolean isDeterministic() {
+        return mode == Mode.SEEDED;
+    }
+
+    /**
+     * 获取房间专用的生成器
+     * @param roomId 房间ID，为空时返回一个新的独立生成器
+     * @return 生成器
+     */
+    public RandomGenerator forRoom(String roomId) {
+        if (roomId == null) {
+            return split();
+        }
+        return roomGenerators.computeIfAbsent(roomId, id -> mode == Mode.SEEDED
+                ? new SplittableRandom(seed ^ mix(id.hashCode()))
+                : split());
+    }
+
+    /**
+     * 释放房间的生成器
+     * @param roomId 房间ID
+     */
+    public void releaseRoom(String roomId) {
+        if (roomId != null) {
+            roomGenerators.remove(roomId);
+        }
+    }
+
+    /**
+     * 获取洗牌用的生成器，可以在任意线程上调用
+     * @return 生成器
+     */
+    public RandomGenerator forShuffle() {
+        return sharedShuffleGenerator != null ? sharedShuffleGenerator : shuffleGenerators.get();
+    }
+
+    private synchronized RandomGenerator split() {
+        return root.split();
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * 批量填充的安全随机数生成器
+     * 一次从 SecureRandom 取一整块字节，避免每次取数都进入其内部锁
+     */
+    static final class BufferedSecureGenerator implements RandomGenerator {
+        private final SecureRandom secureRandom = new SecureRandom();
+        private final byte[] buffer;
+        private int position;
+
+        BufferedSecureGenerator(int bufferSize) {
+            this.buffer = new byte[bufferSize - bufferSize % Long.BYTES];
+            this.position = buffer.length;
+        }
+
+        @Override
+        public synchronized long nextLong() {
+            if (position == buffer.length) {
+                secureRandom.nextBytes(buffer);
+                position = 0;
+            }
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = (value << 8) | (buffer[position++] & 0xffL);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 串行访问的生成器包装，保证确定性模式下多线程调用也不会破坏序列
+     */
+    static final class SynchronizedGenerator implements RandomGenerator {
+        private final RandomGenerator delegate;
+
+        SynchronizedGenerator(RandomGenerator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized long nextLong() {
+            return delegate.nextLong();
+        }
+    }
+}
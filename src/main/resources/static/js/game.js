@@ -12,6 +12,127 @@ let gameState = {
     selectedCards: new Set(),
     soundEnabled: true
 };
+// 最近一次完整快照（之后的增量事件在其上应用）及其版本号
+let latestState = null;
+let stateVersion = 0;
+// 自己的手牌（服务器单独发到用户队列）
+let myHand = null;
+
+// 紧凑二进制消息解码，与服务器端 CompactCodec 对应
+// 连接时带上 codec: compact 头，服务器把JSON消息转为 Base64 文本形式的紧凑编码
+const CompactCodec = (function() {
+    const MIME_TYPE = 'application/x-poker-compact';
+    const FORMAT_VERSION = 1;
+    // 字段名字典，必须与服务器端顺序一致
+    const FIELDS = [
+        'roomId', 'version', 'snapshot', 'events', 'notifications', 'type', 'playerId',
+        'targetPlayerId', 'count', 'value', 'success', 'loserId', 'currentPlayer', 'pileSize',
+        'handCounts', 'passedPlayers', 'cards', 'players', 'status', 'gameStatus', 'hostId',
+        'maxPlayers', 'playerCount', 'id', 'name', 'rooms', 'removed', 'nextCursor', 'content',
+        'message', 'currentPlayerIndex', 'lastClaim', 'declaredValue', 'lastPlayerId', 'winners',
+        'winner', 'roomName', 'robotCount', 'lastPlayedValue', 'lastPlayedPlayer', 'lastPlayedTime',
+        'lastChallengeTime', 'lastChallengePlayer', 'lastChallengeResult', 'lastChallengeValue',
+        'lastChallengeSuccess', 'readyPlayers', 'nextPlayer', 'data', 'suit', 'joker', 'rank'
+    ];
+    const SUITS = ['SPADES', 'HEARTS', 'CLUBS', 'DIAMONDS'];
+    const JOKER_CODE = 52;
+    const utf8 = new TextDecoder('utf-8');
+
+    function decode(base64) {
+        const binary = atob(base64);
+        const bytes = new Uint8Array(binary.length);
+        for (let i = 0; i < binary.length; i++) {
+            bytes[i] = binary.charCodeAt(i);
+        }
+        const view = new DataView(bytes.buffer);
+        let pos = 0;
+
+        function varint() {
+            let result = 0;
+            let scale = 1;
+            while (true) {
+                const b = bytes[pos++];
+                result += (b & 0x7f) * scale;
+                if ((b & 0x80) === 0) {
+                    return result;
+                }
+                scale *= 128;
+            }
+        }
+
+        function text(length) {
+            const value = utf8.decode(bytes.subarray(pos, pos + length));
+            pos += length;
+            return value;
+        }
+
+        function card(code) {
+            if (code === JOKER_CODE) {
+                return { suit: null, value: 0, joker: true, rank: 'Joker' };
+            }
+            const value = code % 13 + 1;
+            return { suit: SUITS[Math.floor(code / 13)], value: value, joker: false, rank: String(value) };
+        }
+
+        function value() {
+            const tag = bytes[pos++];
+            switch (tag) {
+                case 0: return null;
+                case 1: return false;
+                case 2: return true;
+                case 3: {
+                    const raw = varint();
+                    return raw % 2 === 0 ? raw / 2 : -(raw + 1) / 2;
+                }
+                case 4: {
+                    const number = view.getFloat64(pos);
+                    pos += 8;
+                    return number;
+                }
+                case 5: return text(varint());
+                case 6: {
+                    const size = varint();
+                    const array = new Array(size);
+                    for (let i = 0; i < size; i++) {
+                        array[i] = value();
+                    }
+                    return array;
+                }
+                case 7: {
+                    const size = varint();
+                    const object = {};
+                    for (let i = 0; i < size; i++) {
+                        const key = varint();
+                        const name = key % 2 === 1 ? FIELDS[(key - 1) / 2] : text(key / 2);
+                        object[name] = value();
+                    }
+                    return object;
+                }
+                case 8: return card(bytes[pos++]);
+                default: throw new Error('无效的消息编码类型: ' + tag);
+            }
+        }
+
+        if (bytes[pos++] !== FORMAT_VERSION) {
+            throw new Error('不支持的消息编码版本');
+        }
+        return value();
+    }
+
+    return {
+        MIME_TYPE: MIME_TYPE,
+        decode: decode
+    };
+})();
+
+// 按内容类型解码消息体
+function decodeMessage(message) {
+    const contentType = message.headers && message.headers['content-type'];
+    if (contentType && contentType.indexOf(CompactCodec.MIME_TYPE) === 0) {
+        return CompactCodec.decode(message.body);
+    }
+    return JSON.parse(message.body);
+}
 
 // 声音效果管理
 const sounds = {
@@ -136,21 +257,45 @@ function connectWebSocket() {
         };
         
         // 设置连接成功和失败的回调
-        stompClient.connect({}, function(frame) {
+        // 以玩家ID登录，服务器据此把手牌发到该玩家自己的队列
+        const loginId = typeof currentPlayer === 'object' ? currentPlayer.id : currentPlayer;
+        // codec: compact 请求服务器使用紧凑编码
+        stompClient.connect({ login: loginId, codec: 'compact' }, function(frame) {
             // 确保使用正确的玩家ID
             
             // 订阅游戏状态更新
+            // 每条命令的快照、增量事件和通知合并在一帧中
             console.debug('订阅游戏状态更新');
-            console.debug('状态主题:', '/topic/game/state/' + currentRoomId);
-            stompClient.subscribe('/topic/game/state/' + currentRoomId, function(message) {
+            console.debug('状态主题:', '/topic/game/updates/' + currentRoomId);
+            stompClient.subscribe('/topic/game/updates/' + currentRoomId, function(message) {
                 try {
-                    console.debug('收到游戏状态更新原始数据:', message.body);
-                    const state = JSON.parse(message.body);
-                    console.debug('解析后的游戏状态:', state);
-                    handleGameState(state); 
+                    const update = decodeMessage(message);
+                    console.debug('收到房间更新:', update);
+                    if (update.snapshot) {
+                        applySnapshot(update.snapshot);
+                    }
+                    (update.events || []).forEach(applyGameEvent);
+                    (update.notifications || []).forEach(showGameNotification);
                 } catch (error) {
-                    console.error('[DEBUG] 解析游戏状态失败:', error);
+                    console.error('[DEBUG] 处理房间更新失败:', error);
                     console.error('[DEBUG] 原始消息:', message.body);
+                    requestStateSync();
+                }
+            });
+
+            // 订阅自己的手牌
+            stompClient.subscribe('/user/queue/hand', function(message) {
+                try {
+                    const fragment = decodeMessage(message);
+                    myHand = fragment.cards || [];
+                    if (latestState) {
+                        const me = typeof currentPlayer === 'object' ? currentPlayer.id : currentPlayer;
+                        latestState.playerHands = latestState.playerHands || {};
+                        latestState.playerHands[me] = myHand.slice();
+                        handleGameState(latestState);
+                    }
+                } catch (error) {
+                    console.error('[DEBUG] 处理手牌失败:', error);
                 }
             });
 
@@ -160,7 +305,7 @@ function connectWebSocket() {
             stompClient.subscribe('/topic/game/notification/' + currentRoomId, function(message) {
                 try {
                     console.debug('收到游戏通知原始数据:', message.body);
-                    const notification = JSON.parse(message.body);
+                    const notification = decodeMessage(message);
                     console.debug('解析后的游戏通知:', notification);
                     showGameNotification(notification);
                 } catch (error) {
@@ -175,7 +320,7 @@ function connectWebSocket() {
             stompClient.subscribe('/topic/game/chat/' + currentRoomId, function(message) {
                 try {
                     console.debug('收到聊天消息原始数据:', message.body);
-                    const chatMessage = JSON.parse(message.body);
+                    const chatMessage = decodeMessage(message);
                     console.debug('解析后的聊天消息:', chatMessage);
                     
                     // 如果不是自己发送的消息，则显示（自己的消息在发送时就已显示）
@@ -205,7 +350,7 @@ function connectWebSocket() {
             stompClient.subscribe('/user/queue/notifications', function(message) {
                 try {
                     console.debug('收到个人通知原始数据:', message.body);
-                    const notification = JSON.parse(message.body);
+                    const notification = decodeMessage(message);
                     console.debug('解析后的个人通知:', notification);
                     
                     // 处理强制登出消息
@@ -229,7 +374,7 @@ function connectWebSocket() {
             stompClient.subscribe('/user/queue/joinRoom', function(message) {
                 try {
                     console.debug('收到加入房间响应原始数据:', message.body);
-                    const response = JSON.parse(message.body);
+                    const response = decodeMessage(message);
                     handleJoinRoomResponse(response);
                 } catch (error) {
                     console.error('[DEBUG] 解析加入房间响应失败:', error);
@@ -242,7 +387,7 @@ function connectWebSocket() {
             stompClient.subscribe('/user/queue/errors', function(message) {
                 try {
                     console.debug('收到错误消息原始数据:', message.body);
-                    const response = JSON.parse(message.body);
+                    const response = decodeMessage(message);
                     console.error('[DEBUG] 解析后的错误消息:', response);
                     showError(response.message);
                 } catch (error) {
@@ -532,6 +677,111 @@ function handleGameState(state) {
 
 }
 
+/**
+ * 应用服务器发来的公开快照
+ * @param {Object} state 公开快照
+ */
+function applySnapshot(state) {
+    // 忽略比已应用的事件更旧的快照
+    if (state.version !== undefined) {
+        if (state.version < stateVersion) return;
+        stateVersion = state.version;
+    }
+    latestState = expandPublicState(state);
+    handleGameState(latestState);
+}
+
+/**
+ * 在最近的快照上应用增量事件
+ * 版本号不连续时丢弃事件并请求完整快照
+ * @param {Object} event 游戏事件
+ */
+function applyGameEvent(event) {
+    if (!latestState || event.version <= stateVersion) return;
+    if (event.version !== stateVersion + 1) {
+        console.debug('事件版本号不连续，请求重新同步:', stateVersion, event.version);
+        requestStateSync();
+        return;
+    }
+    stateVersion = event.version;
+
+    const state = latestState;
+    const me = typeof currentPlayer === 'object' ? currentPlayer.id : currentPlayer;
+    state.playerHands = state.playerHands || {};
+
+    switch (event.type) {
+        case 'PLAY':
+            state.lastClaim = `玩家${event.playerId}打出${event.count}张${event.value}`;
+            state.lastPlayedValue = event.value;
+            state.lastPlayerId = event.playerId;
+            break;
+        case 'CHALLENGE':
+            state.lastClaim = null;
+            state.lastPlayedValue = null;
+            break;
+        default:
+            break;
+    }
+
+    // 底盘只显示张数，未翻开的牌用牌背占位
+    const pile = (state.currentPile || []).slice(0, event.pileSize);
+    while (pile.length < event.pileSize) pile.push({ hidden: true });
+    state.currentPile = pile;
+
+    // 其他玩家只更新张数，自己的手牌随后从用户队列收到
+    if (event.handCounts) {
+        for (const [playerId, count] of Object.entries(event.handCounts)) {
+            if (playerId === me) continue;
+            state.playerHands[playerId] = hiddenCards(count);
+        }
+    }
+
+    state.currentPlayer = event.currentPlayer;
+    state.currentPlayerIndex = (state.players || []).indexOf(event.currentPlayer);
+    state.passedPlayers = event.passedPlayers || [];
+    handleGameState(state);
+}
+
+/**
+ * 把公开快照中的张数展开成前端使用的手牌和底盘结构
+ * 其他玩家的手牌和未翻开的底盘用牌背占位，自己的手牌使用最近收到的私有手牌
+ * @param {Object} state 公开快照
+ * @returns {Object} 展开后的状态
+ */
+function expandPublicState(state) {
+    if (state.handCounts) {
+        const me = typeof currentPlayer === 'object' ? currentPlayer.id : currentPlayer;
+        state.playerHands = {};
+        for (const [playerId, count] of Object.entries(state.handCounts)) {
+            state.playerHands[playerId] = playerId === me && myHand ? myHand.slice() : hiddenCards(count);
+        }
+    }
+    if (!state.currentPile) {
+        state.currentPile = hiddenCards(state.pileSize || 0);
+    }
+    return state;
+}
+
+/**
+ * 生成指定张数的牌背占位
+ * @param {number} count 张数
+ * @returns {Array} 占位牌
+ */
+function hiddenCards(count) {
+    const cards = [];
+    while (cards.length < count) cards.push({ hidden: true });
+    return cards;
+}
+
+/**
+ * 请求完整的游戏状态快照
+ */
+function requestStateSync() {
+    if (!stompClient || !currentRoomId) return;
+    const playerIdStr = typeof currentPlayer === 'object' ? currentPlayer.id : currentPlayer;
+    stompClient.send("/app/game/sync", {}, JSON.stringify({ roomId: currentRoomId, playerId: playerIdStr }));
+}
+
 function updateGameState(state) {
     try {
         console.log('更新游戏状态:', state);
@@ -903,8 +1153,10 @@ function updateCurrentPile(pile) {
         const cardElement = document.createElement('div');
         cardElement.className = 'card pile-card';
         
-        // 处理特殊牌（大小王）
-        if (card.value === '0') {
+        // 未翻开的牌显示牌背
+        if (card.hidden) {
+            cardElement.innerHTML = `<div class="center-icon">🂠</div>`;
+        } else if (card.value === '0') {
             cardElement.innerHTML = `
                 <div class="rank joker">JOKER</div>
                 <div class="center-icon joker">🃏</div>
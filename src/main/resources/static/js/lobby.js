@@ -4,6 +4,18 @@ let currentPlayer = null;
 let connectionAttempts = 0;
 const MAX_RECONNECT_ATTEMPTS = 3;
 let currentRoom = null;
+// 大厅房间列表按节点分别保存：节点ID -> {rooms: 房间ID -> 房间信息, version: 已应用的版本号}
+// 每个节点只发布自己的房间，版本号也只在该节点内连续
+let lobbyNodes = new Map();
+// 已订阅增量的节点：节点ID -> 订阅
+let lobbyDeltaSubscriptions = new Map();
+const LOBBY_PAGE_SIZE = 50;
+// 大厅列表的查询条件，增量也按同样的条件过滤
+const LOBBY_QUERY = {
+    open: true,
+    sort: 'NEWEST',
+    limit: LOBBY_PAGE_SIZE
+};
 
 // 页面加载完成后初始化
 $(document).ready(function() {
@@ -77,9 +89,16 @@ function setupSubscriptions() {
         return;
     }
 
-    // 订阅房间列表更新
-    stompClient.subscribe('/topic/rooms', function(message) {
-        updateRoomList(JSON.parse(message.body));
+    // 订阅房间分页查询结果，每页只包含一个节点上的房间
+    lobbyNodes = new Map();
+    lobbyDeltaSubscriptions = new Map();
+    stompClient.subscribe('/user/queue/rooms', function(message) {
+        applyLobbyPage(JSON.parse(message.body));
+    });
+
+    // 旧的完整房间列表（管理操作仍会发送），只包含一个节点的房间，收到后重新查询各节点
+    stompClient.subscribe('/topic/rooms', function() {
+        loadRoomList();
     });
 
     // 订阅玩家列表更新
@@ -103,13 +122,94 @@ function setupSubscriptions() {
     });
 }
 
-// 加载房间列表
-function loadRoomList() {
+// 加载房间列表；不指定节点时刷新所有已知节点，还不知道节点时查询连接所在的节点，
+// 返回的节点列表用于继续查询其他节点
+function loadRoomList(nodeId) {
     if (!stompClient || !stompClient.connected) {
         console.error('WebSocket未连接');
         return;
     }
-    stompClient.send("/app/rooms/list", {}, {});
+    if (nodeId === undefined && lobbyNodes.size > 0) {
+        lobbyNodes.forEach((state, known) => loadRoomList(known));
+        return;
+    }
+    // 只请求第一页可加入的房间，结果发到 /user/queue/rooms
+    const query = nodeId ? Object.assign({}, LOBBY_QUERY, { nodeId: nodeId }) : LOBBY_QUERY;
+    stompClient.send("/app/rooms/query", {}, JSON.stringify(query));
+}
+
+// 应用一个节点的房间分页，并订阅该节点的增量；第一次得知的其他节点继续查询
+function applyLobbyPage(page) {
+    const nodeId = page.nodeId || '';
+    lobbyNodes.set(nodeId, {
+        rooms: new Map((page.rooms || []).map(room => [room.id, room])),
+        version: page.version || 0
+    });
+    if (!lobbyDeltaSubscriptions.has(nodeId)) {
+        lobbyDeltaSubscriptions.set(nodeId, stompClient.subscribe('/topic/rooms/delta/' + nodeId, function(message) {
+            applyLobbyDelta(JSON.parse(message.body));
+        }));
+    }
+    (page.nodes || []).forEach(other => {
+        if (!lobbyNodes.has(other)) {
+            // 先占位，避免多个分页同时触发重复查询
+            lobbyNodes.set(other, { rooms: new Map(), version: -1 });
+            loadRoomList(other);
+        }
+    });
+    renderLobbyRooms();
+}
+
+// 房间是否符合大厅的查询条件，与服务端的过滤条件一致
+function matchesLobbyQuery(room) {
+    if (LOBBY_QUERY.open && !(room.status === 'WAITING' && room.playerCount < room.maxPlayers)) {
+        return false;
+    }
+    if (LOBBY_QUERY.status && room.status !== LOBBY_QUERY.status) {
+        return false;
+    }
+    return !LOBBY_QUERY.maxPlayers || room.maxPlayers === LOBBY_QUERY.maxPlayers;
+}
+
+// 应用某个节点的大厅增量，版本不连续时只重新请求该节点的第一页
+function applyLobbyDelta(update) {
+    const nodeId = update.nodeId || '';
+    const state = lobbyNodes.get(nodeId);
+    if (!state || state.version < 0 || update.version <= state.version) {
+        // 该节点的分页还没到，分页自带版本号
+        return;
+    }
+    if (update.version !== state.version + 1) {
+        console.debug(`节点 ${nodeId} 的大厅版本不连续 (${state.version} -> ${update.version})，重新加载房间列表`);
+        state.version = -1;
+        loadRoomList(nodeId);
+        return;
+    }
+    let lobbyRooms = state.rooms;
+    (update.rooms || []).forEach(room => {
+        if (!matchesLobbyQuery(room)) {
+            // 满员或已开始的房间不再显示
+            lobbyRooms.delete(room.id);
+        } else if (lobbyRooms.has(room.id)) {
+            lobbyRooms.set(room.id, room);
+        } else {
+            // 新房间排在最前面
+            lobbyRooms = new Map([[room.id, room], ...lobbyRooms]);
+        }
+    });
+    (update.removed || []).forEach(roomId => lobbyRooms.delete(roomId));
+    // 只保留一页，超出的是最早的房间
+    Array.from(lobbyRooms.keys()).slice(LOBBY_PAGE_SIZE).forEach(roomId => lobbyRooms.delete(roomId));
+    state.rooms = lobbyRooms;
+    state.version = update.version;
+    renderLobbyRooms();
+}
+
+// 合并各节点的房间显示
+function renderLobbyRooms() {
+    const rooms = [];
+    lobbyNodes.forEach(state => state.rooms.forEach(room => rooms.push(room)));
+    updateRoomList(rooms);
 }
 
 //加载玩家列表
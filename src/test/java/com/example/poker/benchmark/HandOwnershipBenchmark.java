@@ -0,0 +1,88 @@
+package com.example.poker.benchmark;
+
+import com.example.poker.model.Card;
+import com.example.poker.model.CardHand;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出牌时手牌拥有判断和移除的基准测试
+ * <p>
+ * 对比旧的"复制列表再逐张移除"做法与 CardHand 的计数做法，
+ * 手牌越大旧做法越慢，而 CardHand 的耗时应基本不变。
+ * 运行方式：mvn test-compile 后执行本类的 main 方法。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandOwnershipBenchmark {
+
+    @Param({"13", "54", "108", "216"})
+    private int handSize;
+
+    @Param({"3"})
+    private int playSize;
+
+    private List<Card> listHand;
+    private CardHand cardHand;
+    private List<Card> play;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        listHand = new ArrayList<>(handSize);
+        for (int i = 0; i < handSize; i++) {
+            listHand.add(Card.ofCode(Card.codeOfPhysical(random.nextInt(Card.CARDS_PER_DECK))));
+        }
+        cardHand = new CardHand(listHand);
+        // 出的牌取自手牌末尾，旧做法需要扫描大部分手牌才能找到
+        play = new ArrayList<>(listHand.subList(handSize - playSize, handSize));
+    }
+
+    /**
+     * 旧做法：复制手牌校验，再在原手牌上逐张移除
+     */
+    @Benchmark
+    public boolean listCopyAndRemove() {
+        List<Card> copy = new ArrayList<>(listHand);
+        for (Card card : play) {
+            if (!copy.remove(card)) {
+                return false;
+            }
+        }
+        List<Card> hand = new ArrayList<>(listHand);
+        for (Card card : play) {
+            hand.remove(card);
+        }
+        return hand.size() == handSize - playSize;
+    }
+
+    /**
+     * 新做法：按计数一次完成校验和移除，之后放回以保持状态不变
+     */
+    @Benchmark
+    public boolean cardHandRemoveExactly() {
+        boolean owned = cardHand.removeExactly(play);
+        cardHand.addAll(play);
+        return owned;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HandOwnershipBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.poker.benchmark;
+
+import com.example.poker.model.Card;
+import com.example.poker.model.Claim;
+import com.example.poker.model.MonteCarloSearch;
+import com.example.poker.model.RobotView;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 专家机器人搜索一个时间片的开销
+ * <p>
+ * 每次调用执行64次迭代（确定化 + 模拟），据此估算默认50毫秒预算内每个决策能完成的迭代次数。
+ * 配合 -prof gc 运行，迭代本身不应分配对象。
+ * 运行方式：mvn test-compile 后执行本类的 main 方法。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MonteCarloSearchBenchmark {
+
+    @Param({"1", "2"})
+    private int deckCount;
+
+    private MonteCarloSearch.Worker worker;
+
+    @Setup
+    public void setUp() {
+        int[] own = new int[Card.RANK_COUNT];
+        own[1] = 2;
+        own[4] = 3 * deckCount;
+        own[8] = 1;
+        own[12] = 2;
+        own[Card.JOKER_RANK] = 1;
+        int hand = 13 * deckCount;
+        RobotView view = RobotView.of(1, new int[]{hand, hand, hand, hand},
+                own, 4, new Claim("alice", 2, 4), 0, deckCount);
+        worker = new MonteCarloSearch(view).newWorker(42);
+    }
+
+    @Benchmark
+    public int slice() {
+        worker.run(64);
+        return worker.getIterations();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MonteCarloSearchBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
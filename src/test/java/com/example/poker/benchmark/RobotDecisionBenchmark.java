@@ -0,0 +1,91 @@
+package com.example.poker.benchmark;
+
+import com.example.poker.model.Card;
+import com.example.poker.model.CardHand;
+import com.example.poker.model.Claim;
+import com.example.poker.model.RobotPlayer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 机器人一个回合的决策开销
+ * <p>
+ * 复用同一个机器人实例，依次执行质疑判断、选牌和选择声明点数，覆盖新一轮出牌、跟牌和说谎跟牌三种情况。
+ * 配合 -prof gc 运行，gc.alloc.rate.norm 应接近 0 B/op。
+ * 运行方式：mvn test-compile 后执行本类的 main 方法。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RobotDecisionBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD"})
+    private String difficulty;
+
+    private RobotPlayer robot;
+    private CardHand pile;
+    private Claim follow;
+    private Claim missing;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        CardHand hand = new CardHand();
+        for (int i = 0; i < 13; i++) {
+            hand.addCode(Card.codeOfPhysical(random.nextInt(Card.CARDS_PER_DECK)));
+        }
+        robot = new RobotPlayer("robot_0", "机器人0", difficulty, new SplittableRandom(7));
+        robot.setHand(hand);
+        pile = new CardHand();
+        pile.addCode(2);
+        pile.addCode(15);
+        // 跟随手里有的点数，以及手里没有的点数
+        int held = hand.get(0).getRankIndex();
+        int absent = 1;
+        while (hand.countRank(absent) > 0) {
+            absent++;
+        }
+        follow = new Claim("alice", 2, held);
+        missing = new Claim("alice", 2, absent);
+    }
+
+    @Benchmark
+    public void lead(Blackhole blackhole) {
+        List<Card> selected = robot.selectCardsToPlay(null);
+        blackhole.consume(robot.chooseClaimRank(selected, null));
+    }
+
+    @Benchmark
+    public void followHeldRank(Blackhole blackhole) {
+        blackhole.consume(robot.decideToChallenge(follow, pile));
+        List<Card> selected = robot.selectCardsToPlay(follow);
+        blackhole.consume(robot.chooseClaimRank(selected, follow));
+    }
+
+    @Benchmark
+    public void followMissingRank(Blackhole blackhole) {
+        blackhole.consume(robot.decideToChallenge(missing, pile));
+        List<Card> selected = robot.selectCardsToPlay(missing);
+        blackhole.consume(robot.chooseClaimRank(selected, missing));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RobotDecisionBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
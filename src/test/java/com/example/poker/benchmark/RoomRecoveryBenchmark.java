@@ -0,0 +1,169 @@
+package com.example.poker.benchmark;
+
+import com.example.poker.PokerGameApplication;
+import com.example.poker.dto.RecoveryStats;
+import com.example.poker.model.Card;
+import com.example.poker.model.GameMessage;
+import com.example.poker.model.GameRoom;
+import com.example.poker.service.GameJournal;
+import com.example.poker.service.GameService;
+import com.example.poker.service.RoomManagementService;
+import com.example.poker.service.RoomRecovery;
+import com.example.poker.service.RoomRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 启动恢复的基准测试
+ * <p>
+ * 先用真实的引擎生成一份日志：rooms 个四人房间，每个房间开局后出若干轮牌并穿插质疑，
+ * 按 snapshotEvery 写快照。然后在另一个实例上反复从这份日志恢复全部房间，
+ * 对比快照间隔对读取和重放耗时的影响。
+ * 运行方式：mvn test-compile 后执行本类的 main 方法。
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomRecoveryBenchmark {
+
+    @Param({"10000"})
+    private int rooms;
+
+    /** 每个房间开局后执行的出牌和质疑次数 */
+    @Param({"40"})
+    private int commandsPerRoom;
+
+    @Param({"10", "1000"})
+    private int snapshotEvery;
+
+    private Path dir;
+    private ConfigurableApplicationContext context;
+    private RoomRecovery recovery;
+    private RoomRegistry registry;
+    private RoomManagementService roomService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("recovery-benchmark");
+        Path journal = dir.resolve("game-events.journal");
+        ConfigurableApplicationContext writer = start(
+                "--game.journal.path=" + journal,
+                "--game.journal.queue-capacity=1000000",
+                "--game.recovery.snapshot-every=" + snapshotEvery);
+        try {
+            GameService gameService = writer.getBean(GameService.class);
+            RoomManagementService writerRooms = writer.getBean(RoomManagementService.class);
+            IntStream.range(0, rooms).parallel().forEach(i -> playRoom(writerRooms, gameService, i));
+            GameJournal gameJournal = writer.getBean(GameJournal.class);
+            if (!gameJournal.awaitCommitted(60000) || gameJournal.getDroppedCount() > 0) {
+                throw new IllegalStateException("生成日志时有条目未写入");
+            }
+        } finally {
+            writer.close();
+        }
+
+        // 恢复实例不写日志，由基准方法显式恢复
+        context = start("--game.journal.enabled=false");
+        recovery = context.getBean(RoomRecovery.class);
+        registry = context.getBean(RoomRegistry.class);
+        roomService = context.getBean(RoomManagementService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearRooms() {
+        for (String roomId : new ArrayList<>(registry.ids())) {
+            roomService.removeRoom(roomId);
+        }
+    }
+
+    /**
+     * 从日志恢复全部房间
+     */
+    @Benchmark
+    public RecoveryStats recoverAllRooms() throws IOException {
+        RecoveryStats stats = recovery.recover(dir.resolve("game-events.journal"));
+        if (stats.getRooms() != rooms) {
+            throw new IllegalStateException("恢复的房间数不符: " + stats);
+        }
+        return stats;
+    }
+
+    private static ConfigurableApplicationContext start(String... args) {
+        List<String> all = new ArrayList<>(List.of(args));
+        all.add("--game.journal.fsync=false");
+        all.add("--game.recovery.enabled=false");
+        all.add("--logging.level.com.example.poker=WARN");
+        all.add("--spring.jmx.enabled=false");
+        return new SpringApplicationBuilder(PokerGameApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(all.toArray(new String[0]));
+    }
+
+    /**
+     * 四个玩家开局，当前玩家依次打出第一张牌，每隔几手由下家质疑
+     */
+    private void playRoom(RoomManagementService roomService, GameService gameService, int index) {
+        String host = "p" + index + "_0";
+        String roomId = roomService.createRoom(host, 4).getId();
+        for (int seat = 1; seat < 4; seat++) {
+            roomService.joinRoom(roomId, "p" + index + "_" + seat);
+        }
+        gameService.startGame(roomId, host, 1);
+        try {
+            for (int i = 0; i < commandsPerRoom; i++) {
+                GameRoom room = roomService.getRoom(roomId);
+                GameMessage message = new GameMessage();
+                message.setRoomId(roomId);
+                message.setPlayerId(room.getCurrentPlayer());
+                if (i % 4 == 3) {
+                    message.setTargetPlayerId(room.getLastPlayerId());
+                    gameService.challenge(roomId, message);
+                    continue;
+                }
+                Card card = room.getPlayerHands().get(room.getCurrentPlayer()).get(0);
+                message.setCards(List.of(card));
+                message.setDeclaredCount(1);
+                message.setDeclaredValue(room.getLastClaim() != null && !room.haveAllPlayersPassed()
+                        ? room.getLastPlayedValue() : card.getRank());
+                gameService.playCards(roomId, message);
+            }
+        } catch (RuntimeException e) {
+            // 有玩家出完手牌后游戏结束，停止该房间
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RoomRecoveryBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
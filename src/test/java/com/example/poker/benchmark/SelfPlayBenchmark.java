@@ -0,0 +1,58 @@
+package com.example.poker.benchmark;
+
+import com.example.poker.simulation.SelfPlaySimulator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 规则引擎和机器人策略的整局吞吐量回归基准
+ * <p>
+ * 每次调用在当前线程上完整模拟一局（发牌、机器人决策、出牌、过牌、质疑），返回本局的动作数。
+ * 配合 -prof gc 运行，gc.alloc.rate.norm 即每局分配的字节数。
+ * 运行方式：mvn test-compile 后执行本类的 main 方法。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SelfPlayBenchmark {
+
+    @Param({"3", "4"})
+    private int playerCount;
+
+    @Param({"1", "2"})
+    private int deckCount;
+
+    @Param({"MEDIUM", "HARD"})
+    private String difficulty;
+
+    private SelfPlaySimulator.Table table;
+
+    @Setup
+    public void setUp() {
+        SelfPlaySimulator simulator = new SelfPlaySimulator(playerCount, deckCount, List.of(difficulty), 1, 42L);
+        table = simulator.newTable(0);
+    }
+
+    @Benchmark
+    public int game() {
+        return table.playGame();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SelfPlayBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
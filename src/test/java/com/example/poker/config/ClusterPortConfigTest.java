@@ -0,0 +1,33 @@
+package com.example.poker.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterPortConfigTest {
+
+    private final ClusterPortConfig.InternalPortFilter filter = new ClusterPortConfig.InternalPortFilter(8091);
+
+    @Test
+    void testInternalPathsOnlyOnClusterPort() throws Exception {
+        assertEquals(404, filter("/internal/cluster/commands", 8080).getStatus());
+        assertEquals(200, filter("/internal/cluster/commands", 8091).getStatus());
+    }
+
+    @Test
+    void testClusterPortServesOnlyInternalPaths() throws Exception {
+        assertEquals(404, filter("/api/game/room", 8091).getStatus());
+        assertEquals(200, filter("/api/game/room", 8080).getStatus());
+    }
+
+    private MockHttpServletResponse filter(String path, int localPort) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setLocalPort(localPort);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.poker.config;
+
+import com.example.poker.dto.DestinationTraceStats;
+import com.example.poker.dto.FrameTraceStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameTracerTest {
+
+    private final FrameTracer tracer = new FrameTracer();
+
+    @AfterEach
+    void tearDown() {
+        tracer.stop();
+    }
+
+    @Test
+    void testDestinationsWithIdsAreNormalized() {
+        assertEquals("/topic/game/updates/*", FrameTracer.normalize("/topic/game/updates/room_1700000000000"));
+        assertEquals("/app/game/action", FrameTracer.normalize("/app/game/action"));
+        assertEquals("/user/queue/hand", FrameTracer.normalize("/user/queue/hand"));
+        assertEquals("-", FrameTracer.normalize(null));
+    }
+
+    @Test
+    void testFramesAreCountedPerDestination() {
+        ReflectionTestUtils.setField(tracer, "sampleEvery", 0);
+        for (int i = 0; i < 10; i++) {
+            handle(frame(StompCommand.SEND, "/app/game/action", "{}"));
+        }
+        handle(frame(StompCommand.SUBSCRIBE, "/topic/game/updates/room_1", ""));
+        handle(frame(StompCommand.SUBSCRIBE, "/topic/game/updates/room_2", ""));
+
+        FrameTraceStats stats = tracer.getStats();
+        assertEquals(2, stats.getDestinations().size());
+        DestinationTraceStats actions = stats.getDestinations().get(0);
+        assertEquals("SEND", actions.getCommand());
+        assertEquals("/app/game/action", actions.getDestination());
+        assertEquals(10, actions.getCount());
+        assertTrue(actions.getP50Micros() <= actions.getP99Micros());
+        assertEquals(2, stats.getDestinations().get(1).getCount());
+        assertEquals(0, stats.getSampledFrames());
+    }
+
+    @Test
+    void testFrameIsCountedOncePerMessageWithSeveralHandlers() throws Exception {
+        ReflectionTestUtils.setField(tracer, "sampleEvery", 0);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // 与入站通道一样有三个处理器：注解方法、用户目标地址和消息代理
+            ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+            channel.addInterceptor(tracer);
+            AtomicInteger handled = new AtomicInteger();
+            for (int i = 0; i < 3; i++) {
+                channel.subscribe(message -> handled.incrementAndGet());
+            }
+
+            for (int i = 0; i < 5; i++) {
+                channel.send(frame(StompCommand.SEND, "/app/game/action", "{}"));
+            }
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (count() < 5 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(50);
+            assertEquals(15, handled.get());
+            assertEquals(5, count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDestinationCountIsBounded() {
+        ReflectionTestUtils.setField(tracer, "maxDestinations", 2);
+        ReflectionTestUtils.setField(tracer, "sampleEvery", 0);
+        handle(frame(StompCommand.SEND, "/app/a", ""));
+        handle(frame(StompCommand.SEND, "/app/b", ""));
+        handle(frame(StompCommand.SEND, "/app/c", ""));
+        handle(frame(StompCommand.SEND, "/app/d", ""));
+
+        FrameTraceStats stats = tracer.getStats();
+        assertEquals(3, stats.getDestinations().size());
+        assertTrue(stats.getDestinations().stream()
+                .anyMatch(d -> d.getDestination().equals("*") && d.getCount() == 2));
+    }
+
+    @Test
+    void testSamplesGoThroughTheSink() throws Exception {
+        ReflectionTestUtils.setField(tracer, "sampleEvery", 2);
+        tracer.start();
+        for (int i = 0; i < 4; i++) {
+            handle(frame(StompCommand.SEND, "/app/game/action", "{\"type\":\"PASS\"}"));
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (tracer.getStats().getRecentSamples().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        FrameTraceStats stats = tracer.getStats();
+        assertEquals(2, stats.getSampledFrames());
+        assertEquals(2, stats.getRecentSamples().size());
+        assertTrue(stats.getRecentSamples().get(0).contains("\"type\":\"PASS\""));
+    }
+
+    @Test
+    void testSamplesAreDroppedWhenSinkIsUnavailable() {
+        ReflectionTestUtils.setField(tracer, "sampleEvery", 1);
+        handle(frame(StompCommand.SEND, "/app/game/action", "{}"));
+        handle(frame(StompCommand.SEND, "/app/game/action", "{}"));
+
+        FrameTraceStats stats = tracer.getStats();
+        assertEquals(0, stats.getSampledFrames());
+        assertEquals(2, stats.getDroppedSamples());
+        assertEquals(2, stats.getDestinations().get(0).getCount());
+    }
+
+    private long count() {
+        return tracer.getStats().getDestinations().stream().mapToLong(DestinationTraceStats::getCount).sum();
+    }
+
+    /**
+     * 按入站通道的顺序调用拦截器
+     */
+    private void handle(Message<byte[]> message) {
+        Message<?> sent = tracer.preSend(message, null);
+        Message<?> handled = tracer.beforeHandle(sent, null, null);
+        tracer.afterMessageHandled(handled, null, null, null);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String destination, String body) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setSessionId("trace-session");
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.poker.config;
+
+import com.example.poker.PokerGameApplication;
+import com.example.poker.util.CompactCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class WebSocketConfigTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testOnlyNegotiatedSessionsGetCompactPayload() throws Exception {
+        WebSocketConfig config = new WebSocketConfig();
+        config.setObjectMapper(objectMapper);
+
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId("compact-session");
+        connect.setNativeHeader(WebSocketConfig.CODEC_HEADER, WebSocketConfig.CODEC_COMPACT);
+        config.negotiateCodec(connect);
+
+        byte[] json = "{\"roomId\":\"r1\",\"version\":7,\"snapshot\":null}".getBytes(StandardCharsets.UTF_8);
+
+        Message<?> compact = config.encodeForSession(brokerMessage("compact-session", json));
+        assertEquals(CompactMessageConverter.MIME_TYPE,
+                StompHeaderAccessor.wrap(compact).getContentType());
+        byte[] binary = Base64.getDecoder().decode((byte[]) compact.getPayload());
+        assertEquals(objectMapper.readTree("{\"roomId\":\"r1\",\"version\":7}"), CompactCodec.decode(binary));
+
+        // 同一负载广播给另一个紧凑编码会话时复用转码结果
+        StompHeaderAccessor other = StompHeaderAccessor.create(StompCommand.CONNECT);
+        other.setSessionId("compact-session-2");
+        other.setNativeHeader(WebSocketConfig.CODEC_HEADER, WebSocketConfig.CODEC_COMPACT);
+        config.negotiateCodec(other);
+        assertSame(compact.getPayload(), config.encodeForSession(brokerMessage("compact-session-2", json)).getPayload());
+
+        Message<?> plain = brokerMessage("json-session", json);
+        assertSame(plain, config.encodeForSession(plain));
+    }
+
+    @Test
+    void testRelayModeUsesExternalBroker() {
+        // 使用 -Pbroker-relay 构建时运行
+        assumeTrue(relayClientPresent());
+        try (ConfigurableApplicationContext context = startRelayNode()) {
+            StompBrokerRelayMessageHandler relay = context.getBean(StompBrokerRelayMessageHandler.class);
+            assertEquals("localhost", relay.getRelayHost());
+            assertEquals(61699, relay.getRelayPort());
+        }
+    }
+
+    @Test
+    void testRelayModeWithoutReactorNettyFailsAtStartup() {
+        assumeFalse(relayClientPresent());
+        Throwable failure = assertThrows(Exception.class, WebSocketConfigTest::startRelayNode);
+        while (failure.getCause() != null && !(failure instanceof IllegalStateException)) {
+            failure = failure.getCause();
+        }
+        assertTrue(failure.getMessage().contains("reactor-netty"), failure.getMessage());
+    }
+
+    private static boolean relayClientPresent() {
+        return ClassUtils.isPresent(WebSocketConfig.RELAY_CLIENT_CLASS, WebSocketConfigTest.class.getClassLoader());
+    }
+
+    private static ConfigurableApplicationContext startRelayNode() {
+        // 代理端口上没有服务时中继只在后台重连，不影响启动
+        return new SpringApplicationBuilder(PokerGameApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "game.broker.relay.enabled=true",
+                        "game.broker.relay.port=61699",
+                        "spring.jmx.enabled=false")
+                .run();
+    }
+
+    private Message<byte[]> brokerMessage(String sessionId, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/game/updates/r1");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.poker.config;
+
+import com.example.poker.dto.WebSocketChannelStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WebSocketFlowControlTest {
+
+    private static final int SEND_TIME_LIMIT = 50;
+
+    private final WebSocketFlowControl flowControl = new WebSocketFlowControl();
+
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+    /** 第一次发送卡住，模拟网络很慢的客户端 */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Thread stuckSender;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        if (stuckSender != null) {
+            stuckSender.join(2000);
+        }
+    }
+
+    @Test
+    void testSlowClientDropsMessagesThenRecovers() throws Exception {
+        WebSocketFlowControl.GuardedSession session = stallFirstSend("s1");
+
+        session.sendMessage(update("v2"));
+        WebSocketChannelStats stats = flowControl.getStats();
+        assertEquals(1, stats.getDroppedMessages());
+        assertEquals(1, stats.getSessionDowngrades());
+        assertEquals(1, stats.getLaggingSessions());
+
+        release.countDown();
+        stuckSender.join(2000);
+        session.sendMessage(update("v3"));
+        assertEquals(List.of("v1", "v3"), delivered);
+        assertFalse(session.isLagging());
+        assertEquals(0, flowControl.getStats().getLaggingSessions());
+    }
+
+    @Test
+    void testHandFramesAreNeverDropped() throws Exception {
+        WebSocketFlowControl.GuardedSession session = stallFirstSend("s4");
+
+        // 手牌没有版本号，丢了客户端无法察觉，只能按发送限制断开让客户端重新加载
+        assertThrows(SessionLimitExceededException.class,
+                () -> session.sendMessage(frame("/user/queue/hand", "h1")));
+        WebSocketChannelStats stats = flowControl.getStats();
+        assertEquals(0, stats.getDroppedMessages());
+        assertEquals(1, stats.getSlowSessionsClosed());
+    }
+
+    @Test
+    void testRepeatedlyLaggingSessionIsClosed() throws Exception {
+        ReflectionTestUtils.setField(flowControl, "maxDowngrades", 0);
+        WebSocketFlowControl.GuardedSession session = stallFirstSend("s2");
+
+        SessionLimitExceededException e = assertThrows(SessionLimitExceededException.class,
+                () -> session.sendMessage(update("v2")));
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, e.getStatus());
+        assertEquals(1, flowControl.getStats().getSlowSessionsClosed());
+    }
+
+    @Test
+    void testTerminateModeClosesImmediately() throws Exception {
+        ReflectionTestUtils.setField(flowControl, "overflow", WebSocketFlowControl.Overflow.TERMINATE);
+        WebSocketFlowControl.GuardedSession session = stallFirstSend("s3");
+
+        assertThrows(SessionLimitExceededException.class, () -> session.sendMessage(update("v2")));
+        WebSocketChannelStats stats = flowControl.getStats();
+        assertEquals(0, stats.getDroppedMessages());
+        assertEquals(1, stats.getSlowSessionsClosed());
+    }
+
+    @Test
+    void testDefaultHandlerIsReplaced() {
+        BeanFactory beanFactory = mock(BeanFactory.class);
+        when(beanFactory.getBean("clientInboundChannel", MessageChannel.class)).thenReturn(mock(MessageChannel.class));
+        when(beanFactory.getBean("clientOutboundChannel", SubscribableChannel.class))
+                .thenReturn(mock(SubscribableChannel.class));
+        flowControl.setBeanFactory(beanFactory);
+
+        SubProtocolWebSocketHandler original =
+                new SubProtocolWebSocketHandler(mock(MessageChannel.class), mock(SubscribableChannel.class));
+        Object replaced = flowControl.postProcessAfterInitialization(original, "subProtocolWebSocketHandler");
+        assertNotSame(original, replaced);
+        assertTrue(replaced instanceof SubProtocolWebSocketHandler);
+        assertSame(replaced, flowControl.postProcessAfterInitialization(replaced, "subProtocolWebSocketHandler"));
+    }
+
+    /**
+     * 在另一个线程上发送第一条消息并卡住，直到发送时间超过限制
+     */
+    private WebSocketFlowControl.GuardedSession stallFirstSend(String id) throws Exception {
+        WebSocketSession raw = mock(WebSocketSession.class);
+        when(raw.getId()).thenReturn(id);
+        when(raw.isOpen()).thenReturn(true);
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            delivered.add(body((String) message.getPayload()));
+            if (delivered.size() == 1) {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(raw).sendMessage(any());
+
+        WebSocketFlowControl.GuardedSession session = flowControl.guard(raw, SEND_TIME_LIMIT, 1024);
+        stuckSender = new Thread(() -> {
+            try {
+                session.sendMessage(update("v1"));
+            } catch (Exception ignored) {
+                // 由各测试检查
+            }
+        });
+        stuckSender.start();
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        Thread.sleep(SEND_TIME_LIMIT * 2);
+        return session;
+    }
+
+    private static TextMessage update(String body) {
+        return frame("/topic/game/updates/r1", body);
+    }
+
+    private static TextMessage frame(String destination, String body) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\nsubscription:sub-0\n\n" + body + "\0");
+    }
+
+    private static String body(String payload) {
+        return payload.substring(payload.indexOf("\n\n") + 2, payload.length() - 1);
+    }
+}
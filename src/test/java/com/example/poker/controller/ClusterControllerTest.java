@@ -0,0 +1,66 @@
+package com.example.poker.controller;
+
+import com.example.poker.dto.ClusterCommand;
+import com.example.poker.service.HttpClusterTransport;
+import com.example.poker.service.RoomRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ClusterControllerTest {
+
+    private final RoomRouter roomRouter = mock(RoomRouter.class);
+
+    private MockMvc mockMvc;
+
+    private String body;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ClusterController controller = new ClusterController();
+        ReflectionTestUtils.setField(controller, "roomRouter", roomRouter);
+        ReflectionTestUtils.setField(controller, "secret", "s3cret");
+        controller.init();
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        body = new ObjectMapper().writeValueAsString(ClusterCommand.builder()
+                .roomId("r1").destination("/game/pass").originNode("node-b").build());
+    }
+
+    @Test
+    void testRejectsCommandsWithoutSecret() throws Exception {
+        mockMvc.perform(post(HttpClusterTransport.COMMAND_PATH)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post(HttpClusterTransport.COMMAND_PATH)
+                        .header(HttpClusterTransport.SECRET_HEADER, "guess")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isForbidden());
+        verify(roomRouter, never()).receive(any());
+    }
+
+    @Test
+    void testRunsCommandsWithSecret() throws Exception {
+        mockMvc.perform(post(HttpClusterTransport.COMMAND_PATH)
+                        .header(HttpClusterTransport.SECRET_HEADER, "s3cret")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isAccepted());
+        verify(roomRouter).receive(any());
+    }
+
+    @Test
+    void testRequiresConfiguredSecret() {
+        ClusterController controller = new ClusterController();
+        ReflectionTestUtils.setField(controller, "secret", "");
+        assertThrows(IllegalStateException.class, controller::init);
+    }
+}
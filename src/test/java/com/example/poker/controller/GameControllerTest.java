@@ -3,6 +3,7 @@ package com.example.poker.controller;
 import com.example.poker.model.*;
 import com.example.poker.service.RoomManagementService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,6 +44,21 @@ class GameControllerTest {
         roomManagementService.joinRoom(roomId, player2Id);
     }
 
+    @AfterEach
+    void tearDown() {
+        // 释放玩家的房间成员关系，下一个用例可以用同样的玩家重新建房
+        roomManagementService.removeRoom(roomId);
+    }
+
+    @Test
+    void testClusterEndpointDisabledByDefault() throws Exception {
+        // 未启用集群转发时内部接口不存在，伪造的命令不会进入房间信箱
+        mockMvc.perform(post("/internal/cluster/commands")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"roomId\":\"" + roomId + "\",\"destination\":\"/game/pass\"}"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testCreateRoom() throws Exception {
         Map<String, Object> request = new HashMap<>();
@@ -55,6 +71,7 @@ class GameControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.hostId").value("host"))
                 .andExpect(jsonPath("$.maxPlayers").value(2));
+        roomManagementService.removeRoom(roomManagementService.getPlayerRoomId("host"));
     }
 
     @Test
@@ -2,6 +2,7 @@ package com.example.poker.controller;
 
 import com.example.poker.model.*;
 import com.example.poker.service.RoomManagementService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +42,12 @@ class GameWebSocketControllerTest {
         gameStateFuture = new CompletableFuture<>();
     }
 
+    @AfterEach
+    void tearDown() {
+        // 释放玩家的房间成员关系，下一个用例可以用同样的玩家重新建房
+        roomManagementService.removeRoom(roomId);
+    }
+
     @Test
     void testJoinGame() throws Exception {
         StompSession session = stompClient.connect("ws://localhost:8080/ws", new StompSessionHandlerAdapter() {}).get(1, TimeUnit.SECONDS);
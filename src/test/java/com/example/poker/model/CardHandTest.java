@@ -0,0 +1,111 @@
+package com.example.poker.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardHandTest {
+
+    private CardHand hand;
+
+    @BeforeEach
+    void setUp() {
+        hand = new CardHand(Arrays.asList(
+            new Card(Card.Suit.SPADES, 1),
+            new Card(Card.Suit.HEARTS, 1),
+            new Card(Card.Suit.HEARTS, 1),
+            new Card(Card.Suit.CLUBS, 13),
+            new Card(true)
+        ));
+    }
+
+    @Test
+    void testCounts() {
+        assertEquals(5, hand.size());
+        assertEquals(3, hand.countRank(1));
+        assertEquals(1, hand.countRank(13));
+        assertEquals(1, hand.countJokers());
+        assertEquals(2, hand.countCode(new Card(Card.Suit.HEARTS, 1).getCode()));
+    }
+
+    @Test
+    void testContainsAllCountsDuplicates() {
+        assertTrue(hand.containsAll(Arrays.asList(
+            new Card(Card.Suit.HEARTS, 1),
+            new Card(Card.Suit.HEARTS, 1)
+        )));
+        assertFalse(hand.containsAll(Arrays.asList(
+            new Card(Card.Suit.CLUBS, 13),
+            new Card(Card.Suit.CLUBS, 13)
+        )));
+        // 检查不应改变手牌
+        assertEquals(5, hand.size());
+        assertEquals(1, hand.countCode(new Card(Card.Suit.CLUBS, 13).getCode()));
+    }
+
+    @Test
+    void testRemove() {
+        assertTrue(hand.remove(new Card(Card.Suit.HEARTS, 1)));
+        assertEquals(4, hand.size());
+        assertEquals(2, hand.countRank(1));
+        assertFalse(hand.remove(new Card(Card.Suit.DIAMONDS, 5)));
+        assertEquals(4, hand.size());
+    }
+
+    @Test
+    void testRemoveExactlyRollsBack() {
+        // 第三张牌不在手牌中，前两张应被放回
+        assertFalse(hand.removeExactly(Arrays.asList(
+            new Card(Card.Suit.HEARTS, 1),
+            new Card(Card.Suit.SPADES, 1),
+            new Card(Card.Suit.SPADES, 1)
+        )));
+        assertEquals(5, hand.size());
+        assertEquals(3, hand.countRank(1));
+
+        assertTrue(hand.removeExactly(Arrays.asList(
+            new Card(Card.Suit.HEARTS, 1),
+            new Card(Card.Suit.HEARTS, 1),
+            new Card(false)
+        )));
+        assertEquals(2, hand.size());
+        assertEquals(0, hand.countJokers());
+        assertEquals(0, hand.countCode(new Card(Card.Suit.HEARTS, 1).getCode()));
+    }
+
+    @Test
+    void testAllMatchRank() {
+        CardHand pile = new CardHand(Arrays.asList(
+            new Card(Card.Suit.SPADES, 7),
+            new Card(Card.Suit.HEARTS, 7),
+            new Card(false)
+        ));
+        assertTrue(pile.allMatchRank(Card.parseRank("7")));
+        assertFalse(pile.allMatchRank(Card.parseRank("8")));
+        assertFalse(pile.allMatchRank(Card.parseRank("X")));
+    }
+
+    @Test
+    void testIterationMatchesList() {
+        List<Card> copy = new ArrayList<>(hand);
+        assertEquals(5, copy.size());
+        assertEquals(hand, copy);
+        assertEquals(hand.get(4), copy.get(4));
+        assertTrue(copy.get(4).isJoker());
+    }
+
+    @Test
+    void testParseRank() {
+        assertEquals(1, Card.parseRank("A"));
+        assertEquals(1, Card.parseRank("1"));
+        assertEquals(13, Card.parseRank("K"));
+        assertEquals(Card.JOKER_RANK, Card.parseRank("Joker"));
+        assertEquals(-1, Card.parseRank("14"));
+        assertEquals(-1, Card.parseRank(null));
+    }
+}
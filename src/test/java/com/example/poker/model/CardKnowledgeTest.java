@@ -0,0 +1,106 @@
+package com.example.poker.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardKnowledgeTest {
+
+    private static CardHand hand(int... codes) {
+        CardHand hand = new CardHand();
+        for (int code : codes) {
+            hand.addCode(code);
+        }
+        return hand;
+    }
+
+    /**
+     * 一副牌平均分给两个玩家
+     */
+    private static Map<String, CardHand> deal() {
+        Map<String, CardHand> hands = new LinkedHashMap<>();
+        hands.put("alice", new CardHand());
+        hands.put("bob", new CardHand());
+        for (int code = 0; code < Card.CODE_COUNT; code++) {
+            int copies = code == Card.JOKER_CODE ? 2 : 1;
+            for (int i = 0; i < copies; i++) {
+                hands.get(hands.get("alice").size() <= hands.get("bob").size() ? "alice" : "bob").addCode(code);
+            }
+        }
+        return hands;
+    }
+
+    @Test
+    void testChallengeRevealsPileToLoser() {
+        CardKnowledge knowledge = new CardKnowledge(deal());
+        assertEquals(1, knowledge.getDeckCount());
+        assertEquals(27, knowledge.getHandSize("alice"));
+
+        // alice打出两张7（编码6和19），bob质疑失败收走底盘
+        knowledge.onPlay("alice", 2, 7);
+        assertEquals(25, knowledge.getHandSize("alice"));
+        assertEquals(2, knowledge.getPileSize());
+        knowledge.onChallenge("bob", hand(6, 19));
+        assertEquals(0, knowledge.getPileSize());
+        assertEquals(29, knowledge.getHandSize("bob"));
+        assertEquals(2, knowledge.getKnownCount("bob", 7));
+        assertEquals(2, knowledge.getUnseenCount(7));
+
+        // bob打出一张牌，不知道是哪一张，已知的7只剩下限1张
+        knowledge.onPlay("bob", 1, 3);
+        assertEquals(1, knowledge.getKnownCount("bob", 7));
+        assertEquals(3, knowledge.getUnseenCount(7));
+        assertEquals(28, knowledge.getHandSize("bob"));
+    }
+
+    @Test
+    void testLeavingPlayerHandGoesToPile() {
+        CardKnowledge knowledge = new CardKnowledge(deal());
+        knowledge.onPlay("alice", 2, 7);
+        knowledge.onChallenge("bob", hand(6, 19));
+        assertEquals(2, knowledge.getUnseenCount(7));
+
+        // bob离开，29张手牌背面朝上放入底盘，收走的两张7位置不再已知
+        knowledge.onLeave("bob", 29);
+        assertEquals(29, knowledge.getPileSize());
+        assertEquals(0, knowledge.getHandSize("bob"));
+        assertEquals(0, knowledge.getKnownCount("bob", 7));
+        assertEquals(4, knowledge.getUnseenCount(7));
+    }
+
+    @Test
+    void testLieProbabilityUsesKnownLocations() {
+        CardKnowledge knowledge = new CardKnowledge(deal());
+        // bob收走了两张7和一张王牌
+        knowledge.onPlay("alice", 3, 7);
+        knowledge.onChallenge("bob", hand(6, 19, Card.JOKER_CODE));
+
+        // bob声明两张7：已知他手里至少有两张可以如实打出的牌
+        knowledge.onPlay("bob", 2, 7);
+        assertEquals(0.0, knowledge.lieProbability(new Claim("bob", 2, 7), "alice", hand(32)));
+
+        // alice手里有剩下的两张7和另一张王牌，bob声明四张7不可能成立
+        knowledge.onChallenge("alice", hand(6, 19));
+        knowledge.onPlay("bob", 4, 7);
+        assertEquals(1.0, knowledge.lieProbability(new Claim("bob", 4, 7), "alice",
+                hand(6, 19, 32, 45, Card.JOKER_CODE)));
+    }
+
+    @Test
+    void testLieProbabilityGrowsWithClaimedCount() {
+        CardKnowledge knowledge = new CardKnowledge(deal());
+        knowledge.onPlay("alice", 1, 5);
+        CardHand observer = hand(0, 13, 2);
+        double one = knowledge.lieProbability(new Claim("alice", 1, 5), "bob", observer);
+        double two = knowledge.lieProbability(new Claim("alice", 2, 5), "bob", observer);
+        double three = knowledge.lieProbability(new Claim("alice", 3, 5), "bob", observer);
+        assertTrue(one > 0 && one < two && two < three && three < 1, one + " " + two + " " + three);
+        // 观察者手里有同点数的牌时，出牌者凑齐的可能更小
+        double held = knowledge.lieProbability(new Claim("alice", 2, 5), "bob", hand(4, 17, 30));
+        assertTrue(held > two, held + " " + two);
+        assertEquals(0.0, knowledge.lieProbability(null, "bob", observer));
+    }
+}
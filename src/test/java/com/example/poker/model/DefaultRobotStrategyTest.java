@@ -0,0 +1,99 @@
+package com.example.poker.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultRobotStrategyTest {
+
+    private static CardHand hand(int... codes) {
+        CardHand hand = new CardHand();
+        for (int code : codes) {
+            hand.addCode(code);
+        }
+        return hand;
+    }
+
+    @Test
+    void testFollowsClaimedRank() {
+        DefaultRobotStrategy strategy = new DefaultRobotStrategy("HARD", new SplittableRandom(1));
+        // 三张7（不同花色）和一张K
+        CardHand hand = hand(6, 19, 32, 12);
+        Claim claim = new Claim("alice", 2, 7);
+        List<Card> selected = new ArrayList<>();
+        strategy.selectCardsToPlay(claim, hand, selected);
+        assertEquals(3, selected.size());
+        for (Card card : selected) {
+            assertEquals(7, card.getRankIndex());
+        }
+        assertEquals(7, strategy.chooseClaimRank(selected, claim));
+    }
+
+    @Test
+    void testLeadClaimsARankBetweenAceAndKing() {
+        DefaultRobotStrategy strategy = new DefaultRobotStrategy("HARD", new SplittableRandom(2));
+        CardHand hand = hand(0, 13, 26, 4, Card.JOKER_CODE);
+        List<Card> selected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            selected.clear();
+            strategy.selectCardsToPlay(null, hand, selected);
+            assertFalse(selected.isEmpty());
+            int rank = strategy.chooseClaimRank(selected, null);
+            // 困难模式出数量最多的A，说谎时声明A附近的点数
+            assertEquals(1, selected.get(0).getRankIndex());
+            assertTrue(rank >= 1 && rank <= 3, "rank " + rank);
+        }
+        assertEquals(-1, strategy.chooseClaimRank(List.of(), null));
+    }
+
+    @Test
+    void testNoChallengeWithoutClaimOrPile() {
+        DefaultRobotStrategy strategy = new DefaultRobotStrategy("HARD", new SplittableRandom(3));
+        CardHand hand = hand(1, 2, 3);
+        assertFalse(strategy.decideToChallenge(null, hand(5), hand));
+        assertFalse(strategy.decideToChallenge(new Claim("alice", 1, 6), new CardHand(), hand));
+        // 声明的张数超过4张时质疑概率超过1
+        assertTrue(strategy.decideToChallenge(new Claim("alice", 5, 6), hand(5), hand));
+    }
+
+    @Test
+    void testDecisionsDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        DefaultRobotStrategy strategy = new DefaultRobotStrategy("MEDIUM", new SplittableRandom(4));
+        CardHand hand = hand(0, 13, 5, 18, 31, 9, 10, 11, 12, 25, 38, 51, Card.JOKER_CODE);
+        CardHand pile = hand(2, 15);
+        Claim follow = new Claim("alice", 2, 3);
+        Claim missing = new Claim("alice", 2, 4);
+        List<Card> selected = new ArrayList<>(16);
+        Claim[] claims = {null, follow, missing};
+        int[] sink = new int[1];
+        Runnable decide = () -> {
+            for (Claim claim : claims) {
+                selected.clear();
+                if (claim != null && strategy.decideToChallenge(claim, pile, hand)) {
+                    sink[0]++;
+                }
+                strategy.selectCardsToPlay(claim, hand, selected);
+                sink[0] += strategy.chooseClaimRank(selected, claim);
+            }
+        };
+        for (int i = 0; i < 20000; i++) {
+            decide.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100000; i++) {
+            decide.run();
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        // 只允许测量本身的少量分配，与决策次数无关
+        assertTrue(allocated < 4096, "决策分配了 " + allocated + " 字节");
+        assertTrue(sink[0] != 0);
+    }
+}
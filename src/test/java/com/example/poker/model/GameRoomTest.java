@@ -1,10 +1,12 @@
 package com.example.poker.model;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -93,18 +95,20 @@ class GameRoomTest {
             new Card(Card.Suit.DIAMONDS, 3),
             new Card(Card.Suit.CLUBS, 4)
         );
-        gameRoom.getPlayerHands().put(player1Id, player1Hand);
-        gameRoom.getPlayerHands().put(player2Id, player2Hand);
+        gameRoom.getPlayerHands().put(player1Id, new CardHand(player1Hand));
+        gameRoom.getPlayerHands().put(player2Id, new CardHand(player2Hand));
 
-        assertEquals(player1Hand, gameRoom.getPlayerHands().get(player1Id));
-        assertEquals(player2Hand, gameRoom.getPlayerHands().get(player2Id));
+        assertEquals(new CardHand(player1Hand), gameRoom.getPlayerHands().get(player1Id));
+        assertEquals(new CardHand(player2Hand), gameRoom.getPlayerHands().get(player2Id));
     }
 
     @Test
     void testSetAndGetLastClaim() {
-        String lastClaim = "2 2";
+        Claim lastClaim = Claim.of("player1", 2, "2");
         gameRoom.setLastClaim(lastClaim);
         assertEquals(lastClaim, gameRoom.getLastClaim());
+        assertEquals(2, gameRoom.getLastClaim().getRank());
+        assertEquals("玩家player1打出2张2", gameRoom.toGameState().getLastClaim());
     }
 
     @Test
@@ -113,28 +117,42 @@ class GameRoomTest {
             new Card(Card.Suit.SPADES, 1),
             new Card(Card.Suit.HEARTS, 2)
         );
-        gameRoom.setCurrentPile(currentPile);
+        gameRoom.setCurrentPile(new CardHand(currentPile));
         assertEquals(currentPile, gameRoom.getCurrentPile());
     }
 
     @Test
     void testCheckGameEnd() {
         // 设置玩家手牌
-        gameRoom.getPlayerHands().put(player1Id, Arrays.asList());
-        gameRoom.getPlayerHands().put(player2Id, Arrays.asList(
+        gameRoom.getPlayerHands().put(player1Id, new CardHand());
+        gameRoom.getPlayerHands().put(player2Id, new CardHand(Arrays.asList(
             new Card(Card.Suit.SPADES, 1)
-        ));
+        )));
 
         assertTrue(gameRoom.checkGameEnd());
 
         // 重置玩家手牌
-        gameRoom.getPlayerHands().put(player1Id, Arrays.asList(
+        gameRoom.getPlayerHands().put(player1Id, new CardHand(Arrays.asList(
             new Card(Card.Suit.SPADES, 1)
-        ));
-        gameRoom.getPlayerHands().put(player2Id, Arrays.asList(
+        )));
+        gameRoom.getPlayerHands().put(player2Id, new CardHand(Arrays.asList(
             new Card(Card.Suit.HEARTS, 2)
-        ));
+        )));
 
         assertFalse(gameRoom.checkGameEnd());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testRoomWithExpertRobotSerializes() throws Exception {
+        gameRoom.getPlayers().add(player1Id);
+        gameRoom.getPlayers().add("robot_0");
+        gameRoom.getRobotSeats().put("robot_0", new RobotPlayer("robot_0", "机器人", "EXPERT"));
+        gameRoom.setCardKnowledge(new CardKnowledge(Map.of(player1Id, List.of(new Card(Card.Suit.SPADES, 1)))));
+
+        String json = new ObjectMapper().writeValueAsString(gameRoom);
+
+        assertTrue(json.contains("robot_0"));
+        assertFalse(json.contains("robotSeats"));
+        assertFalse(json.contains("cardKnowledge"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.poker.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRulesTest {
+
+    private static CardHand hand(int... codes) {
+        CardHand hand = new CardHand();
+        for (int code : codes) {
+            hand.addCode(code);
+        }
+        return hand;
+    }
+
+    /**
+     * 按座位顺序开局，第一个玩家先手
+     */
+    private static GameRoom deal(Map<String, CardHand> hands) {
+        GameRoom room = new GameRoom();
+        room.setId("rules");
+        room.getPlayers().addAll(hands.keySet());
+        GameRules.deal(room, hands);
+        return room;
+    }
+
+    /**
+     * alice 打出最后一张牌并声明为A，等待确认胜利
+     */
+    private static void aliceEmptiesHand(GameRoom room, int code) {
+        assertTrue(GameRules.play(room, "alice", List.of(Card.ofCode(code)), 1, "A"));
+        GameRules.win(room, "alice");
+        assertTrue(room.getWinners().contains("alice"));
+        assertTrue(room.getPlayers().contains("alice"));
+    }
+
+    @Test
+    void testSuccessfulChallengeCancelsPendingWin() {
+        Map<String, CardHand> hands = new LinkedHashMap<>();
+        hands.put("alice", hand(1));         // 一张2
+        hands.put("bob", hand(2, 3));
+        hands.put("carol", hand(4, 5));
+        GameRoom room = deal(hands);
+
+        aliceEmptiesHand(room, 1);
+        assertTrue(GameRules.challenge(room, "bob", "alice"));
+
+        assertFalse(room.getWinners().contains("alice"));
+        assertEquals(1, room.getPlayerHands().get("alice").size());
+        assertEquals("bob", room.getCurrentPlayer());
+        assertEquals(GameStatus.PLAYING, room.getStatus());
+    }
+
+    @Test
+    void testFailedChallengeConfirmsWinAndPassesTurnOn() {
+        Map<String, CardHand> hands = new LinkedHashMap<>();
+        hands.put("alice", hand(0));         // 一张A
+        hands.put("bob", hand(2, 3));
+        hands.put("carol", hand(4, 5));
+        GameRoom room = deal(hands);
+
+        aliceEmptiesHand(room, 0);
+        assertFalse(GameRules.challenge(room, "carol", "alice"));
+
+        assertEquals(List.of("bob", "carol"), room.getPlayers());
+        assertTrue(room.getWinners().contains("alice"));
+        // 出牌权交给alice的下家，而不是已经离开的alice
+        assertEquals("bob", room.getCurrentPlayer());
+        assertEquals(0, room.getCurrentPlayerIndex());
+        assertEquals(3, room.getPlayerHands().get("carol").size());
+        assertEquals(GameStatus.PLAYING, room.getStatus());
+
+        // 新的一轮由bob自由声明
+        assertFalse(GameRules.play(room, "bob", List.of(Card.ofCode(2)), 1, "3"));
+        assertEquals("carol", room.getCurrentPlayer());
+    }
+
+    @Test
+    void testFailedChallengeGivesTurnToClaimant() {
+        Map<String, CardHand> hands = new LinkedHashMap<>();
+        hands.put("alice", hand(0, 13));     // 两张A
+        hands.put("bob", hand(2, 3));
+        hands.put("carol", hand(4, 5));
+        GameRoom room = deal(hands);
+
+        assertFalse(GameRules.play(room, "alice", List.of(Card.ofCode(0)), 1, "A"));
+        assertFalse(GameRules.challenge(room, "bob", "alice"));
+
+        assertEquals("alice", room.getCurrentPlayer());
+        assertEquals(3, room.getPlayerHands().get("bob").size());
+        assertTrue(room.getCurrentPile().isEmpty());
+        assertNull(room.getLastClaim());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.poker.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonteCarloSearchTest {
+
+    private static RobotAction search(RobotView view, int iterations) {
+        MonteCarloSearch search = new MonteCarloSearch(view);
+        List<MonteCarloSearch.Worker> workers = List.of(search.newWorker(1), search.newWorker(2));
+        for (MonteCarloSearch.Worker worker : workers) {
+            worker.run(iterations);
+        }
+        return search.best(workers);
+    }
+
+    @Test
+    void testChallengesImpossibleClaim() {
+        // 机器人手里有全部4张7和2张王牌，上家却声明用最后3张牌打出3张7
+        int[] own = new int[Card.RANK_COUNT];
+        own[7] = 4;
+        own[Card.JOKER_RANK] = 2;
+        own[2] = 2;
+        own[11] = 2;
+        RobotView view = RobotView.of(1, new int[]{0, 10}, own, 3, new Claim("alice", 3, 7), 0, 1);
+        assertTrue(view.canChallenge());
+        assertEquals(RobotAction.CHALLENGE, search(view, 2000));
+    }
+
+    @Test
+    void testDoesNotChallengePlausibleClaim() {
+        // 上家只声明了一张4，4和王牌都不在机器人手里，如实出牌完全可能
+        int[] own = new int[Card.RANK_COUNT];
+        own[2] = 2;
+        own[3] = 1;
+        own[5] = 1;
+        own[9] = 1;
+        own[10] = 1;
+        own[11] = 1;
+        own[13] = 1;
+        RobotView view = RobotView.of(2, new int[]{12, 14, 8}, own, 1, new Claim("bob", 1, 4), 1, 1);
+        assertTrue(view.canChallenge());
+        assertNotEquals(RobotAction.CHALLENGE, search(view, 2000));
+    }
+
+    @Test
+    void testPlaysLastMatchingCard() {
+        // 其他玩家都过牌后轮回机器人跟自己的声明，机器人只剩一张5，如实打出后质疑一定失败
+        int[] own = new int[Card.RANK_COUNT];
+        own[5] = 1;
+        RobotView view = RobotView.of(1, new int[]{6, 1}, own, 2, new Claim("robot_1", 1, 5), 1, 1);
+        assertFalse(view.canChallenge());
+        RobotAction action = search(view, 2000);
+        assertEquals(RobotAction.Type.PLAY, action.getType());
+        assertEquals(5, action.getCardRank());
+        assertFalse(action.isBluff());
+    }
+
+    @Test
+    void testCandidateActionsFollowClaim() {
+        int[] own = new int[Card.RANK_COUNT];
+        own[3] = 2;
+        own[9] = 1;
+        own[Card.JOKER_RANK] = 1;
+        RobotView view = RobotView.of(0, new int[]{4, 5, 6}, own, 4, new Claim("bob", 2, 3), 2, 1);
+        MonteCarloSearch search = new MonteCarloSearch(view);
+        for (RobotAction action : search.getActions()) {
+            if (action.getType() == RobotAction.Type.PLAY) {
+                // 跟牌时必须声明上家的点数
+                assertEquals(3, action.getClaimRank());
+                assertTrue(action.getTotalCount() >= 1 && action.getTotalCount() <= 3);
+            }
+        }
+        assertTrue(search.getActions().contains(RobotAction.PASS));
+        assertTrue(search.getActions().contains(RobotAction.CHALLENGE));
+        // 没有迭代时没有结果
+        assertNull(search.best(List.of(search.newWorker(3))));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.poker.service;
+
+import com.example.poker.model.Card;
+import com.example.poker.model.CardHand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeckServiceTest {
+
+    private DeckService deckService;
+
+    @BeforeEach
+    void setUp() {
+        deckService = new DeckService();
+    }
+
+    @Test
+    void testShuffledOrderIsPermutation() {
+        int[] order = deckService.takeShuffledOrder(2);
+        assertEquals(2 * Card.CARDS_PER_DECK, order.length);
+        boolean[] seen = new boolean[order.length];
+        for (int physicalId : order) {
+            assertFalse(seen[physicalId]);
+            seen[physicalId] = true;
+        }
+    }
+
+    @Test
+    void testDealShuffledCoversAllCards() {
+        List<String> players = Arrays.asList("p1", "p2", "p3", "p4");
+        Map<String, CardHand> hands = deckService.dealShuffled(2, players);
+
+        assertEquals(4, hands.size());
+        CardHand all = new CardHand();
+        for (String playerId : players) {
+            assertEquals(27, hands.get(playerId).size());
+            all.addAll(hands.get(playerId));
+        }
+        assertEquals(108, all.size());
+        assertEquals(4, all.countJokers());
+        for (int code = 0; code < Card.JOKER_CODE; code++) {
+            assertEquals(2, all.countCode(code));
+        }
+    }
+
+    @Test
+    void testDealCardsFromList() {
+        List<Card> deck = deckService.generateShuffledDecks(1);
+        Map<String, CardHand> hands = deckService.dealCards(deck, Arrays.asList("p1", "p2"));
+        assertTrue(deck.isEmpty());
+        assertEquals(27, hands.get("p1").size());
+        assertEquals(27, hands.get("p2").size());
+    }
+
+    @Test
+    void testInvalidDeckCount() {
+        assertThrows(RuntimeException.class, () -> deckService.takeShuffledOrder(0));
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.poker.service;
+
+import com.example.poker.controller.GameWebSocketController;
+import com.example.poker.dto.HandFragment;
+import com.example.poker.dto.RoomUpdate;
+import com.example.poker.model.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+class GameEventPublisherTest {
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private RoomManagementService roomManagementService;
+
+    @Autowired
+    private GameEventPublisher eventPublisher;
+
+    @Autowired
+    private GameWebSocketController gameWebSocketController;
+
+    @Autowired
+    private RoomExecutor roomExecutor;
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testPlayEventSizeIndependentOfDeckCount() throws Exception {
+        String small = objectMapper.writeValueAsString(playOneCard("p1", 1));
+        String large = objectMapper.writeValueAsString(playOneCard("p3", 8));
+
+        // 手牌张数从两位数变成三位数，事件大小基本不变
+        assertTrue(Math.abs(small.length() - large.length()) <= 2, small + " / " + large);
+        assertFalse(large.contains("suit"));
+    }
+
+    @Test
+    void testVersionsIncreaseAcrossEventsAndSnapshots() {
+        GameRoom room = roomManagementService.createRoom("v1", 2);
+        String roomId = room.getId();
+        roomManagementService.joinRoom(roomId, "v2");
+        gameService.startGame(roomId, "v1", 1);
+        long afterStart = room.getVersion();
+
+        gameService.pass(roomId, "v1");
+        gameService.pass(roomId, "v2");
+
+        List<GameEvent> events = captureEvents(roomId);
+        assertEquals(2, events.size());
+        assertEquals(afterStart + 1, events.get(0).getVersion());
+        assertEquals(afterStart + 2, events.get(1).getVersion());
+        assertEquals(GameEventType.PASS, events.get(1).getType());
+        assertEquals("v1", events.get(1).getCurrentPlayer());
+        assertEquals(afterStart + 2, room.toGameState().getVersion());
+        roomManagementService.removeRoom(roomId);
+    }
+
+    @Test
+    void testSnapshotIsPublicAndSerializedOncePerVersion() throws Exception {
+        GameRoom room = roomManagementService.createRoom("s1", 3);
+        String roomId = room.getId();
+        roomManagementService.joinRoom(roomId, "s2");
+        gameService.startGame(roomId, "s1", 2);
+
+        // 同一版本重复发送复用同一份字节
+        String first = eventPublisher.serializedSnapshot(room);
+        gameService.resendSnapshot(roomId);
+        assertSame(first, eventPublisher.serializedSnapshot(room));
+
+        JsonNode state = objectMapper.readTree(first);
+        assertTrue(state.get("playerHands").isNull());
+        assertTrue(state.get("currentPile").isNull());
+        assertEquals(108, state.get("handCounts").get("s1").asInt() + state.get("handCounts").get("s2").asInt());
+        assertEquals(0, state.get("pileSize").asInt());
+
+        // 每个玩家只收到自己的手牌
+        ArgumentCaptor<HandFragment> captor = ArgumentCaptor.forClass(HandFragment.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSendToUser(eq("s1"), eq("/queue/hand"), captor.capture());
+        assertEquals(room.getPlayerHands().get("s1").size(), captor.getValue().getCards().size());
+        assertEquals(room.getVersion(), captor.getValue().getVersion());
+        roomManagementService.removeRoom(roomId);
+    }
+
+    @Test
+    void testOneFramePerCommand() {
+        GameRoom room = roomManagementService.createRoom("f1", 2);
+        String roomId = room.getId();
+        roomManagementService.joinRoom(roomId, "f2");
+        gameService.playerReady(roomId, "f1");
+
+        // 最后一位玩家准备时会两次更新状态，只发一帧
+        clearInvocations(messagingTemplate);
+        gameService.playerReady(roomId, "f2");
+        List<RoomUpdate> frames = captureFrames(roomId);
+        assertEquals(1, frames.size());
+        assertNotNull(frames.get(0).getSnapshot());
+        assertEquals(room.getVersion(), frames.get(0).getVersion());
+
+        // 控制器的出牌通知与出牌事件合并在同一帧
+        gameService.startGame(roomId, "f1", 1);
+        clearInvocations(messagingTemplate);
+        Card card = room.getPlayerHands().get("f1").get(0);
+        GameMessage message = new GameMessage();
+        message.setType("PLAY");
+        message.setRoomId(roomId);
+        message.setPlayerId("f1");
+        message.setCards(Collections.singletonList(card));
+        message.setDeclaredValue(card.getRank());
+        gameWebSocketController.handleGameAction(message);
+        roomExecutor.execute(roomId, () -> { });
+
+        frames = captureFrames(roomId);
+        assertEquals(1, frames.size());
+        assertEquals(1, frames.get(0).getEvents().size());
+        assertEquals(1, frames.get(0).getNotifications().size());
+        assertEquals("PLAY", frames.get(0).getNotifications().get(0).getType());
+        roomManagementService.removeRoom(roomId);
+    }
+
+    @Test
+    void testHostLeavingSendsNotificationsInOneFrame() {
+        GameRoom room = roomManagementService.createRoom("h1", 3);
+        String roomId = room.getId();
+        roomManagementService.joinRoom(roomId, "h2");
+        roomManagementService.joinRoom(roomId, "h3");
+
+        clearInvocations(messagingTemplate);
+        roomManagementService.leaveRoom(roomId, "h1");
+
+        List<RoomUpdate> frames = captureFrames(roomId);
+        assertEquals(1, frames.size());
+        assertNotNull(frames.get(0).getSnapshot());
+        List<GameNotification> notifications = frames.get(0).getNotifications();
+        assertEquals(2, notifications.size());
+        assertEquals("HOST_CHANGED", notifications.get(0).getType());
+        assertEquals("h2", notifications.get(0).getPlayerId());
+        assertEquals("PLAYER_LEFT", notifications.get(1).getType());
+        assertEquals("h1", notifications.get(1).getPlayerId());
+        roomManagementService.removeRoom(roomId);
+    }
+
+    private GameEvent playOneCard(String hostId, int deckCount) {
+        GameRoom room = roomManagementService.createRoom(hostId, 2);
+        String roomId = room.getId();
+        roomManagementService.joinRoom(roomId, hostId + "_guest");
+        gameService.startGame(roomId, hostId, deckCount);
+
+        Card card = room.getPlayerHands().get(hostId).get(0);
+        GameMessage message = new GameMessage();
+        message.setPlayerId(hostId);
+        message.setCards(Collections.singletonList(card));
+        message.setDeclaredCount(1);
+        message.setDeclaredValue(card.getRank());
+        gameService.playCards(roomId, message);
+
+        List<GameEvent> events = captureEvents(roomId);
+        roomManagementService.removeRoom(roomId);
+        GameEvent event = events.get(events.size() - 1);
+        assertEquals(GameEventType.PLAY, event.getType());
+        assertEquals(1, event.getCount());
+        assertEquals(1, event.getPileSize());
+        return event;
+    }
+
+    private List<GameEvent> captureEvents(String roomId) {
+        List<GameEvent> events = new ArrayList<>();
+        for (RoomUpdate frame : captureFrames(roomId)) {
+            if (frame.getEvents() != null) {
+                events.addAll(frame.getEvents());
+            }
+        }
+        return events;
+    }
+
+    private List<RoomUpdate> captureFrames(String roomId) {
+        ArgumentCaptor<RoomUpdate> captor = ArgumentCaptor.forClass(RoomUpdate.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSend(eq("/topic/game/updates/" + roomId), captor.capture());
+        return captor.getAllValues();
+    }
+}
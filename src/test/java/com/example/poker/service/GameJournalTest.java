@@ -0,0 +1,379 @@
+package com.example.poker.service;
+
+import com.example.poker.model.Card;
+import com.example.poker.model.JournalEntry;
+import com.example.poker.model.JournalEntryType;
+import com.example.poker.util.JournalReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private GameJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void testEntriesRoundTripInOrder() throws Exception {
+        journal = open(dir.resolve("events.journal"));
+        JournalEntry play = new JournalEntry(JournalEntryType.PLAY, "room1", 7, "alice")
+                .withCards(List.of(new Card(Card.Suit.HEARTS, 1), new Card(true)));
+        play.setValue("A");
+        play.setDeclaredCount(3);
+        journal.append(new JournalEntry(JournalEntryType.JOIN, "room1", 3, "alice"));
+        journal.append(play);
+        JournalEntry challenge = new JournalEntry(JournalEntryType.CHALLENGE, "room1", 8, "bob");
+        challenge.setTargetPlayerId("alice");
+        challenge.setSuccess(false);
+        journal.append(challenge);
+        assertTrue(journal.awaitCommitted(5000));
+
+        List<JournalEntry> entries = JournalReader.readAll(journal.getPath());
+        assertEquals(3, entries.size());
+        assertEquals(List.of(1L, 2L, 3L), entries.stream().map(JournalEntry::getSequence).toList());
+        assertEquals(JournalEntryType.JOIN, entries.get(0).getType());
+        assertNull(entries.get(0).getCards());
+        assertNull(entries.get(0).getSuccess());
+        assertNull(entries.get(0).getDeclaredCount());
+
+        JournalEntry read = entries.get(1);
+        assertEquals("room1", read.getRoomId());
+        assertEquals(7, read.getVersion());
+        assertEquals("A", read.getValue());
+        assertEquals(3, read.getDeclaredCount());
+        assertArrayEquals(new byte[]{(byte) new Card(Card.Suit.HEARTS, 1).getCode(), (byte) Card.JOKER_CODE},
+                read.getCards());
+        assertEquals(play.getTimestamp(), read.getTimestamp());
+
+        assertEquals("alice", entries.get(2).getTargetPlayerId());
+        assertEquals(Boolean.FALSE, entries.get(2).getSuccess());
+    }
+
+    @Test
+    void testEntriesAreWrittenInBatches() throws Exception {
+        journal = open(dir.resolve("batched.journal"));
+        for (int i = 0; i < 5000; i++) {
+            journal.append(new JournalEntry(JournalEntryType.PASS, "room" + (i % 10), i, "p" + i));
+        }
+        assertTrue(journal.awaitCommitted(10000));
+        assertEquals(5000, journal.getCommittedCount());
+        assertTrue(journal.getBatchCount() < 5000, "batches: " + journal.getBatchCount());
+        assertEquals(5000, JournalReader.readAll(journal.getPath()).size());
+    }
+
+    @Test
+    void testTornTailIsTruncatedOnRestart() throws Exception {
+        Path file = dir.resolve("torn.journal");
+        journal = open(file);
+        journal.append(new JournalEntry(JournalEntryType.JOIN, "room1", 1, "alice"));
+        journal.append(new JournalEntry(JournalEntryType.JOIN, "room1", 2, "bob"));
+        assertTrue(journal.awaitCommitted(5000));
+        journal.stop();
+        long validSize = Files.size(file);
+
+        // 模拟写入一半时崩溃
+        Files.write(file, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        assertEquals(2, JournalReader.readAll(file).size());
+
+        journal = open(file);
+        assertEquals(validSize, Files.size(file));
+        journal.append(new JournalEntry(JournalEntryType.LEAVE, "room1", 3, "bob"));
+        assertTrue(journal.awaitCommitted(5000));
+
+        List<JournalEntry> entries = JournalReader.readAll(file);
+        assertEquals(3, entries.size());
+        assertEquals(3, entries.get(2).getSequence());
+        assertEquals(JournalEntryType.LEAVE, entries.get(2).getType());
+    }
+
+    @Test
+    void testSecondWriterOnSameFileIsDisabled() throws Exception {
+        Path file = dir.resolve("shared.journal");
+        journal = open(file);
+        GameJournal second = open(file);
+        try {
+            second.append(new JournalEntry(JournalEntryType.JOIN, "room1", 1, "alice"));
+            assertEquals(0, second.getCommittedCount());
+            assertTrue(second.awaitCommitted(100));
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void testFullQueueLeavesGapUntilSnapshot() throws Exception {
+        Path file = dir.resolve("gap.journal");
+        journal = new GameJournal();
+        ReflectionTestUtils.setField(journal, "path", file.toString());
+        ReflectionTestUtils.setField(journal, "fsync", false);
+        ReflectionTestUtils.setField(journal, "queueCapacity", 2);
+        ReflectionTestUtils.setField(journal, "batchSize", 1);
+        journal.start();
+        ControlledChannel channel = ControlledChannel.wrap(journal);
+        channel.block();
+
+        // 写入线程卡在第一条上，再放两条后队列已满
+        journal.append(new JournalEntry(JournalEntryType.JOIN, "room1", 1, "alice"));
+        assertTrue(channel.entered.await(5, TimeUnit.SECONDS));
+        journal.append(new JournalEntry(JournalEntryType.JOIN, "room1", 2, "bob"));
+        journal.append(new JournalEntry(JournalEntryType.JOIN, "room2", 1, "carol"));
+        journal.append(new JournalEntry(JournalEntryType.PASS, "room1", 3, "alice"));
+        assertTrue(journal.hasGap("room1"));
+        assertFalse(journal.hasGap("room2"));
+
+        // 缺口之后队列有空位时事件仍然丢弃，直到写入快照
+        channel.release.countDown();
+        assertTrue(journal.awaitCommitted(5000));
+        journal.append(new JournalEntry(JournalEntryType.PASS, "room1", 4, "bob"));
+        journal.append(new JournalEntry(JournalEntryType.SNAPSHOT, "room1", 4, null));
+        assertFalse(journal.hasGap("room1"));
+        journal.append(new JournalEntry(JournalEntryType.PASS, "room1", 5, "alice"));
+        assertTrue(journal.awaitCommitted(5000));
+
+        List<JournalEntry> entries = JournalReader.readAll(file);
+        assertEquals(List.of(JournalEntryType.JOIN, JournalEntryType.JOIN, JournalEntryType.JOIN,
+                        JournalEntryType.SNAPSHOT, JournalEntryType.PASS),
+                entries.stream().map(JournalEntry::getType).toList());
+        assertEquals(2, journal.getDroppedCount());
+    }
+
+    @Test
+    void testFailedWriteIsTruncatedAndNotCommitted() throws Exception {
+        Path file = dir.resolve("failed.journal");
+        journal = open(file);
+        journal.append(new JournalEntry(JournalEntryType.JOIN, "room1", 1, "alice"));
+        assertTrue(journal.awaitCommitted(5000));
+        long goodSize = Files.size(file);
+
+        ControlledChannel channel = ControlledChannel.wrap(journal);
+        channel.failNext = true;
+        journal.append(new JournalEntry(JournalEntryType.JOIN, "room1", 2, "bob"));
+        assertTrue(journal.awaitCommitted(5000));
+        assertEquals(1, journal.getCommittedCount());
+        assertEquals(goodSize, Files.size(file));
+        assertTrue(journal.hasGap("room1"));
+
+        // 快照之后继续写，序号接着上一条成功的记录
+        journal.append(new JournalEntry(JournalEntryType.SNAPSHOT, "room1", 2, null));
+        journal.append(new JournalEntry(JournalEntryType.PASS, "room1", 3, "bob"));
+        assertTrue(journal.awaitCommitted(5000));
+        List<JournalEntry> entries = JournalReader.readAll(file);
+        assertEquals(List.of(JournalEntryType.JOIN, JournalEntryType.SNAPSHOT, JournalEntryType.PASS),
+                entries.stream().map(JournalEntry::getType).toList());
+        assertEquals(List.of(1L, 2L, 3L), entries.stream().map(JournalEntry::getSequence).toList());
+    }
+
+    @Test
+    void testSegmentsRollAndOldOnesAreRetired() throws Exception {
+        Path file = dir.resolve("rolling.journal");
+        journal = new GameJournal();
+        ReflectionTestUtils.setField(journal, "path", file.toString());
+        ReflectionTestUtils.setField(journal, "fsync", false);
+        ReflectionTestUtils.setField(journal, "batchSize", 10);
+        ReflectionTestUtils.setField(journal, "segmentBytes", 1024L);
+        List<Long> rolls = new CopyOnWriteArrayList<>();
+        journal.onRoll(rolls::add);
+        journal.start();
+        for (int i = 0; i < 200; i++) {
+            journal.append(new JournalEntry(JournalEntryType.PASS, "room1", i, "player" + i));
+            if (i % 10 == 9) {
+                assertTrue(journal.awaitCommitted(5000));
+            }
+        }
+        assertTrue(journal.awaitCommitted(5000));
+        assertFalse(rolls.isEmpty());
+
+        // 各段连起来是完整、连续的日志，当前段不超过一批
+        List<Path> segments = journal.getSegments();
+        assertEquals(rolls.size() + 1, segments.size());
+        assertEquals(file, segments.get(segments.size() - 1));
+        List<Long> sequences = new ArrayList<>();
+        for (Path segment : segments) {
+            JournalReader.readAll(segment).forEach(entry -> sequences.add(entry.getSequence()));
+        }
+        assertEquals(LongStream.rangeClosed(1, 200).boxed().toList(), sequences);
+
+        // 重启后从旧段的序号继续
+        journal.stop();
+        Files.write(file, new byte[0]);
+        journal = open(file);
+        journal.append(new JournalEntry(JournalEntryType.PASS, "room1", 200, "late"));
+        assertTrue(journal.awaitCommitted(5000));
+        assertEquals(rolls.get(rolls.size() - 1) + 1, JournalReader.readAll(file).get(0).getSequence());
+
+        // 已接受的条目写入后删除旧段
+        journal.retireSegments(rolls.get(rolls.size() - 1));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journal.getSegments().size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(file), journal.getSegments());
+    }
+
+    private static GameJournal open(Path file) throws Exception {
+        GameJournal journal = new GameJournal();
+        ReflectionTestUtils.setField(journal, "path", file.toString());
+        ReflectionTestUtils.setField(journal, "fsync", false);
+        journal.start();
+        return journal;
+    }
+
+    /**
+     * 包装日志的文件通道，可以让写入阻塞或失败一次
+     */
+    private static final class ControlledChannel extends FileChannel {
+        private final FileChannel delegate;
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocking;
+        private volatile boolean failNext;
+
+        private ControlledChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        static ControlledChannel wrap(GameJournal journal) {
+            ControlledChannel channel = new ControlledChannel(
+                    (FileChannel) ReflectionTestUtils.getField(journal, "channel"));
+            ReflectionTestUtils.setField(journal, "channel", channel);
+            return channel;
+        }
+
+        void block() {
+            blocking = true;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (blocking) {
+                blocking = false;
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            if (failNext) {
+                // 写入一半后失败
+                failNext = false;
+                ByteBuffer half = src.duplicate();
+                half.limit(half.position() + src.remaining() / 2);
+                delegate.write(half);
+                throw new IOException("disk full");
+            }
+            return delegate.write(src);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
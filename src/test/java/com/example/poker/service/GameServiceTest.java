@@ -1,12 +1,18 @@
 package com.example.poker.service;
 
+import com.example.poker.exception.GameException;
 import com.example.poker.model.*;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,6 +38,12 @@ class GameServiceTest {
         roomManagementService.joinRoom(roomId, player2Id);
     }
 
+    @AfterEach
+    void tearDown() {
+        // 释放玩家的房间成员关系，下一个用例可以用同样的玩家重新建房
+        roomManagementService.removeRoom(roomId);
+    }
+
     @Test
     void testCreateRoom() {
         GameRoom room = roomManagementService.createRoom("host", 2);
@@ -40,6 +52,7 @@ class GameServiceTest {
         assertEquals("host", room.getHostId());
         assertEquals(2, room.getMaxPlayers());
         assertEquals(GameStatus.WAITING, room.getStatus());
+        roomManagementService.removeRoom(room.getId());
     }
 
     @Test
@@ -119,4 +132,51 @@ class GameServiceTest {
         assertNotNull(players);
         assertEquals(2, players.size());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testConcurrentJoinsClaimOneRoom() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            String first = roomManagementService.createRoom("dupHostA" + round, 4).getId();
+            String second = roomManagementService.createRoom("dupHostB" + round, 4).getId();
+            String playerId = "dup" + round;
+
+            // 两个房间信箱同时加入同一个玩家，只能有一个成功
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<Boolean>> joins = new ArrayList<>();
+            for (String target : List.of(first, second)) {
+                joins.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                        roomManagementService.joinRoom(target, playerId);
+                        return true;
+                    } catch (GameException e) {
+                        return false;
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+            }
+            start.countDown();
+            int joined = 0;
+            for (CompletableFuture<Boolean> join : joins) {
+                joined += join.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(1, joined);
+
+            String owner = roomManagementService.getPlayerRoomId(playerId);
+            String other = owner.equals(first) ? second : first;
+            assertTrue(roomManagementService.getRoom(owner).getPlayers().contains(playerId));
+            assertFalse(roomManagementService.getRoom(other).getPlayers().contains(playerId));
+
+            // 离开后成员关系被释放，可以加入另一个房间
+            roomManagementService.leaveRoom(owner, playerId);
+            assertNull(roomManagementService.getPlayerRoomId(playerId));
+            roomManagementService.joinRoom(other, playerId);
+            assertEquals(other, roomManagementService.getPlayerRoomId(playerId));
+
+            roomManagementService.removeRoom(first);
+            roomManagementService.removeRoom(second);
+            assertNull(roomManagementService.getPlayerRoomId(playerId));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.ClusterCommand;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpClusterTransportTest {
+
+    @Test
+    void testUnresponsivePeerTimesOutWithoutBlockingCaller() throws Exception {
+        // 只接受连接、从不响应的节点
+        try (ServerSocket peer = new ServerSocket(0)) {
+            HttpClusterTransport transport = new HttpClusterTransport(new RestTemplateBuilder(), 500, 200, 1, 10, "secret");
+            ReflectionTestUtils.setField(transport, "ownership",
+                    new RoomOwnership("node-a", "node-a,node-b=http://127.0.0.1:" + peer.getLocalPort(), 16));
+            try {
+                long start = System.nanoTime();
+                CompletableFuture<Void> sent = transport.send("node-b", ClusterCommand.builder().roomId("r1").build());
+                assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+                try (Socket ignored = peer.accept()) {
+                    ExecutionException e = assertThrows(ExecutionException.class, () -> sent.get(5, TimeUnit.SECONDS));
+                    assertTrue(e.getCause().getMessage().contains("node-b"));
+                }
+            } finally {
+                transport.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void testRequiresSecret() {
+        assertThrows(IllegalStateException.class,
+                () -> new HttpClusterTransport(new RestTemplateBuilder(), 500, 200, 1, 10, ""));
+    }
+
+    @Test
+    void testUnknownNodeFailsImmediately() {
+        HttpClusterTransport transport = new HttpClusterTransport(new RestTemplateBuilder(), 500, 200, 1, 10, "secret");
+        ReflectionTestUtils.setField(transport, "ownership", new RoomOwnership("node-a", "node-a,node-b", 16));
+        try {
+            assertTrue(transport.send("node-b", ClusterCommand.builder().build()).isCompletedExceptionally());
+        } finally {
+            transport.shutdown();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.poker.service;
+
+import com.example.poker.controller.WebSocketController;
+import com.example.poker.dto.LobbyUpdate;
+import com.example.poker.model.GameRoom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// 合并窗口设得很长，由测试手动调用flush
+@SpringBootTest(properties = "game.lobby.flush-millis=600000")
+class LobbyBroadcasterTest {
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private RoomManagementService roomManagementService;
+
+    @Autowired
+    private LobbyBroadcaster lobbyBroadcaster;
+
+    @Autowired
+    private RoomRegistry roomRegistry;
+
+    @BeforeEach
+    void setUp() {
+        lobbyBroadcaster.flush();
+        clearInvocations(messagingTemplate);
+    }
+
+    @Test
+    void testChangesInWindowCoalesceIntoOneDelta() {
+        GameRoom room = roomManagementService.createRoom("lobbyHost", 4);
+        roomManagementService.joinRoom(room.getId(), "lobbyP1");
+        roomManagementService.joinRoom(room.getId(), "lobbyP2");
+        verify(messagingTemplate, never()).convertAndSend(eq(LobbyBroadcaster.deltaTopic("local")), any(Object.class));
+
+        lobbyBroadcaster.flush();
+        List<LobbyUpdate> updates = captureDeltas();
+        assertEquals(1, updates.size());
+        List<WebSocketController.RoomInfo> rooms = updates.get(0).getRooms().stream()
+                .filter(info -> info.getId().equals(room.getId()))
+                .collect(Collectors.toList());
+        assertEquals(1, rooms.size());
+        assertEquals(3, rooms.get(0).getPlayerCount());
+        assertNull(updates.get(0).getRemoved());
+
+        // 快照与最后一条增量版本一致
+        LobbyUpdate snapshot = lobbyBroadcaster.snapshot();
+        assertTrue(snapshot.isSnapshot());
+        assertEquals(updates.get(0).getVersion(), snapshot.getVersion());
+        assertTrue(snapshot.getRooms().stream().anyMatch(info -> info.getId().equals(room.getId())));
+
+        roomManagementService.removeRoom(room.getId());
+        lobbyBroadcaster.flush();
+        List<LobbyUpdate> removal = captureDeltas();
+        assertEquals(2, removal.size());
+        assertEquals(List.of(room.getId()), removal.get(1).getRemoved());
+        assertEquals(snapshot.getVersion() + 1, removal.get(1).getVersion());
+    }
+
+    @Test
+    void testRoomRemovedBeforeFlushIsNeverPublished() {
+        GameRoom room = roomManagementService.createRoom("shortLivedHost", 4);
+        roomManagementService.removeRoom(room.getId());
+        lobbyBroadcaster.flush();
+
+        verify(messagingTemplate, never()).convertAndSend(eq(LobbyBroadcaster.deltaTopic("local")), any(Object.class));
+        assertTrue(lobbyBroadcaster.snapshot().getRooms().stream().noneMatch(info -> info.getId().equals(room.getId())));
+    }
+
+    @Test
+    void testUnchangedRoomUpdateIsNotPublished() {
+        GameRoom room = roomManagementService.createRoom("syncHost", 4);
+        lobbyBroadcaster.flush();
+        clearInvocations(messagingTemplate);
+
+        // 房间没有变化时重新索引不产生增量
+        roomRegistry.update(room);
+        lobbyBroadcaster.flush();
+        verify(messagingTemplate, never()).convertAndSend(eq(LobbyBroadcaster.deltaTopic("local")), any(Object.class));
+        roomManagementService.removeRoom(room.getId());
+    }
+
+    @Test
+    void testRoomCommandsDoNotWaitForLobbySend() throws Exception {
+        GameRoom room = roomManagementService.createRoom("slowLobbyHost", 4);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(messagingTemplate).convertAndSend(eq(LobbyBroadcaster.deltaTopic("local")), any(Object.class));
+
+        CompletableFuture<Void> flushing = CompletableFuture.runAsync(lobbyBroadcaster::flush);
+        try {
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+            // 增量发送期间房间命令照常执行，不等待大厅广播
+            CompletableFuture<GameRoom> join = CompletableFuture.supplyAsync(
+                    () -> roomManagementService.joinRoom(room.getId(), "slowLobbyGuest"));
+            assertTrue(join.get(2, TimeUnit.SECONDS).getPlayers().contains("slowLobbyGuest"));
+            assertTrue(lobbyBroadcaster.snapshot().getRooms().stream().anyMatch(info -> info.getId().equals(room.getId())));
+        } finally {
+            release.countDown();
+            flushing.get(5, TimeUnit.SECONDS);
+            doNothing().when(messagingTemplate).convertAndSend(eq(LobbyBroadcaster.deltaTopic("local")), any(Object.class));
+            roomManagementService.removeRoom(room.getId());
+        }
+    }
+
+    private List<LobbyUpdate> captureDeltas() {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSend(eq(LobbyBroadcaster.deltaTopic("local")), captor.capture());
+        return captor.getAllValues().stream().map(LobbyUpdate.class::cast).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.poker.service;
+
+import com.example.poker.model.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "game.robot.delay-percent=0")
+class RobotSchedulerTest {
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private RoomManagementService roomManagementService;
+
+    @Autowired
+    private RobotScheduler robotScheduler;
+
+    @Autowired
+    private RoomExecutor roomExecutor;
+
+    @Autowired
+    private RobotSearchPool robotSearchPool;
+
+    @Test
+    void testRobotTurnsChainBackToHuman() throws Exception {
+        playUntilHostTurn("HARD");
+    }
+
+    @Test
+    void testExpertRobotsSearchOffRoomThread() throws Exception {
+        long before = robotSearchPool.getStats().getCompletedDecisions();
+        playUntilHostTurn("EXPERT");
+        // 专家机器人的决策经过搜索线程池
+        assertTrue(robotSearchPool.getStats().getCompletedDecisions() > before);
+        assertEquals(0, robotSearchPool.getStats().getPendingDecisions());
+    }
+
+    private void playUntilHostTurn(String difficulty) throws Exception {
+        GameRoom room = roomManagementService.createRoom("host", 4);
+        String roomId = room.getId();
+        gameService.addRobotsToRoom(roomId, 2, difficulty, "host");
+        gameService.startGame(roomId, "host", 1);
+        assertEquals("host", room.getCurrentPlayer());
+
+        // 房主出一张牌后，两个机器人应依次行动，再轮回房主
+        Card card = room.getPlayerHands().get("host").get(0);
+        GameMessage message = new GameMessage();
+        message.setPlayerId("host");
+        message.setCards(Collections.singletonList(card));
+        message.setDeclaredCount(1);
+        message.setDeclaredValue(card.getRank());
+        gameService.playCards(roomId, message);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline && !isHostTurn(roomId)) {
+            Thread.sleep(20);
+        }
+        assertTrue(isHostTurn(roomId));
+        // 机器人行动后牌的总数不变，公开牌面记录的手牌张数与实际一致
+        assertEquals(54, (int) roomExecutor.execute(roomId, () -> totalCards(room)));
+        roomExecutor.execute(roomId, () -> {
+            for (String playerId : room.getPlayers()) {
+                assertEquals(room.getPlayerHands().get(playerId).size(),
+                        room.getCardKnowledge().getHandSize(playerId), playerId);
+            }
+            assertEquals(room.getCurrentPile().size(), room.getCardKnowledge().getPileSize());
+        });
+        roomManagementService.removeRoom(roomId);
+        assertEquals(0, robotScheduler.getPendingCount());
+    }
+
+    @Test
+    void testNoRobotTurnWhenHumanIsCurrent() {
+        GameRoom room = roomManagementService.createRoom("host2", 4);
+        gameService.addRobotsToRoom(room.getId(), 1, "EASY", "host2");
+        gameService.startGame(room.getId(), "host2", 1);
+
+        // 轮到真人时不登记机器人回合
+        assertEquals("host2", room.getCurrentPlayer());
+        robotScheduler.reschedule(room);
+        assertEquals(0, robotScheduler.getPendingCount());
+        roomManagementService.removeRoom(room.getId());
+    }
+
+    private boolean isHostTurn(String roomId) {
+        // 在房间信箱上读取，保证看到机器人线程写入的状态
+        return roomExecutor.execute(roomId,
+                () -> "host".equals(roomManagementService.getRoom(roomId).getCurrentPlayer()));
+    }
+
+    private int totalCards(GameRoom room) {
+        int total = room.getCurrentPile().size();
+        for (CardHand hand : room.getPlayerHands().values()) {
+            total += hand.size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.RobotSearchStats;
+import com.example.poker.model.Card;
+import com.example.poker.model.Claim;
+import com.example.poker.model.RobotAction;
+import com.example.poker.model.RobotView;
+import com.example.poker.util.RandomProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RobotSearchPoolTest {
+
+    private RobotSearchPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static RobotView view() {
+        int[] own = new int[Card.RANK_COUNT];
+        own[1] = 2;
+        own[4] = 3;
+        own[8] = 1;
+        own[12] = 2;
+        return RobotView.of(1, new int[]{7, 8, 9}, own, 3, new Claim("alice", 3, 4), 0, 1);
+    }
+
+    @Test
+    void testSearchCompletesWithinBudget() throws Exception {
+        pool = new RobotSearchPool(2, 20, 2, 32, 4096, 512);
+        long start = System.nanoTime();
+        RobotAction action = pool.search("room1", view()).get(5, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertNotNull(action);
+        assertTrue(elapsedMillis >= 20, "用时 " + elapsedMillis);
+        assertTrue(elapsedMillis < 1000, "用时 " + elapsedMillis);
+        RobotSearchStats stats = pool.getStats();
+        assertEquals(1, stats.getCompletedDecisions());
+        assertTrue(stats.getAvgIterations() > 0);
+    }
+
+    @Test
+    void testConcurrentDecisionsShareThreads() throws Exception {
+        pool = new RobotSearchPool(2, 30, 2, 16, 4096, 512);
+        List<CompletableFuture<RobotAction>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 500; i++) {
+            futures.add(pool.search("room1", view()));
+        }
+        for (CompletableFuture<RobotAction> future : futures) {
+            assertNotNull(future.get(5, TimeUnit.SECONDS));
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 各决策按时间片轮流执行，总用时接近一个预算而不是500个预算
+        assertTrue(elapsedMillis < 2000, "用时 " + elapsedMillis);
+        RobotSearchStats stats = pool.getStats();
+        assertEquals(500, stats.getCompletedDecisions());
+        assertEquals(0, stats.getPendingDecisions());
+    }
+
+    @Test
+    void testConcurrentDecisionsGetEqualIterations() throws Exception {
+        // 单线程上同时提交4个决策，各决策轮流执行，迭代次数应当接近
+        pool = new RobotSearchPool(1, 40, 2, 16, 4096, 512);
+        List<CompletableFuture<RobotAction>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(pool.search("room" + i, view()));
+        }
+        for (CompletableFuture<RobotAction> future : futures) {
+            assertNotNull(future.get(5, TimeUnit.SECONDS));
+        }
+        RobotSearchStats stats = pool.getStats();
+        assertEquals(4, stats.getCompletedDecisions());
+        assertTrue(stats.getMinIterations() > 0);
+        assertTrue(stats.getMinIterations() * 2 >= stats.getMaxIterations(),
+                "最少 " + stats.getMinIterations() + "，最多 " + stats.getMaxIterations());
+    }
+
+    @Test
+    void testBudgetStartsWhenDecisionFirstRuns() throws Exception {
+        // 第二个决策排在第一个之后，它的预算从开始运行时计算，不因排队而少于第一个
+        pool = new RobotSearchPool(1, 30, 1, 16, 4096, 512);
+        CompletableFuture<RobotAction> first = pool.search("room1", view());
+        CompletableFuture<RobotAction> second = pool.search("room2", view());
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        RobotSearchStats stats = pool.getStats();
+        assertTrue(stats.getMinIterations() * 2 >= stats.getMaxIterations(),
+                "最少 " + stats.getMinIterations() + "，最多 " + stats.getMaxIterations());
+    }
+
+    @Test
+    void testRejectsBeyondMaxPending() throws Exception {
+        pool = new RobotSearchPool(1, 200, 1, 16, 1, 512);
+        CompletableFuture<RobotAction> first = pool.search("room1", view());
+        // 超过上限的决策立即返回null，由调用方使用默认策略
+        assertNull(pool.search("room1", view()).getNow(RobotAction.PASS));
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, pool.getStats().getRejectedDecisions());
+    }
+
+    @Test
+    void testSeededDecisionsAreReproducible() throws Exception {
+        // SEEDED模式下迭代次数固定，线程数和负载不同时结果也一样
+        RobotSearchPool one = new RobotSearchPool(1, 1, 2, 16, 4096, 300);
+        RobotSearchPool four = new RobotSearchPool(4, 1, 2, 16, 4096, 300);
+        try {
+            ReflectionTestUtils.setField(one, "randomProvider", new RandomProvider(RandomProvider.Mode.SEEDED, 7L));
+            ReflectionTestUtils.setField(four, "randomProvider", new RandomProvider(RandomProvider.Mode.SEEDED, 7L));
+            for (int i = 0; i < 20; i++) {
+                RobotAction expected = one.search("room1", view()).get(5, TimeUnit.SECONDS);
+                RobotAction actual = four.search("room1", view()).get(5, TimeUnit.SECONDS);
+                assertEquals(expected.toString(), actual.toString());
+            }
+            assertEquals(300, one.getStats().getMinIterations());
+            assertEquals(300, one.getStats().getMaxIterations());
+            assertEquals(300, four.getStats().getMaxIterations());
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    void testSeedsComeFromRoomGenerator() throws Exception {
+        pool = new RobotSearchPool(1, 5, 2, 16, 4096, 512);
+        RandomProvider provider = new RandomProvider(RandomProvider.Mode.SEEDED, 42L);
+        ReflectionTestUtils.setField(pool, "randomProvider", provider);
+        assertNotNull(pool.search("room1", view()).get(5, TimeUnit.SECONDS));
+
+        // 两个迭代者各从房间生成器取一个种子，同一种子下可以复现
+        RandomGenerator expected = new RandomProvider(RandomProvider.Mode.SEEDED, 42L).forRoom("room1");
+        expected.nextLong();
+        expected.nextLong();
+        assertEquals(expected.nextLong(), provider.forRoom("room1").nextLong());
+    }
+}
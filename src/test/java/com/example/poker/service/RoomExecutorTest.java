@@ -0,0 +1,151 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.RoomQueueStats;
+import com.example.poker.model.GameRoom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomExecutorTest {
+
+    private RoomExecutor roomExecutor;
+
+    @BeforeEach
+    void setUp() {
+        roomExecutor = new RoomExecutor(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        roomExecutor.shutdown();
+    }
+
+    @Test
+    void testCommandsInOneRoomRunSerially() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> order = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int index = i;
+            futures.add(roomExecutor.submit("room1", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                order.add(index);
+                running.decrementAndGet();
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, maxRunning.get());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    void testDifferentRoomsRunInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CompletableFuture<Void> first = roomExecutor.submit("room1", () -> awaitQuietly(bothStarted));
+        CompletableFuture<Void> second = roomExecutor.submit("room2", () -> awaitQuietly(bothStarted));
+
+        // 两个房间如果串行执行，第一个命令会一直等不到第二个命令开始
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testExecuteIsReentrantAndPropagatesErrors() {
+        int result = roomExecutor.execute("room1", () -> roomExecutor.execute("room1", () -> 42));
+        assertEquals(42, result);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> roomExecutor.execute("room1", () -> {
+                    throw new RuntimeException("不是你的回合");
+                }));
+        assertEquals("不是你的回合", e.getMessage());
+    }
+
+    @Test
+    void testAfterCommandRunsOnceBeforeResult() {
+        List<String> log = new ArrayList<>();
+        String result = roomExecutor.execute("room1", () -> {
+            roomExecutor.afterCommand("room1", () -> log.add("flush"));
+            // 重入调用登记的收尾动作也在外层命令结束时执行
+            roomExecutor.execute("room1", () -> roomExecutor.afterCommand("room1", () -> log.add("flush2")));
+            log.add("command");
+            return "done";
+        });
+        assertEquals("done", result);
+        assertEquals(List.of("command", "flush", "flush2"), log);
+
+        // 不在房间信箱线程上时立即执行
+        roomExecutor.afterCommand("room1", () -> log.add("now"));
+        assertEquals("now", log.get(3));
+    }
+
+    @Test
+    void testStatsAndRelease() throws Exception {
+        roomExecutor.execute("room1", () -> { });
+        roomExecutor.execute("room1", () -> { });
+
+        // 统计在命令返回结果之后才记录，稍等信箱线程收尾
+        long deadline = System.currentTimeMillis() + 1000;
+        while (roomExecutor.getStats().get(0).getProcessedCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        List<RoomQueueStats> stats = roomExecutor.getStats();
+        assertEquals(1, stats.size());
+        assertEquals("room1", stats.get(0).getRoomId());
+        assertEquals(2, stats.get(0).getProcessedCount());
+        assertEquals(0, roomExecutor.getTotalQueueDepth());
+
+        roomExecutor.release("room1");
+        assertTrue(roomExecutor.getStats().isEmpty());
+    }
+
+    @Test
+    void testLateCommandsDoNotRecreateMailboxes() throws Exception {
+        RoomRegistry registry = new RoomRegistry();
+        ReflectionTestUtils.setField(roomExecutor, "roomRegistry", registry);
+        GameRoom room = new GameRoom();
+        room.setId("room1");
+        room.setRoomName("room1");
+        registry.add(room);
+
+        roomExecutor.execute("room1", () -> { });
+        assertEquals(1, roomExecutor.getStats().size());
+
+        registry.remove("room1");
+        roomExecutor.release("room1");
+        // 房间移除后迟到的命令仍然执行，但不会留下信箱
+        roomExecutor.submit("room1", () -> { }).get(5, TimeUnit.SECONDS);
+        roomExecutor.submit("ghost", () -> { }).get(5, TimeUnit.SECONDS);
+
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!roomExecutor.getStats().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(roomExecutor.getStats().isEmpty());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("另一个房间的命令没有并行执行");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.poker.service;
+
+import com.example.poker.PokerGameApplication;
+import com.example.poker.dto.RecoveryStats;
+import com.example.poker.model.Card;
+import com.example.poker.model.GameMessage;
+import com.example.poker.model.GameRoom;
+import com.example.poker.model.GameStatus;
+import com.example.poker.model.JournalEntry;
+import com.example.poker.model.RoomSnapshot;
+import com.example.poker.util.JournalReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在同一个日志文件上先后启动两个实例，模拟进程重启后从快照和事件恢复房间
+ */
+class RoomRecoveryTest {
+
+    @TempDir
+    Path dir;
+
+    private ConfigurableApplicationContext context;
+
+    /** 日志段大小，0表示使用默认值 */
+    private long segmentBytes;
+
+    /** 恢复的玩家重连期限 */
+    private long reconnectGraceMillis = 600000;
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void testGameInProgressSurvivesRestart() throws Exception {
+        start();
+        RoomManagementService roomService = context.getBean(RoomManagementService.class);
+        GameService gameService = context.getBean(GameService.class);
+        String roomId = roomService.createRoom("alice", 4).getId();
+        roomService.joinRoom(roomId, "bob");
+        roomService.joinRoom(roomId, "carol");
+        gameService.startGame(roomId, "alice", 1);
+        for (int i = 0; i < 6; i++) {
+            playFirstCard(gameService, roomId);
+        }
+        GameRoom room = room(roomId);
+        GameMessage challenge = new GameMessage();
+        challenge.setRoomId(roomId);
+        challenge.setPlayerId(room.getCurrentPlayer());
+        challenge.setTargetPlayerId(room.getLastPlayerId());
+        gameService.challenge(roomId, challenge);
+        for (int i = 0; i < 3; i++) {
+            playFirstCard(gameService, roomId);
+        }
+        gameService.pass(roomId, room(roomId).getCurrentPlayer());
+        RoomSnapshot before = snapshot(roomId);
+        restart();
+
+        RecoveryStats stats = context.getBean(RoomRecovery.class).getLastRecovery();
+        assertEquals(1, stats.getRooms());
+        assertEquals(0, stats.getFailedRooms());
+        // 每4条事件写一次快照，只需要重放最后一个快照之后的事件
+        assertTrue(stats.getReplayedEvents() > 0 && stats.getReplayedEvents() < 4, stats.toString());
+        assertSameState(before, snapshot(roomId));
+
+        // 恢复后的房间可以继续进行
+        playFirstCard(context.getBean(GameService.class), roomId);
+        assertNotEquals(before.getCurrentPlayer(), room(roomId).getCurrentPlayer());
+    }
+
+    @Test
+    void testDeclaredCountIsReplayedAsRecorded() throws Exception {
+        start();
+        RoomManagementService roomService = context.getBean(RoomManagementService.class);
+        GameService gameService = context.getBean(GameService.class);
+        String roomId = roomService.createRoom("alice", 4).getId();
+        roomService.joinRoom(roomId, "bob");
+        roomService.joinRoom(roomId, "carol");
+        gameService.startGame(roomId, "alice", 1);
+        // 声明的张数与实际打出的张数不同
+        playFirstCard(gameService, roomId, 3);
+        RoomSnapshot before = snapshot(roomId);
+        assertEquals(3, before.getLastClaimCount());
+        restart();
+
+        assertTrue(context.getBean(RoomRecovery.class).getLastRecovery().getReplayedEvents() > 0);
+        assertSameState(before, snapshot(roomId));
+    }
+
+    @Test
+    void testLobbyChangesWithoutEventsAndRemovalsAreRecovered() throws Exception {
+        start();
+        RoomManagementService roomService = context.getBean(RoomManagementService.class);
+        GameService gameService = context.getBean(GameService.class);
+        String kept = roomService.createRoom("alice", 4).getId();
+        gameService.addRobotsToRoom(kept, 2, "HARD", "alice");
+        String removed = roomService.createRoom("bob", 4).getId();
+        roomService.joinRoom(removed, "carol");
+        roomService.removeRoom(removed);
+        restart();
+
+        assertNull(context.getBean(RoomRegistry.class).get(removed));
+        GameRoom room = room(kept);
+        assertEquals(GameStatus.WAITING, room.getStatus());
+        assertEquals(List.of("alice", "robot_0", "robot_1"), room.getPlayers());
+        assertEquals("HARD", room.getRobotDifficulty());
+        assertEquals(1, context.getBean(RoomRecovery.class).getLastRecovery().getRooms());
+    }
+
+    @Test
+    void testRestoredPlayersWhoDoNotReconnectLeave() throws Exception {
+        start();
+        RoomManagementService roomService = context.getBean(RoomManagementService.class);
+        String abandoned = roomService.createRoom("alice", 4).getId();
+        roomService.joinRoom(abandoned, "bob");
+        String rejoined = roomService.createRoom("carol", 4).getId();
+        roomService.joinRoom(rejoined, "dave");
+        reconnectGraceMillis = 1000;
+        restart();
+
+        // 只有carol重新订阅了房间
+        context.getBean(ReconnectDeadlines.class).reconnected(rejoined, "carol");
+        RoomRegistry registry = context.getBean(RoomRegistry.class);
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((registry.contains(abandoned) || registry.findRoomIdOf("dave") != null)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        // 没有人回来的房间解散，成员关系随之释放
+        assertNull(registry.get(abandoned));
+        assertNull(registry.findRoomIdOf("alice"));
+        assertNull(registry.findRoomIdOf("bob"));
+        roomService = context.getBean(RoomManagementService.class);
+        assertNotNull(roomService.createRoom("alice", 4));
+        assertEquals(List.of("carol"), room(rejoined).getPlayers());
+        assertEquals(0, context.getBean(ReconnectDeadlines.class).getPendingCount());
+    }
+
+    @Test
+    void testOldSegmentsAreCompactedAway() throws Exception {
+        segmentBytes = 2048;
+        start();
+        RoomManagementService roomService = context.getBean(RoomManagementService.class);
+        GameService gameService = context.getBean(GameService.class);
+        String roomId = roomService.createRoom("alice", 4).getId();
+        roomService.joinRoom(roomId, "bob");
+        roomService.joinRoom(roomId, "carol");
+        gameService.startGame(roomId, "alice", 1);
+        for (int i = 0; i < 12; i++) {
+            playFirstCard(gameService, roomId);
+            assertTrue(context.getBean(GameJournal.class).awaitCommitted(5000));
+        }
+        RoomSnapshot before = snapshot(roomId);
+
+        // 滚动后所有房间写入新快照，旧段被删除，日志不随运行时间增长
+        GameJournal journal = context.getBean(GameJournal.class);
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((journal.getSegments().size() > 2 || firstSequence(journal) == 1)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(journal.getSegments().size() <= 2, journal.getSegments().toString());
+        assertTrue(firstSequence(journal) > 1, "first sequence " + firstSequence(journal));
+
+        restart();
+        assertEquals(1, context.getBean(RoomRecovery.class).getLastRecovery().getRooms());
+        assertSameState(before, snapshot(roomId));
+    }
+
+    /**
+     * 日志中最早一条记录的序号
+     */
+    private static long firstSequence(GameJournal journal) throws Exception {
+        for (Path segment : journal.getSegments()) {
+            List<JournalEntry> entries = JournalReader.readAll(segment);
+            if (!entries.isEmpty()) {
+                return entries.get(0).getSequence();
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private void start() {
+        context = new SpringApplicationBuilder(PokerGameApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--game.journal.enabled=true",
+                        "--game.journal.path=" + dir.resolve("game-events.journal"),
+                        "--game.journal.fsync=false",
+                        "--game.journal.segment-bytes=" + (segmentBytes > 0 ? segmentBytes : 64L << 20),
+                        "--game.recovery.enabled=true",
+                        "--game.recovery.snapshot-every=4",
+                        "--game.recovery.reconnect-grace-millis=" + reconnectGraceMillis,
+                        "--spring.jmx.enabled=false");
+    }
+
+    /**
+     * 等日志写完后关闭实例，再在同一个日志文件上启动新实例
+     */
+    private void restart() throws Exception {
+        assertTrue(context.getBean(GameJournal.class).awaitCommitted(5000));
+        context.close();
+        start();
+    }
+
+    private GameRoom room(String roomId) {
+        GameRoom room = context.getBean(RoomRegistry.class).get(roomId);
+        assertNotNull(room);
+        return room;
+    }
+
+    private RoomSnapshot snapshot(String roomId) {
+        return context.getBean(RoomExecutor.class).execute(roomId, () -> RoomSnapshot.of(room(roomId)));
+    }
+
+    /**
+     * 当前玩家打出手里的第一张牌，声明上一玩家的点数或这张牌的点数
+     */
+    private void playFirstCard(GameService gameService, String roomId) {
+        playFirstCard(gameService, roomId, 1);
+    }
+
+    private void playFirstCard(GameService gameService, String roomId, int declaredCount) {
+        GameRoom room = room(roomId);
+        String playerId = room.getCurrentPlayer();
+        Card card = room.getPlayerHands().get(playerId).get(0);
+        GameMessage message = new GameMessage();
+        message.setRoomId(roomId);
+        message.setPlayerId(playerId);
+        message.setCards(List.of(card));
+        message.setDeclaredCount(declaredCount);
+        message.setDeclaredValue(room.getLastClaim() != null && !room.haveAllPlayersPassed()
+                ? room.getLastPlayedValue() : card.getRank());
+        gameService.playCards(roomId, message);
+    }
+
+    private static void assertSameState(RoomSnapshot expected, RoomSnapshot actual) {
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getPlayers(), actual.getPlayers());
+        assertEquals(expected.getCurrentPlayer(), actual.getCurrentPlayer());
+        assertEquals(expected.getCurrentPlayerIndex(), actual.getCurrentPlayerIndex());
+        assertEquals(expected.getLastClaimPlayer(), actual.getLastClaimPlayer());
+        assertEquals(expected.getLastClaimCount(), actual.getLastClaimCount());
+        assertEquals(expected.getLastClaimRank(), actual.getLastClaimRank());
+        assertEquals(expected.getLastPlayedValue(), actual.getLastPlayedValue());
+        assertEquals(expected.getLastPlayerId(), actual.getLastPlayerId());
+        assertEquals(expected.getPassedPlayers(), actual.getPassedPlayers());
+        assertEquals(expected.getWinners(), actual.getWinners());
+        assertArrayEquals(expected.getPile(), actual.getPile());
+        assertEquals(expected.getHands().keySet(), actual.getHands().keySet());
+        for (Map.Entry<String, byte[]> hand : expected.getHands().entrySet()) {
+            assertArrayEquals(hand.getValue(), actual.getHands().get(hand.getKey()), hand.getKey());
+        }
+        assertEquals(expected.getVersion(), actual.getVersion());
+    }
+}
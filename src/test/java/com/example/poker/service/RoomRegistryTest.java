@@ -0,0 +1,237 @@
+package com.example.poker.service;
+
+import com.example.poker.dto.RoomQuery;
+import com.example.poker.model.GameRoom;
+import com.example.poker.model.GameStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomRegistryTest {
+
+    private GameRoom newRoom(String id, String hostId, int maxPlayers) {
+        GameRoom room = new GameRoom();
+        room.setId(id);
+        room.setHostId(hostId);
+        room.setMaxPlayers(maxPlayers);
+        room.setStatus(GameStatus.WAITING);
+        room.setPlayers(new ArrayList<>());
+        room.addPlayer(hostId);
+        return room;
+    }
+
+    @Test
+    void testIndexesFollowUpdates() {
+        RoomRegistry registry = new RoomRegistry();
+        GameRoom room = registry.add(newRoom("r1", "host", 2));
+        assertEquals(1, registry.findOpen().size());
+        assertEquals(1, registry.findByStatus(GameStatus.WAITING).size());
+        assertEquals(1, registry.findByHost("host").size());
+
+        // 满员后不再是可加入的房间
+        room.addPlayer("p1");
+        registry.update(room);
+        assertTrue(registry.findOpen().isEmpty());
+
+        room.setStatus(GameStatus.PLAYING);
+        room.setHostId("p1");
+        registry.update(room);
+        assertTrue(registry.findByStatus(GameStatus.WAITING).isEmpty());
+        assertEquals(List.of(room), registry.findByStatus(GameStatus.PLAYING));
+        assertTrue(registry.findByHost("host").isEmpty());
+        assertEquals(List.of(room), registry.findByHost("p1"));
+
+        registry.remove("r1");
+        assertNull(registry.get("r1"));
+        assertTrue(registry.findByStatus(GameStatus.PLAYING).isEmpty());
+        assertTrue(registry.findByHost("p1").isEmpty());
+    }
+
+    @Test
+    void testListenersAndStaleUpdates() {
+        RoomRegistry registry = new RoomRegistry();
+        List<String> seen = new ArrayList<>();
+        registry.addListener(new RoomRegistry.Listener() {
+            @Override
+            public void roomChanged(GameRoom room) {
+                seen.add("changed:" + room.getId());
+            }
+
+            @Override
+            public void roomRemoved(String roomId) {
+                seen.add("removed:" + roomId);
+            }
+        });
+
+        GameRoom room = newRoom("r2", "host", 4);
+        registry.add(room);
+        // 同一ID重复登记返回已有的房间
+        assertSame(room, registry.add(newRoom("r2", "other", 4)));
+        registry.remove("r2");
+        // 已移除的房间更新时不会被重新加入
+        registry.update(room);
+        assertFalse(registry.contains("r2"));
+        assertEquals(List.of("changed:r2", "removed:r2"), seen);
+    }
+
+    @Test
+    void testSlowListenerDoesNotBlockOtherRooms() throws Exception {
+        RoomRegistry registry = new RoomRegistry();
+        GameRoom slow = registry.add(newRoom("slow", "h1", 4));
+        GameRoom fast = registry.add(newRoom("fast", "h2", 4));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        registry.addListener(new RoomRegistry.Listener() {
+            @Override
+            public void roomChanged(GameRoom room) {
+                if (room == slow) {
+                    entered.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public void roomRemoved(String roomId) {
+            }
+        });
+
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> registry.update(slow));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        try {
+            // 监听器在锁外调用，其他房间的更新和查询不需要等待
+            fast.addPlayer("p1");
+            CompletableFuture.runAsync(() -> registry.update(fast)).get(1, TimeUnit.SECONDS);
+            assertEquals("fast", registry.findRoomIdOf("p1"));
+        } finally {
+            release.countDown();
+        }
+        blocked.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testPlayerIndexFollowsMembership() {
+        RoomRegistry registry = new RoomRegistry();
+        GameRoom first = registry.add(newRoom("r3", "host", 4));
+        GameRoom second = registry.add(newRoom("r4", "host2", 4));
+        assertEquals("r3", registry.findRoomIdOf("host"));
+        assertNull(registry.findRoomIdOf("p1"));
+
+        first.addPlayer("p1");
+        registry.update(first);
+        assertSame(first, registry.findByPlayer("p1"));
+
+        // 换房间：先离开再加入，索引只指向新房间
+        first.removePlayer("p1");
+        registry.update(first);
+        assertNull(registry.findRoomIdOf("p1"));
+        second.addPlayer("p1");
+        registry.update(second);
+        assertEquals("r4", registry.findRoomIdOf("p1"));
+
+        // 解散房间后所有成员都被移出索引
+        registry.remove("r4");
+        assertNull(registry.findRoomIdOf("p1"));
+        assertNull(registry.findRoomIdOf("host2"));
+        assertEquals(1, registry.playerRooms().size());
+    }
+
+    @Test
+    void testQueryPagesWithCursorAndFilters() {
+        RoomRegistry registry = new RoomRegistry();
+        for (int i = 0; i < 25; i++) {
+            GameRoom room = newRoom("q" + i, "h" + i, i % 2 == 0 ? 4 : 6);
+            room.setRoomName((i < 10 ? "alpha-" : "beta-") + String.format("%02d", i));
+            registry.add(room);
+        }
+        GameRoom playing = registry.get("q24");
+        playing.setStatus(GameStatus.PLAYING);
+        registry.update(playing);
+
+        // 默认最新的在前，游标翻页不重复不遗漏
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            RoomRegistry.Page page = registry.query(RoomQuery.builder().limit(10).cursor(cursor).build());
+            page.getRooms().forEach(room -> seen.add(room.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(25, seen.size());
+        assertEquals("q24", seen.get(0));
+        assertEquals("q0", seen.get(24));
+
+        // 可加入 + 人数上限
+        RoomRegistry.Page open = registry.query(RoomQuery.builder().open(true).maxPlayers(4).limit(100).build());
+        assertEquals(12, open.getRooms().size());
+        assertNull(open.getNextCursor());
+
+        // 按名称前缀，越过前缀即结束
+        RoomRegistry.Page alpha = registry.query(RoomQuery.builder()
+                .sort(RoomQuery.Sort.NAME).namePrefix("alpha-").limit(4).build());
+        assertEquals("alpha-00", alpha.getRooms().get(0).getRoomName());
+        assertNotNull(alpha.getNextCursor());
+        RoomRegistry.Page rest = registry.query(RoomQuery.builder()
+                .sort(RoomQuery.Sort.NAME).namePrefix("alpha-").limit(100).cursor(alpha.getNextCursor()).build());
+        assertEquals(6, rest.getRooms().size());
+        assertEquals("alpha-04", rest.getRooms().get(0).getRoomName());
+
+        // 玩家数变化后排序随之调整
+        GameRoom crowded = registry.get("q3");
+        crowded.addPlayer("x");
+        registry.update(crowded);
+        RoomRegistry.Page byPlayers = registry.query(RoomQuery.builder().sort(RoomQuery.Sort.PLAYERS).limit(1).build());
+        assertEquals("q3", byPlayers.getRooms().get(0).getId());
+    }
+
+    @Test
+    void testSelectiveQueriesAmongManyRooms() {
+        RoomRegistry registry = new RoomRegistry();
+        for (int i = 0; i < 50_000; i++) {
+            GameRoom room = newRoom("m" + i, "h" + i, 4);
+            room.setRoomName("room-" + i);
+            room.setStatus(GameStatus.PLAYING);
+            registry.add(room);
+        }
+        // 只有少数几个房间可加入，且分散在最早登记的房间中
+        for (int i = 0; i < 5; i++) {
+            GameRoom room = registry.get("m" + (i * 7));
+            room.setStatus(GameStatus.WAITING);
+            room.setRoomName("open-" + i);
+            for (int p = 0; p < i % 3; p++) {
+                room.addPlayer("p" + i + "-" + p);
+            }
+            registry.update(room);
+        }
+
+        RoomRegistry.Page open = registry.query(RoomQuery.builder().open(true).limit(3).build());
+        assertEquals(List.of("m28", "m21", "m14"), ids(open));
+        RoomRegistry.Page rest = registry.query(RoomQuery.builder().open(true).limit(3).cursor(open.getNextCursor()).build());
+        assertEquals(List.of("m7", "m0"), ids(rest));
+        assertNull(rest.getNextCursor());
+
+        assertEquals(5, registry.query(RoomQuery.builder().status(GameStatus.WAITING).limit(100).build()).getRooms().size());
+
+        // 名称前缀配合按人数排序，只整理前缀范围内的条目
+        RoomRegistry.Page crowded = registry.query(RoomQuery.builder()
+                .namePrefix("open-").sort(RoomQuery.Sort.PLAYERS).limit(2).build());
+        assertEquals(List.of("m14", "m28"), ids(crowded));
+        RoomRegistry.Page fewer = registry.query(RoomQuery.builder()
+                .namePrefix("open-").sort(RoomQuery.Sort.PLAYERS).limit(10).cursor(crowded.getNextCursor()).build());
+        assertEquals(List.of("m7", "m21", "m0"), ids(fewer));
+    }
+
+    private static List<String> ids(RoomRegistry.Page page) {
+        List<String> ids = new ArrayList<>();
+        page.getRooms().forEach(room -> ids.add(room.getId()));
+        return ids;
+    }
+}
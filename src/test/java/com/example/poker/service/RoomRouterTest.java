@@ -0,0 +1,269 @@
+package com.example.poker.service;
+
+import com.example.poker.PokerGameApplication;
+import com.example.poker.controller.GameController;
+import com.example.poker.controller.GameWebSocketController;
+import com.example.poker.controller.WebSocketController;
+import com.example.poker.dto.RoomPage;
+import com.example.poker.dto.RoomQuery;
+import com.example.poker.exception.GameException;
+import com.example.poker.model.GameRoom;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 同一JVM中启动两个节点，命令通过进程内传输转发，
+ * 两个节点发往消息代理的消息汇总到一个共享的代理替身中
+ */
+class RoomRouterTest {
+
+    private static final String NODES = "node-a,node-b";
+
+    /** 代理替身：记录各节点发往消息代理的 节点ID -> 目标地址 */
+    private static final List<String[]> broker = new CopyOnWriteArrayList<>();
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PokerGameApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "game.cluster.node-id=" + nodeId,
+                        "game.cluster.nodes=" + NODES,
+                        "game.cluster.transport=in-process",
+                        "spring.jmx.enabled=false")
+                .run();
+        AbstractSubscribableChannel brokerChannel = context.getBean("brokerChannel", AbstractSubscribableChannel.class);
+        brokerChannel.addInterceptor(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+                if (destination != null) {
+                    broker.add(new String[]{nodeId, destination});
+                }
+                return message;
+            }
+        });
+        return context;
+    }
+
+    @Test
+    void testOwnershipIsConsistentAndBalanced() {
+        RoomOwnership a = new RoomOwnership("node-a", NODES, 128);
+        RoomOwnership b = new RoomOwnership("node-b", NODES, 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            String roomId = "room_" + i;
+            String owner = a.ownerOf(roomId);
+            assertEquals(owner, b.ownerOf(roomId));
+            assertNotEquals(a.isLocal(roomId), b.isLocal(roomId));
+            counts.merge(owner, 1, Integer::sum);
+        }
+        assertTrue(counts.get("node-a") > 4000, counts.toString());
+        assertTrue(counts.get("node-b") > 4000, counts.toString());
+
+        // 增加节点只移动部分房间，且只移到新节点上
+        RoomOwnership three = new RoomOwnership("node-a", NODES + ",node-c", 128);
+        for (int i = 0; i < 10000; i++) {
+            String roomId = "room_" + i;
+            String owner = three.ownerOf(roomId);
+            assertTrue(owner.equals(a.ownerOf(roomId)) || owner.equals("node-c"));
+        }
+    }
+
+    @Test
+    void testSingleNodeOwnsEverything() {
+        RoomOwnership single = new RoomOwnership("local", "", 128);
+        assertFalse(single.isClustered());
+        assertTrue(single.isLocal("any-room"));
+        assertEquals("local", single.ownerOf("any-room"));
+    }
+
+    @Test
+    void testRoomsAreCreatedOnTheLocalNode() {
+        GameRoom room = nodeB.getBean(RoomManagementService.class).createRoom("routerHostB", 4);
+        assertEquals("node-b", nodeB.getBean(RoomOwnership.class).ownerOf(room.getId()));
+        assertTrue(nodeB.getBean(RoomRegistry.class).contains(room.getId()));
+        assertFalse(nodeA.getBean(RoomRegistry.class).contains(room.getId()));
+    }
+
+    @Test
+    void testFailedForwardIsReportedToPlayer() throws Exception {
+        RoomOwnership ownership = nodeB.getBean(RoomOwnership.class);
+        String roomId = null;
+        for (int i = 0; roomId == null; i++) {
+            if ("node-a".equals(ownership.ownerOf("lost_" + i))) {
+                roomId = "lost_" + i;
+            }
+        }
+
+        // 节点A暂时下线
+        InProcessClusterTransport transportA = nodeA.getBean(InProcessClusterTransport.class);
+        transportA.destroy();
+        try {
+            GameWebSocketController.RobotRequest request = new GameWebSocketController.RobotRequest();
+            request.setRoomId(roomId);
+            request.setPlayerId("routerLost");
+            assertTrue(nodeB.getBean(RoomRouter.class).forwardIfRemote(roomId, "routerLost", "/game/robots/add", request));
+
+            String errors = "/user/routerLost/queue/errors";
+            long deadline = System.currentTimeMillis() + 5000;
+            while (broker.stream().noneMatch(m -> m[1].equals(errors)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(broker.stream().anyMatch(m -> m[0].equals("node-b") && m[1].equals(errors)));
+        } finally {
+            transportA.init();
+        }
+    }
+
+    @Test
+    void testCommandForRemoteRoomIsForwardedToOwner() throws Exception {
+        GameRoom room = nodeA.getBean(RoomManagementService.class).createRoom("routerHostA", 4);
+        String roomId = room.getId();
+        assertEquals("node-a", nodeA.getBean(RoomOwnership.class).ownerOf(roomId));
+
+        // 客户端连在节点B上
+        GameWebSocketController.RobotRequest request = new GameWebSocketController.RobotRequest();
+        request.setRoomId(roomId);
+        request.setPlayerId("routerHostA");
+        request.setCount(1);
+        request.setDifficulty("EASY");
+        nodeB.getBean(GameWebSocketController.class).handleAddRobots(request);
+
+        GameRoom owned = nodeA.getBean(RoomRegistry.class).get(roomId);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (owned.getRobotCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, owned.getRobotCount());
+        assertNull(nodeB.getBean(RoomRegistry.class).get(roomId));
+
+        // 房间更新只由所属节点发布到代理
+        String updates = "/topic/game/updates/" + roomId;
+        deadline = System.currentTimeMillis() + 5000;
+        while (broker.stream().noneMatch(m -> m[1].equals(updates)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(broker.stream().anyMatch(m -> m[0].equals("node-a") && m[1].equals(updates)));
+        assertTrue(broker.stream().noneMatch(m -> m[0].equals("node-b") && m[1].equals(updates)));
+    }
+
+    @Test
+    void testRestJoinAndDisconnectAreRoutedToOwner() throws Exception {
+        GameRoom room = nodeA.getBean(RoomManagementService.class).createRoom("routerRestHost", 4);
+        String roomId = room.getId();
+        GameRoom owned = nodeA.getBean(RoomRegistry.class).get(roomId);
+
+        // 客户端通过节点B的REST接口加入
+        ResponseEntity<GameRoom> response = nodeB.getBean(GameController.class)
+                .joinRoom(roomId, Map.of("playerId", "routerRestGuest"));
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!owned.getPlayers().contains("routerRestGuest") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(owned.getPlayers().contains("routerRestGuest"));
+        assertEquals(roomId, nodeB.getBean(RoomRouter.class).remoteRoomOf("routerRestGuest"));
+
+        // 玩家在节点B上断线，所属节点A把他移出房间
+        nodeB.getBean(RoomManagementService.class).removePlayerFromAllRooms("routerRestGuest");
+        deadline = System.currentTimeMillis() + 5000;
+        while (owned.getPlayers().contains("routerRestGuest") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(owned.getPlayers().contains("routerRestGuest"));
+        assertNull(nodeB.getBean(RoomRouter.class).remoteRoomOf("routerRestGuest"));
+    }
+
+    @Test
+    void testPlayerCannotJoinRoomsOnTwoNodes() {
+        RoomManagementService serviceA = nodeA.getBean(RoomManagementService.class);
+        RoomManagementService serviceB = nodeB.getBean(RoomManagementService.class);
+        GameRoom roomA = serviceA.createRoom("memberHostA", 4);
+        GameRoom roomB = serviceB.createRoom("memberHostB", 4);
+        try {
+            serviceA.joinRoom(roomA.getId(), "memberGuest");
+
+            // 两个节点的注册表互不相知，成员关系由玩家的权威节点裁决
+            GameException error = assertThrows(GameException.class,
+                    () -> serviceB.joinRoom(roomB.getId(), "memberGuest"));
+            assertEquals("ALREADY_IN_ROOM", error.getErrorCode());
+            assertFalse(nodeB.getBean(RoomRegistry.class).get(roomB.getId()).getPlayers().contains("memberGuest"));
+            assertThrows(GameException.class, () -> serviceB.createRoom("memberGuest", 4));
+
+            // 离开后可以加入其他节点上的房间
+            serviceA.leaveRoom(roomA.getId(), "memberGuest");
+            serviceB.joinRoom(roomB.getId(), "memberGuest");
+            assertTrue(nodeB.getBean(RoomRegistry.class).get(roomB.getId()).getPlayers().contains("memberGuest"));
+        } finally {
+            serviceA.removeRoom(roomA.getId());
+            serviceB.removeRoom(roomB.getId());
+        }
+        String authority = nodeA.getBean(PlayerMembership.class).authorityOf("memberGuest");
+        ConfigurableApplicationContext authorityNode = "node-a".equals(authority) ? nodeA : nodeB;
+        assertNull(authorityNode.getBean(PlayerMembership.class).claimedRoomOf("memberGuest"));
+    }
+
+    @Test
+    void testLobbyIsPublishedAndQueriedPerNode() {
+        GameRoom room = nodeB.getBean(RoomManagementService.class).createRoom("lobbyHostB", 4);
+        try {
+            // 每个节点只在自己的主题上发布自己的房间
+            nodeB.getBean(LobbyBroadcaster.class).flush();
+            nodeA.getBean(LobbyBroadcaster.class).flush();
+            String topicB = LobbyBroadcaster.deltaTopic("node-b");
+            assertTrue(broker.stream().anyMatch(m -> m[0].equals("node-b") && m[1].equals(topicB)));
+            assertTrue(broker.stream().noneMatch(m -> m[0].equals("node-a") && m[1].equals(topicB)));
+            assertTrue(broker.stream().noneMatch(m -> m[1].equals("/topic/rooms/delta")));
+
+            // 连在节点A上的客户端查询节点B的大厅，由节点B回答
+            WebSocketController controllerA = nodeA.getBean(WebSocketController.class);
+            assertNull(controllerA.queryRooms(RoomQuery.builder().nodeId("node-b").build(), () -> "lobbyViewer"));
+            assertTrue(broker.stream().anyMatch(m -> m[0].equals("node-b") && m[1].equals("/user/lobbyViewer/queue/rooms")));
+
+            // 本节点的分页带上节点ID和所有节点
+            RoomPage page = controllerA.queryRooms(new RoomQuery(), () -> "lobbyViewer");
+            assertEquals("node-a", page.getNodeId());
+            assertEquals(List.of("node-a", "node-b"), page.getNodes());
+            assertTrue(page.getRooms().stream().noneMatch(r -> r.getId().equals(room.getId())));
+        } finally {
+            nodeB.getBean(RoomManagementService.class).removeRoom(room.getId());
+        }
+    }
+}
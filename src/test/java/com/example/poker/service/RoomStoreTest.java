@@ -0,0 +1,211 @@
+package com.example.poker.service;
+
+import com.example.poker.PokerGameApplication;
+import com.example.poker.dto.RoomStoreStats;
+import com.example.poker.model.GameRoom;
+import com.example.poker.model.GameStatus;
+import com.example.poker.model.SeatRecord;
+import com.example.poker.repository.RoomRecordRepository;
+import com.example.poker.repository.SeatRecordRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 房间信息写回数据库，以及重启后从数据库重建注册表
+ */
+class RoomStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private ConfigurableApplicationContext context;
+
+    /** 载入的玩家重连期限 */
+    private long reconnectGraceMillis = 600000;
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void testChangesAreCoalescedAndWrittenInBatches() {
+        start();
+        RoomManagementService roomService = context.getBean(RoomManagementService.class);
+        RoomStore store = context.getBean(RoomStore.class);
+        List<String> roomIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String roomId = roomService.createRoom("host" + i, 4).getId();
+            roomService.joinRoom(roomId, "guest" + i);
+            roomService.joinRoom(roomId, "other" + i);
+            roomIds.add(roomId);
+        }
+        store.flush();
+
+        RoomStoreStats stats = store.getStats();
+        assertEquals(0, stats.getPendingRooms());
+        assertEquals(0, stats.getDroppedUpdates());
+        assertEquals(0, stats.getFailedWrites());
+        assertTrue(stats.getWrittenRooms() >= 5 && stats.getWrittenRooms() < 15, stats.toString());
+        assertEquals(15, stats.getWrittenRooms() + stats.getCoalescedUpdates(), stats.toString());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(List.of("host" + i, "guest" + i, "other" + i), storedPlayers(roomIds.get(i)));
+        }
+
+        roomService.removeRoom(roomIds.get(0));
+        store.flush();
+        assertNull(storedPlayers(roomIds.get(0)));
+        assertNotNull(storedPlayers(roomIds.get(1)));
+    }
+
+    @Test
+    void testJoinLeaveAndReadyTouchOneRow() {
+        start();
+        RoomManagementService roomService = context.getBean(RoomManagementService.class);
+        GameService gameService = context.getBean(GameService.class);
+        RoomStore store = context.getBean(RoomStore.class);
+        String roomId = roomService.createRoom("alice", 4).getId();
+        roomService.joinRoom(roomId, "bob");
+        roomService.joinRoom(roomId, "carol");
+        store.flush();
+        Statistics statistics = context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        roomService.leaveRoom(roomId, "bob");
+        store.flush();
+        assertEquals(1, statistics.getEntityDeleteCount());
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+
+        statistics.clear();
+        roomService.joinRoom(roomId, "dave");
+        store.flush();
+        assertEquals(0, statistics.getEntityDeleteCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+
+        statistics.clear();
+        gameService.playerReady(roomId, "carol");
+        store.flush();
+        assertEquals(0, statistics.getEntityDeleteCount());
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getEntityUpdateCount());
+
+        // 座位号保持不变，离开留下的空位不重新编号
+        List<SeatRecord> seats = seats(roomId);
+        assertEquals(List.of(0, 2, 3), seats.stream().map(SeatRecord::getSeat).collect(Collectors.toList()));
+        assertEquals(List.of("alice", "carol", "dave"), storedPlayers(roomId));
+        assertTrue(seats.get(1).isReady());
+    }
+
+    @Test
+    void testRegistryIsRebuiltFromStoreOnRestart() {
+        start();
+        RoomManagementService roomService = context.getBean(RoomManagementService.class);
+        GameService gameService = context.getBean(GameService.class);
+        String waiting = roomService.createRoom("alice", 4).getId();
+        gameService.addRobotsToRoom(waiting, 1, "HARD", "alice");
+        String playing = roomService.createRoom("bob", 4).getId();
+        roomService.joinRoom(playing, "carol");
+        gameService.startGame(playing, "bob", 1);
+        String removed = roomService.createRoom("dave", 4).getId();
+        roomService.removeRoom(removed);
+        context.close();
+        start();
+
+        RoomRegistry registry = context.getBean(RoomRegistry.class);
+        assertNull(registry.get(removed));
+        GameRoom room = registry.get(waiting);
+        assertNotNull(room);
+        assertEquals(List.of("alice", "robot_0"), room.getPlayers());
+        assertEquals("HARD", room.getRobotDifficulty());
+
+        // 数据库中只有房间信息，进行中的对局回到等待状态
+        GameRoom interrupted = registry.get(playing);
+        assertNotNull(interrupted);
+        assertEquals(GameStatus.WAITING, interrupted.getStatus());
+        assertEquals(List.of("bob", "carol"), interrupted.getPlayers());
+        assertTrue(interrupted.getReadyPlayers().isEmpty());
+        assertEquals(2, context.getBean(RoomStore.class).getStats().getLoadedRooms());
+
+        // 重建的房间可以重新开始
+        context.getBean(GameService.class).startGame(playing, "bob", 1);
+        assertEquals(GameStatus.PLAYING, registry.get(playing).getStatus());
+    }
+
+    @Test
+    void testStoredRoomIsDissolvedWhenNobodyReconnects() throws Exception {
+        start();
+        RoomManagementService roomService = context.getBean(RoomManagementService.class);
+        GameService gameService = context.getBean(GameService.class);
+        String humans = roomService.createRoom("alice", 4).getId();
+        roomService.joinRoom(humans, "bob");
+        String withRobots = roomService.createRoom("carol", 4).getId();
+        gameService.addRobotsToRoom(withRobots, 2, "EASY", "carol");
+        context.close();
+        reconnectGraceMillis = 500;
+        start();
+
+        RoomRegistry registry = context.getBean(RoomRegistry.class);
+        assertEquals(2, context.getBean(RoomStore.class).getStats().getLoadedRooms());
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((registry.contains(humans) || registry.contains(withRobots)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        // 没有人重连，只有人类玩家的房间和只剩机器人的房间都解散，玩家可以重新建房
+        assertNull(registry.get(humans));
+        assertNull(registry.get(withRobots));
+        assertTrue(registry.playerRooms().isEmpty(), registry.playerRooms().toString());
+        assertNotNull(context.getBean(RoomManagementService.class).createRoom("bob", 4));
+    }
+
+    private void start() {
+        context = new SpringApplicationBuilder(PokerGameApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:" + dir.resolve("db").toAbsolutePath(),
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--game.journal.enabled=false",
+                        "--game.store.flush-millis=60000",
+                        "--game.recovery.reconnect-grace-millis=" + reconnectGraceMillis,
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--spring.jmx.enabled=false");
+    }
+
+    /**
+     * 读取数据库中保存的房间座位，按座位号排序
+     */
+    private List<SeatRecord> seats(String roomId) {
+        List<SeatRecord> seats = context.getBean(SeatRecordRepository.class).findByRoomIdIn(List.of(roomId));
+        seats.sort(Comparator.comparingInt(SeatRecord::getSeat));
+        return seats;
+    }
+
+    /**
+     * 读取数据库中保存的房间玩家，房间不存在时返回null
+     */
+    private List<String> storedPlayers(String roomId) {
+        if (context.getBean(RoomRecordRepository.class).findById(roomId).isEmpty()) {
+            return null;
+        }
+        return seats(roomId).stream().map(SeatRecord::getPlayerId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.poker.simulation;
+
+import com.example.poker.dto.SimulationResult;
+import com.example.poker.model.Card;
+import com.example.poker.model.Claim;
+import com.example.poker.model.RobotPlayer;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SelfPlaySimulatorTest {
+
+    @Test
+    void testCountersAddUp() {
+        SelfPlaySimulator simulator = new SelfPlaySimulator(3, 1, List.of("EASY", "MEDIUM", "HARD"), 2, 7L);
+        simulator.setMaxActions(5000);
+
+        SimulationResult result = simulator.run(40);
+
+        // 模拟线程抛出异常时对局会丢失，总局数对不上
+        assertEquals(40, result.getGames());
+        assertEquals(result.getGames(), result.getFinishedGames() + result.getAbortedGames());
+        assertTrue(result.getFinishedGames() > 0);
+        assertEquals(result.getActions(), result.getPlays() + result.getPasses() + result.getChallenges());
+        assertTrue(result.getSuccessfulChallenges() <= result.getChallenges());
+        assertEquals(result.getFinishedGames(), Arrays.stream(result.getWinsBySeat()).sum());
+        assertTrue(result.getGamesPerSecond() > 0);
+    }
+
+    @Test
+    void testRejectedPlaysAreCountedAsPasses() {
+        SelfPlaySimulator simulator = new SelfPlaySimulator(3, 1, List.of("MEDIUM"), 1, 5L);
+        simulator.setMaxActions(500);
+        SelfPlaySimulator.Table table = simulator.newTable(0);
+        @SuppressWarnings("unchecked")
+        Map<String, RobotPlayer> robots = (Map<String, RobotPlayer>) ReflectionTestUtils.getField(table, "robots");
+        robots.put("robot_0", new CheatingRobot());
+
+        int turns = table.playGame();
+
+        long plays = (long) ReflectionTestUtils.getField(table, "plays");
+        long passes = (long) ReflectionTestUtils.getField(table, "passes");
+        long challenges = (long) ReflectionTestUtils.getField(table, "challenges");
+        long rejected = (long) ReflectionTestUtils.getField(table, "rejected");
+        assertTrue(rejected > 0);
+        // 被拒绝的出牌退回过牌，每个回合只计一个动作
+        assertEquals(turns, plays + passes + challenges);
+    }
+
+    @Test
+    void testSameSeedSameResult() {
+        SimulationResult first = simulate(11L);
+        SimulationResult second = simulate(11L);
+
+        assertEquals(first.getActions(), second.getActions());
+        assertEquals(first.getChallenges(), second.getChallenges());
+        assertEquals(first.getSuccessfulChallenges(), second.getSuccessfulChallenges());
+        assertArrayEquals(first.getWinsBySeat(), second.getWinsBySeat());
+    }
+
+    @Test
+    void testExpertRobotsPlayWithoutSearchPool() {
+        SelfPlaySimulator simulator = new SelfPlaySimulator(4, 1, List.of("HARD", "EXPERT"), 2, 3L);
+        simulator.setSearchIterations(20);
+        simulator.setMaxActions(3000);
+
+        SimulationResult result = simulator.run(8);
+
+        assertEquals(8, result.getGames());
+        assertEquals(result.getFinishedGames(), Arrays.stream(result.getWinsBySeat()).sum());
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new SelfPlaySimulator(1, 1, List.of("EASY"), 1, 0L));
+        assertThrows(IllegalArgumentException.class, () -> new SelfPlaySimulator(4, 0, List.of("EASY"), 1, 0L));
+        assertThrows(IllegalArgumentException.class, () -> new SelfPlaySimulator(4, 1, List.of(), 1, 0L));
+    }
+
+    private SimulationResult simulate(long seed) {
+        SelfPlaySimulator simulator = new SelfPlaySimulator(4, 2, List.of("MEDIUM", "HARD"), 3, seed);
+        simulator.setMaxActions(3000);
+        return simulator.run(30);
+    }
+
+    /**
+     * 总是打出自己没有的牌，出牌必定被规则拒绝
+     */
+    private static final class CheatingRobot extends RobotPlayer {
+
+        CheatingRobot() {
+            super("robot_0", "机器人0", "MEDIUM");
+        }
+
+        @Override
+        public List<Card> selectCardsToPlay(Claim lastClaim) {
+            for (int code = 0; code < Card.CODE_COUNT; code++) {
+                Card card = Card.ofCode(code);
+                if (!getHand().contains(card)) {
+                    return List.of(card);
+                }
+            }
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.poker.util;
+
+import com.example.poker.model.Card;
+import com.example.poker.model.GameRoom;
+import com.example.poker.model.GameStatus;
+import com.example.poker.model.CardHand;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testRoundTripDropsOnlyNulls() throws Exception {
+        GameRoom room = new GameRoom();
+        room.setId("codec-room");
+        room.setHostId("host");
+        room.setMaxPlayers(4);
+        room.setStatus(GameStatus.PLAYING);
+        room.setPlayers(new ArrayList<>(List.of("host", "p1")));
+        CardHand hand = new CardHand();
+        hand.add(Card.ofCode(0));
+        hand.add(Card.ofCode(25));
+        hand.add(Card.ofCode(Card.JOKER_CODE));
+        room.getPlayerHands().put("host", hand);
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsBytes(room.toGameState()));
+        byte[] encoded = CompactCodec.encode(json);
+        JsonNode decoded = CompactCodec.decode(encoded);
+
+        assertEquals(withoutNulls(json), withoutNulls(decoded));
+        assertTrue(encoded.length * 3 < objectMapper.writeValueAsBytes(json).length);
+    }
+
+    @Test
+    void testCardIsOneByte() {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode card = mapper.valueToTree(Card.ofCode(51));
+        byte[] encoded = CompactCodec.encode(card);
+        // 格式版本 + 类型标签 + 牌面编码
+        assertEquals(3, encoded.length);
+        JsonNode decoded = CompactCodec.decode(encoded);
+        assertEquals("DIAMONDS", decoded.get("suit").asText());
+        assertEquals(13, decoded.get("value").asInt());
+        assertEquals("13", decoded.get("rank").asText());
+    }
+
+    @Test
+    void testUnknownFieldsAndLargeNumbers() {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("自定义字段", "值");
+        node.put("lastPlayedTime", 1_700_000_000_000L);
+        node.put("negative", -42);
+        node.put("ratio", 0.5);
+        assertEquals(node, CompactCodec.decode(CompactCodec.encode(node)));
+    }
+
+    private JsonNode withoutNulls(JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode copy = objectMapper.createObjectNode();
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                if (!field.getValue().isNull()) {
+                    copy.set(field.getKey(), withoutNulls(field.getValue()));
+                }
+            }
+            return copy;
+        }
+        if (node.isArray()) {
+            List<JsonNode> elements = new ArrayList<>();
+            node.forEach(element -> elements.add(withoutNulls(element)));
+            return objectMapper.createArrayNode().addAll(elements);
+        }
+        return node;
+    }
+}
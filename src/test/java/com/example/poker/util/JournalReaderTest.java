@@ -0,0 +1,80 @@
+package com.example.poker.util;
+
+import com.example.poker.model.JournalEntry;
+import com.example.poker.model.JournalEntryType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRecordsAcrossWindowsAreRead() throws Exception {
+        Path file = dir.resolve("windows.journal");
+        List<JournalEntry> written = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            JournalEntry entry = new JournalEntry(JournalEntryType.PASS, "room" + (i % 7), i, "p" + i);
+            entry.setSequence(i);
+            if (i % 50 == 0) {
+                // 比映射窗口还大的快照
+                entry.setType(JournalEntryType.SNAPSHOT);
+                entry.setData(new byte[1000]);
+            }
+            written.add(entry);
+        }
+        write(file, written);
+
+        // 窗口只有128字节，几乎每条记录都会跨过窗口末尾
+        JournalReader reader = new JournalReader(file, 128);
+        List<JournalEntry> read = new ArrayList<>();
+        reader.forEach(read::add);
+        assertEquals(200, read.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(written.get(i).getSequence(), read.get(i).getSequence());
+            assertEquals(written.get(i).getPlayerId(), read.get(i).getPlayerId());
+        }
+        assertEquals(1000, read.get(49).getData().length);
+        assertEquals(Files.size(file), reader.validLength(null));
+    }
+
+    @Test
+    void testTornTailStopsAcrossWindows() throws Exception {
+        Path file = dir.resolve("torn.journal");
+        List<JournalEntry> written = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            JournalEntry entry = new JournalEntry(JournalEntryType.JOIN, "room1", i, "p" + i);
+            entry.setSequence(i);
+            written.add(entry);
+        }
+        write(file, written);
+        long validSize = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        JournalReader reader = new JournalReader(file, 64);
+        long[] last = {0};
+        assertEquals(validSize, reader.validLength(entry -> last[0] = entry.getSequence()));
+        assertEquals(50, last[0]);
+    }
+
+    private static void write(Path file, List<JournalEntry> entries) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        for (JournalEntry entry : entries) {
+            JournalCodec.write(entry, buffer);
+        }
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        Files.write(file, bytes);
+    }
+}
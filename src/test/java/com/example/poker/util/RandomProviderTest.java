@@ -0,0 +1,67 @@
+package com.example.poker.util;
+
+import com.example.poker.service.DeckService;
+import org.junit.jupiter.api.Test;
+
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomProviderTest {
+
+    @Test
+    void testSeededRoomGeneratorsAreReproducible() {
+        RandomProvider first = new RandomProvider(RandomProvider.Mode.SEEDED, 42L);
+        RandomProvider second = new RandomProvider(RandomProvider.Mode.SEEDED, 42L);
+
+        // 房间创建顺序不同，同一房间的序列仍然一致
+        second.forRoom("other");
+        RandomGenerator a = first.forRoom("room1");
+        RandomGenerator b = second.forRoom("room1");
+        for (int i = 0; i < 10; i++) {
+            assertEquals(a.nextLong(), b.nextLong());
+        }
+    }
+
+    @Test
+    void testRoomGeneratorIsCachedUntilReleased() {
+        RandomProvider provider = new RandomProvider(RandomProvider.Mode.SPLITTABLE, 0L);
+        RandomGenerator generator = provider.forRoom("room1");
+        assertSame(generator, provider.forRoom("room1"));
+        assertNotSame(generator, provider.forRoom("room2"));
+
+        provider.releaseRoom("room1");
+        assertNotSame(generator, provider.forRoom("room1"));
+    }
+
+    @Test
+    void testSecureShuffleGenerator() {
+        RandomProvider provider = new RandomProvider(RandomProvider.Mode.SECURE, 0L);
+        RandomGenerator generator = provider.forShuffle();
+        // 跨越缓冲区边界取数
+        long previous = generator.nextLong();
+        boolean changed = false;
+        for (int i = 0; i < 1000; i++) {
+            long next = generator.nextLong();
+            changed |= next != previous;
+            previous = next;
+        }
+        assertTrue(changed);
+        int bounded = generator.nextInt(10);
+        assertTrue(bounded >= 0 && bounded < 10);
+    }
+
+    @Test
+    void testSeededDeckIsReproducible() {
+        RandomProvider original = RandomProvider.getDefault();
+        try {
+            RandomProvider.setDefault(new RandomProvider(RandomProvider.Mode.SEEDED, 7L));
+            int[] first = new DeckService().takeShuffledOrder(2);
+            RandomProvider.setDefault(new RandomProvider(RandomProvider.Mode.SEEDED, 7L));
+            int[] second = new DeckService().takeShuffledOrder(2);
+            assertArrayEquals(first, second);
+        } finally {
+            RandomProvider.setDefault(original);
+        }
+    }
+}